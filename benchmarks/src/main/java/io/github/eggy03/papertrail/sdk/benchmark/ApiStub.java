@@ -0,0 +1,99 @@
+package io.github.eggy03.papertrail.sdk.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * An in-process stand-in for the PaperTrail API, answering every endpoint with a canned JSON body.
+ * {@code /api/v1/missing} always answers 404, with an error body shaped like the API's.
+ * <p>
+ * Request bodies are read and discarded, so the numbers reflect the SDK and transport rather than server logic.
+ * </p>
+ */
+final class ApiStub implements AutoCloseable {
+
+    static final String MESSAGE_ID = "1180563409283149874";
+    static final String GUILD_ID = "1063393738364014612";
+
+    private static final byte[] MESSAGE = json("{\"messageId\":\"" + MESSAGE_ID + "\",\"messageContent\":\"The quick brown fox jumps over the lazy dog\",\"authorId\":\"1063393738364014699\"}");
+    private static final byte[] MESSAGE_LOG_REGISTRATION = json("{\"guildId\":\"" + GUILD_ID + "\",\"channelId\":\"1063393738364014613\"}");
+    private static final byte[] AUDIT_LOG_REGISTRATION = json("{\"guildId\":\"" + GUILD_ID + "\",\"channelId\":\"1063393738364014614\"}");
+    private static final byte[] NOT_FOUND = json("{\"status\":404,\"error\":\"Not Found\",\"message\":\"Guild is not registered\",\"timeStamp\":\"2026-01-01T00:00:00Z\",\"path\":\"/api/v1/missing\"}");
+
+    static {
+        // without it, Nagle's algorithm and delayed ACKs add tens of milliseconds to every exchange
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private ApiStub(int threads) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.executor = Executors.newFixedThreadPool(threads);
+
+        server.createContext("/api/v1/content/message", exchange -> respond(exchange, MESSAGE));
+        server.createContext("/api/v1/log/message", exchange -> respond(exchange, MESSAGE_LOG_REGISTRATION));
+        server.createContext("/api/v1/log/audit", exchange -> respond(exchange, AUDIT_LOG_REGISTRATION));
+        server.createContext("/api/v1/missing", exchange -> respond(exchange, 404, NOT_FOUND));
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Starts a stub on an ephemeral loopback port.
+     *
+     * @param threads the number of threads serving requests
+     */
+    static ApiStub start(int threads) throws IOException {
+        return new ApiStub(threads);
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        respond(exchange, 200, body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] discard = new byte[4096];
+            while (in.read(discard) != -1) {
+                // drain, so the connection can be reused
+            }
+        }
+
+        if ("DELETE".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] json(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
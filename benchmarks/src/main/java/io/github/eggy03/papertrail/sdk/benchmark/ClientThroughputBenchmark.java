@@ -0,0 +1,108 @@
+package io.github.eggy03.papertrail.sdk.benchmark;
+
+import io.github.eggy03.papertrail.sdk.client.MessageLogContentClient;
+import io.github.eggy03.papertrail.sdk.client.MessageLogRegistrationClient;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogRegistrationEntity;
+import io.github.eggy03.papertrail.sdk.http.AsyncHttpServiceEngine;
+import io.github.eggy03.papertrail.sdk.http.HttpServiceEngine;
+import io.github.eggy03.papertrail.sdk.http.HttpTransport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the clients when shared by several caller threads, all going through one pair of engines.
+ * <p>
+ * JMH sets the thread count per run with {@code -t}. {@link #main(String[])} runs the benchmark once for
+ * every power of two from 1 up to the value of the {@code threads} system property, which defaults to
+ * twice the number of processors.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientThroughputBenchmark {
+
+    private static final MessageLogContentEntity MESSAGE =
+            new MessageLogContentEntity(ApiStub.MESSAGE_ID, "The quick brown fox jumps over the lazy dog", "1063393738364014699");
+
+    @Param({"JDK", "APACHE_POOLED"})
+    public HttpTransport transport;
+
+    private ApiStub stub;
+    private HttpServiceEngine engine;
+    private AsyncHttpServiceEngine asyncEngine;
+    private MessageLogContentClient contentClient;
+    private MessageLogRegistrationClient registrationClient;
+
+    @Setup
+    public void setUp() throws IOException {
+        stub = ApiStub.start(Math.max(4, Runtime.getRuntime().availableProcessors()));
+
+        HttpServiceEngine.Builder builder = HttpServiceEngine.builder(stub.baseUrl()).transport(transport);
+        engine = builder.build();
+        asyncEngine = builder.buildAsync();
+        contentClient = new MessageLogContentClient(engine, asyncEngine);
+        registrationClient = new MessageLogRegistrationClient(engine, asyncEngine);
+    }
+
+    @TearDown
+    public void tearDown() {
+        asyncEngine.close();
+        engine.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public boolean logMessage() {
+        return contentClient.logMessage(MESSAGE.getMessageId(), MESSAGE.getMessageContent(), MESSAGE.getAuthorId());
+    }
+
+    @Benchmark
+    public Optional<MessageLogContentEntity> retrieveMessage() {
+        return contentClient.retrieveMessage(ApiStub.MESSAGE_ID);
+    }
+
+    @Benchmark
+    public Optional<MessageLogContentEntity> retrieveMessageAsync() {
+        return contentClient.retrieveMessageAsync(ApiStub.MESSAGE_ID).join();
+    }
+
+    @Benchmark
+    public Optional<MessageLogRegistrationEntity> getRegisteredGuild() {
+        return registrationClient.getRegisteredGuild(ApiStub.GUILD_ID);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+
+        int maxThreads = Integer.getInteger("threads", 2 * Runtime.getRuntime().availableProcessors());
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            Options options = new OptionsBuilder()
+                    .include(ClientThroughputBenchmark.class.getName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.eggy03.papertrail.sdk.benchmark;
+
+import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import io.github.eggy03.papertrail.sdk.http.AsyncHttpServiceEngine;
+import io.github.eggy03.papertrail.sdk.http.Endpoint;
+import io.github.eggy03.papertrail.sdk.http.HttpServiceEngine;
+import io.github.eggy03.papertrail.sdk.http.HttpTransport;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded latency of one request through each engine against an in-process stub.
+ * <p>
+ * {@code baseline} performs the same GET over a bare {@link HttpURLConnection} and only drains the body,
+ * so the gap between it and {@code get} is the cost added by the engine, its transport and JSON decoding.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineOverheadBenchmark {
+
+    private static final Endpoint GET_MESSAGE = Endpoint.of(HttpMethod.GET, "/api/v1/content/message/{messageId}");
+    private static final Endpoint POST_MESSAGE = Endpoint.of(HttpMethod.POST, "/api/v1/content/message");
+
+    private static final MessageLogContentEntity MESSAGE =
+            new MessageLogContentEntity(ApiStub.MESSAGE_ID, "The quick brown fox jumps over the lazy dog", "1063393738364014699");
+
+    @Param({"JDK", "APACHE_POOLED"})
+    public HttpTransport transport;
+
+    private ApiStub stub;
+    private URL messageUrl;
+    private HttpServiceEngine engine;
+    private AsyncHttpServiceEngine asyncEngine;
+
+    @Setup
+    public void setUp() throws IOException {
+        stub = ApiStub.start(2);
+        messageUrl = new URL(stub.baseUrl() + GET_MESSAGE.expand(ApiStub.MESSAGE_ID));
+
+        HttpServiceEngine.Builder builder = HttpServiceEngine.builder(stub.baseUrl()).transport(transport);
+        engine = builder.build();
+        asyncEngine = builder.buildAsync();
+    }
+
+    @TearDown
+    public void tearDown() {
+        asyncEngine.close();
+        engine.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public int baseline() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) messageUrl.openConnection();
+        int read = 0;
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[4096];
+            for (int n; (n = in.read(buffer)) != -1; )
+                read += n;
+        }
+        return read;
+    }
+
+    @Benchmark
+    public Either<ErrorEntity, MessageLogContentEntity> get() {
+        return engine.makeRequest(GET_MESSAGE, ApiStub.MESSAGE_ID, MessageLogContentEntity.class);
+    }
+
+    @Benchmark
+    public Either<ErrorEntity, MessageLogContentEntity> post() {
+        return engine.makeRequestWithBody(POST_MESSAGE, null, MESSAGE, MessageLogContentEntity.class);
+    }
+
+    @Benchmark
+    public Either<ErrorEntity, MessageLogContentEntity> getAsync() {
+        return asyncEngine.makeRequest(GET_MESSAGE, ApiStub.MESSAGE_ID, MessageLogContentEntity.class).join();
+    }
+
+    @Benchmark
+    public Either<ErrorEntity, MessageLogContentEntity> postAsync() {
+        return asyncEngine.makeRequestWithBody(POST_MESSAGE, null, MESSAGE, MessageLogContentEntity.class).join();
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.eggy03.papertrail.sdk.benchmark;
+
+import io.github.eggy03.papertrail.sdk.codec.EntityCodec;
+import io.github.eggy03.papertrail.sdk.codec.EntityCodecs;
+import io.github.eggy03.papertrail.sdk.entity.AuditLogRegistrationEntity;
+import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogRegistrationEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes each entity to JSON bytes and reads it back, using the same Jackson mapper Spring picks up at runtime,
+ * and again using the streaming codecs generated for the entities at compile time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityJsonBenchmark {
+
+    private final JsonMapper mapper = JsonMapper.builder().build();
+
+    private final EntityCodec<MessageLogContentEntity> messageLogContentCodec = EntityCodecs.forType(MessageLogContentEntity.class);
+    private final EntityCodec<MessageLogRegistrationEntity> messageLogRegistrationCodec = EntityCodecs.forType(MessageLogRegistrationEntity.class);
+    private final EntityCodec<AuditLogRegistrationEntity> auditLogRegistrationCodec = EntityCodecs.forType(AuditLogRegistrationEntity.class);
+    private final EntityCodec<ErrorEntity> errorCodec = EntityCodecs.forType(ErrorEntity.class);
+
+    private final MessageLogContentEntity messageLogContent =
+            new MessageLogContentEntity(ApiStub.MESSAGE_ID, "The quick brown fox jumps over the lazy dog", "1063393738364014699");
+    private final MessageLogRegistrationEntity messageLogRegistration =
+            new MessageLogRegistrationEntity(ApiStub.GUILD_ID, "1063393738364014613");
+    private final AuditLogRegistrationEntity auditLogRegistration =
+            new AuditLogRegistrationEntity(ApiStub.GUILD_ID, "1063393738364014614");
+    private final ErrorEntity error =
+            new ErrorEntity(404, "Not Found", "Message not found", "2026-01-01T00:00:00Z", "/api/v1/content/message/" + ApiStub.MESSAGE_ID);
+
+    @Benchmark
+    public MessageLogContentEntity messageLogContent() {
+        return mapper.readValue(mapper.writeValueAsBytes(messageLogContent), MessageLogContentEntity.class);
+    }
+
+    @Benchmark
+    public MessageLogRegistrationEntity messageLogRegistration() {
+        return mapper.readValue(mapper.writeValueAsBytes(messageLogRegistration), MessageLogRegistrationEntity.class);
+    }
+
+    @Benchmark
+    public AuditLogRegistrationEntity auditLogRegistration() {
+        return mapper.readValue(mapper.writeValueAsBytes(auditLogRegistration), AuditLogRegistrationEntity.class);
+    }
+
+    @Benchmark
+    public ErrorEntity error() {
+        return mapper.readValue(mapper.writeValueAsBytes(error), ErrorEntity.class);
+    }
+
+    @Benchmark
+    public MessageLogContentEntity messageLogContent_generated() throws IOException {
+        return EntityCodecs.decode(messageLogContentCodec, EntityCodecs.encode(messageLogContentCodec, messageLogContent));
+    }
+
+    @Benchmark
+    public MessageLogRegistrationEntity messageLogRegistration_generated() throws IOException {
+        return EntityCodecs.decode(messageLogRegistrationCodec, EntityCodecs.encode(messageLogRegistrationCodec, messageLogRegistration));
+    }
+
+    @Benchmark
+    public AuditLogRegistrationEntity auditLogRegistration_generated() throws IOException {
+        return EntityCodecs.decode(auditLogRegistrationCodec, EntityCodecs.encode(auditLogRegistrationCodec, auditLogRegistration));
+    }
+
+    @Benchmark
+    public ErrorEntity error_generated() throws IOException {
+        return EntityCodecs.decode(errorCodec, EntityCodecs.encode(errorCodec, error));
+    }
+}
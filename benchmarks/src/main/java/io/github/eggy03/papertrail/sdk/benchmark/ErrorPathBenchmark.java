@@ -0,0 +1,82 @@
+package io.github.eggy03.papertrail.sdk.benchmark;
+
+import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import io.github.eggy03.papertrail.sdk.http.HttpServiceEngine;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a 404 answer, the most common error the API gives, read as an exception and as a status.
+ * <p>
+ * {@code exception} and {@code status} use the same bare {@link RestClient}: the first lets {@code retrieve()} throw
+ * and reads the error body from the exception, the way the engine used to, while the second inspects the status in
+ * {@code exchange()}. {@code engine} is the full blocking engine, which now takes the second path.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    private static final String MISSING = "/api/v1/missing";
+    private static final HttpHeaders HEADERS = new HttpHeaders();
+
+    private ApiStub stub;
+    private RestClient restClient;
+    private HttpServiceEngine engine;
+
+    @Setup
+    public void setUp() throws IOException {
+        stub = ApiStub.start(2);
+        restClient = RestClient.builder().baseUrl(stub.baseUrl()).build();
+        engine = HttpServiceEngine.builder(stub.baseUrl()).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public Either<ErrorEntity, MessageLogContentEntity> exception() {
+        try {
+            return Either.right(restClient.get().uri(MISSING).retrieve().body(MessageLogContentEntity.class));
+        } catch (HttpClientErrorException e) {
+            return Either.left(e.getResponseBodyAs(ErrorEntity.class));
+        }
+    }
+
+    @Benchmark
+    public Either<ErrorEntity, MessageLogContentEntity> status() {
+        return restClient.get().uri(MISSING).exchange((request, response) -> response.getStatusCode().isError()
+                ? Either.left(response.bodyTo(ErrorEntity.class))
+                : Either.right(response.bodyTo(MessageLogContentEntity.class)));
+    }
+
+    @Benchmark
+    public Either<ErrorEntity, MessageLogContentEntity> engine() {
+        return engine.makeRequest(HttpMethod.GET, MISSING, HEADERS, MessageLogContentEntity.class);
+    }
+}
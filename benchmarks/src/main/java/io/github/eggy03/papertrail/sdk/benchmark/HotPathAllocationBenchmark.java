@@ -0,0 +1,96 @@
+package io.github.eggy03.papertrail.sdk.benchmark;
+
+import io.github.eggy03.papertrail.sdk.client.MessageLogContentClient;
+import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import io.github.eggy03.papertrail.sdk.http.AsyncHttpServiceEngine;
+import io.github.eggy03.papertrail.sdk.http.HttpServiceEngine;
+import io.github.eggy03.papertrail.sdk.http.HttpTransport;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the client call path against the per-call {@link HttpHeaders} and URI builder it replaced.
+ * <p>
+ * The {@code perCallHeaders} benchmarks reproduce the former call shape through the path-based engine methods.
+ * Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm}, the bytes allocated per call.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotPathAllocationBenchmark {
+
+    private static final MessageLogContentEntity MESSAGE =
+            new MessageLogContentEntity(ApiStub.MESSAGE_ID, "The quick brown fox jumps over the lazy dog", "1063393738364014699");
+
+    @Param({"JDK", "APACHE_POOLED"})
+    public HttpTransport transport;
+
+    private ApiStub stub;
+    private HttpServiceEngine engine;
+    private AsyncHttpServiceEngine asyncEngine;
+    private MessageLogContentClient client;
+
+    @Setup
+    public void setUp() throws IOException {
+        stub = ApiStub.start(2);
+        HttpServiceEngine.Builder builder = HttpServiceEngine.builder(stub.baseUrl()).transport(transport);
+        engine = builder.build();
+        asyncEngine = builder.buildAsync();
+        client = new MessageLogContentClient(engine, asyncEngine);
+    }
+
+    @TearDown
+    public void tearDown() {
+        asyncEngine.close();
+        engine.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public Optional<MessageLogContentEntity> retrieveMessage() {
+        return client.retrieveMessage(ApiStub.MESSAGE_ID);
+    }
+
+    @Benchmark
+    public Either<ErrorEntity, MessageLogContentEntity> retrieveMessage_perCallHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return engine.makeRequest(HttpMethod.GET, "/api/v1/content/message/" + ApiStub.MESSAGE_ID, headers, MessageLogContentEntity.class);
+    }
+
+    @Benchmark
+    public boolean logMessage() {
+        return client.logMessage(MESSAGE.getMessageId(), MESSAGE.getMessageContent(), MESSAGE.getAuthorId());
+    }
+
+    @Benchmark
+    public Either<ErrorEntity, MessageLogContentEntity> logMessage_perCallHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        MessageLogContentEntity message = new MessageLogContentEntity(MESSAGE.getMessageId(), MESSAGE.getMessageContent(), MESSAGE.getAuthorId());
+        return engine.makeRequestWithBody(HttpMethod.POST, "/api/v1/content/message", headers, message, MessageLogContentEntity.class);
+    }
+}
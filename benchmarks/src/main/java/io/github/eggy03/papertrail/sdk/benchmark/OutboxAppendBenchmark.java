@@ -0,0 +1,108 @@
+package io.github.eggy03.papertrail.sdk.benchmark;
+
+import io.github.eggy03.papertrail.sdk.client.MessageLogContentClient;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import io.github.eggy03.papertrail.sdk.http.AsyncHttpServiceEngine;
+import io.github.eggy03.papertrail.sdk.http.HttpServiceEngine;
+import io.github.eggy03.papertrail.sdk.outbox.FsyncPolicy;
+import io.github.eggy03.papertrail.sdk.outbox.MessageOutbox;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of journaling a message in a {@link MessageOutbox} under each {@link FsyncPolicy}, next to logging it
+ * over HTTP against the local stub.
+ * <p>
+ * The outbox delivers to an address nothing listens on, so the journal only grows during an iteration.
+ * It is recreated in a fresh temporary directory for every iteration to keep the disk usage bounded.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutboxAppendBenchmark {
+
+    private static final MessageLogContentEntity MESSAGE =
+            new MessageLogContentEntity(ApiStub.MESSAGE_ID, "The quick brown fox jumps over the lazy dog", "1063393738364014699");
+
+    @State(Scope.Benchmark)
+    public static class OutboxState {
+
+        @Param({"NEVER", "INTERVAL", "ALWAYS"})
+        public FsyncPolicy fsyncPolicy;
+
+        private Path directory;
+        private MessageLogContentClient unreachableClient;
+        private MessageOutbox outbox;
+
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("papertrail-outbox-benchmark");
+            unreachableClient = new MessageLogContentClient("http://127.0.0.1:9");
+            outbox = MessageOutbox.builder(unreachableClient, directory).fsyncPolicy(fsyncPolicy).build();
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            outbox.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class HttpState {
+
+        private ApiStub stub;
+        private HttpServiceEngine engine;
+        private AsyncHttpServiceEngine asyncEngine;
+        private MessageLogContentClient client;
+
+        @Setup
+        public void setUp() throws IOException {
+            stub = ApiStub.start(2);
+            HttpServiceEngine.Builder builder = HttpServiceEngine.builder(stub.baseUrl());
+            engine = builder.build();
+            asyncEngine = builder.buildAsync();
+            client = new MessageLogContentClient(engine, asyncEngine);
+        }
+
+        @TearDown
+        public void tearDown() {
+            asyncEngine.close();
+            engine.close();
+            stub.close();
+        }
+    }
+
+    @Benchmark
+    public boolean defer(OutboxState state) {
+        return state.outbox.defer(MESSAGE.getMessageId(), MESSAGE.getMessageContent(), MESSAGE.getAuthorId());
+    }
+
+    @Benchmark
+    public boolean logMessageOverHttp(HttpState state) {
+        return state.client.logMessage(MESSAGE.getMessageId(), MESSAGE.getMessageContent(), MESSAGE.getAuthorId());
+    }
+}
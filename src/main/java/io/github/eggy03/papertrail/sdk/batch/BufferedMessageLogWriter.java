@@ -0,0 +1,422 @@
+package io.github.eggy03.papertrail.sdk.batch;
+
+import io.github.eggy03.papertrail.sdk.client.MessageLogContentClient;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind buffer for {@link MessageLogContentClient#logMessage(String, String, String)}.
+ * <p>
+ * Writes are placed on a bounded in-memory queue and the caller returns immediately. Background workers
+ * take writes off the queue in batches, either once {@code batchSize} writes are available or once the
+ * flush interval has elapsed since the first write of the batch, and send them through
+ * {@link MessageLogContentClient#logMessageAsync(String, String, String)}.
+ * Each worker keeps at most one batch in flight.
+ * </p>
+ * <p>
+ * The outcome of every write is reported to its {@link WriteCallback}. When the queue is full,
+ * the configured {@link OverflowPolicy} decides whether the caller blocks, the oldest write is dropped,
+ * or the new write is rejected.
+ * </p>
+ */
+public final class BufferedMessageLogWriter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(BufferedMessageLogWriter.class);
+
+    private static final WriteCallback NO_CALLBACK = (entity, outcome) -> { };
+
+    // queued by flush() to make workers send a partially filled batch without waiting out the interval
+    private static final PendingWrite FLUSH_MARKER = new PendingWrite(new MessageLogContentEntity("", "", ""), NO_CALLBACK);
+
+    private final @NonNull MessageLogContentClient client;
+    private final @NonNull BlockingQueue<PendingWrite> queue;
+
+    // the room left for writes; the queue holds one more place per worker, so flush markers never take it
+    private final @NonNull Semaphore slots;
+    private final @NonNull AtomicInteger queuedMarkers = new AtomicInteger();
+
+    private final @NonNull OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+
+    // every accepted write that has not completed yet, queued or in flight
+    private final @NonNull Set<PendingWrite> pending = ConcurrentHashMap.newKeySet();
+    private final @NonNull List<Thread> workers;
+
+    private volatile boolean closed;
+
+    private BufferedMessageLogWriter(@NonNull Builder builder) {
+        this.client = builder.client;
+        this.queue = new ArrayBlockingQueue<>(builder.capacity + builder.workers);
+        this.slots = new Semaphore(builder.capacity);
+        this.overflowPolicy = builder.overflowPolicy;
+        this.batchSize = builder.batchSize;
+        this.flushIntervalNanos = builder.flushInterval.toNanos();
+
+        List<Thread> threads = new ArrayList<>(builder.workers);
+        for (int i = 0; i < builder.workers; i++) {
+            Thread worker = new Thread(this::runWorker, "papertrail-log-writer-" + i);
+            worker.setDaemon(true);
+            threads.add(worker);
+        }
+        this.workers = Collections.unmodifiableList(threads);
+        this.workers.forEach(Thread::start);
+    }
+
+    /**
+     * Creates a builder for a writer that sends through the given client.
+     *
+     * @param client the client used to send batched writes; must not be {@code null}
+     * @return a new builder
+     * @throws NullPointerException if {@code client} is {@code null}
+     */
+    public static @NonNull Builder builder(@NonNull MessageLogContentClient client) {
+        return new Builder(Objects.requireNonNull(client, "client cannot be null"));
+    }
+
+    /**
+     * Queues a message to be logged.
+     *
+     * @param messageId      the Discord message ID (must not be {@code null})
+     * @param messageContent the content of the message (must not be {@code null} but may be empty)
+     * @param authorId       the Discord user ID of the message author (must not be {@code null})
+     * @return {@code true} if the write was queued, {@code false} if it was rejected
+     */
+    public boolean logMessage(@NonNull String messageId, @NonNull String messageContent, @NonNull String authorId) {
+        return logMessage(messageId, messageContent, authorId, NO_CALLBACK);
+    }
+
+    /**
+     * Queues a message to be logged and reports its outcome to the given callback.
+     *
+     * @param messageId      the Discord message ID (must not be {@code null})
+     * @param messageContent the content of the message (must not be {@code null} but may be empty)
+     * @param authorId       the Discord user ID of the message author (must not be {@code null})
+     * @param callback       receives the outcome of the write (must not be {@code null})
+     * @return {@code true} if the write was queued, {@code false} if it was rejected
+     */
+    public boolean logMessage(@NonNull String messageId, @NonNull String messageContent, @NonNull String authorId, @NonNull WriteCallback callback) {
+
+        Objects.requireNonNull(callback, "callback cannot be null");
+        PendingWrite write = new PendingWrite(new MessageLogContentEntity(messageId, messageContent, authorId), callback);
+
+        if (closed || !enqueue(write)) {
+            notifyCallback(write, WriteOutcome.REJECTED);
+            return false;
+        }
+
+        // close() may have drained the queue between the check above and the enqueue
+        if (closed && queue.remove(write)) {
+            taken(write);
+            pending.remove(write);
+            notifyCallback(write, WriteOutcome.REJECTED);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Sends every write queued before this call and waits until all of them, including the ones
+     * already in flight, have completed.
+     */
+    public void flush() {
+
+        List<PendingWrite> drained = new ArrayList<>();
+        while (queue.drainTo(drained, batchSize) > 0) {
+            drained.forEach(this::taken);
+            dispatch(drained).join();
+            drained.clear();
+        }
+
+        // wake up workers holding a partial batch, with at most one marker per worker queued at a time
+        for (int i = 0; i < workers.size(); i++) {
+            if (queuedMarkers.incrementAndGet() > workers.size()) {
+                queuedMarkers.decrementAndGet();
+                break;
+            }
+            queue.add(FLUSH_MARKER);
+        }
+
+        List<PendingWrite> snapshot = new ArrayList<>(pending);
+        for (PendingWrite write : snapshot)
+            write.done.join();
+    }
+
+    /**
+     * Stops accepting writes, sends everything still queued and stops the workers.
+     */
+    @Override
+    public void close() {
+
+        if (closed)
+            return;
+        closed = true;
+
+        for (Thread worker : workers)
+            worker.interrupt();
+
+        boolean interrupted = false;
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        flush();
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * The number of writes currently waiting in the queue, excluding those in flight.
+     */
+    public int getQueuedCount() {
+        return Math.max(0, queue.size() - queuedMarkers.get());
+    }
+
+    private boolean enqueue(PendingWrite write) {
+
+        pending.add(write);
+
+        boolean queued;
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    slots.acquire();
+                    queued = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    queued = false;
+                }
+                break;
+            case DROP_OLDEST:
+                while (!slots.tryAcquire()) {
+                    PendingWrite oldest = queue.poll();
+                    if (oldest == null) {
+                        // every slot is held by a write in flight; let its holder run
+                        Thread.yield();
+                        continue;
+                    }
+
+                    taken(oldest);
+                    if (oldest != FLUSH_MARKER)
+                        complete(oldest, WriteOutcome.DROPPED);
+                }
+                queued = true;
+                break;
+            default:
+                queued = slots.tryAcquire();
+        }
+
+        // a slot always leaves room in the queue
+        if (queued)
+            queue.add(write);
+        else
+            pending.remove(write);
+
+        return queued;
+    }
+
+    private void runWorker() {
+
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        while (!closed) {
+            try {
+                PendingWrite first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null)
+                    continue;
+                taken(first);
+                if (first == FLUSH_MARKER)
+                    continue;
+
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+
+                while (batch.size() < batchSize) {
+                    int before = batch.size();
+                    queue.drainTo(batch, batchSize - batch.size());
+                    for (int i = before; i < batch.size(); i++)
+                        taken(batch.get(i));
+
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.removeIf(write -> write == FLUSH_MARKER) || batch.size() >= batchSize || remaining <= 0)
+                        break;
+
+                    PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    taken(next);
+                    if (next == FLUSH_MARKER)
+                        break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // closing: send what was already taken off the queue, close() drains the rest
+                dispatch(batch).join();
+                return;
+            }
+
+            dispatch(batch).join();
+            batch.clear();
+        }
+    }
+
+    private CompletableFuture<Void> dispatch(List<PendingWrite> batch) {
+
+        List<CompletableFuture<?>> sent = new ArrayList<>(batch.size());
+        for (PendingWrite write : batch) {
+            if (write == FLUSH_MARKER)
+                continue;
+
+            MessageLogContentEntity entity = write.entity;
+
+            CompletableFuture<Boolean> response;
+            try {
+                response = client.logMessageAsync(entity.getMessageId(), entity.getMessageContent(), entity.getAuthorId());
+            } catch (RuntimeException e) {
+                log.error("Failed to send buffered message with ID {}", entity.getMessageId(), e);
+                response = CompletableFuture.completedFuture(false);
+            }
+
+            sent.add(response.whenComplete((logged, error) ->
+                    complete(write, Boolean.TRUE.equals(logged) ? WriteOutcome.LOGGED : WriteOutcome.FAILED)));
+        }
+
+        return CompletableFuture.allOf(sent.toArray(new CompletableFuture<?>[0])).exceptionally(error -> null);
+    }
+
+    // gives back the place a write or marker held in the queue, once it has been taken off
+    private void taken(PendingWrite write) {
+        if (write == FLUSH_MARKER)
+            queuedMarkers.decrementAndGet();
+        else
+            slots.release();
+    }
+
+    private void complete(PendingWrite write, WriteOutcome outcome) {
+        // the callback runs before done completes, so flush() returns only after callbacks have run
+        if (write.settled.compareAndSet(false, true)) {
+            notifyCallback(write, outcome);
+            pending.remove(write);
+            write.done.complete(outcome);
+        }
+    }
+
+    private static void notifyCallback(PendingWrite write, WriteOutcome outcome) {
+        try {
+            write.callback.onComplete(write.entity, outcome);
+        } catch (RuntimeException e) {
+            log.warn("Write callback for message with ID {} threw an exception", write.entity.getMessageId(), e);
+        }
+    }
+
+    private static final class PendingWrite {
+
+        private final MessageLogContentEntity entity;
+        private final WriteCallback callback;
+        private final AtomicBoolean settled = new AtomicBoolean();
+        private final CompletableFuture<WriteOutcome> done = new CompletableFuture<>();
+
+        private PendingWrite(MessageLogContentEntity entity, WriteCallback callback) {
+            this.entity = entity;
+            this.callback = callback;
+        }
+    }
+
+    /**
+     * Builder for {@link BufferedMessageLogWriter}.
+     */
+    public static final class Builder {
+
+        private final MessageLogContentClient client;
+        private int capacity = 10_000;
+        private int batchSize = 100;
+        private Duration flushInterval = Duration.ofMillis(100);
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        private int workers = 1;
+
+        private Builder(MessageLogContentClient client) {
+            this.client = client;
+        }
+
+        /**
+         * The maximum number of queued writes. Defaults to {@code 10000}.
+         */
+        public @NonNull Builder capacity(int capacity) {
+            this.capacity = requirePositive(capacity, "capacity");
+            return this;
+        }
+
+        /**
+         * The number of writes that triggers an immediate flush. Defaults to {@code 100}.
+         */
+        public @NonNull Builder batchSize(int batchSize) {
+            this.batchSize = requirePositive(batchSize, "batchSize");
+            return this;
+        }
+
+        /**
+         * The longest time a write waits for its batch to fill up. Defaults to 100 milliseconds.
+         */
+        public @NonNull Builder flushInterval(@NonNull Duration flushInterval) {
+            Objects.requireNonNull(flushInterval, "flushInterval cannot be null");
+            if (flushInterval.isNegative() || flushInterval.isZero())
+                throw new IllegalArgumentException("flushInterval must be positive");
+
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        /**
+         * What to do when the queue is full. Defaults to {@link OverflowPolicy#BLOCK}.
+         */
+        public @NonNull Builder overflowPolicy(@NonNull OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "overflowPolicy cannot be null");
+            return this;
+        }
+
+        /**
+         * The number of background worker threads. Defaults to {@code 1}.
+         */
+        public @NonNull Builder workers(int workers) {
+            this.workers = requirePositive(workers, "workers");
+            return this;
+        }
+
+        /**
+         * Creates the writer and starts its workers.
+         */
+        public @NonNull BufferedMessageLogWriter build() {
+            return new BufferedMessageLogWriter(this);
+        }
+
+        private static int requirePositive(int value, String name) {
+            if (value <= 0)
+                throw new IllegalArgumentException(name + " must be positive");
+            return value;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.eggy03.papertrail.sdk.batch;
+
+/**
+ * Decides what a {@link BufferedMessageLogWriter} does when its queue is full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Blocks the caller until space becomes available.
+     */
+    BLOCK,
+
+    /**
+     * Evicts the oldest queued write to make room for the new one.
+     * The evicted write completes with {@link WriteOutcome#DROPPED}.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Rejects the new write. It completes with {@link WriteOutcome#REJECTED}.
+     */
+    REJECT
+}
@@ -0,0 +1,23 @@
+package io.github.eggy03.papertrail.sdk.batch;
+
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Receives the outcome of a single write submitted to a {@link BufferedMessageLogWriter}.
+ * <p>
+ * Callbacks run on the writer's worker threads, or on the submitting thread for rejected writes,
+ * and should return quickly.
+ * </p>
+ */
+@FunctionalInterface
+public interface WriteCallback {
+
+    /**
+     * Invoked exactly once per submitted write.
+     *
+     * @param entity  the message that was submitted
+     * @param outcome how the write ended
+     */
+    void onComplete(@NonNull MessageLogContentEntity entity, @NonNull WriteOutcome outcome);
+}
@@ -0,0 +1,27 @@
+package io.github.eggy03.papertrail.sdk.batch;
+
+/**
+ * The final state of a write submitted to a {@link BufferedMessageLogWriter}.
+ */
+public enum WriteOutcome {
+
+    /**
+     * The API accepted the message.
+     */
+    LOGGED,
+
+    /**
+     * The message was sent but the API reported a failure or could not be reached.
+     */
+    FAILED,
+
+    /**
+     * The message was evicted from a full queue under {@link OverflowPolicy#DROP_OLDEST}.
+     */
+    DROPPED,
+
+    /**
+     * The message was never queued, because the queue was full or the writer was closed.
+     */
+    REJECTED
+}
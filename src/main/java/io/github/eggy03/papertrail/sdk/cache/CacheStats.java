@@ -0,0 +1,69 @@
+package io.github.eggy03.papertrail.sdk.cache;
+
+/**
+ * An immutable snapshot of a cache's counters.
+ */
+public final class CacheStats {
+
+    /**
+     * The number of lookups answered from the cache.
+     */
+    private final long hitCount;
+
+    /**
+     * The number of lookups that found no live entry.
+     */
+    private final long missCount;
+
+    /**
+     * The number of entries removed because they expired or the cache was full.
+     */
+    private final long evictionCount;
+
+    /**
+     * Creates a new {@code CacheStats}.
+     *
+     * @param hitCount      the number of lookups answered from the cache
+     * @param missCount     the number of lookups that found no live entry
+     * @param evictionCount the number of entries removed because they expired or the cache was full
+     */
+    public CacheStats(long hitCount, long missCount, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    /**
+     * The number of lookups answered from the cache.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * The number of lookups that found no live entry.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * The number of entries removed because they expired or the cache was full.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * The ratio of hits to lookups, or {@code 1.0} if there were no lookups.
+     */
+    public double getHitRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 1.0 : (double) hitCount / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount + "}";
+    }
+}
@@ -0,0 +1,179 @@
+package io.github.eggy03.papertrail.sdk.cache;
+
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * A local, write-through copy of logged message content.
+ * <p>
+ * The heap tier is a {@link TtlCache} bounded by entry count. The optional off-heap tier keeps author ID and
+ * content as UTF-8 bytes in a fixed-size direct buffer, so it can hold far more messages for the same
+ * footprint, at the cost of decoding on every hit. Writes go to both tiers and lookups try the heap tier first.
+ * </p>
+ */
+public final class ContentStore {
+
+    private static final ContentStore DISABLED = new ContentStore(TtlCache.disabled(), null);
+
+    private final @NonNull TtlCache<String, MessageLogContentEntity> heapTier;
+    private final @Nullable OffHeapContentTier offHeapTier;
+
+    private ContentStore(@NonNull TtlCache<String, MessageLogContentEntity> heapTier, @Nullable OffHeapContentTier offHeapTier) {
+        this.heapTier = heapTier;
+        this.offHeapTier = offHeapTier;
+    }
+
+    /**
+     * Creates a builder for a content store.
+     */
+    public static @NonNull Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns a store that never holds anything.
+     */
+    public static @NonNull ContentStore disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Whether this store holds content at all.
+     */
+    public boolean isEnabled() {
+        return heapTier.isEnabled() || offHeapTier != null;
+    }
+
+    /**
+     * Returns the stored content of a message.
+     *
+     * @param messageId the Discord message ID; must not be {@code null}
+     * @return the stored message, or {@code null} if it is not held locally
+     */
+    public @Nullable MessageLogContentEntity get(@NonNull String messageId) {
+
+        MessageLogContentEntity entity = heapTier.get(messageId);
+        if (entity == null && offHeapTier != null)
+            entity = offHeapTier.get(messageId);
+
+        return entity;
+    }
+
+    /**
+     * Stores the content of a message in every tier, replacing any previous content.
+     *
+     * @param entity the message to store; must not be {@code null}
+     */
+    public void put(@NonNull MessageLogContentEntity entity) {
+
+        Objects.requireNonNull(entity, "entity cannot be null");
+
+        heapTier.put(entity.getMessageId(), entity);
+        if (offHeapTier != null)
+            offHeapTier.put(entity);
+    }
+
+    /**
+     * Removes a message from every tier.
+     *
+     * @param messageId the Discord message ID; must not be {@code null}
+     */
+    public void invalidate(@NonNull String messageId) {
+
+        heapTier.invalidate(messageId);
+        if (offHeapTier != null)
+            offHeapTier.invalidate(messageId);
+    }
+
+    /**
+     * Returns the counters of the heap tier.
+     */
+    public @NonNull CacheStats heapStats() {
+        return heapTier.stats();
+    }
+
+    /**
+     * Returns the counters of the off-heap tier. All counters stay at zero when the tier is disabled.
+     * Records overwritten by newer ones count as evictions.
+     */
+    public @NonNull CacheStats offHeapStats() {
+        return offHeapTier == null ? new CacheStats(0, 0, 0) : offHeapTier.stats();
+    }
+
+    /**
+     * Builder for {@link ContentStore}.
+     */
+    public static final class Builder {
+
+        private Duration ttl = Duration.ofMinutes(10);
+        private int heapMaximumSize = 10_000;
+        private int offHeapCapacityBytes;
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+        }
+
+        /**
+         * How long stored content stays valid. Defaults to 10 minutes.
+         */
+        public @NonNull Builder ttl(@NonNull Duration ttl) {
+            Objects.requireNonNull(ttl, "ttl cannot be null");
+            if (ttl.isNegative() || ttl.isZero())
+                throw new IllegalArgumentException("ttl must be positive");
+
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * The maximum number of messages in the heap tier, or {@code 0} to disable it. Defaults to {@code 10000}.
+         */
+        public @NonNull Builder heapMaximumSize(int heapMaximumSize) {
+            if (heapMaximumSize < 0)
+                throw new IllegalArgumentException("heapMaximumSize cannot be negative");
+
+            this.heapMaximumSize = heapMaximumSize;
+            return this;
+        }
+
+        /**
+         * The size of the off-heap buffer in bytes, or {@code 0} to disable the off-heap tier. Defaults to {@code 0}.
+         */
+        public @NonNull Builder offHeapCapacityBytes(int offHeapCapacityBytes) {
+            if (offHeapCapacityBytes < 0)
+                throw new IllegalArgumentException("offHeapCapacityBytes cannot be negative");
+
+            this.offHeapCapacityBytes = offHeapCapacityBytes;
+            return this;
+        }
+
+        /**
+         * The nanosecond time source. Only meant for tests.
+         */
+        @NonNull Builder ticker(@NonNull LongSupplier ticker) {
+            this.ticker = Objects.requireNonNull(ticker, "ticker cannot be null");
+            return this;
+        }
+
+        /**
+         * Creates the store, allocating the off-heap buffer if enabled.
+         */
+        public @NonNull ContentStore build() {
+
+            TtlCache<String, MessageLogContentEntity> heapTier = heapMaximumSize == 0
+                    ? TtlCache.disabled()
+                    : TtlCache.<String, MessageLogContentEntity>builder().ttl(ttl).maximumSize(heapMaximumSize).ticker(ticker).build();
+
+            OffHeapContentTier offHeapTier = offHeapCapacityBytes == 0
+                    ? null
+                    : new OffHeapContentTier(offHeapCapacityBytes, ttl.toNanos(), ticker);
+
+            return new ContentStore(heapTier, offHeapTier);
+        }
+    }
+}
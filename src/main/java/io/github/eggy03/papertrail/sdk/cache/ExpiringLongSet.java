@@ -0,0 +1,377 @@
+package io.github.eggy03.papertrail.sdk.cache;
+
+import org.jspecify.annotations.NonNull;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A thread-safe set of {@code long} values, such as Discord snowflakes, whose members expire a fixed time
+ * after they were added.
+ * <p>
+ * Members are kept in a single open-addressing {@code long[]} table holding each key next to its
+ * expiry time, so a member costs 16 bytes and no objects. Lookups use optimistic reads and normally
+ * take no lock. Once {@code maximumSize} live members are held, new members are not added until
+ * existing ones expire or are removed.
+ * </p>
+ */
+public final class ExpiringLongSet {
+
+    private static final ExpiringLongSet DISABLED = new ExpiringLongSet(Duration.ZERO, 0, System::nanoTime);
+
+    private static final long EMPTY = 0L;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+    private static final int MIN_CAPACITY = 16;
+
+    private final long ttlNanos;
+    private final int maximumSize;
+    private final @NonNull LongSupplier ticker;
+
+    private final StampedLock lock = new StampedLock();
+
+    // interleaved [key, expiresAt] pairs; a key of EMPTY marks a free slot, the EMPTY key itself is stored aside
+    private long[] table;
+    private int size;
+    private boolean hasEmptyKey;
+    private long emptyKeyExpiresAt;
+
+    // while full, no member can expire before this time, so purging earlier would free nothing
+    private long nextPurgeAt;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    ExpiringLongSet(@NonNull Duration ttl, int maximumSize, @NonNull LongSupplier ticker) {
+        this.ttlNanos = ttl.toNanos();
+        this.maximumSize = maximumSize;
+        this.ticker = ticker;
+        this.table = new long[2 * MIN_CAPACITY];
+        this.nextPurgeAt = ticker.getAsLong();
+    }
+
+    /**
+     * Creates a builder for a set.
+     */
+    public static @NonNull Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns a set that never holds anything. Lookups always miss and are not counted.
+     */
+    public static @NonNull ExpiringLongSet disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Whether this set stores members at all.
+     */
+    public boolean isEnabled() {
+        return maximumSize > 0;
+    }
+
+    /**
+     * Whether the given value is a live member.
+     *
+     * @param key the value to look up
+     * @return {@code true} if the value was added and has not expired or been removed
+     */
+    public boolean contains(long key) {
+
+        if (!isEnabled())
+            return false;
+
+        long now = ticker.getAsLong();
+        long stamp = lock.tryOptimisticRead();
+        boolean found = isLive(key, now);
+
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                found = isLive(key, now);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        if (found)
+            hits.increment();
+        else
+            misses.increment();
+        return found;
+    }
+
+    /**
+     * Adds the given value, or restarts its time to live if it is already a member.
+     *
+     * @param key the value to add
+     */
+    public void add(long key) {
+
+        if (!isEnabled())
+            return;
+
+        long now = ticker.getAsLong();
+        long stamp = lock.writeLock();
+        try {
+            if (key == EMPTY) {
+                if (!hasEmptyKey && size >= maximumSize && purgeExpired(now) == 0)
+                    return;
+                if (!hasEmptyKey)
+                    size++;
+                hasEmptyKey = true;
+                emptyKeyExpiresAt = now + ttlNanos;
+                return;
+            }
+
+            int slot = find(table, key);
+            if (slot >= 0) {
+                table[slot + 1] = now + ttlNanos;
+                return;
+            }
+
+            if (size >= maximumSize && purgeExpired(now) == 0)
+                return;
+
+            if (2 * (size + 1) > table.length / 2)
+                resize(table.length);
+
+            insert(table, key, now + ttlNanos);
+            size++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the given value, if present.
+     *
+     * @param key the value to remove
+     */
+    public void remove(long key) {
+
+        if (!isEnabled())
+            return;
+
+        long stamp = lock.writeLock();
+        try {
+            if (key == EMPTY) {
+                if (hasEmptyKey)
+                    size--;
+                hasEmptyKey = false;
+                return;
+            }
+
+            int slot = find(table, key);
+            if (slot >= 0) {
+                deleteAt(slot);
+                size--;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes every member.
+     */
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            table = new long[2 * MIN_CAPACITY];
+            size = 0;
+            hasEmptyKey = false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * The number of members currently held, which may include expired members not yet removed.
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the hit, miss and eviction counters. Expired members count as evictions.
+     */
+    public @NonNull CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    // may run without the lock, so it reads the table once and never loops more than its length
+    private boolean isLive(long key, long now) {
+
+        if (key == EMPTY)
+            return hasEmptyKey && now - emptyKeyExpiresAt < 0;
+
+        long[] current = table;
+        int slot = find(current, key);
+        return slot >= 0 && now - current[slot + 1] < 0;
+    }
+
+    private static int find(long[] table, long key) {
+
+        int mask = table.length - 1;
+        int slot = home(table, key);
+        for (int probes = table.length / 2; probes > 0; probes--) {
+            long candidate = table[slot];
+            if (candidate == key)
+                return slot;
+            if (candidate == EMPTY)
+                return -1;
+            slot = (slot + 2) & mask;
+        }
+        return -1;
+    }
+
+    private static void insert(long[] table, long key, long expiresAt) {
+
+        int mask = table.length - 1;
+        int slot = home(table, key);
+        while (table[slot] != EMPTY)
+            slot = (slot + 2) & mask;
+
+        table[slot] = key;
+        table[slot + 1] = expiresAt;
+    }
+
+    // index of the key slot, always even
+    private static int home(long[] table, long key) {
+        int bits = Integer.numberOfTrailingZeros(table.length / 2);
+        return (int) ((key * GOLDEN_RATIO) >>> (64 - bits)) << 1;
+    }
+
+    // backward-shift deletion keeps linear probe chains intact without tombstones
+    private void deleteAt(int slot) {
+
+        int mask = table.length - 1;
+        int gap = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 2) & mask;
+            long key = table[next];
+            if (key == EMPTY)
+                break;
+
+            int home = home(table, key);
+            boolean staysPut = gap <= next ? (gap < home && home <= next) : (gap < home || home <= next);
+            if (staysPut)
+                continue;
+
+            table[gap] = key;
+            table[gap + 1] = table[next + 1];
+            gap = next;
+        }
+
+        table[gap] = EMPTY;
+        table[gap + 1] = 0L;
+    }
+
+    private int purgeExpired(long now) {
+
+        if (now - nextPurgeAt < 0)
+            return 0;
+
+        int before = size;
+        long earliest = now + ttlNanos;
+        long[] rebuilt = new long[table.length];
+        int live = 0;
+
+        for (int slot = 0; slot < table.length; slot += 2) {
+            long key = table[slot];
+            long expiresAt = table[slot + 1];
+            if (key != EMPTY && now - expiresAt < 0) {
+                insert(rebuilt, key, expiresAt);
+                live++;
+                if (expiresAt - earliest < 0)
+                    earliest = expiresAt;
+            }
+        }
+
+        if (hasEmptyKey && now - emptyKeyExpiresAt >= 0)
+            hasEmptyKey = false;
+        else if (hasEmptyKey) {
+            live++;
+            if (emptyKeyExpiresAt - earliest < 0)
+                earliest = emptyKeyExpiresAt;
+        }
+
+        table = rebuilt;
+        nextPurgeAt = earliest;
+        size = live;
+        evictions.add(before - live);
+        return before - live;
+    }
+
+    private void resize(int currentLength) {
+
+        long[] rebuilt = new long[currentLength * 2];
+        for (int slot = 0; slot < table.length; slot += 2) {
+            if (table[slot] != EMPTY)
+                insert(rebuilt, table[slot], table[slot + 1]);
+        }
+        table = rebuilt;
+    }
+
+    /**
+     * Builder for {@link ExpiringLongSet}.
+     */
+    public static final class Builder {
+
+        private Duration ttl = Duration.ofMinutes(1);
+        private int maximumSize = 100_000;
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+        }
+
+        /**
+         * How long a member stays in the set after it was added. Defaults to 1 minute.
+         */
+        public @NonNull Builder ttl(@NonNull Duration ttl) {
+            Objects.requireNonNull(ttl, "ttl cannot be null");
+            if (ttl.isNegative() || ttl.isZero())
+                throw new IllegalArgumentException("ttl must be positive");
+
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * The maximum number of live members. Defaults to {@code 100000}.
+         */
+        public @NonNull Builder maximumSize(int maximumSize) {
+            if (maximumSize <= 0)
+                throw new IllegalArgumentException("maximumSize must be positive");
+
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * The nanosecond time source. Only meant for tests.
+         */
+        @NonNull Builder ticker(@NonNull LongSupplier ticker) {
+            this.ticker = Objects.requireNonNull(ticker, "ticker cannot be null");
+            return this;
+        }
+
+        /**
+         * Creates the set.
+         */
+        public @NonNull ExpiringLongSet build() {
+            return new ExpiringLongSet(ttl, maximumSize, ticker);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package io.github.eggy03.papertrail.sdk.cache;
+
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Stores message content outside the Java heap, in a fixed-size direct buffer used as a ring log.
+ * <p>
+ * Each record holds the author ID and content as UTF-8 bytes; the message ID lives only in the on-heap index.
+ * New records are appended at the head and silently overwrite the oldest ones once the buffer wraps around,
+ * so the footprint never exceeds the configured capacity. Reads are optimistic and only fall back to a
+ * read lock when a write happened while the bytes were being copied.
+ * </p>
+ */
+final class OffHeapContentTier {
+
+    private static final int HEADER_BYTES = Integer.BYTES;
+
+    private final int capacity;
+    private final long ttlNanos;
+    private final @NonNull LongSupplier ticker;
+
+    private final ByteBuffer arena;
+    private final ByteBuffer writeView;
+    private final StampedLock lock = new StampedLock();
+    private final ConcurrentHashMap<String, Slot> index = new ConcurrentHashMap<>();
+
+    // guarded by the write lock
+    private final ArrayDeque<Slot> writeOrder = new ArrayDeque<>();
+    private long head;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    OffHeapContentTier(int capacity, long ttlNanos, @NonNull LongSupplier ticker) {
+        this.capacity = capacity;
+        this.ttlNanos = ttlNanos;
+        this.ticker = ticker;
+        this.arena = ByteBuffer.allocateDirect(capacity);
+        this.writeView = arena.duplicate();
+    }
+
+    @Nullable MessageLogContentEntity get(@NonNull String messageId) {
+
+        Slot slot = index.get(messageId);
+        if (slot == null) {
+            misses.increment();
+            return null;
+        }
+
+        if (ticker.getAsLong() - slot.expiresAt >= 0) {
+            if (index.remove(messageId, slot))
+                evictions.increment();
+            misses.increment();
+            return null;
+        }
+
+        byte[] record = new byte[slot.length];
+        long stamp = lock.tryOptimisticRead();
+        boolean intact = copy(slot, record);
+
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                intact = copy(slot, record);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        if (!intact) {
+            index.remove(messageId, slot);
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        int authorLength = (record[0] & 0xFF) << 24 | (record[1] & 0xFF) << 16 | (record[2] & 0xFF) << 8 | (record[3] & 0xFF);
+        String authorId = new String(record, HEADER_BYTES, authorLength, StandardCharsets.UTF_8);
+        String content = new String(record, HEADER_BYTES + authorLength, record.length - HEADER_BYTES - authorLength, StandardCharsets.UTF_8);
+
+        return new MessageLogContentEntity(messageId, content, authorId);
+    }
+
+    void put(@NonNull MessageLogContentEntity entity) {
+
+        byte[] author = entity.getAuthorId().getBytes(StandardCharsets.UTF_8);
+        byte[] content = entity.getMessageContent().getBytes(StandardCharsets.UTF_8);
+        int length = HEADER_BYTES + author.length + content.length;
+
+        // a record larger than half the buffer would flush out most of the tier on its own
+        if (length > capacity / 2) {
+            index.remove(entity.getMessageId());
+            return;
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            long start = head;
+            int offset = (int) (start % capacity);
+            if (offset + length > capacity) {
+                // records never wrap, skip the unused tail of the buffer
+                start += capacity - offset;
+                offset = 0;
+            }
+            head = start + length;
+
+            writeView.position(offset);
+            writeView.putInt(author.length).put(author).put(content);
+
+            Slot slot = new Slot(entity.getMessageId(), start, length, ticker.getAsLong() + ttlNanos);
+            index.put(entity.getMessageId(), slot);
+            writeOrder.addLast(slot);
+
+            dropOverwritten();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void invalidate(@NonNull String messageId) {
+        index.remove(messageId);
+    }
+
+    @NonNull CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    // returns false if the record has been overwritten since the slot was created
+    private boolean copy(Slot slot, byte[] target) {
+
+        if (isOverwritten(slot))
+            return false;
+
+        ByteBuffer view = arena.duplicate();
+        view.position((int) (slot.start % capacity));
+        view.get(target);
+
+        return !isOverwritten(slot);
+    }
+
+    private boolean isOverwritten(Slot slot) {
+        return head > slot.start + capacity;
+    }
+
+    private void dropOverwritten() {
+        Slot eldest;
+        while ((eldest = writeOrder.peekFirst()) != null && isOverwritten(eldest)) {
+            writeOrder.pollFirst();
+            if (index.remove(eldest.messageId, eldest))
+                evictions.increment();
+        }
+    }
+
+    private static final class Slot {
+
+        private final String messageId;
+        private final long start;
+        private final int length;
+        private final long expiresAt;
+
+        private Slot(String messageId, long start, int length, long expiresAt) {
+            this.messageId = messageId;
+            this.start = start;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
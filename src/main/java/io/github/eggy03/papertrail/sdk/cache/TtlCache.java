@@ -0,0 +1,252 @@
+package io.github.eggy03.papertrail.sdk.cache;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A thread-safe in-process cache whose entries expire a fixed time after they were written.
+ * <p>
+ * Lookups are lock-free. Once the cache holds more than {@code maximumSize} entries, the oldest
+ * writes are evicted first. Hit, miss and eviction counters are available through {@link #stats()}.
+ * </p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class TtlCache<K, V> {
+
+    private static final TtlCache<?, ?> DISABLED = new TtlCache<>(Duration.ZERO, 0, System::nanoTime);
+
+    private final long ttlNanos;
+    private final int maximumSize;
+    private final @NonNull LongSupplier ticker;
+
+    private final ConcurrentHashMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+
+    // write order, used for size-bound eviction; may hold entries that were since replaced or removed
+    private final Queue<Entry<K, V>> writeOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger writeOrderLength = new AtomicInteger();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    TtlCache(@NonNull Duration ttl, int maximumSize, @NonNull LongSupplier ticker) {
+        this.ttlNanos = ttl.toNanos();
+        this.maximumSize = maximumSize;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Creates a builder for a cache.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     * @return a new builder
+     */
+    public static <K, V> @NonNull Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Returns a cache that never stores anything. Lookups always miss and are not counted.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     * @return the shared disabled cache
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> @NonNull TtlCache<K, V> disabled() {
+        return (TtlCache<K, V>) DISABLED;
+    }
+
+    /**
+     * Whether this cache stores entries at all.
+     */
+    public boolean isEnabled() {
+        return maximumSize > 0;
+    }
+
+    /**
+     * Returns the live value for the given key.
+     *
+     * @param key the key to look up; must not be {@code null}
+     * @return the cached value, or {@code null} if absent or expired
+     */
+    public @Nullable V get(@NonNull K key) {
+
+        if (!isEnabled())
+            return null;
+
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        if (entry.isExpired(ticker.getAsLong())) {
+            if (entries.remove(key, entry))
+                evictions.increment();
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Stores a value, replacing any previous value for the key and restarting its time to live.
+     *
+     * @param key   the key; must not be {@code null}
+     * @param value the value; must not be {@code null}
+     */
+    public void put(@NonNull K key, @NonNull V value) {
+
+        Objects.requireNonNull(key, "key cannot be null");
+        Objects.requireNonNull(value, "value cannot be null");
+
+        if (!isEnabled())
+            return;
+
+        Entry<K, V> entry = new Entry<>(key, value, ticker.getAsLong() + ttlNanos);
+        entries.put(key, entry);
+        writeOrder.offer(entry);
+        writeOrderLength.incrementAndGet();
+
+        enforceBounds();
+    }
+
+    /**
+     * Removes the value for the given key, if any.
+     *
+     * @param key the key; must not be {@code null}
+     */
+    public void invalidate(@NonNull K key) {
+        if (isEnabled())
+            entries.remove(key);
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void invalidateAll() {
+        entries.clear();
+        writeOrder.clear();
+        writeOrderLength.set(0);
+    }
+
+    /**
+     * The number of entries currently held, which may include expired entries not yet removed.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns a snapshot of the hit, miss and eviction counters.
+     */
+    public @NonNull CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private void enforceBounds() {
+
+        // evict the oldest writes while over capacity, and drop stale write-order nodes once they outnumber live entries
+        while (entries.size() > maximumSize || writeOrderLength.get() > 2 * maximumSize) {
+            Entry<K, V> eldest = writeOrder.poll();
+            if (eldest == null)
+                return;
+            writeOrderLength.decrementAndGet();
+
+            if (entries.size() > maximumSize) {
+                if (entries.remove(eldest.key, eldest))
+                    evictions.increment();
+            } else if (entries.get(eldest.key) == eldest) {
+                // still live, keep it
+                writeOrder.offer(eldest);
+                writeOrderLength.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Entry<K, V> {
+
+        private final K key;
+        private final V value;
+        private final long expiresAtNanos;
+
+        private Entry(K key, V value, long expiresAtNanos) {
+            this.key = key;
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired(long nowNanos) {
+            return nowNanos - expiresAtNanos >= 0;
+        }
+    }
+
+    /**
+     * Builder for {@link TtlCache}.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     */
+    public static final class Builder<K, V> {
+
+        private Duration ttl = Duration.ofMinutes(5);
+        private int maximumSize = 10_000;
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+        }
+
+        /**
+         * How long an entry stays valid after it was written. Defaults to 5 minutes.
+         */
+        public @NonNull Builder<K, V> ttl(@NonNull Duration ttl) {
+            Objects.requireNonNull(ttl, "ttl cannot be null");
+            if (ttl.isNegative() || ttl.isZero())
+                throw new IllegalArgumentException("ttl must be positive");
+
+            this.ttl = ttl;
+            return this;
+        }
+
+        /**
+         * The maximum number of entries before the oldest writes are evicted. Defaults to {@code 10000}.
+         */
+        public @NonNull Builder<K, V> maximumSize(int maximumSize) {
+            if (maximumSize <= 0)
+                throw new IllegalArgumentException("maximumSize must be positive");
+
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * The nanosecond time source. Only meant for tests.
+         */
+        @NonNull Builder<K, V> ticker(@NonNull LongSupplier ticker) {
+            this.ticker = Objects.requireNonNull(ticker, "ticker cannot be null");
+            return this;
+        }
+
+        /**
+         * Creates the cache.
+         */
+        public @NonNull TtlCache<K, V> build() {
+            return new TtlCache<>(ttl, maximumSize, ticker);
+        }
+    }
+}
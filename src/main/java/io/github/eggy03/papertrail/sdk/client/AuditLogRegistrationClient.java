@@ -1,46 +1,148 @@
 package io.github.eggy03.papertrail.sdk.client;
 
+import io.github.eggy03.papertrail.sdk.cache.CacheStats;
+import io.github.eggy03.papertrail.sdk.cache.ExpiringLongSet;
+import io.github.eggy03.papertrail.sdk.cache.TtlCache;
 import io.github.eggy03.papertrail.sdk.entity.AuditLogRegistrationEntity;
 import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
+import io.github.eggy03.papertrail.sdk.http.AsyncHttpServiceEngine;
+import io.github.eggy03.papertrail.sdk.http.Deadline;
+import io.github.eggy03.papertrail.sdk.http.Endpoint;
 import io.github.eggy03.papertrail.sdk.http.HttpServiceEngine;
 import io.vavr.control.Either;
 import org.jspecify.annotations.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
 
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Client for managing audit log registrations via the PaperTrail API.
  */
-public final class AuditLogRegistrationClient {
+public final class AuditLogRegistrationClient implements AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(AuditLogRegistrationClient.class);
 
+    private static final Endpoint REGISTER_GUILD = Endpoint.of(HttpMethod.POST, "/api/v1/log/audit");
+    private static final Endpoint GET_REGISTERED_GUILD = Endpoint.of(HttpMethod.GET, "/api/v1/log/audit/{guildId}");
+    private static final Endpoint DELETE_REGISTERED_GUILD = Endpoint.of(HttpMethod.DELETE, "/api/v1/log/audit/{guildId}");
+
     private final HttpServiceEngine engine;
+    private final AsyncHttpServiceEngine asyncEngine;
+    private final RegistrationCache<AuditLogRegistrationEntity> cache;
+
+    // whether the engines were created by this client, and so are released by close()
+    private final boolean ownsEngines;
 
     /**
      * Creates a new {@code AuditLogRegistrationClient} using the specified API base URL.
+     * <p>
+     * The client gets engines of its own, released by {@link #close()}. To share them with the other clients,
+     * use {@link PaperTrailClient}.
+     * </p>
      *
      * @param baseUrl the base URL of the API; must not be {@code null}
      * @throws NullPointerException if {@code baseUrl} is {@code null}
      */
     public AuditLogRegistrationClient(@NonNull String baseUrl){
-        this(new HttpServiceEngine(Objects.requireNonNull(baseUrl, "baseUrl cannot be null")));
+        this(baseUrl, TtlCache.disabled());
+    }
+
+    /**
+     * Creates a new {@code AuditLogRegistrationClient} using the specified API base URL, answering
+     * {@link #getRegisteredGuild(String)} from the given cache where possible.
+     * <p>
+     * Registrations and deletions made through this client update the cache immediately.
+     * Changes made elsewhere become visible once the cached entry expires.
+     * </p>
+     *
+     * @param baseUrl           the base URL of the API; must not be {@code null}
+     * @param registrationCache the cache of registrations keyed by guild ID; must not be {@code null}
+     * @throws NullPointerException if {@code baseUrl} or {@code registrationCache} is {@code null}
+     */
+    public AuditLogRegistrationClient(@NonNull String baseUrl, @NonNull TtlCache<String, AuditLogRegistrationEntity> registrationCache){
+        this(baseUrl, registrationCache, ExpiringLongSet.disabled());
+    }
+
+    /**
+     * Creates a new {@code AuditLogRegistrationClient} using the specified API base URL, answering
+     * {@link #getRegisteredGuild(String)} from the given caches where possible.
+     * <p>
+     * {@code unregisteredGuilds} remembers guilds the API reported as not registered, so repeated lookups
+     * for them return an empty {@link Optional} without a request. It is usually given a shorter time to live
+     * than {@code registrationCache}. Registering a guild through this client removes it from the set at once.
+     * </p>
+     *
+     * @param baseUrl            the base URL of the API; must not be {@code null}
+     * @param registrationCache  the cache of registrations keyed by guild ID; must not be {@code null}
+     * @param unregisteredGuilds the set of guild snowflakes known not to be registered; must not be {@code null}
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public AuditLogRegistrationClient(@NonNull String baseUrl, @NonNull TtlCache<String, AuditLogRegistrationEntity> registrationCache,
+            @NonNull ExpiringLongSet unregisteredGuilds){
+        this(
+                new HttpServiceEngine(Objects.requireNonNull(baseUrl, "baseUrl cannot be null")),
+                new AsyncHttpServiceEngine(baseUrl),
+                registrationCache,
+                unregisteredGuilds,
+                true
+        );
+    }
+
+    /**
+     * Creates a new {@code AuditLogRegistrationClient} using the provided HTTP service engines.
+     * <p>
+     * Engines created through {@link HttpServiceEngine#builder(String)} may be shared between clients.
+     * The caller remains responsible for closing them.
+     * </p>
+     *
+     * @param httpServiceEngine      the blocking HTTP service engine to use; must not be {@code null}
+     * @param asyncHttpServiceEngine the non-blocking HTTP service engine to use; must not be {@code null}
+     * @throws NullPointerException if either engine is {@code null}
+     */
+    public AuditLogRegistrationClient (@NonNull HttpServiceEngine httpServiceEngine, @NonNull AsyncHttpServiceEngine asyncHttpServiceEngine){
+        this(httpServiceEngine, asyncHttpServiceEngine, TtlCache.disabled(), ExpiringLongSet.disabled());
     }
 
     /**
-     * Creates a new {@code AuditLogRegistrationClient} using the provided HTTP service engine.
+     * Creates a new {@code AuditLogRegistrationClient} using the provided HTTP service engines and caches.
      *
-     * @param httpServiceEngine the HTTP service engine to use; must not be {@code null}
-     * @throws NullPointerException if {@code httpServiceEngine} is {@code null}
+     * @param httpServiceEngine      the blocking HTTP service engine to use; must not be {@code null}
+     * @param asyncHttpServiceEngine the non-blocking HTTP service engine to use; must not be {@code null}
+     * @param registrationCache      the cache of registrations keyed by guild ID; must not be {@code null}
+     * @param unregisteredGuilds     the set of guild snowflakes known not to be registered; must not be {@code null}
+     * @throws NullPointerException if any argument is {@code null}
      */
-    AuditLogRegistrationClient (@NonNull HttpServiceEngine httpServiceEngine){
+    AuditLogRegistrationClient (@NonNull HttpServiceEngine httpServiceEngine, @NonNull AsyncHttpServiceEngine asyncHttpServiceEngine,
+            @NonNull TtlCache<String, AuditLogRegistrationEntity> registrationCache, @NonNull ExpiringLongSet unregisteredGuilds){
+        this(httpServiceEngine, asyncHttpServiceEngine, registrationCache, unregisteredGuilds, false);
+    }
+
+    private AuditLogRegistrationClient (@NonNull HttpServiceEngine httpServiceEngine, @NonNull AsyncHttpServiceEngine asyncHttpServiceEngine,
+            @NonNull TtlCache<String, AuditLogRegistrationEntity> registrationCache, @NonNull ExpiringLongSet unregisteredGuilds, boolean ownsEngines){
         this.engine = Objects.requireNonNull(httpServiceEngine, "httpServiceEngine cannot be null");
+        this.asyncEngine = Objects.requireNonNull(asyncHttpServiceEngine, "asyncHttpServiceEngine cannot be null");
+        this.cache = new RegistrationCache<>(registrationCache, unregisteredGuilds);
+        this.ownsEngines = ownsEngines;
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the registration cache.
+     * All counters stay at zero when no cache was configured.
+     */
+    public @NonNull CacheStats getCacheStats() {
+        return cache.registrationStats();
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the set of guilds known not to be registered.
+     * All counters stay at zero when no such set was configured.
+     */
+    public @NonNull CacheStats getUnregisteredCacheStats() {
+        return cache.unregisteredStats();
     }
 
     /**
@@ -51,21 +153,36 @@ public final class AuditLogRegistrationClient {
      * @return {@code true} if the registration succeeded, {@code false} otherwise
      */
     public boolean registerGuild(@NonNull String guildId, @NonNull String channelId) {
+        return registerGuild(guildId, channelId, Deadline.none());
+    }
+
+    /**
+     * Registers a guild for audit logging, giving up once the deadline has passed.
+     *
+     * @param guildId   the Discord guild ID (must not be {@code null})
+     * @param channelId the Discord channel ID where audit logs should be sent (must not be {@code null})
+     * @param deadline  when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return {@code true} if the registration succeeded, {@code false} otherwise
+     * @see #registerGuild(String, String)
+     */
+    public boolean registerGuild(@NonNull String guildId, @NonNull String channelId, @NonNull Deadline deadline) {
 
         Objects.requireNonNull(guildId, "guildId cannot be null");
         Objects.requireNonNull(channelId, "channelId cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+        AuditLogRegistrationEntity registration = new AuditLogRegistrationEntity(guildId, channelId);
 
         Either<ErrorEntity, AuditLogRegistrationEntity> responseBody = engine.makeRequestWithBody(
-                HttpMethod.POST,
-                "/api/v1/log/audit",
-                headers,
-                new AuditLogRegistrationEntity(guildId, channelId),
-                AuditLogRegistrationEntity.class
+                REGISTER_GUILD,
+                null,
+                registration,
+                AuditLogRegistrationEntity.class,
+                deadline
         );
 
+        cache.registered(guildId, registration, responseBody.isRight());
+
         // log in case of failure
         responseBody.peekLeft(failure -> log.debug("Failed to register guild for audit logging.\nAPI Response: {}", failure));
 
@@ -79,19 +196,41 @@ public final class AuditLogRegistrationClient {
      * @return an {@link Optional} containing the registration if found, or empty if not registered
      */
     public Optional<AuditLogRegistrationEntity> getRegisteredGuild (@NonNull String guildId) {
+        return getRegisteredGuild(guildId, Deadline.none());
+    }
+
+    /**
+     * Retrieves the audit log registration for a guild, if one exists, giving up once the deadline has passed.
+     *
+     * @param guildId  the Discord guild ID (must not be {@code null})
+     * @param deadline when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return an {@link Optional} containing the registration if found, or empty if not registered
+     * @see #getRegisteredGuild(String)
+     */
+    public Optional<AuditLogRegistrationEntity> getRegisteredGuild (@NonNull String guildId, @NonNull Deadline deadline) {
 
         Objects.requireNonNull(guildId, "guildId cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
+
+        AuditLogRegistrationEntity cached = cache.get(guildId);
+        if (cached != null)
+            return Optional.of(cached);
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (cache.isKnownUnregistered(guildId))
+            return Optional.empty();
+
+        // an answer racing a registration or deletion is returned, but not cached
+        long generation = cache.generation(guildId);
 
         Either<ErrorEntity, AuditLogRegistrationEntity> response = engine.makeRequest(
-                HttpMethod.GET,
-                "/api/v1/log/audit/"+guildId,
-                headers,
-                AuditLogRegistrationEntity.class
+                GET_REGISTERED_GUILD,
+                guildId,
+                AuditLogRegistrationEntity.class,
+                deadline
         );
 
+        cache.lookedUp(guildId, generation, response);
+
         // in case of error entity, log it
         response.peekLeft(error -> log.debug("No guild of the ID: {} is registered.\nAPI Response: {}", guildId, error));
 
@@ -106,21 +245,172 @@ public final class AuditLogRegistrationClient {
      * @return {@code true} if the deletion succeeded, {@code false} otherwise
      */
     public boolean deleteRegisteredGuild (@NonNull String guildId) {
+        return deleteRegisteredGuild(guildId, Deadline.none());
+    }
 
-        Objects.requireNonNull(guildId, "guildId cannot be null");
+    /**
+     * Deletes the audit log registration for a guild, giving up once the deadline has passed.
+     *
+     * @param guildId  the Discord guild ID (must not be {@code null})
+     * @param deadline when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return {@code true} if the deletion succeeded, {@code false} otherwise
+     * @see #deleteRegisteredGuild(String)
+     */
+    public boolean deleteRegisteredGuild (@NonNull String guildId, @NonNull Deadline deadline) {
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+        Objects.requireNonNull(guildId, "guildId cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
 
         Either<ErrorEntity, Void> responseBody = engine.makeRequest(
-                HttpMethod.DELETE,
-                "/api/v1/log/audit/"+guildId,
-                headers,
-                Void.class
+                DELETE_REGISTERED_GUILD,
+                guildId,
+                Void.class,
+                deadline
         );
 
+        cache.deleted(guildId, responseBody.isRight());
+
         responseBody.peekLeft(failure -> log.debug("Failed to delete registered guild for audit logging.\nAPI Response: {}", failure));
 
         return responseBody.isRight();
     }
+
+    /**
+     * Asynchronously registers a guild for audit logging.
+     * Non-blocking variant of {@link #registerGuild(String, String)}.
+     *
+     * @param guildId   the Discord guild ID (must not be {@code null})
+     * @param channelId the Discord channel ID where audit logs should be sent (must not be {@code null})
+     * @return a future completing with {@code true} if the registration succeeded, {@code false} otherwise
+     */
+    public CompletableFuture<Boolean> registerGuildAsync(@NonNull String guildId, @NonNull String channelId) {
+        return registerGuildAsync(guildId, channelId, Deadline.none());
+    }
+
+    /**
+     * Asynchronously registers a guild for audit logging, giving up once the deadline has passed.
+     *
+     * @param guildId   the Discord guild ID (must not be {@code null})
+     * @param channelId the Discord channel ID where audit logs should be sent (must not be {@code null})
+     * @param deadline  when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return a future completing with {@code true} if the registration succeeded, {@code false} otherwise
+     * @see #registerGuildAsync(String, String)
+     */
+    public CompletableFuture<Boolean> registerGuildAsync(@NonNull String guildId, @NonNull String channelId, @NonNull Deadline deadline) {
+
+        Objects.requireNonNull(guildId, "guildId cannot be null");
+        Objects.requireNonNull(channelId, "channelId cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
+
+        AuditLogRegistrationEntity registration = new AuditLogRegistrationEntity(guildId, channelId);
+
+        return asyncEngine.makeRequestWithBody(
+                REGISTER_GUILD,
+                null,
+                registration,
+                AuditLogRegistrationEntity.class,
+                deadline
+        ).thenApply(responseBody -> {
+            cache.registered(guildId, registration, responseBody.isRight());
+            responseBody.peekLeft(failure -> log.debug("Failed to register guild for audit logging.\nAPI Response: {}", failure));
+            return responseBody.isRight();
+        });
+    }
+
+    /**
+     * Asynchronously retrieves the audit log registration for a guild, if one exists.
+     * Non-blocking variant of {@link #getRegisteredGuild(String)}.
+     *
+     * @param guildId the Discord guild ID (must not be {@code null})
+     * @return a future completing with an {@link Optional} containing the registration if found, or empty if not registered
+     */
+    public CompletableFuture<Optional<AuditLogRegistrationEntity>> getRegisteredGuildAsync (@NonNull String guildId) {
+        return getRegisteredGuildAsync(guildId, Deadline.none());
+    }
+
+    /**
+     * Asynchronously retrieves the audit log registration for a guild, if one exists, giving up once the deadline has passed.
+     *
+     * @param guildId  the Discord guild ID (must not be {@code null})
+     * @param deadline when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return a future completing with an {@link Optional} containing the registration if found, or empty if not registered
+     * @see #getRegisteredGuildAsync(String)
+     */
+    public CompletableFuture<Optional<AuditLogRegistrationEntity>> getRegisteredGuildAsync (@NonNull String guildId, @NonNull Deadline deadline) {
+
+        Objects.requireNonNull(guildId, "guildId cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
+
+        AuditLogRegistrationEntity cached = cache.get(guildId);
+        if (cached != null)
+            return CompletableFuture.completedFuture(Optional.of(cached));
+
+        if (cache.isKnownUnregistered(guildId))
+            return CompletableFuture.completedFuture(Optional.empty());
+
+        long generation = cache.generation(guildId);
+
+        return asyncEngine.makeRequest(
+                GET_REGISTERED_GUILD,
+                guildId,
+                AuditLogRegistrationEntity.class,
+                deadline
+        ).thenApply(response -> {
+            cache.lookedUp(guildId, generation, response);
+            response.peekLeft(error -> log.debug("No guild of the ID: {} is registered.\nAPI Response: {}", guildId, error));
+            return response.map(Optional::of).getOrElse(Optional.empty());
+        });
+    }
+
+    /**
+     * Asynchronously deletes the audit log registration for a guild.
+     * Non-blocking variant of {@link #deleteRegisteredGuild(String)}.
+     *
+     * @param guildId the Discord guild ID (must not be {@code null})
+     * @return a future completing with {@code true} if the deletion succeeded, {@code false} otherwise
+     */
+    public CompletableFuture<Boolean> deleteRegisteredGuildAsync (@NonNull String guildId) {
+        return deleteRegisteredGuildAsync(guildId, Deadline.none());
+    }
+
+    /**
+     * Asynchronously deletes the audit log registration for a guild, giving up once the deadline has passed.
+     *
+     * @param guildId  the Discord guild ID (must not be {@code null})
+     * @param deadline when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return a future completing with {@code true} if the deletion succeeded, {@code false} otherwise
+     * @see #deleteRegisteredGuildAsync(String)
+     */
+    public CompletableFuture<Boolean> deleteRegisteredGuildAsync (@NonNull String guildId, @NonNull Deadline deadline) {
+
+        Objects.requireNonNull(guildId, "guildId cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
+
+        return asyncEngine.makeRequest(
+                DELETE_REGISTERED_GUILD,
+                guildId,
+                Void.class,
+                deadline
+        ).thenApply(responseBody -> {
+            cache.deleted(guildId, responseBody.isRight());
+            responseBody.peekLeft(failure -> log.debug("Failed to delete registered guild for audit logging.\nAPI Response: {}", failure));
+            return responseBody.isRight();
+        });
+    }
+
+    /**
+     * Releases the engines this client created, if it was created from a base URL. Engines passed in by the
+     * caller, and those of a {@link PaperTrailClient}, are left open.
+     */
+    @Override
+    public void close() {
+        if (!ownsEngines)
+            return;
+
+        try {
+            asyncEngine.close();
+        } finally {
+            engine.close();
+        }
+    }
 }
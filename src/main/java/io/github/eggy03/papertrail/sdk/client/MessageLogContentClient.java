@@ -1,46 +1,139 @@
 package io.github.eggy03.papertrail.sdk.client;
 
+import io.github.eggy03.papertrail.sdk.cache.CacheStats;
+import io.github.eggy03.papertrail.sdk.cache.ContentStore;
 import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
 import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import io.github.eggy03.papertrail.sdk.http.AsyncHttpServiceEngine;
+import io.github.eggy03.papertrail.sdk.http.Deadline;
+import io.github.eggy03.papertrail.sdk.http.Endpoint;
 import io.github.eggy03.papertrail.sdk.http.HttpServiceEngine;
 import io.vavr.control.Either;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Client for managing stored message content via the PaperTrail API.
  */
-public final class MessageLogContentClient {
+public final class MessageLogContentClient implements AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(MessageLogContentClient.class);
 
+    private static final Endpoint LOG_MESSAGE = Endpoint.of(HttpMethod.POST, "/api/v1/content/message");
+    private static final Endpoint RETRIEVE_MESSAGE = Endpoint.of(HttpMethod.GET, "/api/v1/content/message/{messageId}");
+    private static final Endpoint UPDATE_MESSAGE = Endpoint.of(HttpMethod.PUT, "/api/v1/content/message");
+    private static final Endpoint DELETE_MESSAGE = Endpoint.of(HttpMethod.DELETE, "/api/v1/content/message/{messageId}");
+
+    // deletions a bulk delete keeps in flight at once, enough to finish Discord's 100-message purges in a few round trips
+    private static final int BULK_DELETE_CONCURRENCY = 16;
+
     private final HttpServiceEngine engine;
+    private final AsyncHttpServiceEngine asyncEngine;
+    private final ContentStore contentStore;
+
+    // whether the engines were created by this client, and so are released by close()
+    private final boolean ownsEngines;
 
     /**
      * Creates a new {@code MessageLogContentClient} using the specified API base URL.
+     * <p>
+     * The client gets engines of its own, released by {@link #close()}. To share them with the other clients,
+     * use {@link PaperTrailClient}.
+     * </p>
      *
      * @param baseUrl the base URL of the API; must not be {@code null}
      * @throws NullPointerException if {@code baseUrl} is {@code null}
      */
     public MessageLogContentClient(@NonNull String baseUrl){
-        this(new HttpServiceEngine(Objects.requireNonNull(baseUrl, "baseUrl cannot be null")));
+        this(baseUrl, ContentStore.disabled());
+    }
+
+    /**
+     * Creates a new {@code MessageLogContentClient} using the specified API base URL, answering
+     * {@link #retrieveMessage(String)} from the given store where possible.
+     * <p>
+     * The store is written through: messages logged or updated through this client are stored as soon as the
+     * API accepts them, and deleted messages are removed at once. Changes made elsewhere become visible once
+     * the stored message expires.
+     * </p>
+     *
+     * @param baseUrl      the base URL of the API; must not be {@code null}
+     * @param contentStore the local store of message content; must not be {@code null}
+     * @throws NullPointerException if {@code baseUrl} or {@code contentStore} is {@code null}
+     */
+    public MessageLogContentClient(@NonNull String baseUrl, @NonNull ContentStore contentStore){
+        this(
+                new HttpServiceEngine(Objects.requireNonNull(baseUrl, "baseUrl cannot be null")),
+                new AsyncHttpServiceEngine(baseUrl),
+                contentStore,
+                true
+        );
+    }
+
+    /**
+     * Creates a new {@code MessageLogContentClient} using the provided HTTP service engines.
+     * <p>
+     * Engines created through {@link HttpServiceEngine#builder(String)} may be shared between clients.
+     * The caller remains responsible for closing them.
+     * </p>
+     *
+     * @param httpServiceEngine      the blocking HTTP service engine to use; must not be {@code null}
+     * @param asyncHttpServiceEngine the non-blocking HTTP service engine to use; must not be {@code null}
+     * @throws NullPointerException if either engine is {@code null}
+     */
+    public MessageLogContentClient (@NonNull HttpServiceEngine httpServiceEngine, @NonNull AsyncHttpServiceEngine asyncHttpServiceEngine){
+        this(httpServiceEngine, asyncHttpServiceEngine, ContentStore.disabled());
     }
 
     /**
-     * Creates a new {@code MessageLogContentClient} using the provided HTTP service engine.
+     * Creates a new {@code MessageLogContentClient} using the provided HTTP service engines and content store.
      *
-     * @param httpServiceEngine the HTTP service engine to use; must not be {@code null}
-     * @throws NullPointerException if {@code httpServiceEngine} is {@code null}
+     * @param httpServiceEngine      the blocking HTTP service engine to use; must not be {@code null}
+     * @param asyncHttpServiceEngine the non-blocking HTTP service engine to use; must not be {@code null}
+     * @param contentStore           the local store of message content; must not be {@code null}
+     * @throws NullPointerException if any argument is {@code null}
      */
-    MessageLogContentClient (@NonNull HttpServiceEngine httpServiceEngine){
+    MessageLogContentClient (@NonNull HttpServiceEngine httpServiceEngine, @NonNull AsyncHttpServiceEngine asyncHttpServiceEngine,
+            @NonNull ContentStore contentStore){
+        this(httpServiceEngine, asyncHttpServiceEngine, contentStore, false);
+    }
+
+    private MessageLogContentClient (@NonNull HttpServiceEngine httpServiceEngine, @NonNull AsyncHttpServiceEngine asyncHttpServiceEngine,
+            @NonNull ContentStore contentStore, boolean ownsEngines){
         this.engine = Objects.requireNonNull(httpServiceEngine, "httpServiceEngine cannot be null");
+        this.asyncEngine = Objects.requireNonNull(asyncHttpServiceEngine, "asyncHttpServiceEngine cannot be null");
+        this.contentStore = Objects.requireNonNull(contentStore, "contentStore cannot be null");
+        this.ownsEngines = ownsEngines;
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the heap tier of the content store.
+     * All counters stay at zero when no store was configured.
+     */
+    public @NonNull CacheStats getCacheStats() {
+        return contentStore.heapStats();
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the off-heap tier of the content store.
+     * All counters stay at zero when the store has no off-heap tier.
+     */
+    public @NonNull CacheStats getOffHeapCacheStats() {
+        return contentStore.offHeapStats();
     }
 
     /**
@@ -52,26 +145,70 @@ public final class MessageLogContentClient {
      * @return {@code true} if the message was logged successfully, {@code false} otherwise
      */
     public boolean logMessage(@NonNull String messageId, @NonNull String messageContent, @NonNull String authorId) {
+        return logMessage(messageId, messageContent, authorId, Deadline.none());
+    }
+
+    /**
+     * Logs a new message's content, giving up once the deadline has passed.
+     *
+     * @param messageId      the Discord message ID (must not be {@code null})
+     * @param messageContent the content of the message (must not be {@code null} but may be empty)
+     * @param authorId       the Discord user ID of the message author (must not be {@code null})
+     * @param deadline       when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return {@code true} if the message was logged successfully, {@code false} otherwise
+     * @see #logMessage(String, String, String)
+     */
+    public boolean logMessage(@NonNull String messageId, @NonNull String messageContent, @NonNull String authorId, @NonNull Deadline deadline) {
+        return logMessageWithResponse(messageId, messageContent, authorId, deadline).isRight();
+    }
+
+    /**
+     * Logs a new message's content, like {@link #logMessage(String, String, String)}, but tells why it failed.
+     *
+     * @param messageId      the Discord message ID (must not be {@code null})
+     * @param messageContent the content of the message (must not be {@code null} but may be empty)
+     * @param authorId       the Discord user ID of the message author (must not be {@code null})
+     * @return the logged message, or the error the API answered with; a 503 if it could not be reached
+     */
+    public @NonNull Either<ErrorEntity, MessageLogContentEntity> logMessageWithResponse(@NonNull String messageId, @NonNull String messageContent, @NonNull String authorId) {
+        return logMessageWithResponse(messageId, messageContent, authorId, Deadline.none());
+    }
+
+    /**
+     * Logs a new message's content, like {@link #logMessage(String, String, String, Deadline)}, but tells why
+     * it failed.
+     *
+     * @param messageId      the Discord message ID (must not be {@code null})
+     * @param messageContent the content of the message (must not be {@code null} but may be empty)
+     * @param authorId       the Discord user ID of the message author (must not be {@code null})
+     * @param deadline       when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return the logged message, or the error the API answered with; a 503 if it could not be reached and
+     *         a 504 if the deadline passed first
+     * @see #logMessageWithResponse(String, String, String)
+     */
+    public @NonNull Either<ErrorEntity, MessageLogContentEntity> logMessageWithResponse(@NonNull String messageId, @NonNull String messageContent,
+                                                                                        @NonNull String authorId, @NonNull Deadline deadline) {
 
         Objects.requireNonNull(messageId, "messageId cannot be null");
         Objects.requireNonNull(messageContent, "messageContent cannot be null");
         Objects.requireNonNull(authorId, "authorId cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+        MessageLogContentEntity message = new MessageLogContentEntity(messageId, messageContent, authorId);
 
         Either<ErrorEntity, MessageLogContentEntity> responseBody = engine.makeRequestWithBody(
-                HttpMethod.POST,
-                "/api/v1/content/message",
-                headers,
-                new MessageLogContentEntity(messageId, messageContent, authorId),
-                MessageLogContentEntity.class
+                LOG_MESSAGE,
+                null,
+                message,
+                MessageLogContentEntity.class,
+                deadline
         );
 
         // log in case of failure
         responseBody.peekLeft(failure -> log.debug("Failed to log message with ID {}.\nAPI Response: {}", messageId, failure));
 
-        return responseBody.isRight();
+        storeMessage(message, responseBody.isRight());
+        return responseBody;
     }
 
     /**
@@ -81,21 +218,36 @@ public final class MessageLogContentClient {
      * @return an {@link Optional} containing the message content if found, or empty if not present
      */
     public Optional<MessageLogContentEntity> retrieveMessage (@NonNull String messageId) {
+        return retrieveMessage(messageId, Deadline.none());
+    }
+
+    /**
+     * Retrieves a logged message by its ID, giving up once the deadline has passed.
+     *
+     * @param messageId the Discord message ID (must not be {@code null})
+     * @param deadline  when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return an {@link Optional} containing the message content if found, or empty if not present
+     * @see #retrieveMessage(String)
+     */
+    public Optional<MessageLogContentEntity> retrieveMessage (@NonNull String messageId, @NonNull Deadline deadline) {
 
         Objects.requireNonNull(messageId, "messageId cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+        MessageLogContentEntity stored = contentStore.get(messageId);
+        if (stored != null)
+            return Optional.of(stored);
 
         Either<ErrorEntity, MessageLogContentEntity> response = engine.makeRequest(
-                HttpMethod.GET,
-                "/api/v1/content/message/"+messageId,
-                headers,
-                MessageLogContentEntity.class
+                RETRIEVE_MESSAGE,
+                messageId,
+                MessageLogContentEntity.class,
+                deadline
         );
 
         // in case of error entity, log it
         response.peekLeft(error -> log.debug("Message of ID {} could not be retrieved.\nAPI Response: {}", messageId, error));
+        response.peek(contentStore::put);
 
         // in case of success, return the never null MessageLogContentEntity object or empty optional
         return response.map(Optional::of).getOrElse(Optional.empty());
@@ -110,24 +262,39 @@ public final class MessageLogContentClient {
      * @return {@code true} if the update succeeded, {@code false} otherwise
      */
     public boolean updateMessage (@NonNull String messageId, @NonNull String messageContent, @NonNull String authorId) {
+        return updateMessage(messageId, messageContent, authorId, Deadline.none());
+    }
+
+    /**
+     * Updates the content of an already logged message, giving up once the deadline has passed.
+     *
+     * @param messageId      the Discord message ID (must not be {@code null})
+     * @param messageContent the updated message content (must not be {@code null})
+     * @param authorId       the Discord user ID of the message author (must not be {@code null})
+     * @param deadline       when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return {@code true} if the update succeeded, {@code false} otherwise
+     * @see #updateMessage(String, String, String)
+     */
+    public boolean updateMessage (@NonNull String messageId, @NonNull String messageContent, @NonNull String authorId, @NonNull Deadline deadline) {
 
         Objects.requireNonNull(messageId, "messageId cannot be null");
         Objects.requireNonNull(messageContent, "messageContent cannot be null");
         Objects.requireNonNull(authorId, "authorId cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+        MessageLogContentEntity message = new MessageLogContentEntity(messageId, messageContent, authorId);
 
         Either<ErrorEntity, MessageLogContentEntity> responseBody = engine.makeRequestWithBody(
-                HttpMethod.PUT,
-                "/api/v1/content/message",
-                headers,
-                new MessageLogContentEntity(messageId, messageContent, authorId),
-                MessageLogContentEntity.class
+                UPDATE_MESSAGE,
+                null,
+                message,
+                MessageLogContentEntity.class,
+                deadline
         );
 
         responseBody.peekLeft(failure -> log.debug("Failed to update message with ID {}.\nAPI Response: {}", messageId, failure));
 
+        storeMessage(message, responseBody.isRight());
         return responseBody.isRight();
     }
 
@@ -138,21 +305,339 @@ public final class MessageLogContentClient {
      * @return {@code true} if the deletion succeeded, {@code false} otherwise
      */
     public boolean deleteMessage (@NonNull String messageId) {
+        return deleteMessage(messageId, Deadline.none());
+    }
 
-        Objects.requireNonNull(messageId, "messageId cannot be null");
+    /**
+     * Deletes a logged message by its ID, giving up once the deadline has passed.
+     *
+     * @param messageId the Discord message ID (must not be {@code null})
+     * @param deadline  when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return {@code true} if the deletion succeeded, {@code false} otherwise
+     * @see #deleteMessage(String)
+     */
+    public boolean deleteMessage (@NonNull String messageId, @NonNull Deadline deadline) {
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+        Objects.requireNonNull(messageId, "messageId cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
 
         Either<ErrorEntity, Void> responseBody = engine.makeRequest(
-                HttpMethod.DELETE,
-                "/api/v1/content/message/"+messageId,
-                headers,
-                Void.class
+                DELETE_MESSAGE,
+                messageId,
+                Void.class,
+                deadline
         );
 
         responseBody.peekLeft(failure -> log.debug("Failed to delete message with ID {}.\nAPI Response: {}", messageId, failure));
 
+        // drop the local copy even if the request failed, the message may or may not still exist
+        contentStore.invalidate(messageId);
         return responseBody.isRight();
     }
+
+    /**
+     * Deletes several logged messages, such as those of a Discord bulk-delete event.
+     * <p>
+     * The API has no batch deletion, so the messages are deleted with individual requests, up to
+     * {@value #BULK_DELETE_CONCURRENCY} at a time, over the non-blocking engine. The calling thread waits for
+     * all of them.
+     * </p>
+     *
+     * @param messageIds the Discord message IDs (must not be {@code null} nor hold {@code null}); duplicates are deleted once
+     * @return whether the deletion of each message succeeded, keyed by message ID in the order given
+     * @see #deleteMessagesAsync(Collection)
+     */
+    public Map<String, Boolean> deleteMessages (@NonNull Collection<String> messageIds) {
+        return deleteMessages(messageIds, Deadline.none());
+    }
+
+    /**
+     * Deletes several logged messages, giving up once the deadline has passed.
+     * Messages whose deletion had not started by then are reported as not deleted.
+     *
+     * @param messageIds the Discord message IDs (must not be {@code null} nor hold {@code null}); duplicates are deleted once
+     * @param deadline   when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return whether the deletion of each message succeeded, keyed by message ID in the order given
+     * @see #deleteMessages(Collection)
+     */
+    public Map<String, Boolean> deleteMessages (@NonNull Collection<String> messageIds, @NonNull Deadline deadline) {
+        return deleteMessagesAsync(messageIds, deadline).join();
+    }
+
+    /**
+     * Asynchronously deletes several logged messages.
+     * Non-blocking variant of {@link #deleteMessages(Collection)}.
+     *
+     * @param messageIds the Discord message IDs (must not be {@code null} nor hold {@code null}); duplicates are deleted once
+     * @return a future completing with whether the deletion of each message succeeded, keyed by message ID in the order given
+     */
+    public CompletableFuture<Map<String, Boolean>> deleteMessagesAsync (@NonNull Collection<String> messageIds) {
+        return deleteMessagesAsync(messageIds, Deadline.none());
+    }
+
+    /**
+     * Asynchronously deletes several logged messages, giving up once the deadline has passed.
+     *
+     * @param messageIds the Discord message IDs (must not be {@code null} nor hold {@code null}); duplicates are deleted once
+     * @param deadline   when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return a future completing with whether the deletion of each message succeeded, keyed by message ID in the order given
+     * @see #deleteMessagesAsync(Collection)
+     */
+    public CompletableFuture<Map<String, Boolean>> deleteMessagesAsync (@NonNull Collection<String> messageIds, @NonNull Deadline deadline) {
+
+        Objects.requireNonNull(messageIds, "messageIds cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
+
+        Set<String> distinct = new LinkedHashSet<>(messageIds);
+        for (String messageId : distinct)
+            Objects.requireNonNull(messageId, "messageIds cannot hold null");
+
+        if (distinct.isEmpty())
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+
+        return new BulkDeletion(distinct.toArray(new String[0]), deadline).start();
+    }
+
+    /**
+     * Asynchronously logs a new message's content.
+     * Non-blocking variant of {@link #logMessage(String, String, String)}.
+     *
+     * @param messageId      the Discord message ID (must not be {@code null})
+     * @param messageContent the content of the message (must not be {@code null} but may be empty)
+     * @param authorId       the Discord user ID of the message author (must not be {@code null})
+     * @return a future completing with {@code true} if the message was logged successfully, {@code false} otherwise
+     */
+    public CompletableFuture<Boolean> logMessageAsync(@NonNull String messageId, @NonNull String messageContent, @NonNull String authorId) {
+        return logMessageAsync(messageId, messageContent, authorId, Deadline.none());
+    }
+
+    /**
+     * Asynchronously logs a new message's content, giving up once the deadline has passed.
+     *
+     * @param messageId      the Discord message ID (must not be {@code null})
+     * @param messageContent the content of the message (must not be {@code null} but may be empty)
+     * @param authorId       the Discord user ID of the message author (must not be {@code null})
+     * @param deadline       when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return a future completing with {@code true} if the message was logged successfully, {@code false} otherwise
+     * @see #logMessageAsync(String, String, String)
+     */
+    public CompletableFuture<Boolean> logMessageAsync(@NonNull String messageId, @NonNull String messageContent, @NonNull String authorId, @NonNull Deadline deadline) {
+
+        Objects.requireNonNull(messageId, "messageId cannot be null");
+        Objects.requireNonNull(messageContent, "messageContent cannot be null");
+        Objects.requireNonNull(authorId, "authorId cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
+
+        MessageLogContentEntity message = new MessageLogContentEntity(messageId, messageContent, authorId);
+
+        return asyncEngine.makeRequestWithBody(
+                LOG_MESSAGE,
+                null,
+                message,
+                MessageLogContentEntity.class,
+                deadline
+        ).thenApply(responseBody -> {
+            responseBody.peekLeft(failure -> log.debug("Failed to log message with ID {}.\nAPI Response: {}", messageId, failure));
+            storeMessage(message, responseBody.isRight());
+            return responseBody.isRight();
+        });
+    }
+
+    /**
+     * Asynchronously retrieves a logged message by its ID.
+     * Non-blocking variant of {@link #retrieveMessage(String)}.
+     *
+     * @param messageId the Discord message ID (must not be {@code null})
+     * @return a future completing with an {@link Optional} containing the message content if found, or empty if not present
+     */
+    public CompletableFuture<Optional<MessageLogContentEntity>> retrieveMessageAsync (@NonNull String messageId) {
+        return retrieveMessageAsync(messageId, Deadline.none());
+    }
+
+    /**
+     * Asynchronously retrieves a logged message by its ID, giving up once the deadline has passed.
+     *
+     * @param messageId the Discord message ID (must not be {@code null})
+     * @param deadline  when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return a future completing with an {@link Optional} containing the message content if found, or empty if not present
+     * @see #retrieveMessageAsync(String)
+     */
+    public CompletableFuture<Optional<MessageLogContentEntity>> retrieveMessageAsync (@NonNull String messageId, @NonNull Deadline deadline) {
+
+        Objects.requireNonNull(messageId, "messageId cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
+
+        MessageLogContentEntity stored = contentStore.get(messageId);
+        if (stored != null)
+            return CompletableFuture.completedFuture(Optional.of(stored));
+
+        return asyncEngine.makeRequest(
+                RETRIEVE_MESSAGE,
+                messageId,
+                MessageLogContentEntity.class,
+                deadline
+        ).thenApply(response -> {
+            response.peekLeft(error -> log.debug("Message of ID {} could not be retrieved.\nAPI Response: {}", messageId, error));
+            response.peek(contentStore::put);
+            return response.map(Optional::of).getOrElse(Optional.empty());
+        });
+    }
+
+    /**
+     * Asynchronously updates the content of an already logged message.
+     * Non-blocking variant of {@link #updateMessage(String, String, String)}.
+     *
+     * @param messageId      the Discord message ID (must not be {@code null})
+     * @param messageContent the updated message content (must not be {@code null})
+     * @param authorId       the Discord user ID of the message author (must not be {@code null})
+     * @return a future completing with {@code true} if the update succeeded, {@code false} otherwise
+     */
+    public CompletableFuture<Boolean> updateMessageAsync (@NonNull String messageId, @NonNull String messageContent, @NonNull String authorId) {
+        return updateMessageAsync(messageId, messageContent, authorId, Deadline.none());
+    }
+
+    /**
+     * Asynchronously updates the content of an already logged message, giving up once the deadline has passed.
+     *
+     * @param messageId      the Discord message ID (must not be {@code null})
+     * @param messageContent the updated message content (must not be {@code null})
+     * @param authorId       the Discord user ID of the message author (must not be {@code null})
+     * @param deadline       when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return a future completing with {@code true} if the update succeeded, {@code false} otherwise
+     * @see #updateMessageAsync(String, String, String)
+     */
+    public CompletableFuture<Boolean> updateMessageAsync (@NonNull String messageId, @NonNull String messageContent, @NonNull String authorId, @NonNull Deadline deadline) {
+
+        Objects.requireNonNull(messageId, "messageId cannot be null");
+        Objects.requireNonNull(messageContent, "messageContent cannot be null");
+        Objects.requireNonNull(authorId, "authorId cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
+
+        MessageLogContentEntity message = new MessageLogContentEntity(messageId, messageContent, authorId);
+
+        return asyncEngine.makeRequestWithBody(
+                UPDATE_MESSAGE,
+                null,
+                message,
+                MessageLogContentEntity.class,
+                deadline
+        ).thenApply(responseBody -> {
+            responseBody.peekLeft(failure -> log.debug("Failed to update message with ID {}.\nAPI Response: {}", messageId, failure));
+            storeMessage(message, responseBody.isRight());
+            return responseBody.isRight();
+        });
+    }
+
+    /**
+     * Asynchronously deletes a logged message by its ID.
+     * Non-blocking variant of {@link #deleteMessage(String)}.
+     *
+     * @param messageId the Discord message ID (must not be {@code null})
+     * @return a future completing with {@code true} if the deletion succeeded, {@code false} otherwise
+     */
+    public CompletableFuture<Boolean> deleteMessageAsync (@NonNull String messageId) {
+        return deleteMessageAsync(messageId, Deadline.none());
+    }
+
+    /**
+     * Asynchronously deletes a logged message by its ID, giving up once the deadline has passed.
+     *
+     * @param messageId the Discord message ID (must not be {@code null})
+     * @param deadline  when to give up; once it has passed, no request is sent (must not be {@code null})
+     * @return a future completing with {@code true} if the deletion succeeded, {@code false} otherwise
+     * @see #deleteMessageAsync(String)
+     */
+    public CompletableFuture<Boolean> deleteMessageAsync (@NonNull String messageId, @NonNull Deadline deadline) {
+
+        Objects.requireNonNull(messageId, "messageId cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
+
+        return asyncEngine.makeRequest(
+                DELETE_MESSAGE,
+                messageId,
+                Void.class,
+                deadline
+        ).thenApply(responseBody -> {
+            responseBody.peekLeft(failure -> log.debug("Failed to delete message with ID {}.\nAPI Response: {}", messageId, failure));
+            contentStore.invalidate(messageId);
+            return responseBody.isRight();
+        });
+    }
+
+    /**
+     * Releases the engines this client created, if it was created from a base URL. Engines passed in by the
+     * caller, and those of a {@link PaperTrailClient}, are left open.
+     */
+    @Override
+    public void close() {
+        if (!ownsEngines)
+            return;
+
+        try {
+            asyncEngine.close();
+        } finally {
+            engine.close();
+        }
+    }
+
+    // a fixed number of lanes, each deleting the next pending message once its previous one completes
+    private final class BulkDeletion {
+
+        private final String[] messageIds;
+        private final Deadline deadline;
+        private final boolean[] deleted;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<Map<String, Boolean>> result = new CompletableFuture<>();
+
+        private BulkDeletion(String[] messageIds, Deadline deadline) {
+            this.messageIds = messageIds;
+            this.deadline = deadline;
+            this.deleted = new boolean[messageIds.length];
+            this.remaining = new AtomicInteger(messageIds.length);
+        }
+
+        private CompletableFuture<Map<String, Boolean>> start() {
+            for (int lane = 0; lane < Math.min(BULK_DELETE_CONCURRENCY, messageIds.length); lane++)
+                deleteNext();
+            return result;
+        }
+
+        // loops over deletions that complete inline, such as ones refused by the circuit breaker, instead of recursing
+        private void deleteNext() {
+            int index;
+            while ((index = next.getAndIncrement()) < messageIds.length) {
+                int current = index;
+                CompletableFuture<Boolean> deletion = deleteMessageAsync(messageIds[current], deadline);
+                if (!deletion.isDone()) {
+                    deletion.whenComplete((success, failure) -> {
+                        completed(current, success);
+                        deleteNext();
+                    });
+                    return;
+                }
+                completed(current, deletion.isCompletedExceptionally() ? null : deletion.getNow(false));
+            }
+        }
+
+        // the array writes are published to the thread completing the result through the counter
+        private void completed(int index, @Nullable Boolean success) {
+            deleted[index] = Boolean.TRUE.equals(success);
+            if (remaining.decrementAndGet() != 0)
+                return;
+
+            Map<String, Boolean> results = new LinkedHashMap<>(messageIds.length * 2);
+            for (int i = 0; i < messageIds.length; i++)
+                results.put(messageIds[i], deleted[i]);
+            result.complete(Collections.unmodifiableMap(results));
+        }
+    }
+
+    // keeps the store in line with what the API accepted; a failed write may still have been applied, so drop the old copy
+    private void storeMessage(MessageLogContentEntity message, boolean accepted) {
+        if (accepted)
+            contentStore.put(message);
+        else
+            contentStore.invalidate(message.getMessageId());
+    }
 }
@@ -0,0 +1,180 @@
+package io.github.eggy03.papertrail.sdk.client;
+
+import io.github.eggy03.papertrail.sdk.cache.ContentStore;
+import io.github.eggy03.papertrail.sdk.cache.ExpiringLongSet;
+import io.github.eggy03.papertrail.sdk.cache.TtlCache;
+import io.github.eggy03.papertrail.sdk.entity.AuditLogRegistrationEntity;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogRegistrationEntity;
+import io.github.eggy03.papertrail.sdk.http.AsyncHttpServiceEngine;
+import io.github.eggy03.papertrail.sdk.http.HttpServiceEngine;
+import org.jspecify.annotations.NonNull;
+
+import java.util.Objects;
+
+/**
+ * Entry point to every part of the PaperTrail API, with all clients sharing one pair of engines.
+ * <p>
+ * Creating each client from a base URL gives each of them its own engines, connection pools and message
+ * converters. A {@code PaperTrailClient} builds the engines once from an {@link HttpServiceEngine.Builder}, so its
+ * clients share the connection pool, retry budget, circuit breaker, rate limits and metrics configured there.
+ * It owns the engines and releases them on {@link #close()}.
+ * </p>
+ * <p>
+ * One of those engines is the non-blocking {@link AsyncHttpServiceEngine}, so this client needs Apache HttpClient 5
+ * ({@code org.apache.httpcomponents.client5:httpclient5}) on the classpath, which the SDK only declares as optional.
+ * </p>
+ * <p>
+ * Since the clients share the engines, a flood of content writes competes with the registration lookups for
+ * connections. Assigning their endpoints to separate bulkheads through
+ * {@link HttpServiceEngine.Builder#bulkhead(io.github.eggy03.papertrail.sdk.http.Endpoint, io.github.eggy03.papertrail.sdk.resilience.Bulkhead)}
+ * keeps the lookups flowing.
+ * </p>
+ */
+public final class PaperTrailClient implements AutoCloseable {
+
+    private final @NonNull HttpServiceEngine engine;
+    private final @NonNull AsyncHttpServiceEngine asyncEngine;
+    private final @NonNull MessageLogContentClient messageLogContentClient;
+    private final @NonNull MessageLogRegistrationClient messageLogRegistrationClient;
+    private final @NonNull AuditLogRegistrationClient auditLogRegistrationClient;
+
+    private PaperTrailClient(@NonNull Builder builder) {
+        HttpServiceEngine blocking = builder.engineBuilder.build();
+        try {
+            this.asyncEngine = builder.engineBuilder.buildAsync();
+        } catch (RuntimeException | Error e) {
+            // nothing else holds the blocking engine yet, so its pool would leak
+            try {
+                blocking.close();
+            } catch (RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        this.engine = blocking;
+        this.messageLogContentClient = new MessageLogContentClient(engine, asyncEngine, builder.contentStore);
+        this.messageLogRegistrationClient = new MessageLogRegistrationClient(engine, asyncEngine,
+                builder.messageLogRegistrationCache, builder.unregisteredMessageLogGuilds);
+        this.auditLogRegistrationClient = new AuditLogRegistrationClient(engine, asyncEngine,
+                builder.auditLogRegistrationCache, builder.unregisteredAuditLogGuilds);
+    }
+
+    /**
+     * Creates a builder for a client of the API at the given base URL, with default engine settings.
+     *
+     * @param baseUrl the URL of the API
+     * @return a new builder
+     * @throws io.github.eggy03.papertrail.sdk.exception.ApiBaseUrlException if the URL is {@code null}, blank or empty
+     */
+    public static @NonNull Builder builder(String baseUrl) {
+        return new Builder(HttpServiceEngine.builder(baseUrl));
+    }
+
+    /**
+     * Creates a builder for a client whose engines are built from the given engine builder.
+     * <p>
+     * The engine builder is read when {@link Builder#build()} is called. Changing it afterwards does not affect
+     * the client.
+     * </p>
+     *
+     * @param engineBuilder the configured engine builder; must not be {@code null}
+     * @return a new builder
+     * @throws NullPointerException if {@code engineBuilder} is {@code null}
+     */
+    public static @NonNull Builder builder(HttpServiceEngine.@NonNull Builder engineBuilder) {
+        return new Builder(Objects.requireNonNull(engineBuilder, "engineBuilder cannot be null"));
+    }
+
+    /**
+     * The client for stored message content.
+     */
+    public @NonNull MessageLogContentClient getMessageLogContentClient() {
+        return messageLogContentClient;
+    }
+
+    /**
+     * The client for message log registrations.
+     */
+    public @NonNull MessageLogRegistrationClient getMessageLogRegistrationClient() {
+        return messageLogRegistrationClient;
+    }
+
+    /**
+     * The client for audit log registrations.
+     */
+    public @NonNull AuditLogRegistrationClient getAuditLogRegistrationClient() {
+        return auditLogRegistrationClient;
+    }
+
+    /**
+     * Releases both engines. Requests made through any of the clients afterwards fail with an
+     * "API Unreachable" error.
+     */
+    @Override
+    public void close() {
+        try {
+            asyncEngine.close();
+        } finally {
+            engine.close();
+        }
+    }
+
+    /**
+     * Builder for {@link PaperTrailClient}. Every cache is disabled unless given.
+     */
+    public static final class Builder {
+
+        private final HttpServiceEngine.Builder engineBuilder;
+        private ContentStore contentStore = ContentStore.disabled();
+        private TtlCache<String, MessageLogRegistrationEntity> messageLogRegistrationCache = TtlCache.disabled();
+        private ExpiringLongSet unregisteredMessageLogGuilds = ExpiringLongSet.disabled();
+        private TtlCache<String, AuditLogRegistrationEntity> auditLogRegistrationCache = TtlCache.disabled();
+        private ExpiringLongSet unregisteredAuditLogGuilds = ExpiringLongSet.disabled();
+
+        private Builder(HttpServiceEngine.Builder engineBuilder) {
+            this.engineBuilder = engineBuilder;
+        }
+
+        /**
+         * The local store answering {@link MessageLogContentClient#retrieveMessage(String)} where possible.
+         *
+         * @see MessageLogContentClient#MessageLogContentClient(String, ContentStore)
+         */
+        public @NonNull Builder contentStore(@NonNull ContentStore contentStore) {
+            this.contentStore = Objects.requireNonNull(contentStore, "contentStore cannot be null");
+            return this;
+        }
+
+        /**
+         * The caches answering {@link MessageLogRegistrationClient#getRegisteredGuild(String)} where possible.
+         *
+         * @see MessageLogRegistrationClient#MessageLogRegistrationClient(String, TtlCache, ExpiringLongSet)
+         */
+        public @NonNull Builder messageLogRegistrationCache(@NonNull TtlCache<String, MessageLogRegistrationEntity> registrationCache,
+                                                            @NonNull ExpiringLongSet unregisteredGuilds) {
+            this.messageLogRegistrationCache = Objects.requireNonNull(registrationCache, "registrationCache cannot be null");
+            this.unregisteredMessageLogGuilds = Objects.requireNonNull(unregisteredGuilds, "unregisteredGuilds cannot be null");
+            return this;
+        }
+
+        /**
+         * The caches answering {@link AuditLogRegistrationClient#getRegisteredGuild(String)} where possible.
+         *
+         * @see AuditLogRegistrationClient#AuditLogRegistrationClient(String, TtlCache, ExpiringLongSet)
+         */
+        public @NonNull Builder auditLogRegistrationCache(@NonNull TtlCache<String, AuditLogRegistrationEntity> registrationCache,
+                                                          @NonNull ExpiringLongSet unregisteredGuilds) {
+            this.auditLogRegistrationCache = Objects.requireNonNull(registrationCache, "registrationCache cannot be null");
+            this.unregisteredAuditLogGuilds = Objects.requireNonNull(unregisteredGuilds, "unregisteredGuilds cannot be null");
+            return this;
+        }
+
+        /**
+         * Builds the engines and the clients sharing them. The non-blocking engine only starts its transport
+         * once the first asynchronous request is made.
+         */
+        public @NonNull PaperTrailClient build() {
+            return new PaperTrailClient(this);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.eggy03.papertrail.sdk.client;
+
+import io.github.eggy03.papertrail.sdk.cache.CacheStats;
+import io.github.eggy03.papertrail.sdk.cache.ExpiringLongSet;
+import io.github.eggy03.papertrail.sdk.cache.TtlCache;
+import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
+import io.vavr.control.Either;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * What a registration client knows about the guilds it has looked up: their registrations, kept in a
+ * {@link TtlCache} keyed by guild ID, and the guilds the API reported as not registered, kept in an
+ * {@link ExpiringLongSet} of snowflakes.
+ * <p>
+ * A lookup racing a registration or deletion of the same guild may answer with the state from before it, so
+ * lookups take the guild's generation before they are sent, and their answers are only kept if no write has
+ * bumped it since. Guilds share generations by hash, so an unrelated write now and then costs a lookup its
+ * caching, never its correctness.
+ * </p>
+ *
+ * @param <R> the registration type
+ */
+final class RegistrationCache<R> {
+
+    private final @NonNull TtlCache<String, R> registrations;
+    private final @NonNull ExpiringLongSet unregisteredGuilds;
+
+    // a power of two, so stripes are picked with a mask; each stripe's lock guards the writes to both caches for
+    // its guilds, while its generation can be read without it
+    private static final int STRIPES = 64;
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+    private final Object[] locks = new Object[STRIPES];
+
+    RegistrationCache(@NonNull TtlCache<String, R> registrations, @NonNull ExpiringLongSet unregisteredGuilds) {
+        this.registrations = Objects.requireNonNull(registrations, "registrationCache cannot be null");
+        this.unregisteredGuilds = Objects.requireNonNull(unregisteredGuilds, "unregisteredGuilds cannot be null");
+        for (int i = 0; i < STRIPES; i++)
+            locks[i] = new Object();
+    }
+
+    /**
+     * The cached registration of the guild, or {@code null} if there is none.
+     */
+    @Nullable R get(@NonNull String guildId) {
+        return registrations.get(guildId);
+    }
+
+    /**
+     * Whether the guild is known not to be registered.
+     */
+    boolean isKnownUnregistered(@NonNull String guildId) {
+
+        if (!unregisteredGuilds.isEnabled())
+            return false;
+
+        long snowflake = Snowflakes.parse(guildId);
+        return snowflake >= 0 && unregisteredGuilds.contains(snowflake);
+    }
+
+    /**
+     * The generation of the guild, to be taken before looking up its registration.
+     */
+    long generation(@NonNull String guildId) {
+        return generations.get(stripe(guildId));
+    }
+
+    /**
+     * Records the answer to a lookup of the guild's registration, unless the guild was registered or deleted
+     * since {@code generation} was taken.
+     */
+    void lookedUp(@NonNull String guildId, long generation, @NonNull Either<ErrorEntity, R> response) {
+        int stripe = stripe(guildId);
+        synchronized (locks[stripe]) {
+            if (generations.get(stripe) != generation)
+                return;
+
+            if (response.isRight())
+                registrations.put(guildId, response.get());
+            // only a 404 means "not registered"; other client errors, such as a rejected token or a request that
+            // was never sent, say nothing about the guild
+            else if (response.getLeft().getStatus() == 404)
+                rememberUnregistered(guildId);
+        }
+    }
+
+    /**
+     * Records an attempt to register the guild.
+     */
+    void registered(@NonNull String guildId, @NonNull R registration, boolean succeeded) {
+
+        long snowflake = Snowflakes.parse(guildId);
+        int stripe = stripe(guildId);
+        synchronized (locks[stripe]) {
+            generations.incrementAndGet(stripe);
+
+            if (snowflake >= 0)
+                unregisteredGuilds.remove(snowflake);
+
+            // on failure the API state is unknown, so drop whatever is cached
+            if (succeeded)
+                registrations.put(guildId, registration);
+            else
+                registrations.invalidate(guildId);
+        }
+    }
+
+    /**
+     * Records an attempt to delete the guild's registration.
+     */
+    void deleted(@NonNull String guildId, boolean succeeded) {
+        int stripe = stripe(guildId);
+        synchronized (locks[stripe]) {
+            generations.incrementAndGet(stripe);
+
+            // whether or not the deletion went through, the cached registration can no longer be trusted
+            registrations.invalidate(guildId);
+            if (succeeded)
+                rememberUnregistered(guildId);
+        }
+    }
+
+    /**
+     * The hit, miss and eviction counters of the registrations.
+     */
+    @NonNull CacheStats registrationStats() {
+        return registrations.stats();
+    }
+
+    /**
+     * The hit, miss and eviction counters of the guilds known not to be registered.
+     */
+    @NonNull CacheStats unregisteredStats() {
+        return unregisteredGuilds.stats();
+    }
+
+    private static int stripe(String guildId) {
+        return guildId.hashCode() & (STRIPES - 1);
+    }
+
+    private void rememberUnregistered(String guildId) {
+        long snowflake = Snowflakes.parse(guildId);
+        if (snowflake >= 0)
+            unregisteredGuilds.add(snowflake);
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.eggy03.papertrail.sdk.client;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Helpers for Discord snowflake IDs, which the API passes around as decimal strings.
+ */
+final class Snowflakes {
+
+    private Snowflakes() {
+    }
+
+    /**
+     * Parses a snowflake without allocating or throwing.
+     *
+     * @param id the decimal ID
+     * @return the numeric ID, or {@code -1} if {@code id} is not a non-negative decimal {@code long}
+     */
+    static long parse(@NonNull String id) {
+
+        int length = id.length();
+        if (length == 0 || length > 19)
+            return -1;
+
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = id.charAt(i) - '0';
+            if (digit < 0 || digit > 9)
+                return -1;
+
+            value = value * 10 + digit;
+            if (value < 0)
+                return -1;
+        }
+        return value;
+    }
+}
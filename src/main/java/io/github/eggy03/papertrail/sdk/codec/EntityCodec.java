@@ -0,0 +1,42 @@
+package io.github.eggy03.papertrail.sdk.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import org.jspecify.annotations.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes one entity type with the {@code jackson-core} streaming API, without reflection.
+ * <p>
+ * Implementations are generated for types annotated with {@link JsonCodec} and must be stateless.
+ * </p>
+ *
+ * @param <T> the entity type
+ */
+public interface EntityCodec<T> {
+
+    /**
+     * The entity type this codec handles.
+     */
+    @NonNull Class<T> type();
+
+    /**
+     * Writes the entity as a JSON object.
+     *
+     * @param generator the generator to write to
+     * @param value     the entity to write
+     * @throws IOException if the generator fails
+     */
+    void write(@NonNull JsonGenerator generator, @NonNull T value) throws IOException;
+
+    /**
+     * Reads an entity from the JSON object the parser is positioned at, or about to reach. Unknown properties
+     * are skipped.
+     *
+     * @param parser the parser to read from
+     * @return the entity
+     * @throws IOException if the input is not a JSON object or cannot be parsed
+     */
+    @NonNull T read(@NonNull JsonParser parser) throws IOException;
+}
@@ -0,0 +1,101 @@
+package io.github.eggy03.papertrail.sdk.codec;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * The {@link EntityCodec}s generated for this SDK's entities, and a shared {@link JsonFactory} to run them with.
+ * <p>
+ * Codecs are discovered once, through {@link ServiceLoader}, when this class is first used. The engines consult
+ * them before falling back to the HTTP message converters found on the classpath, so the entities are
+ * (de)serialized without reflection and without a data-binding library.
+ * </p>
+ */
+public final class EntityCodecs {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityCodecs.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Map<Class<?>, EntityCodec<?>> CODECS = load();
+
+    private EntityCodecs() {
+    }
+
+    /**
+     * The codec for the given type, or {@code null} if none was generated for it.
+     *
+     * @param type the entity type; must not be {@code null}
+     * @param <T>  the entity type
+     * @return the codec, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> @Nullable EntityCodec<T> forType(@NonNull Class<T> type) {
+        return (EntityCodec<T>) CODECS.get(Objects.requireNonNull(type, "type cannot be null"));
+    }
+
+    /**
+     * The factory the codecs are meant to be run with. It is thread-safe and recycles its buffers.
+     */
+    public static @NonNull JsonFactory jsonFactory() {
+        return JSON_FACTORY;
+    }
+
+    /**
+     * Writes the entity as UTF-8 encoded JSON.
+     *
+     * @param codec the codec of the entity's type
+     * @param value the entity
+     * @param <T>   the entity type
+     * @return the JSON bytes
+     * @throws IOException if the codec fails
+     */
+    public static <T> byte @NonNull [] encode(@NonNull EntityCodec<T> codec, @NonNull T value) throws IOException {
+        try (ByteArrayBuilder bytes = new ByteArrayBuilder(256);
+             JsonGenerator generator = JSON_FACTORY.createGenerator(bytes, JsonEncoding.UTF8)) {
+            codec.write(generator, value);
+            generator.flush();
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Reads an entity from JSON bytes in any encoding Jackson detects.
+     *
+     * @param codec the codec of the entity's type
+     * @param json  the JSON bytes
+     * @param <T>   the entity type
+     * @return the entity
+     * @throws IOException if the bytes are not a JSON object the codec can read
+     */
+    public static <T> @NonNull T decode(@NonNull EntityCodec<T> codec, byte @NonNull [] json) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            return codec.read(parser);
+        }
+    }
+
+    private static Map<Class<?>, EntityCodec<?>> load() {
+        Map<Class<?>, EntityCodec<?>> codecs = new HashMap<>();
+        try {
+            for (EntityCodec<?> codec : ServiceLoader.load(EntityCodec.class, EntityCodecs.class.getClassLoader()))
+                codecs.put(codec.type(), codec);
+        } catch (ServiceConfigurationError e) {
+            log.warn("Failed to load the generated entity codecs, falling back to message converters: {}", e.getMessage(), e);
+        }
+        return Collections.unmodifiableMap(codecs);
+    }
+}
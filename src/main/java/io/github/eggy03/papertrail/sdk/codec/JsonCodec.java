@@ -0,0 +1,22 @@
+package io.github.eggy03.papertrail.sdk.codec;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an entity to get a streaming JSON {@link EntityCodec} generated at compile time.
+ * <p>
+ * The entity must have a constructor annotated with {@code @JsonCreator} whose parameters are all annotated with
+ * {@code @JsonProperty}, and a getter for each of those properties. Properties may be strings, primitives or their
+ * wrappers. The generated codec is named after the entity with a {@code Codec} suffix, lives in the same package
+ * and is found at runtime through {@link EntityCodecs}.
+ * </p>
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface JsonCodec {
+}
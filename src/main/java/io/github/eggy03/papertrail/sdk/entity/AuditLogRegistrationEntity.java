@@ -2,6 +2,7 @@ package io.github.eggy03.papertrail.sdk.entity;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.github.eggy03.papertrail.sdk.codec.JsonCodec;
 import org.jspecify.annotations.NonNull;
 
 import java.util.Objects;
@@ -13,6 +14,7 @@ import java.util.Objects;
  * should be sent. It is immutable and safe to use across threads.
  * </p>
  */
+@JsonCodec
 public final class AuditLogRegistrationEntity {
 
     /**
@@ -2,11 +2,21 @@ package io.github.eggy03.papertrail.sdk.entity;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.github.eggy03.papertrail.sdk.codec.JsonCodec;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * Represents a structured error response returned by the PaperTrail API.
+ * <p>
+ * Errors returned by the engines are decoded lazily: {@link #getStatus()} and {@link #getPath()} are known from the
+ * response itself, and the body is only parsed once one of the other properties is read.
+ * </p>
  */
+@JsonCodec
 public final class ErrorEntity {
 
     /**
@@ -14,6 +24,11 @@ public final class ErrorEntity {
      */
     private final int status;
 
+    /**
+     * The request path that caused the error.
+     */
+    private final @NonNull String path;
+
     /**
      * A short error identifier or type, often the underlying exception class
      */
@@ -29,10 +44,8 @@ public final class ErrorEntity {
      */
     private final @NonNull String timeStamp;
 
-    /**
-     * The request path that caused the error.
-     */
-    private final @NonNull String path;
+    // the decoded error that stands in for the three properties above, for entities made by deferred(...)
+    private final @Nullable Deferred deferred;
 
     /**
      * Creates a new {@code ErrorEntity}.
@@ -55,6 +68,34 @@ public final class ErrorEntity {
         this.message = message;
         this.timeStamp = timeStamp;
         this.path = path;
+        this.deferred = null;
+    }
+
+    private ErrorEntity(int status, @NonNull String path, @NonNull Supplier<ErrorEntity> body) {
+        this.status = status;
+        this.error = "";
+        this.message = "";
+        this.timeStamp = "";
+        this.path = path;
+        this.deferred = new Deferred(body);
+    }
+
+    /**
+     * Creates an {@code ErrorEntity} whose error, message and timestamp are decoded on first access.
+     * <p>
+     * The decoder is called at most once, on whichever thread first reads one of those properties, and must not
+     * return {@code null}. The status and path of the decoded entity are ignored in favour of the given ones.
+     * </p>
+     *
+     * @param status the HTTP status code
+     * @param path   the request path that caused the error (must not be {@code null})
+     * @param body   decodes the rest of the error (must not be {@code null})
+     * @return an entity that decodes its body when needed
+     */
+    public static @NonNull ErrorEntity deferred(int status, @NonNull String path, @NonNull Supplier<ErrorEntity> body) {
+        Objects.requireNonNull(path, "path cannot be null");
+        Objects.requireNonNull(body, "body cannot be null");
+        return new ErrorEntity(status, path, body);
     }
 
     /**
@@ -68,21 +109,21 @@ public final class ErrorEntity {
      * A short error identifier or type, often the underlying exception class
      */
     public @NonNull String getError() {
-        return error;
+        return deferred == null ? error : deferred.get().getError();
     }
 
     /**
      * A human-readable error message describing what went wrong.
      */
     public @NonNull String getMessage() {
-        return message;
+        return deferred == null ? message : deferred.get().getMessage();
     }
 
     /**
      * The timestamp indicating when the error occurred.
      */
     public @NonNull String getTimeStamp() {
-        return timeStamp;
+        return deferred == null ? timeStamp : deferred.get().getTimeStamp();
     }
 
     /**
@@ -91,4 +132,37 @@ public final class ErrorEntity {
     public @NonNull String getPath() {
         return path;
     }
+
+    @Override
+    public String toString() {
+        return "ErrorEntity{status=" + status + ", error='" + getError() + "', message='" + getMessage()
+                + "', timeStamp='" + getTimeStamp() + "', path='" + path + "'}";
+    }
+
+    // runs the decoder once, and publishes what it returned to other threads
+    private static final class Deferred {
+
+        private @Nullable Supplier<ErrorEntity> body;
+        private volatile @Nullable ErrorEntity decoded;
+
+        private Deferred(@NonNull Supplier<ErrorEntity> body) {
+            this.body = body;
+        }
+
+        private @NonNull ErrorEntity get() {
+            ErrorEntity entity = decoded;
+            if (entity != null)
+                return entity;
+
+            synchronized (this) {
+                entity = decoded;
+                if (entity == null) {
+                    entity = Objects.requireNonNull(Objects.requireNonNull(body).get(), "decoded error cannot be null");
+                    decoded = entity;
+                    body = null;
+                }
+                return entity;
+            }
+        }
+    }
 }
@@ -2,6 +2,7 @@ package io.github.eggy03.papertrail.sdk.entity;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.github.eggy03.papertrail.sdk.codec.JsonCodec;
 import org.jspecify.annotations.NonNull;
 
 import java.util.Objects;
@@ -12,6 +13,7 @@ import java.util.Objects;
  * Immutable and thread-safe
  * </p>
  */
+@JsonCodec
 public final class MessageLogContentEntity {
 
     /**
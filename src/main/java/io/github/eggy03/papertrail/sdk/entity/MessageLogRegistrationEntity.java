@@ -2,6 +2,7 @@ package io.github.eggy03.papertrail.sdk.entity;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.github.eggy03.papertrail.sdk.codec.JsonCodec;
 import org.jspecify.annotations.NonNull;
 
 import java.util.Objects;
@@ -14,6 +15,7 @@ import java.util.Objects;
  * safe for use across threads.
  * </p>
  */
+@JsonCodec
 public final class MessageLogRegistrationEntity {
 
     /**
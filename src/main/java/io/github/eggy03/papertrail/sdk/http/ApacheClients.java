@@ -0,0 +1,98 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import io.github.eggy03.papertrail.sdk.metrics.MetricsRecorder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Creates the pooled Apache HttpClient 5 clients of both engines from their {@link ConnectionPoolSettings}.
+ * <p>
+ * The clients' own automatic retries are disabled, so that requests are only ever repeated by the
+ * engine's {@link io.github.eggy03.papertrail.sdk.resilience.RetryPolicy}.
+ * </p>
+ */
+final class ApacheClients {
+
+    private ApacheClients() {
+    }
+
+    /**
+     * Creates a pooled blocking client. The caller owns it and must close it.
+     *
+     * @param metrics receives the pool gauges, prefixed with {@code papertrail.http.blocking.pool}, or
+     *                {@code papertrail.http.blocking.pool.<bulkhead>} for the pool of a bulkhead
+     */
+    static @NonNull CloseableHttpClient createBlockingClient(@NonNull ConnectionPoolSettings settings, @NonNull MetricsRecorder metrics) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(settings.maxConnections)
+                .setMaxConnPerRoute(settings.maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(connectionConfig(settings))
+                .build();
+        registerGauges(metrics, "papertrail.http.blocking." + settings.poolName, connectionManager);
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig(settings))
+                .disableAutomaticRetries()
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(settings.idleTimeout.toMillis()))
+                .build();
+    }
+
+    /**
+     * Creates a pooled non-blocking client, not yet started. The caller owns it and must close it.
+     *
+     * @param metrics receives the pool gauges, prefixed with {@code papertrail.http.async.pool}, or
+     *                {@code papertrail.http.async.pool.<bulkhead>} for the pool of a bulkhead
+     */
+    static @NonNull CloseableHttpAsyncClient createAsyncClient(@NonNull ConnectionPoolSettings settings, @NonNull MetricsRecorder metrics) {
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(settings.maxConnections)
+                .setMaxConnPerRoute(settings.maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(connectionConfig(settings))
+                .build();
+        registerGauges(metrics, "papertrail.http.async." + settings.poolName, connectionManager);
+
+        return HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig(settings))
+                .disableAutomaticRetries()
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(settings.idleTimeout.toMillis()))
+                .build();
+    }
+
+    /**
+     * The request configuration of both clients, which a request carrying its own configuration must start from.
+     * Its keep-alive applies when the server does not announce its own through the Keep-Alive header.
+     */
+    static @NonNull RequestConfig requestConfig(@NonNull ConnectionPoolSettings settings) {
+        return RequestConfig.custom()
+                .setConnectionKeepAlive(TimeValue.ofMilliseconds(settings.keepAlive.toMillis()))
+                .build();
+    }
+
+    // pending counts requests queued for a connection, which is where callers wait once the pool is exhausted
+    private static void registerGauges(MetricsRecorder metrics, String prefix, ConnPoolControl<?> pool) {
+        metrics.registerGauge(prefix + ".pending", () -> pool.getTotalStats().getPending());
+        metrics.registerGauge(prefix + ".leased", () -> pool.getTotalStats().getLeased());
+    }
+
+    private static ConnectionConfig connectionConfig(ConnectionPoolSettings settings) {
+        return ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(settings.connectTimeout.toMillis()))
+                .build();
+    }
+}
@@ -0,0 +1,907 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
+import io.github.eggy03.papertrail.sdk.metrics.MetricsRecorder;
+import io.github.eggy03.papertrail.sdk.metrics.RequestOutcome;
+import io.github.eggy03.papertrail.sdk.resilience.Bulkhead;
+import io.github.eggy03.papertrail.sdk.resilience.CircuitBreaker;
+import io.github.eggy03.papertrail.sdk.resilience.RateLimiter;
+import io.github.eggy03.papertrail.sdk.resilience.RetryPolicy;
+import io.github.eggy03.papertrail.sdk.resilience.SharedScheduler;
+import io.vavr.control.Either;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.Timeout;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Non-blocking counterpart of {@link HttpServiceEngine}.
+ * <p>
+ * Requests are dispatched over Apache HttpClient 5's NIO transport, so an in-flight request does not occupy
+ * a caller thread. Bodies are (de)serialized with the same Spring message converters that
+ * {@link org.springframework.web.client.RestClient} discovers on the classpath.
+ * </p>
+ * <p>
+ * The returned futures never complete exceptionally for HTTP or I/O failures. Those are mapped to an
+ * {@link ErrorEntity} on the left side of the {@link Either}, exactly like the blocking engine does.
+ * The underlying transport is started lazily on the first request and released by {@link #close()}.
+ * </p>
+ * <p>
+ * Apache HttpClient 5 is an optional dependency of the SDK, so applications using this engine must add
+ * {@code org.apache.httpcomponents.client5:httpclient5} themselves.
+ * </p>
+ */
+public class AsyncHttpServiceEngine implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncHttpServiceEngine.class);
+
+    private static final ContentType JSON = ContentType.create(MediaType.APPLICATION_JSON_VALUE);
+
+    private final @NonNull UpstreamPool upstreams;
+    private final @NonNull HttpMessageCodec codec;
+    private final @NonNull ConnectionPoolSettings poolSettings;
+    private final @NonNull MetricsRecorder metrics;
+    private final boolean metricsEnabled;
+
+    // whether requests are timed, for the metrics or for latency-based load balancing
+    private final boolean timed;
+    private final @NonNull RetrySettings retries;
+    private final @NonNull TimeoutSettings timeouts;
+    private final @NonNull HedgeSettings hedges;
+
+    // counts the second attempts of hedged requests, when any endpoint is hedged
+    private final @Nullable LongAdder hedgedCount;
+    private final @NonNull BulkheadSettings bulkheads;
+
+    // the request configuration carrying each endpoint's read timeout, built once
+    private final @NonNull RequestConfig defaultRequestConfig;
+    private final @NonNull Map<Endpoint, RequestConfig> endpointRequestConfigs;
+    private final @NonNull CircuitBreaker circuitBreaker;
+    private final @NonNull RateLimiter rateLimiter;
+    private final @NonNull ServerRateLimits serverRateLimits;
+
+    // concurrent identical endpoint GETs, when coalescing is on
+    private final @Nullable SingleFlight singleFlight;
+
+    // gzips large request bodies, when compression is on
+    private final @Nullable RequestCompression compression;
+
+    private volatile @Nullable CloseableHttpAsyncClient client;
+
+    // the pools of the bulkheads, each started on the first request of its bulkhead
+    private final @NonNull ConcurrentHashMap<Bulkhead, CloseableHttpAsyncClient> bulkheadClients = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Creates an asynchronous engine for the given base URL.
+     * Extra forward slashes '/' are automatically removed from the URL during sanitization.
+     * @param baseUrl the URL of the API
+     */
+    public AsyncHttpServiceEngine(String baseUrl) {
+        this(HttpServiceEngine.builder(baseUrl).settings());
+    }
+
+    AsyncHttpServiceEngine(@NonNull EngineSettings settings) {
+        this.upstreams = settings.upstreams;
+        this.codec = HttpMessageCodec.withDefaults();
+        this.poolSettings = settings.poolSettings;
+        this.metrics = settings.metrics;
+        this.metricsEnabled = metrics != MetricsRecorder.disabled();
+        this.timed = metricsEnabled || upstreams.tracksLatency();
+        this.retries = settings.retries;
+        this.timeouts = settings.timeouts;
+        this.defaultRequestConfig = requestConfig(timeouts.defaults().readNanos);
+        Map<Endpoint, RequestConfig> overridden = new HashMap<>();
+        for (Map.Entry<Endpoint, Timeouts> override : timeouts.overrides().entrySet())
+            overridden.put(override.getKey(), requestConfig(override.getValue().readNanos));
+        this.endpointRequestConfigs = overridden.isEmpty() ? Collections.emptyMap() : overridden;
+        this.hedges = settings.hedges;
+        this.hedgedCount = hedges.isEnabled() ? settings.counters.counter(EngineCounters.ASYNC_HEDGED) : null;
+        this.bulkheads = settings.bulkheads;
+        this.circuitBreaker = settings.circuitBreaker;
+        this.rateLimiter = settings.rateLimiter;
+        this.serverRateLimits = settings.serverRateLimits;
+        this.singleFlight = settings.coalesceGets ? new SingleFlight(settings.counters.counter(EngineCounters.ASYNC_COALESCED)) : null;
+        this.compression = settings.compressionMinBytes > 0 ? new RequestCompression(settings.compressionMinBytes) : null;
+    }
+
+    /**
+     * Executes an HTTP request without a request body.
+     *
+     * @param httpMethod            the HTTP method to use (e.g., GET, DELETE)
+     * @param path                  the target API path
+     * @param headers               the HTTP headers to include in the request
+     * @param successResponseClass  the expected response type on success
+     * @param <S>                   the success response type
+     * @return a future of an {@link Either} containing either an {@link ErrorEntity} on failure
+     *         or a deserialized success response on success
+     */
+    public <S> CompletableFuture<Either<ErrorEntity, S>> makeRequest (
+            @NonNull HttpMethod httpMethod,
+            @NonNull String path,
+            @NonNull HttpHeaders headers,
+            @NonNull Class<S> successResponseClass
+    ) {
+        Objects.requireNonNull(httpMethod, "httpMethod cannot be null");
+        Objects.requireNonNull(path, "path cannot be null");
+        Objects.requireNonNull(headers, "headers cannot be null");
+        Objects.requireNonNull(successResponseClass, "successResponseClass cannot be null");
+
+        return execute(httpMethod, null, path, headers, null, successResponseClass, Deadline.none());
+    }
+
+    /**
+     * Executes an HTTP request with a request body.
+     *
+     * @param httpMethod            the HTTP method to use (e.g., POST, PUT)
+     * @param path                  the target API path
+     * @param headers               the HTTP headers to include in the request
+     * @param requestBody           the request body to send
+     * @param successResponseClass  the expected response type on success
+     * @param <S>                   the success response type
+     * @return a future of an {@link Either} containing either an {@link ErrorEntity} on failure
+     *         or a deserialized success response on success
+     */
+    public <S> CompletableFuture<Either<ErrorEntity, S>> makeRequestWithBody (
+            @NonNull HttpMethod httpMethod,
+            @NonNull String path,
+            @NonNull HttpHeaders headers,
+            @NonNull Object requestBody,
+            @NonNull Class<S> successResponseClass) {
+
+        Objects.requireNonNull(httpMethod, "httpMethod cannot be null");
+        Objects.requireNonNull(path, "path cannot be null");
+        Objects.requireNonNull(headers, "headers cannot be null");
+        Objects.requireNonNull(requestBody, "requestBody cannot be null");
+        Objects.requireNonNull(successResponseClass, "successResponseClass cannot be null");
+
+        return execute(httpMethod, null, path, headers, requestBody, successResponseClass, Deadline.none());
+    }
+
+    /**
+     * Executes a JSON request without a request body against a precompiled endpoint.
+     * <p>
+     * Unlike {@link #makeRequest(HttpMethod, String, HttpHeaders, Class)}, this needs no per-call headers,
+     * which keeps allocations on the request path low.
+     * </p>
+     * <p>
+     * Concurrent identical GETs share one request if coalescing was turned on through
+     * {@link HttpServiceEngine.Builder#coalesceGets(boolean)}. GETs to endpoints hedged through
+     * {@link HttpServiceEngine.Builder#hedging(Endpoint, io.github.eggy03.papertrail.sdk.resilience.HedgingPolicy)} race a second
+     * attempt against the first one once it is slow.
+     * </p>
+     *
+     * @param endpoint              the endpoint to call
+     * @param pathVariable          the value of the endpoint's path variable, or {@code null} if it has none
+     * @param successResponseClass  the expected response type on success
+     * @param <S>                   the success response type
+     * @return a future of an {@link Either} containing either an {@link ErrorEntity} on failure
+     *         or a deserialized success response on success
+     */
+    public <S> CompletableFuture<Either<ErrorEntity, S>> makeRequest (
+            @NonNull Endpoint endpoint,
+            @Nullable String pathVariable,
+            @NonNull Class<S> successResponseClass
+    ) {
+        return makeRequest(endpoint, pathVariable, successResponseClass, Deadline.none());
+    }
+
+    /**
+     * Executes a JSON request without a request body against a precompiled endpoint, giving up once the
+     * deadline has passed.
+     * <p>
+     * A request whose deadline has already passed completes with a 504 "Deadline Exceeded" error without being
+     * sent. The read timeout of an attempt is shortened to the time left, and GETs with a bounded deadline are
+     * never coalesced.
+     * </p>
+     *
+     * @param endpoint              the endpoint to call
+     * @param pathVariable          the value of the endpoint's path variable, or {@code null} if it has none
+     * @param successResponseClass  the expected response type on success
+     * @param deadline              when to give up, on top of the endpoint's {@link Timeouts}
+     * @param <S>                   the success response type
+     * @return a future of an {@link Either} containing either an {@link ErrorEntity} on failure
+     *         or a deserialized success response on success
+     * @see HttpServiceEngine#makeRequest(Endpoint, String, Class, Deadline)
+     */
+    public <S> CompletableFuture<Either<ErrorEntity, S>> makeRequest (
+            @NonNull Endpoint endpoint,
+            @Nullable String pathVariable,
+            @NonNull Class<S> successResponseClass,
+            @NonNull Deadline deadline
+    ) {
+        Objects.requireNonNull(endpoint, "endpoint cannot be null");
+        Objects.requireNonNull(successResponseClass, "successResponseClass cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
+
+        String path = endpoint.expand(pathVariable);
+        if (deadline.isExpired())
+            return CompletableFuture.completedFuture(Either.left(HttpServiceEngine.deadlineExceededError(path)));
+
+        if (singleFlight != null && !deadline.isBounded() && HttpMethod.GET.equals(endpoint.getMethod()))
+            return singleFlight.joinAsync(path, successResponseClass, () -> execute(endpoint, path, successResponseClass, deadline));
+
+        return execute(endpoint, path, successResponseClass, deadline);
+    }
+
+    /**
+     * Executes a JSON request with a request body against a precompiled endpoint.
+     *
+     * @param endpoint              the endpoint to call
+     * @param pathVariable          the value of the endpoint's path variable, or {@code null} if it has none
+     * @param requestBody           the request body to send
+     * @param successResponseClass  the expected response type on success
+     * @param <S>                   the success response type
+     * @return a future of an {@link Either} containing either an {@link ErrorEntity} on failure
+     *         or a deserialized success response on success
+     * @see #makeRequest(Endpoint, String, Class)
+     */
+    public <S> CompletableFuture<Either<ErrorEntity, S>> makeRequestWithBody (
+            @NonNull Endpoint endpoint,
+            @Nullable String pathVariable,
+            @NonNull Object requestBody,
+            @NonNull Class<S> successResponseClass
+    ) {
+        return makeRequestWithBody(endpoint, pathVariable, requestBody, successResponseClass, Deadline.none());
+    }
+
+    /**
+     * Executes a JSON request with a request body against a precompiled endpoint, giving up once the
+     * deadline has passed.
+     *
+     * @param endpoint              the endpoint to call
+     * @param pathVariable          the value of the endpoint's path variable, or {@code null} if it has none
+     * @param requestBody           the request body to send
+     * @param successResponseClass  the expected response type on success
+     * @param deadline              when to give up, on top of the endpoint's {@link Timeouts}
+     * @param <S>                   the success response type
+     * @return a future of an {@link Either} containing either an {@link ErrorEntity} on failure
+     *         or a deserialized success response on success
+     * @see #makeRequest(Endpoint, String, Class, Deadline)
+     */
+    public <S> CompletableFuture<Either<ErrorEntity, S>> makeRequestWithBody (
+            @NonNull Endpoint endpoint,
+            @Nullable String pathVariable,
+            @NonNull Object requestBody,
+            @NonNull Class<S> successResponseClass,
+            @NonNull Deadline deadline
+    ) {
+        Objects.requireNonNull(endpoint, "endpoint cannot be null");
+        Objects.requireNonNull(requestBody, "requestBody cannot be null");
+        Objects.requireNonNull(successResponseClass, "successResponseClass cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
+
+        String path = endpoint.expand(pathVariable);
+        if (deadline.isExpired())
+            return CompletableFuture.completedFuture(Either.left(HttpServiceEngine.deadlineExceededError(path)));
+
+        return execute(endpoint.getMethod(), endpoint, path, null, requestBody, successResponseClass, deadline);
+    }
+
+    /**
+     * Shuts down the underlying transports. Requests still in flight complete with an "API Unreachable" error.
+     */
+    @Override
+    public void close() {
+        List<CloseableHttpAsyncClient> current = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            if (client != null)
+                current.add(client);
+            client = null;
+            current.addAll(bulkheadClients.values());
+            bulkheadClients.clear();
+        }
+
+        for (CloseableHttpAsyncClient started : current)
+            started.close(CloseMode.GRACEFUL);
+        if (compression != null)
+            compression.close();
+    }
+
+    // a request without a body, hedged if its endpoint is
+    private <S> CompletableFuture<Either<ErrorEntity, S>> execute(Endpoint endpoint, String path, Class<S> successResponseClass, Deadline deadline) {
+
+        HedgeDelay hedgeDelay = hedges.forEndpoint(endpoint);
+        if (hedgeDelay == null)
+            return execute(endpoint.getMethod(), endpoint, path, null, null, successResponseClass, deadline);
+
+        Deadline callDeadline = deadline.sooner(timeouts.forEndpoint(endpoint).totalNanos);
+        return new Hedge<>(hedgeDelay, endpoint, path, successResponseClass, callDeadline).start();
+    }
+
+    private <S> CompletableFuture<Either<ErrorEntity, S>> execute(
+            HttpMethod httpMethod,
+            @Nullable Endpoint endpoint,
+            String path,
+            @Nullable HttpHeaders headers,
+            @Nullable Object requestBody,
+            Class<S> successResponseClass,
+            Deadline deadline
+    ) {
+        CompletableFuture<Either<ErrorEntity, S>> result = new CompletableFuture<>();
+        Exchange<S> exchange = exchange(httpMethod, endpoint, path, headers, requestBody, successResponseClass, deadline, result);
+        if (exchange != null)
+            exchange.send(1);
+        return result;
+    }
+
+    // null if the request could not be built, in which case the result has been completed with the error
+    private <S> @Nullable Exchange<S> exchange(
+            HttpMethod httpMethod,
+            @Nullable Endpoint endpoint,
+            String path,
+            @Nullable HttpHeaders headers,
+            @Nullable Object requestBody,
+            Class<S> successResponseClass,
+            Deadline deadline,
+            CompletableFuture<Either<ErrorEntity, S>> result
+    ) {
+        SimpleHttpRequest request;
+        try {
+            // aimed at an upstream right away, so that a malformed path fails here; the request is re-aimed per attempt,
+            // and only those choices move the round robin on
+            URI uri = uri(upstreams.any(), endpoint, path);
+            request = buildRequest(httpMethod, uri, headers, requestBody);
+        } catch (Exception e) {
+            log.error("Failed to prepare request {} {}: {}", httpMethod, path, e.getMessage(), e);
+            result.complete(Either.left(new ErrorEntity(400, "Request Not Sent", String.valueOf(e.getMessage()), Instant.now().toString(), path)));
+            return null;
+        }
+
+        String metricName = endpoint == null ? path : endpoint.getTemplate();
+        Timeouts endpointTimeouts = timeouts.forEndpoint(endpoint);
+        RequestConfig requestConfig = endpoint == null ? defaultRequestConfig : endpointRequestConfigs.getOrDefault(endpoint, defaultRequestConfig);
+        request.setConfig(requestConfig);
+        return new Exchange<>(request, httpMethod, endpoint, metricName, path, retries.policyFor(endpoint), bulkheads.forEndpoint(endpoint),
+                endpointTimeouts.readNanos, deadline.sooner(endpointTimeouts.totalNanos), successResponseClass, result);
+    }
+
+    // endpoint paths are already encoded, while raw paths are encoded the way the blocking engine encodes them
+    private static URI uri(Upstream upstream, @Nullable Endpoint endpoint, String path) {
+        return endpoint == null ? upstream.expand(path) : upstream.resolve(endpoint, path);
+    }
+
+    private long recordStart(HttpMethod httpMethod, String metricName) {
+        if (metricsEnabled)
+            metrics.requestStarted(httpMethod, metricName);
+        return timed ? System.nanoTime() : 0L;
+    }
+
+    private void recordCompletion(HttpMethod httpMethod, String metricName, RequestOutcome outcome, long startNanos) {
+        if (metricsEnabled)
+            metrics.requestCompleted(httpMethod, metricName, outcome, System.nanoTime() - startNanos);
+    }
+
+    // the upstream is told first, so its load is up to date before the result is handed on
+    private void recordCompletion(HttpMethod httpMethod, String metricName, Upstream upstream, RequestOutcome outcome, long startNanos) {
+        upstreams.requestCompleted(upstream, outcome, timed ? System.nanoTime() - startNanos : 0L);
+        recordCompletion(httpMethod, metricName, outcome, startNanos);
+    }
+
+    // requests carrying their own configuration do not inherit the client's, so this starts from a copy of it;
+    // a zero timeout would mean none at all, hence the floor of a millisecond
+    private RequestConfig requestConfig(long readTimeoutNanos) {
+        return RequestConfig.copy(ApacheClients.requestConfig(poolSettings))
+                .setResponseTimeout(Timeout.ofMilliseconds(Math.max(1L, TimeUnit.NANOSECONDS.toMillis(readTimeoutNanos))))
+                .build();
+    }
+
+    // headers are null for endpoint requests, which are always JSON
+    private SimpleHttpRequest buildRequest(HttpMethod httpMethod, URI uri, @Nullable HttpHeaders headers, @Nullable Object requestBody) throws Exception {
+
+        SimpleRequestBuilder builder = SimpleRequestBuilder.create(httpMethod.name())
+                .setUri(uri);
+
+        MediaType contentType = MediaType.APPLICATION_JSON;
+        boolean encoded = false;
+        if (headers != null) {
+            for (Map.Entry<String, List<String>> header : headers.headerSet()) {
+                // content type travels with the body below
+                if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(header.getKey()))
+                    continue;
+
+                for (String value : header.getValue())
+                    builder.addHeader(header.getKey(), value);
+            }
+
+            encoded = headers.containsHeader(HttpHeaders.CONTENT_ENCODING);
+
+            if (headers.getContentType() != null)
+                contentType = headers.getContentType();
+        }
+
+        if (requestBody != null) {
+            ContentType bodyType = MediaType.APPLICATION_JSON.equals(contentType) ? JSON : ContentType.parse(contentType.toString());
+            byte[] body = codec.encode(requestBody, contentType);
+            if (compression != null && !encoded && compression.appliesTo(body.length)) {
+                body = compression.compress(body);
+                builder.addHeader(HttpHeaders.CONTENT_ENCODING, RequestCompression.GZIP);
+            }
+            builder.setBody(body, bodyType);
+        }
+
+        return builder.build();
+    }
+
+    // one request and its retries, which are sent from the shared scheduler once their backoff has elapsed
+    private final class Exchange<S> {
+
+        private final SimpleHttpRequest request;
+        private final HttpMethod httpMethod;
+        private final @Nullable Endpoint endpoint;
+        private final String metricName;
+        private final String path;
+        private final RetryPolicy retryPolicy;
+        private final @Nullable Bulkhead bulkhead;
+        private final long readTimeoutNanos;
+        private final Deadline deadline;
+        private final Class<S> successResponseClass;
+        private final CompletableFuture<Either<ErrorEntity, S>> result;
+
+        // time spent waiting for the server's rate-limit window, and the 429 that closed it
+        private long parkedNanos;
+        private @Nullable Either<ErrorEntity, S> throttledResponse;
+
+        // set once the other attempt of a hedged request has answered, and the attempt on the wire
+        private volatile boolean abandoned;
+        private volatile @Nullable Future<SimpleHttpResponse> inFlight;
+
+        // whether the current attempt holds a permit of the bulkhead
+        private final AtomicBoolean holdsPermit = new AtomicBoolean();
+
+        private Exchange(
+                SimpleHttpRequest request,
+                HttpMethod httpMethod,
+                @Nullable Endpoint endpoint,
+                String metricName,
+                String path,
+                RetryPolicy retryPolicy,
+                @Nullable Bulkhead bulkhead,
+                long readTimeoutNanos,
+                Deadline deadline,
+                Class<S> successResponseClass,
+                CompletableFuture<Either<ErrorEntity, S>> result
+        ) {
+            this.request = request;
+            this.httpMethod = httpMethod;
+            this.endpoint = endpoint;
+            this.metricName = metricName;
+            this.path = path;
+            this.retryPolicy = retryPolicy;
+            this.bulkhead = bulkhead;
+            this.readTimeoutNanos = readTimeoutNanos;
+            this.deadline = deadline;
+            this.successResponseClass = successResponseClass;
+            this.result = result;
+        }
+
+        // stops the exchange from sending again and cancels the attempt on the wire, if any
+        private void abandon() {
+            abandoned = true;
+            Future<SimpleHttpResponse> current = inFlight;
+            if (current != null)
+                current.cancel(true);
+        }
+
+        private void send(int attempt) {
+
+            if (abandoned) {
+                result.complete(Either.left(HttpServiceEngine.cancelledError(path)));
+                return;
+            }
+
+            // parked on the scheduler instead of hitting a window the server already closed
+            long throttleNanos = serverRateLimits.delayNanos(metricName);
+            if (throttleNanos > 0) {
+                parkedNanos += throttleNanos;
+                if (closed || parkedNanos > serverRateLimits.maxWaitNanos() || throttleNanos >= deadline.remainingNanos())
+                    result.complete(throttledResponse != null ? throttledResponse : Either.left(HttpServiceEngine.throttledError(path)));
+                else
+                    SharedScheduler.schedule(() -> send(attempt), throttleNanos);
+                return;
+            }
+
+            if (deadline.isExpired()) {
+                result.complete(throttledResponse != null ? throttledResponse : Either.left(HttpServiceEngine.deadlineExceededError(path)));
+                return;
+            }
+
+            // completes inline when a token is available right away
+            rateLimiter.acquireAsync(endpoint).whenComplete((acquired, error) -> {
+                try {
+                    if (error != null)
+                        sendFailed(error);
+                    else if (!acquired)
+                        result.complete(Either.left(HttpServiceEngine.rateLimitedError(path)));
+                    else if (bulkhead == null)
+                        dispatch(attempt);
+                    else
+                        enter(bulkhead, attempt);
+                } catch (Throwable e) {
+                    sendFailed(e);
+                }
+            });
+        }
+
+        // a permit per attempt, given back once the attempt is answered or fails; it may be handed over by the
+        // release of another request's permit, which then dispatches this one
+        private void enter(Bulkhead bulkhead, int attempt) {
+            bulkhead.acquireAsync(deadline.remainingNanos(), TimeUnit.NANOSECONDS).whenComplete((permitted, error) -> {
+                if (error != null) {
+                    sendFailed(error);
+                    return;
+                }
+                if (!permitted) {
+                    rateLimiter.release(endpoint);
+                    result.complete(Either.left(HttpServiceEngine.bulkheadFullError(bulkhead, path)));
+                    return;
+                }
+
+                holdsPermit.set(true);
+                try {
+                    if (abandoned) {
+                        releasePermit();
+                        result.complete(Either.left(HttpServiceEngine.cancelledError(path)));
+                    } else {
+                        dispatch(attempt);
+                    }
+                } catch (Throwable e) {
+                    releasePermit();
+                    sendFailed(e);
+                }
+            });
+        }
+
+        // at most once per permit, however the attempt ends
+        private void releasePermit() {
+            if (bulkhead != null && holdsPermit.compareAndSet(true, false))
+                bulkhead.release();
+        }
+
+        // anything thrown on the way to the wire is a bug rather than an HTTP or I/O failure, so it fails the
+        // caller's future instead of leaving it pending
+        private void sendFailed(Throwable error) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            log.error("Failed to send {} {}", httpMethod, path, cause);
+            result.completeExceptionally(cause);
+        }
+
+        private void dispatch(int attempt) {
+
+            // timestamps are only taken when someone is listening
+            long startNanos = recordStart(httpMethod, metricName);
+
+            long permission = circuitBreaker.acquirePermission();
+            if (permission == CircuitBreaker.NOT_PERMITTED) {
+                releasePermit();
+                recordCompletion(httpMethod, metricName, RequestOutcome.CIRCUIT_OPEN, startNanos);
+                result.complete(Either.left(HttpServiceEngine.circuitOpenError(path)));
+                return;
+            }
+
+            // everything taken for the attempt is given back if it fails to start, like the blocking engine does
+            Upstream upstream = null;
+            try {
+                // chosen again on every attempt, so that retries fail over to another upstream
+                Upstream chosen = upstreams.select();
+                if (upstreams.isBalanced())
+                    request.setUri(uri(chosen, endpoint, path));
+                upstreams.requestStarted(chosen);
+                upstream = chosen;
+
+                // an attempt that would outlast the deadline gets a read timeout ending with it
+                long remainingNanos = deadline.remainingNanos();
+                if (remainingNanos < readTimeoutNanos)
+                    request.setConfig(requestConfig(remainingNanos));
+
+                Future<SimpleHttpResponse> sent = client(bulkhead).execute(request, callback(chosen, permission, attempt, startNanos));
+
+                // abandoned while being handed over, so this side cancels it
+                inFlight = sent;
+                if (abandoned)
+                    sent.cancel(true);
+            } catch (RuntimeException e) {
+                releasePermit();
+                circuitBreaker.onResult(permission, RequestOutcome.UNREACHABLE);
+                if (upstream != null)
+                    recordCompletion(httpMethod, metricName, upstream, RequestOutcome.UNREACHABLE, startNanos);
+                else
+                    recordCompletion(httpMethod, metricName, RequestOutcome.UNREACHABLE, startNanos);
+
+                // a closed transport is an unreachable API, anything else is a bug failing the caller's future
+                if (!(e instanceof IllegalStateException))
+                    throw e;
+                result.complete(unreachable(httpMethod, path, e));
+            }
+        }
+
+        private FutureCallback<SimpleHttpResponse> callback(Upstream upstream, long permission, int attempt, long startNanos) {
+            return new FutureCallback<SimpleHttpResponse>() {
+                @Override
+                public void completed(SimpleHttpResponse response) {
+                    releasePermit();
+                    RequestOutcome outcome = RequestOutcome.of(response.getCode());
+                    circuitBreaker.onResult(permission, outcome);
+                    recordCompletion(httpMethod, metricName, upstream, outcome, startNanos);
+
+                    // a 429 is answered by waiting out the window, not by the retry policy
+                    if (response.getCode() == HttpStatus.TOO_MANY_REQUESTS.value() && !closed && !abandoned) {
+                        Header retryAfter = response.getFirstHeader(ServerRateLimits.RETRY_AFTER);
+                        serverRateLimits.close(metricName, retryAfter == null ? null : retryAfter.getValue());
+                        throttledResponse = toEither(httpMethod, path, response, successResponseClass);
+                        send(attempt);
+                        return;
+                    }
+
+                    if (!retry(outcome, true, attempt))
+                        result.complete(toEither(httpMethod, path, response, successResponseClass));
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    if (abandoned) {
+                        cancelled();
+                        return;
+                    }
+
+                    releasePermit();
+                    circuitBreaker.onResult(permission, RequestOutcome.UNREACHABLE);
+                    recordCompletion(httpMethod, metricName, upstream, RequestOutcome.UNREACHABLE, startNanos);
+                    if (!retry(RequestOutcome.UNREACHABLE, !RetrySettings.neverSent(e), attempt))
+                        result.complete(unreachable(httpMethod, path, e));
+                }
+
+                @Override
+                public void cancelled() {
+                    releasePermit();
+                    if (abandoned) {
+                        circuitBreaker.onResult(permission, RequestOutcome.CANCELLED);
+                        recordCompletion(httpMethod, metricName, upstream, RequestOutcome.CANCELLED, startNanos);
+                        result.complete(Either.left(HttpServiceEngine.cancelledError(path)));
+                        return;
+                    }
+
+                    circuitBreaker.onResult(permission, RequestOutcome.UNREACHABLE);
+                    recordCompletion(httpMethod, metricName, upstream, RequestOutcome.UNREACHABLE, startNanos);
+                    result.complete(unreachable(httpMethod, path, new IllegalStateException("Request cancelled")));
+                }
+            };
+        }
+
+        private boolean retry(RequestOutcome outcome, boolean requestSent, int attempt) {
+
+            if (closed || abandoned || !retries.shouldRetry(retryPolicy, httpMethod, outcome, requestSent, attempt))
+                return false;
+
+            // a retry that could not start before the deadline is not worth waiting for
+            long backoffNanos = retryPolicy.backoffNanos(attempt);
+            if (backoffNanos >= deadline.remainingNanos())
+                return false;
+
+            log.debug("Retrying {} {} in {} ms, attempt {} of {}", httpMethod, path,
+                    TimeUnit.NANOSECONDS.toMillis(backoffNanos), attempt + 1, retryPolicy.getMaxAttempts());
+
+            SharedScheduler.schedule(() -> send(attempt + 1), backoffNanos);
+            return true;
+        }
+    }
+
+    // the first attempt of a hedged GET and, once it is slower than the endpoint usually is, a second one racing it
+    private final class Hedge<S> {
+
+        private final HedgeDelay hedgeDelay;
+        private final Endpoint endpoint;
+        private final String path;
+        private final Class<S> successResponseClass;
+        private final Deadline deadline;
+        private final CompletableFuture<Either<ErrorEntity, S>> result = new CompletableFuture<>();
+
+        // guarded by this
+        private @Nullable Exchange<S> first;
+        private @Nullable Exchange<S> second;
+        private long firstStart;
+        private long secondStart;
+        private int running;
+        private boolean settled;
+        private @Nullable ScheduledFuture<?> timer;
+
+        private Hedge(HedgeDelay hedgeDelay, Endpoint endpoint, String path, Class<S> successResponseClass, Deadline deadline) {
+            this.hedgeDelay = hedgeDelay;
+            this.endpoint = endpoint;
+            this.path = path;
+            this.successResponseClass = successResponseClass;
+            this.deadline = deadline;
+        }
+
+        private CompletableFuture<Either<ErrorEntity, S>> start() {
+
+            CompletableFuture<Either<ErrorEntity, S>> attempt = new CompletableFuture<>();
+            Exchange<S> exchange = exchange(HttpMethod.GET, endpoint, path, null, null, successResponseClass, deadline, attempt);
+            if (exchange == null)
+                return attempt;
+
+            synchronized (this) {
+                first = exchange;
+                firstStart = System.nanoTime();
+                running = 1;
+            }
+            attempt.whenComplete((response, error) -> settle(exchange, response, error));
+
+            // no second attempt when there would be no time left for it
+            long delayNanos = hedgeDelay.nanos();
+            if (delayNanos < deadline.remainingNanos()) {
+                ScheduledFuture<?> scheduled = SharedScheduler.schedule(this::hedge, delayNanos);
+                synchronized (this) {
+                    timer = scheduled;
+                }
+            }
+
+            exchange.send(1);
+            return result;
+        }
+
+        private void hedge() {
+
+            CompletableFuture<Either<ErrorEntity, S>> attempt = new CompletableFuture<>();
+            Exchange<S> exchange;
+            synchronized (this) {
+                if (settled || closed || deadline.isExpired() || !hedges.tryHedge())
+                    return;
+
+                exchange = exchange(HttpMethod.GET, endpoint, path, null, null, successResponseClass, deadline, attempt);
+                if (exchange == null)
+                    return;
+
+                second = exchange;
+                secondStart = System.nanoTime();
+                running++;
+            }
+
+            if (hedgedCount != null)
+                hedgedCount.increment();
+
+            log.debug("Hedging GET {} after {} ms", path, TimeUnit.NANOSECONDS.toMillis(secondStart - firstStart));
+            attempt.whenComplete((response, error) -> settle(exchange, response, error));
+            exchange.send(1);
+        }
+
+        // an attempt failing with a throwable, which is a bug, settles the request at once
+        private void settle(Exchange<S> from, @Nullable Either<ErrorEntity, S> response, @Nullable Throwable error) {
+
+            boolean answered = error == null && HedgeSettings.isAnswer(response);
+            long now = System.nanoTime();
+
+            long start;
+            Exchange<S> loser = null;
+            ScheduledFuture<?> pending;
+            synchronized (this) {
+                // the loser completing once it has been abandoned
+                if (settled)
+                    return;
+
+                // a failed attempt does not win while the other one may still answer
+                running--;
+                if (error == null && !answered && running > 0)
+                    return;
+
+                settled = true;
+                start = from == first ? firstStart : secondStart;
+                if (running > 0)
+                    loser = from == first ? second : first;
+                pending = timer;
+            }
+
+            if (pending != null)
+                pending.cancel(false);
+            if (answered)
+                hedgeDelay.record(now - start);
+            if (loser != null)
+                loser.abandon();
+            if (error != null)
+                result.completeExceptionally(error);
+            else
+                result.complete(response);
+        }
+    }
+
+    private <S> Either<ErrorEntity, S> toEither(HttpMethod httpMethod, String path, SimpleHttpResponse response, Class<S> successResponseClass) {
+
+        int status = response.getCode();
+        byte[] body = response.getBodyBytes();
+        MediaType contentType = response.getContentType() == null ? null : MediaType.parseMediaType(response.getContentType().toString());
+
+        if (status >= 400) {
+            if (status >= 500)
+                log.warn("Server error when calling {} {}: {} {}", httpMethod, path, status, response.getReasonPhrase());
+            else
+                log.debug("Client error when calling {} {}: {} {}", httpMethod, path, status, response.getReasonPhrase());
+
+            return Either.left(HttpMessageCodec.decodeError(status, response.getReasonPhrase(), path, body, contentType));
+        }
+
+        if (body == null || body.length == 0 || Void.class.equals(successResponseClass))
+            return Either.right(null);
+
+        try {
+            return Either.right(codec.decode(body, contentType, successResponseClass));
+        } catch (Exception e) {
+            log.error("Failed to read response of {} {}: {}", httpMethod, path, e.getMessage(), e);
+            return Either.left(new ErrorEntity(status, "Unreadable Response", String.valueOf(e.getMessage()), Instant.now().toString(), path));
+        }
+    }
+
+    private <S> Either<ErrorEntity, S> unreachable(HttpMethod httpMethod, String path, Exception e) {
+        log.error("Resource access error when calling {} {}: {}", httpMethod, path, e.getMessage(), e);
+        return Either.left(new ErrorEntity(503, "API Unreachable", String.valueOf(e.getMessage()), Instant.now().toString(), path));
+    }
+
+    private CloseableHttpAsyncClient client(@Nullable Bulkhead bulkhead) {
+        if (bulkhead == null)
+            return client();
+
+        CloseableHttpAsyncClient current = bulkheadClients.get(bulkhead);
+        if (current != null)
+            return current;
+
+        synchronized (this) {
+            if (closed)
+                throw new IllegalStateException("AsyncHttpServiceEngine has been closed");
+
+            return bulkheadClients.computeIfAbsent(bulkhead, b -> {
+                CloseableHttpAsyncClient created = ApacheClients.createAsyncClient(poolSettings.forBulkhead(b), metrics);
+                created.start();
+                return created;
+            });
+        }
+    }
+
+    private CloseableHttpAsyncClient client() {
+        CloseableHttpAsyncClient current = client;
+        if (current != null)
+            return current;
+
+        synchronized (this) {
+            if (closed)
+                throw new IllegalStateException("AsyncHttpServiceEngine has been closed");
+
+            if (client == null) {
+                CloseableHttpAsyncClient created = ApacheClients.createAsyncClient(poolSettings, metrics);
+                created.start();
+                client = created;
+            }
+            return client;
+        }
+    }
+}
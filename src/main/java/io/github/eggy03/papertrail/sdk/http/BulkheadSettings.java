@@ -0,0 +1,55 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import io.github.eggy03.papertrail.sdk.resilience.Bulkhead;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The bulkhead configuration of an engine: the {@link Bulkhead} each endpoint belongs to. Endpoints without
+ * one, and requests made with a plain path, share the engine's main connection pool without a limit of
+ * their own.
+ */
+final class BulkheadSettings {
+
+    private final @NonNull Map<Endpoint, Bulkhead> endpointBulkheads;
+    private final @NonNull Collection<Bulkhead> bulkheads;
+
+    BulkheadSettings(@NonNull Map<Endpoint, Bulkhead> endpointBulkheads) {
+        this.endpointBulkheads = endpointBulkheads.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(endpointBulkheads));
+
+        // the same bulkhead is usually given to several endpoints
+        Map<Bulkhead, Boolean> distinct = new IdentityHashMap<>();
+        for (Bulkhead bulkhead : endpointBulkheads.values())
+            distinct.put(bulkhead, Boolean.TRUE);
+        this.bulkheads = Collections.unmodifiableList(new ArrayList<>(distinct.keySet()));
+    }
+
+    /**
+     * The bulkhead of the given endpoint, or {@code null} if it has none or {@code endpoint} is {@code null}.
+     */
+    @Nullable Bulkhead forEndpoint(@Nullable Endpoint endpoint) {
+        return endpoint == null || endpointBulkheads.isEmpty() ? null : endpointBulkheads.get(endpoint);
+    }
+
+    /**
+     * The endpoints that belong to a bulkhead.
+     */
+    @NonNull Set<Endpoint> endpoints() {
+        return endpointBulkheads.keySet();
+    }
+
+    /**
+     * Every bulkhead assigned to an endpoint, once each.
+     */
+    @NonNull Collection<Bulkhead> bulkheads() {
+        return bulkheads;
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import io.github.eggy03.papertrail.sdk.resilience.Bulkhead;
+import org.jspecify.annotations.NonNull;
+
+import java.time.Duration;
+
+/**
+ * Pool sizing, connection expiry and the connect timeout shared by the Apache-based transports of both engines.
+ * <p>
+ * The clients themselves are created by {@link ApacheClients}, so that these settings can be held without
+ * Apache HttpClient on the classpath.
+ * </p>
+ * <p>
+ * Each {@link Bulkhead} gets pools of its own, sized to its concurrency, so that its requests never wait for
+ * a connection held by another class of requests.
+ * </p>
+ */
+final class ConnectionPoolSettings {
+
+    final int maxConnections;
+    final int maxConnectionsPerRoute;
+    final @NonNull Duration keepAlive;
+    final @NonNull Duration idleTimeout;
+    final @NonNull Duration connectTimeout;
+
+    // names the pool gauges, "pool" for the main pool and "pool.<bulkhead>" for the pool of a bulkhead
+    final @NonNull String poolName;
+
+    ConnectionPoolSettings(int maxConnections, int maxConnectionsPerRoute, @NonNull Duration keepAlive, @NonNull Duration idleTimeout,
+                           @NonNull Duration connectTimeout) {
+        this(maxConnections, maxConnectionsPerRoute, keepAlive, idleTimeout, connectTimeout, "pool");
+    }
+
+    private ConnectionPoolSettings(int maxConnections, int maxConnectionsPerRoute, @NonNull Duration keepAlive, @NonNull Duration idleTimeout,
+                                   @NonNull Duration connectTimeout, @NonNull String poolName) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.keepAlive = keepAlive;
+        this.idleTimeout = idleTimeout;
+        this.connectTimeout = connectTimeout;
+        this.poolName = poolName;
+    }
+
+    /**
+     * The settings of a bulkhead's pools: as many connections as the bulkhead lets calls through, to each host
+     * and in total, with everything else unchanged.
+     */
+    @NonNull ConnectionPoolSettings forBulkhead(@NonNull Bulkhead bulkhead) {
+        int size = bulkhead.getMaxConcurrentCalls();
+        return new ConnectionPoolSettings(size, size, keepAlive, idleTimeout, connectTimeout, "pool." + bulkhead.getName());
+    }
+}
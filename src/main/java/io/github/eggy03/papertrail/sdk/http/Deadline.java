@@ -0,0 +1,103 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import org.jspecify.annotations.NonNull;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The point in time by which a caller needs an answer.
+ * <p>
+ * A request whose deadline has already passed fails right away with a 504 "Deadline Exceeded" error, without
+ * being sent. Otherwise the engine starts no attempt and begins no wait that would end past the deadline, and
+ * answers with the last failure instead. Deadlines are measured on {@link System#nanoTime()}, so they are
+ * unaffected by changes to the wall clock.
+ * </p>
+ */
+public final class Deadline {
+
+    private static final Deadline NONE = new Deadline(0L, false);
+
+    private final long nanos;
+    private final boolean bounded;
+
+    private Deadline(long nanos, boolean bounded) {
+        this.nanos = nanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * A deadline that never passes.
+     */
+    public static @NonNull Deadline none() {
+        return NONE;
+    }
+
+    /**
+     * A deadline the given time from now. A zero or negative timeout gives a deadline that has already passed.
+     *
+     * @param timeout the time from now; must not be {@code null}
+     * @return the deadline
+     */
+    public static @NonNull Deadline after(@NonNull Duration timeout) {
+        Objects.requireNonNull(timeout, "timeout cannot be null");
+        return afterNanos(saturatedNanos(timeout));
+    }
+
+    /**
+     * Whether this deadline can pass at all.
+     */
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * Whether this deadline has passed.
+     */
+    public boolean isExpired() {
+        return bounded && nanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * The time left until this deadline, zero or negative once it has passed, and {@link Long#MAX_VALUE}
+     * when it is unbounded.
+     */
+    public long remainingNanos() {
+        return bounded ? nanos - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    /**
+     * This deadline or the one {@code timeoutNanos} from now, whichever comes first.
+     *
+     * @param timeoutNanos the time from now, or {@code 0} for no limit
+     */
+    @NonNull Deadline sooner(long timeoutNanos) {
+        if (timeoutNanos <= 0)
+            return this;
+
+        Deadline other = afterNanos(timeoutNanos);
+        if (!bounded)
+            return other;
+        return other.bounded && other.nanos - nanos < 0 ? other : this;
+    }
+
+    @Override
+    public String toString() {
+        return bounded ? "Deadline{remaining=" + Duration.ofNanos(remainingNanos()) + "}" : "Deadline{none}";
+    }
+
+    private static Deadline afterNanos(long timeoutNanos) {
+        // a timeout this long is as good as none, and adding it to the clock could overflow
+        if (timeoutNanos > Long.MAX_VALUE / 2)
+            return NONE;
+        return new Deadline(System.nanoTime() + Math.max(0L, timeoutNanos), true);
+    }
+
+    private static long saturatedNanos(Duration duration) {
+        try {
+            return duration.toNanos();
+        } catch (ArithmeticException e) {
+            return duration.isNegative() ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+}
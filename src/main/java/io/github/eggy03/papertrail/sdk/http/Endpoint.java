@@ -0,0 +1,142 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * An HTTP method paired with a path template of the PaperTrail API, such as
+ * {@code GET /api/v1/content/message/{messageId}}.
+ * <p>
+ * The template is split around its path variable once, when the endpoint is created, so expanding it costs a
+ * single string concatenation instead of a trip through a URI builder. A template holds at most one variable.
+ * Endpoints are immutable and meant to be kept in constants.
+ * </p>
+ */
+public final class Endpoint {
+
+    private final @NonNull HttpMethod method;
+    private final @NonNull String template;
+
+    // the template before and after its path variable; the suffix is null when there is no variable
+    private final @NonNull String prefix;
+    private final @Nullable String suffix;
+
+    private Endpoint(@NonNull HttpMethod method, @NonNull String template) {
+        this.method = method;
+        this.template = template;
+
+        int open = template.indexOf('{');
+        if (open < 0) {
+            this.prefix = template;
+            this.suffix = null;
+            return;
+        }
+
+        int close = template.indexOf('}', open);
+        if (close < 0 || template.indexOf('{', close) >= 0)
+            throw new IllegalArgumentException("template must hold at most one well-formed path variable: " + template);
+
+        this.prefix = template.substring(0, open);
+        this.suffix = template.substring(close + 1);
+    }
+
+    /**
+     * Creates an endpoint.
+     *
+     * @param method   the HTTP method; must not be {@code null}
+     * @param template the path template, starting with '/' and holding at most one {@code {variable}}; must not be {@code null}
+     * @return the endpoint
+     * @throws IllegalArgumentException if the template does not start with '/' or holds more than one variable
+     */
+    public static @NonNull Endpoint of(@NonNull HttpMethod method, @NonNull String template) {
+
+        Objects.requireNonNull(method, "method cannot be null");
+        Objects.requireNonNull(template, "template cannot be null");
+
+        if (!template.startsWith("/"))
+            throw new IllegalArgumentException("template must start with '/': " + template);
+
+        return new Endpoint(method, template);
+    }
+
+    /**
+     * The HTTP method of this endpoint.
+     */
+    public @NonNull HttpMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * The unexpanded path template, suitable as a low-cardinality name for the endpoint.
+     */
+    public @NonNull String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Whether the template holds a path variable.
+     */
+    public boolean hasPathVariable() {
+        return suffix != null;
+    }
+
+    /**
+     * Expands the template into a request path. The variable is percent-encoded as a path segment if needed.
+     *
+     * @param pathVariable the value of the path variable; must be {@code null} exactly when the template has none
+     * @return the request path
+     * @throws NullPointerException     if the template has a variable and {@code pathVariable} is {@code null}
+     * @throws IllegalArgumentException if the template has no variable and {@code pathVariable} is not {@code null}
+     */
+    public @NonNull String expand(@Nullable String pathVariable) {
+
+        if (suffix == null) {
+            if (pathVariable != null)
+                throw new IllegalArgumentException("template has no path variable: " + template);
+            return prefix;
+        }
+
+        Objects.requireNonNull(pathVariable, "pathVariable cannot be null");
+        return prefix + encode(pathVariable) + suffix;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof Endpoint))
+            return false;
+
+        Endpoint other = (Endpoint) o;
+        return method.equals(other.method) && template.equals(other.template);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * method.hashCode() + template.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + template;
+    }
+
+    // IDs are almost always plain snowflakes, so only fall back to the encoder when something needs escaping
+    private static String encode(String pathVariable) {
+
+        for (int i = 0; i < pathVariable.length(); i++) {
+            char c = pathVariable.charAt(i);
+            boolean unreserved = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '.' || c == '_' || c == '~';
+            if (!unreserved)
+                return UriUtils.encodePathSegment(pathVariable, StandardCharsets.UTF_8);
+        }
+
+        return pathVariable;
+    }
+}
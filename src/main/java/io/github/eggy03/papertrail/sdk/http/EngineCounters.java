@@ -0,0 +1,43 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import io.github.eggy03.papertrail.sdk.metrics.MetricsRecorder;
+import org.jspecify.annotations.NonNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters behind the gauges engines report on top of their connection pools, such as the number of
+ * coalesced GETs. One set is shared by every engine built from the same {@link HttpServiceEngine.Builder}, so
+ * each gauge is registered with the {@link MetricsRecorder} once and adds up those engines, and the recorder
+ * holds on to counters rather than to the engines themselves.
+ */
+final class EngineCounters {
+
+    static final String BLOCKING_COALESCED = "papertrail.http.blocking.coalesced";
+    static final String BLOCKING_HEDGED = "papertrail.http.blocking.hedged";
+    static final String ASYNC_COALESCED = "papertrail.http.async.coalesced";
+    static final String ASYNC_HEDGED = "papertrail.http.async.hedged";
+
+    private final @NonNull MetricsRecorder metrics;
+    private final @NonNull ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    EngineCounters(@NonNull MetricsRecorder metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * The counter behind the gauge of the given name, registering the gauge the first time it is asked for.
+     */
+    @NonNull LongAdder counter(@NonNull String gaugeName) {
+        LongAdder counter = counters.get(gaugeName);
+        if (counter != null)
+            return counter;
+
+        return counters.computeIfAbsent(gaugeName, name -> {
+            LongAdder created = new LongAdder();
+            metrics.registerGauge(name, created::sum);
+            return created;
+        });
+    }
+}
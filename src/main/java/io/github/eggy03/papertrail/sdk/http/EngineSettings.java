@@ -0,0 +1,61 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import io.github.eggy03.papertrail.sdk.metrics.MetricsRecorder;
+import io.github.eggy03.papertrail.sdk.resilience.CircuitBreaker;
+import io.github.eggy03.papertrail.sdk.resilience.RateLimiter;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Everything an {@link HttpServiceEngine.Builder} hands over to the engines it builds.
+ */
+final class EngineSettings {
+
+    final @NonNull UpstreamPool upstreams;
+    final @NonNull HttpTransport transport;
+    final @NonNull ConnectionPoolSettings poolSettings;
+    final @NonNull MetricsRecorder metrics;
+    final @NonNull RetrySettings retries;
+    final @NonNull TimeoutSettings timeouts;
+    final @NonNull HedgeSettings hedges;
+    final @NonNull BulkheadSettings bulkheads;
+    final @NonNull CircuitBreaker circuitBreaker;
+    final @NonNull RateLimiter rateLimiter;
+    final @NonNull ServerRateLimits serverRateLimits;
+    final boolean coalesceGets;
+    final @NonNull EngineCounters counters;
+
+    // the smallest request body that is gzipped, or 0 when requests are sent as they are
+    final int compressionMinBytes;
+
+    EngineSettings(
+            @NonNull UpstreamPool upstreams,
+            @NonNull HttpTransport transport,
+            @NonNull ConnectionPoolSettings poolSettings,
+            @NonNull MetricsRecorder metrics,
+            @NonNull RetrySettings retries,
+            @NonNull TimeoutSettings timeouts,
+            @NonNull HedgeSettings hedges,
+            @NonNull BulkheadSettings bulkheads,
+            @NonNull CircuitBreaker circuitBreaker,
+            @NonNull RateLimiter rateLimiter,
+            @NonNull ServerRateLimits serverRateLimits,
+            boolean coalesceGets,
+            @NonNull EngineCounters counters,
+            int compressionMinBytes
+    ) {
+        this.upstreams = upstreams;
+        this.transport = transport;
+        this.poolSettings = poolSettings;
+        this.metrics = metrics;
+        this.retries = retries;
+        this.timeouts = timeouts;
+        this.hedges = hedges;
+        this.bulkheads = bulkheads;
+        this.circuitBreaker = circuitBreaker;
+        this.rateLimiter = rateLimiter;
+        this.serverRateLimits = serverRateLimits;
+        this.coalesceGets = coalesceGets;
+        this.counters = counters;
+        this.compressionMinBytes = compressionMinBytes;
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import com.fasterxml.jackson.core.JsonParser;
+import io.github.eggy03.papertrail.sdk.codec.EntityCodec;
+import io.github.eggy03.papertrail.sdk.codec.EntityCodecs;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads and writes the SDK's entities as JSON through their generated {@link EntityCodec}s.
+ * <p>
+ * Registered ahead of the converters {@link org.springframework.web.client.RestClient} discovers, so that entities
+ * never reach a reflective data-binding converter. Bodies are written in one piece with their
+ * {@code Content-Length}, which entities of a few hundred bytes gain nothing from streaming.
+ * </p>
+ */
+final class EntityCodecConverter implements HttpMessageConverter<Object> {
+
+    private static final List<MediaType> MEDIA_TYPES = Collections.unmodifiableList(Arrays.asList(
+            MediaType.APPLICATION_JSON, new MediaType("application", "*+json")));
+
+    /**
+     * Whether a body of the given content type is JSON, assuming it is when no type is given.
+     */
+    static boolean isJson(@Nullable MediaType mediaType) {
+        if (mediaType == null)
+            return true;
+        for (MediaType supported : MEDIA_TYPES) {
+            if (supported.isCompatibleWith(mediaType))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean canRead(@NonNull Class<?> clazz, @Nullable MediaType mediaType) {
+        return isJson(mediaType) && EntityCodecs.forType(clazz) != null;
+    }
+
+    @Override
+    public boolean canWrite(@NonNull Class<?> clazz, @Nullable MediaType mediaType) {
+        return isJson(mediaType) && EntityCodecs.forType(clazz) != null;
+    }
+
+    @Override
+    public @NonNull List<MediaType> getSupportedMediaTypes() {
+        return MEDIA_TYPES;
+    }
+
+    @Override
+    public @NonNull Object read(@NonNull Class<?> clazz, @NonNull HttpInputMessage inputMessage) throws IOException {
+
+        EntityCodec<?> codec = EntityCodecs.forType(clazz);
+        if (codec == null)
+            throw new HttpMessageNotReadableException("No generated codec for " + clazz.getName(), inputMessage);
+
+        try (InputStream body = inputMessage.getBody();
+             JsonParser parser = EntityCodecs.jsonFactory().createParser(body)) {
+            return codec.read(parser);
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Failed to read " + clazz.getSimpleName() + ": " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void write(@NonNull Object value, @Nullable MediaType contentType, @NonNull HttpOutputMessage outputMessage) throws IOException {
+
+        EntityCodec<Object> codec = (EntityCodec<Object>) EntityCodecs.forType(value.getClass());
+        if (codec == null)
+            throw new HttpMessageNotWritableException("No generated codec for " + value.getClass().getName());
+
+        byte[] body = EntityCodecs.encode(codec, value);
+        if (outputMessage.getHeaders().getContentType() == null)
+            outputMessage.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        outputMessage.getHeaders().setContentLength(body.length);
+        outputMessage.getBody().write(body);
+    }
+}
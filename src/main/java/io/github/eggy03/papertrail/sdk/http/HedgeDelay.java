@@ -0,0 +1,64 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import io.github.eggy03.papertrail.sdk.resilience.HedgingPolicy;
+import org.jspecify.annotations.NonNull;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The wait before hedging a request to one endpoint, following the latencies of the endpoint's recent answers.
+ * <p>
+ * The latest {@value #WINDOW} latencies are kept in a ring. Every {@value #REFRESH_INTERVAL} recordings, the
+ * one at the policy's percentile is picked out of a sorted copy of the ring, so requests only read a field.
+ * Recordings racing a refresh may or may not be included.
+ * </p>
+ */
+final class HedgeDelay {
+
+    // a power of two, so the ring is indexed with a mask
+    private static final int WINDOW = 128;
+    private static final int REFRESH_INTERVAL = 16;
+
+    private final @NonNull HedgingPolicy policy;
+    private final @NonNull AtomicLongArray latencies = new AtomicLongArray(WINDOW);
+    private final @NonNull AtomicLong recorded = new AtomicLong();
+
+    // the policy's longest wait until the first refresh
+    private volatile long delayNanos;
+
+    HedgeDelay(@NonNull HedgingPolicy policy) {
+        this.policy = policy;
+        this.delayNanos = policy.getMaxDelay().toNanos();
+    }
+
+    /**
+     * How long to wait for an attempt before sending a second one.
+     */
+    long nanos() {
+        return delayNanos;
+    }
+
+    /**
+     * Records how long the winning attempt took to answer. An attempt cancelled because the other one answered
+     * first is not recorded, since the time it had been running is not the latency of any answer.
+     */
+    void record(long latencyNanos) {
+        long count = recorded.getAndIncrement();
+        latencies.set((int) (count & (WINDOW - 1)), Math.max(0L, latencyNanos));
+
+        if ((count + 1) % REFRESH_INTERVAL == 0)
+            refresh((int) Math.min(count + 1, WINDOW));
+    }
+
+    private void refresh(int size) {
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++)
+            sorted[i] = latencies.get(i);
+        Arrays.sort(sorted);
+
+        int rank = (int) Math.ceil(policy.getPercentile() / 100.0 * size);
+        delayNanos = policy.delayNanos(sorted[Math.max(0, rank - 1)]);
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
+import io.github.eggy03.papertrail.sdk.resilience.HedgingPolicy;
+import io.github.eggy03.papertrail.sdk.resilience.RetryBudget;
+import io.vavr.control.Either;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The hedging configuration of an engine: the endpoints whose GETs are hedged, with the wait before hedging
+ * each of them, and the {@link RetryBudget} all hedges draw from.
+ */
+final class HedgeSettings {
+
+    private final @NonNull Map<Endpoint, HedgeDelay> delays;
+    private final @NonNull RetryBudget budget;
+
+    HedgeSettings(@NonNull Map<Endpoint, HedgingPolicy> policies, @NonNull RetryBudget budget) {
+        Map<Endpoint, HedgeDelay> created = new HashMap<>();
+        for (Map.Entry<Endpoint, HedgingPolicy> policy : policies.entrySet())
+            created.put(policy.getKey(), new HedgeDelay(policy.getValue()));
+
+        this.delays = created.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(created);
+        this.budget = budget;
+    }
+
+    /**
+     * Whether any endpoint is hedged.
+     */
+    boolean isEnabled() {
+        return !delays.isEmpty();
+    }
+
+    /**
+     * The wait before hedging a request to the given endpoint, or {@code null} if its requests are not hedged.
+     * Also records the request with the budget.
+     */
+    @Nullable HedgeDelay forEndpoint(@Nullable Endpoint endpoint) {
+
+        if (endpoint == null || delays.isEmpty())
+            return null;
+
+        HedgeDelay delay = delays.get(endpoint);
+        if (delay != null)
+            budget.recordRequest();
+        return delay;
+    }
+
+    /**
+     * Whether a second attempt may be sent, withdrawing from the budget if so.
+     */
+    boolean tryHedge() {
+        return budget.tryAcquire();
+    }
+
+    /**
+     * Whether an attempt's response settles a hedged request. Errors of the API or of the transport do not,
+     * as long as the other attempt may still answer.
+     */
+    static boolean isAnswer(@NonNull Either<ErrorEntity, ?> response) {
+        return response.isRight() || response.getLeft().getStatus() < 500;
+    }
+}
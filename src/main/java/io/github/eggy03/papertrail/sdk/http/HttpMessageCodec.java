@@ -0,0 +1,197 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import io.github.eggy03.papertrail.sdk.codec.EntityCodec;
+import io.github.eggy03.papertrail.sdk.codec.EntityCodecs;
+import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Encodes request bodies to bytes and decodes response bytes using Spring's {@link HttpMessageConverter}s.
+ * <p>
+ * Used by engines that do not go through {@link org.springframework.web.client.RestClient}, so that they
+ * serialize entities with the same converters {@code RestClient} would discover on the classpath.
+ * JSON bodies of types with a generated {@link EntityCodec} bypass the converters and go straight
+ * between bytes and entities.
+ * </p>
+ */
+final class HttpMessageCodec {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpMessageCodec.class);
+
+    private final @NonNull List<HttpMessageConverter<?>> converters;
+
+    /**
+     * Creates a codec backed by the given converters, consulted in iteration order.
+     *
+     * @param converters the converters to use; must not be {@code null}
+     */
+    HttpMessageCodec(@NonNull Iterable<HttpMessageConverter<?>> converters) {
+        Objects.requireNonNull(converters, "converters cannot be null");
+
+        List<HttpMessageConverter<?>> list = new ArrayList<>();
+        converters.forEach(list::add);
+        this.converters = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Creates a codec backed by Spring's default client converters.
+     */
+    static @NonNull HttpMessageCodec withDefaults() {
+        return new HttpMessageCodec(HttpMessageConverters.forClient().registerDefaults().build());
+    }
+
+    /**
+     * Serializes the given body with the first converter able to write it as {@code contentType}.
+     *
+     * @param body        the object to serialize
+     * @param contentType the content type to write
+     * @return the serialized bytes
+     * @throws IOException if the converter fails to write
+     * @throws HttpMessageNotWritableException if no converter supports the body type
+     */
+    @SuppressWarnings("unchecked")
+    byte @NonNull [] encode(@NonNull Object body, @NonNull MediaType contentType) throws IOException {
+
+        EntityCodec<Object> codec = (EntityCodec<Object>) EntityCodecs.forType(body.getClass());
+        if (codec != null && EntityCodecConverter.isJson(contentType))
+            return EntityCodecs.encode(codec, body);
+
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter.canWrite(body.getClass(), contentType)) {
+                BufferedOutputMessage outputMessage = new BufferedOutputMessage();
+                ((HttpMessageConverter<Object>) converter).write(body, contentType, outputMessage);
+                return outputMessage.body.toByteArray();
+            }
+        }
+
+        throw new HttpMessageNotWritableException("No converter found for " + body.getClass().getName() + " with content type " + contentType);
+    }
+
+    /**
+     * Deserializes the given bytes with the first converter able to read {@code type} from {@code contentType}.
+     *
+     * @param body        the raw response body
+     * @param contentType the content type of the response, or {@code null} to assume JSON
+     * @param type        the target type
+     * @param <T>         the target type
+     * @return the deserialized object
+     * @throws IOException if the converter fails to read
+     * @throws HttpMessageNotReadableException if no converter supports the target type
+     */
+    @SuppressWarnings("unchecked")
+    <T> @Nullable T decode(byte @NonNull [] body, @Nullable MediaType contentType, @NonNull Class<T> type) throws IOException {
+
+        EntityCodec<T> codec = EntityCodecs.forType(type);
+        if (codec != null && EntityCodecConverter.isJson(contentType))
+            return EntityCodecs.decode(codec, body);
+
+        MediaType mediaType = contentType == null ? MediaType.APPLICATION_JSON : contentType;
+        BufferedInputMessage inputMessage = new BufferedInputMessage(body, mediaType);
+
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter.canRead(type, mediaType)) {
+                return ((HttpMessageConverter<T>) converter).read(type, inputMessage);
+            }
+        }
+
+        throw new HttpMessageNotReadableException("No converter found for " + type.getName() + " with content type " + mediaType, inputMessage);
+    }
+
+    /**
+     * Reads the {@link ErrorEntity} the API sends along with an error status, or makes one up from the status and
+     * raw body when the body is missing or is not one. The body is only decoded once the error's message is read.
+     *
+     * @param status      the HTTP status code
+     * @param reason      the reason phrase, if any
+     * @param path        the request path, reported when the error is made up
+     * @param body        the raw response body, if any
+     * @param contentType the content type of the response, or {@code null} to assume JSON
+     * @return the error, never {@code null}
+     */
+    static @NonNull ErrorEntity decodeError(int status, @Nullable String reason, @NonNull String path,
+                                            byte @Nullable [] body, @Nullable MediaType contentType) {
+
+        // most callers only check the status, so the body is kept as bytes until someone reads the message
+        long failedAt = System.currentTimeMillis();
+        return ErrorEntity.deferred(status, path, () -> decodeErrorBody(status, reason, path, body, contentType, failedAt));
+    }
+
+    private static @NonNull ErrorEntity decodeErrorBody(int status, @Nullable String reason, @NonNull String path,
+                                                        byte @Nullable [] body, @Nullable MediaType contentType, long failedAt) {
+
+        if (body != null && body.length > 0 && EntityCodecConverter.isJson(contentType)) {
+            EntityCodec<ErrorEntity> codec = EntityCodecs.forType(ErrorEntity.class);
+            if (codec != null) {
+                try {
+                    return EntityCodecs.decode(codec, body);
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Could not read error body for {}: {}", path, e.getMessage());
+                }
+            }
+        }
+
+        String message = body == null ? "" : new String(body, StandardCharsets.UTF_8);
+        return new ErrorEntity(status, reason == null ? "" : reason, message, Instant.ofEpochMilli(failedAt).toString(), path);
+    }
+
+    private static final class BufferedOutputMessage implements HttpOutputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+        @Override
+        public @NonNull OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public @NonNull HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    private static final class BufferedInputMessage implements HttpInputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private final byte[] body;
+
+        private BufferedInputMessage(byte[] body, MediaType contentType) {
+            this.body = body;
+            this.headers.setContentType(contentType);
+            this.headers.setContentLength(body.length);
+        }
+
+        @Override
+        public @NonNull InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public @NonNull HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
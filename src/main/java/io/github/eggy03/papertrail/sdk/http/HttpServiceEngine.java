@@ -2,19 +2,53 @@ package io.github.eggy03.papertrail.sdk.http;
 
 import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
 import io.github.eggy03.papertrail.sdk.exception.ApiBaseUrlException;
+import io.github.eggy03.papertrail.sdk.metrics.MetricsRecorder;
+import io.github.eggy03.papertrail.sdk.metrics.RequestOutcome;
+import io.github.eggy03.papertrail.sdk.resilience.Bulkhead;
+import io.github.eggy03.papertrail.sdk.resilience.CircuitBreaker;
+import io.github.eggy03.papertrail.sdk.resilience.HedgingPolicy;
+import io.github.eggy03.papertrail.sdk.resilience.RateLimiter;
+import io.github.eggy03.papertrail.sdk.resilience.RetryBudget;
+import io.github.eggy03.papertrail.sdk.resilience.RetryPolicy;
 import io.vavr.control.Either;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
 
 /**
  * Utility class responsible for executing HTTP requests to the PaperTrail API.
@@ -22,19 +56,188 @@ import java.util.Objects;
  * This class provides static helper methods for making REST calls using
  * Spring's {@link RestClient} and returns responses wrapped in Vavr's {@link Either}
  * </p>
+ * <p>
+ * The HTTP client underneath is chosen through {@link #builder(String)}. Engines created with
+ * {@link HttpTransport#APACHE_POOLED} own a connection pool and should be closed once no longer needed.
+ * </p>
+ * <p>
+ * Engines created through {@link #builder(List)} spread their requests across several replicas of the API and
+ * stop sending to replicas that keep failing, see {@link LoadBalancing}.
+ * </p>
  */
-public class HttpServiceEngine {
+public class HttpServiceEngine implements AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(HttpServiceEngine.class);
+
+    // hedged requests beyond what the hedge threads can run go unhedged on the caller's thread
+    private static final int MAX_HEDGE_THREADS = 64;
+
+    private final @NonNull UpstreamPool upstreams;
     private final @NonNull RestClient client;
 
+    // clients for endpoints whose read timeout differs from the default one, or that belong to a bulkhead
+    private final @NonNull Map<Endpoint, RestClient> endpointClients;
+
+    // the main pool and one per bulkhead, over the pooled transport
+    private final @Nullable PooledRequestFactories pooledFactories;
+    private final @NonNull MetricsRecorder metrics;
+    private final boolean metricsEnabled;
+
+    // whether requests are timed, for the metrics or for latency-based load balancing
+    private final boolean timed;
+    private final @NonNull RetrySettings retries;
+    private final @NonNull TimeoutSettings timeouts;
+    private final @NonNull HedgeSettings hedges;
+
+    // runs both attempts of hedged requests, when any endpoint is hedged, and counts the second ones
+    private final @Nullable ExecutorService hedgeExecutor;
+    private final @Nullable LongAdder hedgedCount;
+    private final @NonNull BulkheadSettings bulkheads;
+    private final @NonNull CircuitBreaker circuitBreaker;
+    private final @NonNull RateLimiter rateLimiter;
+    private final @NonNull ServerRateLimits serverRateLimits;
+
+    // concurrent identical endpoint GETs, when coalescing is on
+    private final @Nullable SingleFlight singleFlight;
+
+    // gzips large request bodies, when compression is on
+    private final @Nullable RequestCompression compression;
+
+    private volatile boolean closed;
+
     /**
-     * Initializes a {@link RestClient} with the given base URL.
+     * Initializes a {@link RestClient} with the given base URL, using the JDK transport.
      * Extra forward slashes '/' are automatically removed from the URL during sanitization.
      * @param baseUrl the URL of the API
      */
     public HttpServiceEngine(String baseUrl) {
-        
+        this(builder(baseUrl).settings());
+    }
+
+    private HttpServiceEngine(@NonNull EngineSettings settings) {
+
+        this.upstreams = settings.upstreams;
+        this.metrics = settings.metrics;
+        this.metricsEnabled = metrics != MetricsRecorder.disabled();
+        this.timed = metricsEnabled || upstreams.tracksLatency();
+        this.retries = settings.retries;
+        this.timeouts = settings.timeouts;
+        this.hedges = settings.hedges;
+        this.hedgeExecutor = hedges.isEnabled() ? hedgeExecutor() : null;
+        this.hedgedCount = hedges.isEnabled() ? settings.counters.counter(EngineCounters.BLOCKING_HEDGED) : null;
+        this.bulkheads = settings.bulkheads;
+        this.circuitBreaker = settings.circuitBreaker;
+        this.rateLimiter = settings.rateLimiter;
+        this.serverRateLimits = settings.serverRateLimits;
+        this.singleFlight = settings.coalesceGets ? new SingleFlight(settings.counters.counter(EngineCounters.BLOCKING_COALESCED)) : null;
+        this.compression = settings.compressionMinBytes > 0 ? new RequestCompression(settings.compressionMinBytes) : null;
+
+        // every PaperTrail endpoint speaks JSON, so the header is set once instead of on every request;
+        // there is no base URL, since every request is sent to an absolute URI on the chosen upstream
+        RestClient.Builder restClient = RestClient.builder()
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                // custom converters go ahead of the defaults, so the entities skip reflective data binding
+                .configureMessageConverters(converters -> converters
+                        .registerDefaults()
+                        .addCustomConverter(new EntityCodecConverter()));
+
+        // interceptors make the client buffer every body, so this one is only added when asked for
+        if (compression != null)
+            restClient.requestInterceptor(compression);
+
+        // always set the transport explicitly, so that having Apache HttpClient on the classpath does not change the defaults;
+        // the read timeout is a property of the request factory, so each read timeout in use gets a factory of its own,
+        // and so does each bulkhead, whose requests have connections of their own
+        BiFunction<@Nullable Bulkhead, Duration, ClientHttpRequestFactory> requestFactories;
+        if (settings.transport == HttpTransport.APACHE_POOLED) {
+            this.pooledFactories = new PooledRequestFactories(settings.poolSettings, bulkheads.bulkheads(), metrics);
+            requestFactories = pooledFactories;
+        } else {
+            this.pooledFactories = null;
+            // the JDK client's timeout runs from the moment the request is sent, so it bounds connecting as well;
+            // its client cannot be shared between factories while compiling for Java 8, so each factory has
+            // connections of its own
+            requestFactories = (bulkhead, readTimeout) -> {
+                JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory();
+                requestFactory.setReadTimeout(readTimeout);
+                // Apache HttpClient always accepts compressed responses, the JDK client only when told to
+                requestFactory.enableCompression(compression != null);
+                return requestFactory;
+            };
+        }
+
+        // by bulkhead, null for the main pool, then by read timeout
+        Map<Bulkhead, Map<Duration, RestClient>> clients = new IdentityHashMap<>();
+        BiFunction<@Nullable Bulkhead, Duration, RestClient> clientFor = (bulkhead, readTimeout) -> clients
+                .computeIfAbsent(bulkhead, b -> new HashMap<>())
+                .computeIfAbsent(readTimeout, timeout -> restClient.clone().requestFactory(requestFactories.apply(bulkhead, timeout)).build());
+
+        this.client = clientFor.apply(null, timeouts.defaults().getReadTimeout());
+        Set<Endpoint> overriddenEndpoints = new HashSet<>(timeouts.overrides().keySet());
+        overriddenEndpoints.addAll(bulkheads.endpoints());
+        Map<Endpoint, RestClient> overridden = new HashMap<>();
+        for (Endpoint endpoint : overriddenEndpoints)
+            overridden.put(endpoint, clientFor.apply(bulkheads.forEndpoint(endpoint), timeouts.forEndpoint(endpoint).getReadTimeout()));
+        this.endpointClients = overridden.isEmpty() ? Collections.emptyMap() : overridden;
+    }
+
+    /**
+     * Creates a builder for engines talking to the given base URL.
+     *
+     * @param baseUrl the URL of the API
+     * @return a new builder
+     * @throws ApiBaseUrlException if the URL is {@code null}, blank or empty
+     */
+    public static @NonNull Builder builder(String baseUrl) {
+        return new Builder(Collections.singletonList(sanitizeBaseUrl(baseUrl)));
+    }
+
+    /**
+     * Creates a builder for engines spreading their requests across several replicas of the API, as chosen by
+     * {@link Builder#loadBalancing(LoadBalancing)}.
+     *
+     * @param baseUrls the URLs of the replicas, in no particular order
+     * @return a new builder
+     * @throws ApiBaseUrlException if the list is {@code null} or empty, or holds a {@code null}, blank or empty URL
+     */
+    public static @NonNull Builder builder(List<String> baseUrls) {
+
+        if (baseUrls == null || baseUrls.isEmpty())
+            throw new ApiBaseUrlException("Base URLs cannot be null or empty");
+
+        List<String> sanitized = new ArrayList<>(baseUrls.size());
+        for (String baseUrl : baseUrls)
+            sanitized.add(sanitizeBaseUrl(baseUrl));
+        return new Builder(Collections.unmodifiableList(sanitized));
+    }
+
+    /**
+     * Releases the connection pools, if this engine owns any. Requests made afterwards fail with an
+     * "API Unreachable" error, whatever the transport.
+     */
+    @Override
+    public void close() {
+        // set first, so that no request gets through to the transport, pooled or not, once this has been called
+        closed = true;
+
+        if (compression != null)
+            compression.close();
+        if (hedgeExecutor != null)
+            hedgeExecutor.shutdown();
+
+        if (pooledFactories != null)
+            pooledFactories.close();
+    }
+
+    /**
+     * Validates the given base URL and strips trailing forward slashes '/' from it.
+     *
+     * @param baseUrl the URL of the API
+     * @return the sanitized URL
+     * @throws ApiBaseUrlException if the URL is {@code null}, blank or empty
+     */
+    static @NonNull String sanitizeBaseUrl(String baseUrl) {
+
         if (baseUrl == null)
             throw new ApiBaseUrlException("Base URL cannot be null");
 
@@ -42,7 +245,7 @@ public class HttpServiceEngine {
             throw new ApiBaseUrlException("Base URL cannot be blank or empty");
 
         //replace extra '/' with empty string
-        this.client = RestClient.builder().baseUrl(baseUrl.replaceAll("/+$", "")).build();
+        return baseUrl.replaceAll("/+$", "");
     }
 
     /**
@@ -67,28 +270,7 @@ public class HttpServiceEngine {
         Objects.requireNonNull(headers, "headers cannot be null");
         Objects.requireNonNull(successResponseClass, "successResponseClass cannot be null");
 
-        try {
-            S body = client.method(httpMethod)
-                    .uri(builder -> builder.path(path).build())
-                    .headers(h-> h.addAll(headers))
-                    .retrieve()
-                    .toEntity(successResponseClass)
-                    .getBody();
-
-            return Either.right(body);
-        } catch (HttpClientErrorException e) {
-            log.debug("Client error when calling {} {}: {}", httpMethod, path, e.getMessage(), e);
-            ErrorEntity error = e.getResponseBodyAs(ErrorEntity.class);
-            return Either.left(error);
-        } catch (HttpServerErrorException e) {
-            log.warn("Server error when calling {} {}: {}", httpMethod, path, e.getMessage(), e);
-            ErrorEntity error = e.getResponseBodyAs(ErrorEntity.class);
-            return Either.left(error);
-        } catch (ResourceAccessException e) {
-            log.error("Resource access error when calling {} {}: {}", httpMethod, path, e.getMessage(), e);
-            ErrorEntity error =  new ErrorEntity(503, "API Unreachable", e.getMessage(), Instant.now().toString(), path);
-            return Either.left(error);
-        }
+        return exchange(httpMethod, null, path, headers, null, successResponseClass, Deadline.none().sooner(timeouts.defaults().totalNanos));
     }
 
     /**
@@ -116,29 +298,882 @@ public class HttpServiceEngine {
         Objects.requireNonNull(requestBody, "requestBody cannot be null");
         Objects.requireNonNull(successResponseClass, "successResponseClass cannot be null");
 
+        return exchange(httpMethod, null, path, headers, requestBody, successResponseClass, Deadline.none().sooner(timeouts.defaults().totalNanos));
+    }
+
+    /**
+     * Executes a JSON request without a request body against a precompiled endpoint.
+     * <p>
+     * Unlike {@link #makeRequest(HttpMethod, String, HttpHeaders, Class)}, this needs no per-call headers
+     * and no URI builder, which keeps allocations on the request path low.
+     * </p>
+     * <p>
+     * Concurrent identical GETs share one request if coalescing was turned on through
+     * {@link Builder#coalesceGets(boolean)}. GETs to endpoints hedged through
+     * {@link Builder#hedging(Endpoint, io.github.eggy03.papertrail.sdk.resilience.HedgingPolicy)} race a second
+     * attempt against the first one once it is slow.
+     * </p>
+     *
+     * @param endpoint              the endpoint to call
+     * @param pathVariable          the value of the endpoint's path variable, or {@code null} if it has none
+     * @param successResponseClass  the expected response type on success
+     * @param <S>                   the success response type
+     * @return an {@link Either} containing either an {@link ErrorEntity} on failure
+     *         or a deserialized success response on success
+     */
+    public <S> Either<ErrorEntity, S> makeRequest (
+            @NonNull Endpoint endpoint,
+            @Nullable String pathVariable,
+            @NonNull Class<S> successResponseClass
+    ) {
+        return makeRequest(endpoint, pathVariable, successResponseClass, Deadline.none());
+    }
+
+    /**
+     * Executes a JSON request without a request body against a precompiled endpoint, giving up once the
+     * deadline has passed.
+     * <p>
+     * A request whose deadline has already passed fails with a 504 "Deadline Exceeded" error without being
+     * sent. GETs with a bounded deadline are never coalesced, since the request they would wait for does not
+     * share their deadline.
+     * </p>
+     *
+     * @param endpoint              the endpoint to call
+     * @param pathVariable          the value of the endpoint's path variable, or {@code null} if it has none
+     * @param successResponseClass  the expected response type on success
+     * @param deadline              when to give up, on top of the endpoint's {@link Timeouts}
+     * @param <S>                   the success response type
+     * @return an {@link Either} containing either an {@link ErrorEntity} on failure
+     *         or a deserialized success response on success
+     * @see #makeRequest(Endpoint, String, Class)
+     */
+    public <S> Either<ErrorEntity, S> makeRequest (
+            @NonNull Endpoint endpoint,
+            @Nullable String pathVariable,
+            @NonNull Class<S> successResponseClass,
+            @NonNull Deadline deadline
+    ) {
+        Objects.requireNonNull(endpoint, "endpoint cannot be null");
+        Objects.requireNonNull(successResponseClass, "successResponseClass cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
+
+        String path = endpoint.expand(pathVariable);
+        if (deadline.isExpired())
+            return Either.left(deadlineExceededError(path));
+
+        Deadline callDeadline = deadline.sooner(timeouts.forEndpoint(endpoint).totalNanos);
+        if (singleFlight != null && !deadline.isBounded() && HttpMethod.GET.equals(endpoint.getMethod()))
+            return singleFlight.join(path, successResponseClass, () -> exchange(endpoint, path, successResponseClass, callDeadline));
+
+        return exchange(endpoint, path, successResponseClass, callDeadline);
+    }
+
+    /**
+     * Executes a JSON request with a request body against a precompiled endpoint.
+     *
+     * @param endpoint              the endpoint to call
+     * @param pathVariable          the value of the endpoint's path variable, or {@code null} if it has none
+     * @param requestBody           the request body to send
+     * @param successResponseClass  the expected response type on success
+     * @param <S>                   the success response type
+     * @return an {@link Either} containing either an {@link ErrorEntity} on failure
+     *         or a deserialized success response on success
+     * @see #makeRequest(Endpoint, String, Class)
+     */
+    public <S> Either<ErrorEntity, S> makeRequestWithBody (
+            @NonNull Endpoint endpoint,
+            @Nullable String pathVariable,
+            @NonNull Object requestBody,
+            @NonNull Class<S> successResponseClass
+    ) {
+        return makeRequestWithBody(endpoint, pathVariable, requestBody, successResponseClass, Deadline.none());
+    }
+
+    /**
+     * Executes a JSON request with a request body against a precompiled endpoint, giving up once the
+     * deadline has passed.
+     *
+     * @param endpoint              the endpoint to call
+     * @param pathVariable          the value of the endpoint's path variable, or {@code null} if it has none
+     * @param requestBody           the request body to send
+     * @param successResponseClass  the expected response type on success
+     * @param deadline              when to give up, on top of the endpoint's {@link Timeouts}
+     * @param <S>                   the success response type
+     * @return an {@link Either} containing either an {@link ErrorEntity} on failure
+     *         or a deserialized success response on success
+     * @see #makeRequest(Endpoint, String, Class, Deadline)
+     */
+    public <S> Either<ErrorEntity, S> makeRequestWithBody (
+            @NonNull Endpoint endpoint,
+            @Nullable String pathVariable,
+            @NonNull Object requestBody,
+            @NonNull Class<S> successResponseClass,
+            @NonNull Deadline deadline
+    ) {
+        Objects.requireNonNull(endpoint, "endpoint cannot be null");
+        Objects.requireNonNull(requestBody, "requestBody cannot be null");
+        Objects.requireNonNull(successResponseClass, "successResponseClass cannot be null");
+        Objects.requireNonNull(deadline, "deadline cannot be null");
+
+        String path = endpoint.expand(pathVariable);
+        if (deadline.isExpired())
+            return Either.left(deadlineExceededError(path));
+
+        Deadline callDeadline = deadline.sooner(timeouts.forEndpoint(endpoint).totalNanos);
+        return exchange(endpoint.getMethod(), endpoint, path, null, requestBody, successResponseClass, callDeadline);
+    }
+
+    // endpoint paths are already encoded, while raw paths are encoded the way RestClient would against a base URL
+    private RestClient.RequestBodySpec prepare(
+            Upstream upstream,
+            HttpMethod httpMethod,
+            @Nullable Endpoint endpoint,
+            String path,
+            @Nullable HttpHeaders headers,
+            @Nullable Object requestBody
+    ) {
+        RestClient client = endpoint == null || endpointClients.isEmpty() ? this.client : endpointClients.getOrDefault(endpoint, this.client);
+        RestClient.RequestBodySpec request = client.method(httpMethod)
+                .uri(endpoint == null ? upstream.expand(path) : upstream.resolve(endpoint, path));
+
+        if (headers != null)
+            request.headers(h -> h.addAll(headers));
+        if (requestBody != null)
+            request.body(requestBody);
+        return request;
+    }
+
+    // a request without a body, hedged if its endpoint is
+    private <S> Either<ErrorEntity, S> exchange(Endpoint endpoint, String path, Class<S> successResponseClass, Deadline deadline) {
+
+        HedgeDelay hedgeDelay = hedges.forEndpoint(endpoint);
+        if (hedgeDelay == null || hedgeExecutor == null)
+            return exchange(endpoint.getMethod(), endpoint, path, null, null, successResponseClass, deadline);
+
+        return hedged(hedgeExecutor, hedgeDelay, endpoint, path, successResponseClass, deadline);
+    }
+
+    // both attempts run on the hedge threads, so that the caller can take whichever answers first
+    private <S> Either<ErrorEntity, S> hedged(
+            ExecutorService executor,
+            HedgeDelay hedgeDelay,
+            Endpoint endpoint,
+            String path,
+            Class<S> successResponseClass,
+            Deadline deadline
+    ) {
+        Callable<Either<ErrorEntity, S>> attempt = () -> exchange(endpoint.getMethod(), endpoint, path, null, null, successResponseClass, deadline);
+        CompletionService<Either<ErrorEntity, S>> attempts = new ExecutorCompletionService<>(executor);
+
+        long firstStart = System.nanoTime();
+        Future<Either<ErrorEntity, S>> first;
+        try {
+            first = attempts.submit(attempt);
+        } catch (RejectedExecutionException e) {
+            // every hedge thread is busy, or the engine is being closed
+            return exchange(endpoint.getMethod(), endpoint, path, null, null, successResponseClass, deadline);
+        }
+
+        long secondStart = 0L;
+        Future<Either<ErrorEntity, S>> second = null;
+        try {
+            // no second attempt when there would be no time left for it
+            long delayNanos = hedgeDelay.nanos();
+            Future<Either<ErrorEntity, S>> done = delayNanos < deadline.remainingNanos()
+                    ? attempts.poll(delayNanos, TimeUnit.NANOSECONDS)
+                    : attempts.take();
+
+            if (done == null) {
+                if (hedges.tryHedge()) {
+                    try {
+                        secondStart = System.nanoTime();
+                        second = attempts.submit(attempt);
+                        if (hedgedCount != null)
+                            hedgedCount.increment();
+                    } catch (RejectedExecutionException e) {
+                        log.debug("Not hedging GET {}, every hedge thread is busy or the engine is being closed", path);
+                    }
+                }
+                done = attempts.take();
+            }
+
+            Either<ErrorEntity, S> response = done.get();
+            Future<Either<ErrorEntity, S>> other = done == first ? second : first;
+
+            // a failed attempt does not win while the other one may still answer
+            if (other != null && !HedgeSettings.isAnswer(response)) {
+                done = attempts.take();
+                response = done.get();
+                other = null;
+            }
+
+            // only the winner's latency is recorded, the loser's says nothing about how long answers take
+            if (HedgeSettings.isAnswer(response))
+                hedgeDelay.record(System.nanoTime() - (done == first ? firstStart : secondStart));
+            if (other != null)
+                other.cancel(true);
+            return response;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(first, second);
+            return Either.left(cancelledError(path));
+        } catch (ExecutionException e) {
+            cancel(first, second);
+            // exchanges map failures to errors, so this is a bug, thrown like it would be without hedging
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static void cancel(Future<?> first, @Nullable Future<?> second) {
+        first.cancel(true);
+        if (second != null)
+            second.cancel(true);
+    }
+
+    // idle threads are let go after a minute; no queue, so that a saturated pool rejects rather than delays
+    private static ExecutorService hedgeExecutor() {
+        return new ThreadPoolExecutor(0, MAX_HEDGE_THREADS, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), HttpServiceEngine::hedgeThread);
+    }
+
+    private static Thread hedgeThread(Runnable task) {
+        Thread thread = new Thread(task, "papertrail-hedge");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private <S> Either<ErrorEntity, S> exchange(
+            HttpMethod httpMethod,
+            @Nullable Endpoint endpoint,
+            String path,
+            @Nullable HttpHeaders headers,
+            @Nullable Object requestBody,
+            Class<S> successResponseClass,
+            Deadline deadline
+    ) {
+        String metricName = endpoint == null ? path : endpoint.getTemplate();
+        RetryPolicy retryPolicy = retries.policyFor(endpoint);
+        Bulkhead bulkhead = bulkheads.forEndpoint(endpoint);
+
+        int attempt = 1;
+        long parkedNanos = 0;
+        Either<ErrorEntity, S> throttledResponse = null;
+        while (true) {
+
+            // hold the request back while the API has asked for a pause on this endpoint
+            long throttleNanos = serverRateLimits.delayNanos(metricName);
+            if (throttleNanos > 0) {
+                parkedNanos += throttleNanos;
+                if (parkedNanos > serverRateLimits.maxWaitNanos() || throttleNanos >= deadline.remainingNanos() || !sleep(throttleNanos))
+                    return throttledResponse != null ? throttledResponse : Either.left(throttledError(path));
+                continue;
+            }
+
+            if (deadline.isExpired())
+                return throttledResponse != null ? throttledResponse : Either.left(deadlineExceededError(path));
+
+            if (!rateLimiter.acquire(endpoint))
+                return Either.left(rateLimitedError(path));
+
+            // a permit per attempt, given back in the finally block below; the token goes back if there is none
+            if (bulkhead != null && !bulkhead.acquire(deadline.remainingNanos(), TimeUnit.NANOSECONDS)) {
+                rateLimiter.release(endpoint);
+                return Either.left(bulkheadFullError(bulkhead, path));
+            }
+
+            RequestOutcome outcome = RequestOutcome.UNREACHABLE;
+            Upstream upstream = null;
+            long start = 0L;
+            boolean started = false;
+            boolean requestSent = true;
+            long permission = CircuitBreaker.NOT_PERMITTED;
+            boolean throttled = false;
+            Either<ErrorEntity, S> response;
+            try {
+                // timestamps are only taken when someone is listening
+                if (metricsEnabled)
+                    metrics.requestStarted(httpMethod, metricName);
+                started = true;
+                if (timed)
+                    start = System.nanoTime();
+
+                // chosen again on every attempt, so that retries fail over to another upstream
+                upstream = upstreams.select();
+
+                if (closed)
+                    return Either.left(closedError(path));
+
+                permission = circuitBreaker.acquirePermission();
+                if (permission == CircuitBreaker.NOT_PERMITTED) {
+                    outcome = RequestOutcome.CIRCUIT_OPEN;
+                    return Either.left(circuitOpenError(path));
+                }
+
+                upstreams.requestStarted(upstream);
+                RestClient.RequestBodySpec request = prepare(upstream, httpMethod, endpoint, path, headers, requestBody);
+                Exchanged<S> exchanged = request.exchange((req, res) -> read(httpMethod, path, res, successResponseClass));
+
+                outcome = RequestOutcome.of(exchanged.status);
+                response = exchanged.response;
+                if (outcome == RequestOutcome.SUCCESS)
+                    return response;
+
+                if (outcome == RequestOutcome.CLIENT_ERROR) {
+                    log.debug("Client error when calling {} {}: {} {}", httpMethod, path, exchanged.status, exchanged.reason);
+                    if (exchanged.status != 429)
+                        return response;
+
+                    serverRateLimits.close(metricName, exchanged.retryAfter);
+                    throttled = true;
+                } else if (requestBody == null) {
+                    log.warn("Server error when calling {} {}: {} {}", httpMethod, path, exchanged.status, exchanged.reason);
+                } else {
+                    log.error("Server error when calling {} {}: {} {}", httpMethod, path, exchanged.status, exchanged.reason);
+                }
+            } catch (ResourceAccessException e) {
+                // interrupted, such as the losing attempt of a hedged request
+                if (Thread.currentThread().isInterrupted()) {
+                    outcome = RequestOutcome.CANCELLED;
+                    response = Either.left(cancelledError(path));
+                } else {
+                    requestSent = !RetrySettings.neverSent(e);
+                    log.error("Resource access error when calling {} {}: {}", httpMethod, path, e.getMessage(), e);
+                    ErrorEntity error =  new ErrorEntity(503, "API Unreachable", e.getMessage(), Instant.now().toString(), path);
+                    response = Either.left(error);
+                }
+            } finally {
+                if (bulkhead != null)
+                    bulkhead.release();
+                long elapsed = timed ? System.nanoTime() - start : 0L;
+                if (permission != CircuitBreaker.NOT_PERMITTED) {
+                    circuitBreaker.onResult(permission, outcome);
+                    upstreams.requestCompleted(upstream, outcome, elapsed);
+                }
+                if (metricsEnabled && started)
+                    metrics.requestCompleted(httpMethod, metricName, outcome, elapsed);
+            }
+
+            // a 429 means the API did not process the request, so it is sent again once the window reopens
+            if (throttled && !closed) {
+                throttledResponse = response;
+                continue;
+            }
+
+            if (closed || !retries.shouldRetry(retryPolicy, httpMethod, outcome, requestSent, attempt))
+                return response;
+
+            // a retry that could not start before the deadline is not worth waiting for
+            long backoffNanos = retryPolicy.backoffNanos(attempt);
+            if (backoffNanos >= deadline.remainingNanos())
+                return response;
+
+            log.debug("Retrying {} {} in {} ms, attempt {} of {}", httpMethod, path,
+                    TimeUnit.NANOSECONDS.toMillis(backoffNanos), attempt + 1, retryPolicy.getMaxAttempts());
+
+            if (!sleep(backoffNanos))
+                return response;
+            attempt++;
+        }
+    }
+
+    // error statuses are read like any other response, since throwing and catching an exception for every
+    // "not registered" or "not found" answer costs more than the request itself
+    private static <S> Exchanged<S> read(HttpMethod httpMethod, String path, RestClient.RequestHeadersSpec.ConvertibleClientHttpResponse response,
+                                         Class<S> successResponseClass) throws IOException {
+
+        int status = response.getStatusCode().value();
+        if (status < 400) {
+            try {
+                return new Exchanged<>(status, null, Either.right(response.bodyTo(successResponseClass)), null);
+            } catch (RestClientException e) {
+                log.error("Failed to read response of {} {}: {}", httpMethod, path, e.getMessage(), e);
+                ErrorEntity error = new ErrorEntity(status, "Unreadable Response", String.valueOf(e.getMessage()), Instant.now().toString(), path);
+                return new Exchanged<>(status, null, Either.left(error), null);
+            }
+        }
+
+        String reason = response.getStatusText();
+        HttpHeaders responseHeaders = response.getHeaders();
+        byte[] body = StreamUtils.copyToByteArray(response.getBody());
+        ErrorEntity error = HttpMessageCodec.decodeError(status, reason, path, body, responseHeaders.getContentType());
+        String retryAfter = status == 429 ? responseHeaders.getFirst(ServerRateLimits.RETRY_AFTER) : null;
+        return new Exchanged<>(status, reason, Either.left(error), retryAfter);
+    }
+
+    // what one attempt's response amounts to, read while the response is still open
+    private static final class Exchanged<S> {
+
+        private final int status;
+        private final @Nullable String reason;
+        private final @NonNull Either<ErrorEntity, S> response;
+        private final @Nullable String retryAfter;
+
+        private Exchanged(int status, @Nullable String reason, @NonNull Either<ErrorEntity, S> response, @Nullable String retryAfter) {
+            this.status = status;
+            this.reason = reason;
+            this.response = response;
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    // returns false if the thread was interrupted, restoring its flag
+    private static boolean sleep(long nanos) {
         try {
-            S body = client.method(httpMethod)
-                    .uri(builder -> builder.path(path).build())
-                    .headers(h-> h.addAll(headers))
-                    .body(requestBody)
-                    .retrieve()
-                    .toEntity(successResponseClass)
-                    .getBody();
-
-            return Either.right(body);
-
-        } catch (HttpClientErrorException e) {
-            log.debug("Client error when calling {} {}: {}", httpMethod, path, e.getMessage(), e);
-            ErrorEntity error = e.getResponseBodyAs(ErrorEntity.class);
-            return Either.left(error);
-        } catch (HttpServerErrorException e) {
-            log.error("Server error when calling {} {}: {}", httpMethod, path, e.getMessage(), e);
-            ErrorEntity error = e.getResponseBodyAs(ErrorEntity.class);
-            return Either.left(error);
-        } catch (ResourceAccessException e) {
-            log.error("Resource access error when calling {} {}: {}", httpMethod, path, e.getMessage(), e);
-            ErrorEntity error =  new ErrorEntity(503, "API Unreachable", e.getMessage(), Instant.now().toString(), path);
-            return Either.left(error);
+            TimeUnit.NANOSECONDS.sleep(nanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static ErrorEntity closedError(String path) {
+        return new ErrorEntity(503, "API Unreachable", "HttpServiceEngine has been closed", Instant.now().toString(), path);
+    }
+
+    static ErrorEntity circuitOpenError(String path) {
+        return new ErrorEntity(503, "Circuit Open", "Request not sent because the circuit breaker is open", Instant.now().toString(), path);
+    }
+
+    static ErrorEntity throttledError(String path) {
+        return new ErrorEntity(429, "Too Many Requests", "Request not sent because the API asked to wait longer than allowed", Instant.now().toString(), path);
+    }
+
+    static ErrorEntity deadlineExceededError(String path) {
+        return new ErrorEntity(504, "Deadline Exceeded", "Request not sent because its deadline had passed", Instant.now().toString(), path);
+    }
+
+    static ErrorEntity cancelledError(String path) {
+        return new ErrorEntity(503, "Request Cancelled", "Request abandoned before its response arrived", Instant.now().toString(), path);
+    }
+
+    static ErrorEntity bulkheadFullError(Bulkhead bulkhead, String path) {
+        return new ErrorEntity(503, "Bulkhead Full", "Request not sent because bulkhead " + bulkhead.getName() + " had no room for it", Instant.now().toString(), path);
+    }
+
+    static ErrorEntity rateLimitedError(String path) {
+        return new ErrorEntity(429, "Rate Limited", "Request not sent because the client-side rate limit was exceeded", Instant.now().toString(), path);
+    }
+
+    /**
+     * Builder for {@link HttpServiceEngine} and {@link AsyncHttpServiceEngine}.
+     * <p>
+     * The pool settings apply to {@link HttpTransport#APACHE_POOLED} and to the non-blocking engine, which
+     * always runs on Apache HttpClient. Sizing the pool to the number of concurrent callers lets sustained
+     * traffic reuse warm connections instead of opening new ones. With several base URLs, the pool limits apply
+     * to each of them. Endpoints given a {@link #bulkhead(Endpoint, Bulkhead) bulkhead} use pools of their own.
+     * </p>
+     */
+    public static final class Builder {
+
+        private final List<String> baseUrls;
+        private HttpTransport transport = HttpTransport.JDK;
+        private int maxConnections = 64;
+        private int maxConnectionsPerRoute = 64;
+        private Duration keepAlive = Duration.ofSeconds(30);
+        private Duration idleTimeout = Duration.ofMinutes(1);
+        private Duration connectTimeout = Duration.ofSeconds(10);
+        private Timeouts timeouts = Timeouts.defaults();
+        private final Map<Endpoint, Timeouts> endpointTimeouts = new HashMap<>();
+        private MetricsRecorder metrics = MetricsRecorder.disabled();
+        private RetryPolicy retryPolicy = RetryPolicy.none();
+        private final Map<Endpoint, RetryPolicy> endpointRetryPolicies = new HashMap<>();
+        private RetryBudget retryBudget = RetryBudget.of(0.1, 10);
+        private final Map<Endpoint, HedgingPolicy> endpointHedgingPolicies = new HashMap<>();
+        private RetryBudget hedgeBudget = RetryBudget.of(0.1, 10);
+        private final Map<Endpoint, Bulkhead> endpointBulkheads = new HashMap<>();
+
+        // the bulkheads whose gauges are registered with the recorder
+        private final Set<Bulkhead> gaugedBulkheads = Collections.newSetFromMap(new IdentityHashMap<>());
+        private CircuitBreaker circuitBreaker = CircuitBreaker.disabled();
+        private RateLimiter rateLimiter = RateLimiter.unlimited();
+        private Duration maxThrottleWait = Duration.ofSeconds(10);
+        private @Nullable ServerRateLimits serverRateLimits;
+        private boolean coalesceGets;
+        private int compressionMinBytes;
+        private LoadBalancing loadBalancing = LoadBalancing.ROUND_ROBIN;
+        private int ejectionFailureThreshold = 5;
+        private Duration baseEjectionTime = Duration.ofSeconds(30);
+        private @Nullable UpstreamPool upstreams;
+        private @Nullable EngineCounters counters;
+
+        private Builder(List<String> baseUrls) {
+            this.baseUrls = baseUrls;
+        }
+
+        /**
+         * The HTTP client carrying the requests of the blocking engine. Defaults to {@link HttpTransport#JDK}.
+         */
+        public @NonNull Builder transport(@NonNull HttpTransport transport) {
+            this.transport = Objects.requireNonNull(transport, "transport cannot be null");
+            return this;
+        }
+
+        /**
+         * The maximum number of open connections across all hosts. Defaults to {@code 64}.
+         */
+        public @NonNull Builder maxConnections(int maxConnections) {
+            this.maxConnections = requirePositive(maxConnections, "maxConnections");
+            return this;
+        }
+
+        /**
+         * The maximum number of open connections to a single host. Defaults to {@code 64}.
+         */
+        public @NonNull Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = requirePositive(maxConnectionsPerRoute, "maxConnectionsPerRoute");
+            return this;
+        }
+
+        /**
+         * How long a connection is kept for reuse when the server does not announce its own keep-alive.
+         * Defaults to 30 seconds.
+         */
+        public @NonNull Builder keepAlive(@NonNull Duration keepAlive) {
+            this.keepAlive = requirePositive(keepAlive, "keepAlive");
+            return this;
+        }
+
+        /**
+         * How long a pooled connection may sit unused before it is closed in the background.
+         * Defaults to 1 minute.
+         */
+        public @NonNull Builder idleTimeout(@NonNull Duration idleTimeout) {
+            this.idleTimeout = requirePositive(idleTimeout, "idleTimeout");
+            return this;
+        }
+
+        /**
+         * The longest a new connection may take to establish. Defaults to 10 seconds.
+         * <p>
+         * Connections are pooled and shared by every endpoint, so this applies to all requests of the engine.
+         * The {@link HttpTransport#JDK} transport ignores it, since its read timeout already runs from the moment
+         * a request is sent.
+         * </p>
+         */
+        public @NonNull Builder connectTimeout(@NonNull Duration connectTimeout) {
+            this.connectTimeout = requirePositive(connectTimeout, "connectTimeout");
+            return this;
+        }
+
+        /**
+         * How long requests may take, unless overridden for their endpoint. Defaults to {@link Timeouts#defaults()}.
+         */
+        public @NonNull Builder timeouts(@NonNull Timeouts timeouts) {
+            this.timeouts = Objects.requireNonNull(timeouts, "timeouts cannot be null");
+            return this;
+        }
+
+        /**
+         * How long requests to the given endpoint may take, overriding {@link #timeouts(Timeouts)}. This lets
+         * latency-critical lookups such as {@code GET /api/v1/log/message/{guildId}} give up well before bulky
+         * content writes do. Endpoints are matched by method and template.
+         */
+        public @NonNull Builder timeouts(@NonNull Endpoint endpoint, @NonNull Timeouts timeouts) {
+            Objects.requireNonNull(endpoint, "endpoint cannot be null");
+            Objects.requireNonNull(timeouts, "timeouts cannot be null");
+            endpointTimeouts.put(endpoint, timeouts);
+            return this;
+        }
+
+        /**
+         * Receives the latency, outcome and in-flight count of every request, and the connection pool gauges.
+         * Defaults to {@link MetricsRecorder#disabled()}, which costs nothing on the request path.
+         * <p>
+         * Engines built from the same builder share the recorder.
+         * </p>
+         */
+        public @NonNull Builder metrics(@NonNull MetricsRecorder metrics) {
+            this.metrics = Objects.requireNonNull(metrics, "metrics cannot be null");
+            this.counters = null;
+            this.gaugedBulkheads.clear();
+            return this;
+        }
+
+        /**
+         * How failed requests are retried, unless overridden for their endpoint.
+         * Defaults to {@link RetryPolicy#none()}.
+         */
+        public @NonNull Builder retryPolicy(@NonNull RetryPolicy retryPolicy) {
+            this.retryPolicy = Objects.requireNonNull(retryPolicy, "retryPolicy cannot be null");
+            return this;
+        }
+
+        /**
+         * How failed requests to the given endpoint are retried, overriding {@link #retryPolicy(RetryPolicy)}.
+         * Endpoints are matched by method and template, so
+         * {@code retryPolicy(Endpoint.of(HttpMethod.POST, "/api/v1/content/message"), policy)} applies to
+         * every message logged through the engine.
+         */
+        public @NonNull Builder retryPolicy(@NonNull Endpoint endpoint, @NonNull RetryPolicy retryPolicy) {
+            Objects.requireNonNull(endpoint, "endpoint cannot be null");
+            Objects.requireNonNull(retryPolicy, "retryPolicy cannot be null");
+            endpointRetryPolicies.put(endpoint, retryPolicy);
+            return this;
+        }
+
+        /**
+         * The budget every retry draws from. Defaults to 10% of requests, with bursts of up to 10 retries.
+         * Engines built from the same builder share the budget.
+         */
+        public @NonNull Builder retryBudget(@NonNull RetryBudget retryBudget) {
+            this.retryBudget = Objects.requireNonNull(retryBudget, "retryBudget cannot be null");
+            return this;
+        }
+
+        /**
+         * Hedges GETs to the given endpoint: once an attempt is slower than the endpoint usually is, a second
+         * one is sent, to another base URL when there are several, and whichever answers first is used. This
+         * trims the latency tail of lookups such as {@code GET /api/v1/content/message/{messageId}} when one
+         * replica of the API is slow. Endpoints are matched by method and template.
+         * <p>
+         * The attempt that loses is cancelled, and reported to the metrics as {@link RequestOutcome#CANCELLED}.
+         * The non-blocking engine cancels it right away. The blocking engine runs both attempts on threads of
+         * its own, so that the caller can take whichever answers first, and interrupts the loser; over
+         * {@link HttpTransport#APACHE_POOLED}, an interrupted attempt still runs until its response arrives.
+         * </p>
+         *
+         * @throws IllegalArgumentException if the endpoint is not a GET
+         */
+        public @NonNull Builder hedging(@NonNull Endpoint endpoint, @NonNull HedgingPolicy hedgingPolicy) {
+            Objects.requireNonNull(endpoint, "endpoint cannot be null");
+            Objects.requireNonNull(hedgingPolicy, "hedgingPolicy cannot be null");
+            if (!HttpMethod.GET.equals(endpoint.getMethod()))
+                throw new IllegalArgumentException("Only GET endpoints can be hedged");
+            endpointHedgingPolicies.put(endpoint, hedgingPolicy);
+            return this;
+        }
+
+        /**
+         * The budget every second attempt of a hedged request draws from, earned by the requests to hedged
+         * endpoints only. Defaults to 10% of those requests, with bursts of up to 10 hedges, which keeps hedging
+         * from doubling the load on an API that is slow across the board. Engines built from the same builder
+         * share the budget.
+         */
+        public @NonNull Builder hedgeBudget(@NonNull RetryBudget hedgeBudget) {
+            this.hedgeBudget = Objects.requireNonNull(hedgeBudget, "hedgeBudget cannot be null");
+            return this;
+        }
+
+        /**
+         * Isolates requests to the given endpoint in a bulkhead: no more of them than its
+         * {@code maxConcurrentCalls} are in flight at once, further ones wait in the bulkhead's queue, and they
+         * travel over connections of their own, pooled to the bulkhead's size. Giving the registration lookups
+         * one bulkhead and the content writes another keeps a backlog of writes from holding up the lookups that
+         * decide whether to log at all. Endpoints are matched by method and template, and endpoints without a
+         * bulkhead share the main pool.
+         * <p>
+         * Every attempt, retries included, takes a permit before it is sent and gives it back once answered, so
+         * waiting out a backoff holds none. A request that gets no permit within the bulkhead's {@code maxWait} or
+         * its deadline fails with a 503 "Bulkhead Full" error without being sent. Engines built from the same
+         * builder share the bulkhead's permits, while each has its own pools. The occupancy of each bulkhead is
+         * reported through the {@code papertrail.http.bulkhead.<name>.active}, {@code .queued} and
+         * {@code .rejected} gauges.
+         * </p>
+         *
+         * @throws IllegalArgumentException if another bulkhead of the same name was given
+         */
+        public @NonNull Builder bulkhead(@NonNull Endpoint endpoint, @NonNull Bulkhead bulkhead) {
+            Objects.requireNonNull(endpoint, "endpoint cannot be null");
+            Objects.requireNonNull(bulkhead, "bulkhead cannot be null");
+            for (Bulkhead given : endpointBulkheads.values()) {
+                if (given != bulkhead && given.getName().equals(bulkhead.getName()))
+                    throw new IllegalArgumentException("Bulkhead names must be unique, " + bulkhead.getName() + " is taken");
+            }
+            endpointBulkheads.put(endpoint, bulkhead);
+            return this;
+        }
+
+        /**
+         * The circuit breaker guarding the API. While it is open, requests fail right away with a 503
+         * "Circuit Open" error instead of being sent, reported to the metrics as {@link RequestOutcome#CIRCUIT_OPEN}.
+         * Defaults to {@link CircuitBreaker#disabled()}.
+         * <p>
+         * Engines built from the same builder share the breaker, so failures seen by either open it for both.
+         * </p>
+         */
+        public @NonNull Builder circuitBreaker(@NonNull CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = Objects.requireNonNull(circuitBreaker, "circuitBreaker cannot be null");
+            return this;
+        }
+
+        /**
+         * The limiter every request attempt, retries included, takes a token from before it is sent. The
+         * blocking engine waits for tokens on the calling thread and the non-blocking one on a timer. A request
+         * whose token is too far away fails with a 429 "Rate Limited" error without being sent.
+         * Defaults to {@link RateLimiter#unlimited()}.
+         * <p>
+         * Engines built from the same builder share the limiter.
+         * </p>
+         */
+        public @NonNull Builder rateLimiter(@NonNull RateLimiter rateLimiter) {
+            this.rateLimiter = Objects.requireNonNull(rateLimiter, "rateLimiter cannot be null");
+            return this;
+        }
+
+        /**
+         * The longest a request waits in total for the API to lift a rate limit. Defaults to 10 seconds.
+         * <p>
+         * When the API answers {@code 429 Too Many Requests}, requests to that endpoint are held back until the
+         * time given by the {@code Retry-After} header, one second if it has none, and the refused request is
+         * sent again once it has passed. The blocking engine waits on the calling thread, while the non-blocking
+         * one parks the request on a shared scheduler. A request that would wait longer than this fails with
+         * a 429 error instead, and {@link Duration#ZERO} fails them right away without sending while the
+         * limit lasts.
+         * </p>
+         * <p>
+         * Engines built from the same builder share what they learn about the API's limits.
+         * </p>
+         */
+        public @NonNull Builder maxThrottleWait(@NonNull Duration maxThrottleWait) {
+            Objects.requireNonNull(maxThrottleWait, "maxThrottleWait cannot be null");
+            if (maxThrottleWait.isNegative())
+                throw new IllegalArgumentException("maxThrottleWait cannot be negative");
+            this.maxThrottleWait = maxThrottleWait;
+            this.serverRateLimits = null;
+            return this;
+        }
+
+        /**
+         * Whether concurrent identical GETs made against an {@link Endpoint} share one request. Defaults to
+         * {@code false}, so every caller gets a response of its own unless it opts in.
+         * <p>
+         * While such a GET is in flight, any other GET for the same path and response type waits for it and
+         * receives its result instead of sending its own. Nothing is kept once the request completes. Engines
+         * coalesce their own requests only, and the number of requests saved is reported through the
+         * {@code papertrail.http.blocking.coalesced} and {@code papertrail.http.async.coalesced} gauges, which
+         * add up the engines built from this builder.
+         * </p>
+         */
+        public @NonNull Builder coalesceGets(boolean coalesceGets) {
+            this.coalesceGets = coalesceGets;
+            return this;
+        }
+
+        /**
+         * Gzips request bodies of at least {@code minBytes} bytes and sends them with
+         * {@code Content-Encoding: gzip}. Compression is off by default, since it only pays off when the API
+         * accepts compressed requests and bodies are large, such as long message content.
+         * <p>
+         * It also makes the {@link HttpTransport#JDK} transport advertise {@code Accept-Encoding} and inflate
+         * compressed responses, which the Apache-based transports always do. Deflaters are pooled per engine and
+         * released by {@link HttpServiceEngine#close()} and {@link AsyncHttpServiceEngine#close()}.
+         * </p>
+         */
+        public @NonNull Builder compressRequests(int minBytes) {
+            this.compressionMinBytes = requirePositive(minBytes, "minBytes");
+            return this;
+        }
+
+        /**
+         * How requests are spread across the base URLs given to {@link HttpServiceEngine#builder(List)}.
+         * Defaults to {@link LoadBalancing#ROUND_ROBIN}, and has no effect with a single base URL.
+         * <p>
+         * Engines built from the same builder share the base URLs' load and health, so a replica ejected by one
+         * engine is skipped by the others as well.
+         * </p>
+         */
+        public @NonNull Builder loadBalancing(@NonNull LoadBalancing loadBalancing) {
+            this.loadBalancing = Objects.requireNonNull(loadBalancing, "loadBalancing cannot be null");
+            this.upstreams = null;
+            return this;
+        }
+
+        /**
+         * When one of several base URLs is ejected. Defaults to 5 consecutive failures and 30 seconds.
+         * <p>
+         * A base URL is ejected after {@code consecutiveFailures} requests in a row were not answered or answered
+         * with a 5xx status. The first ejection lasts {@code baseEjectionTime}, and each further one before a
+         * request succeeds again lasts that much longer, up to 8 times as long. Requests failing while an
+         * ejection lasts do not extend it. Once it ends, the base URL receives requests again.
+         * </p>
+         */
+        public @NonNull Builder outlierEjection(int consecutiveFailures, @NonNull Duration baseEjectionTime) {
+            this.ejectionFailureThreshold = requirePositive(consecutiveFailures, "consecutiveFailures");
+            this.baseEjectionTime = requirePositive(baseEjectionTime, "baseEjectionTime");
+            this.upstreams = null;
+            return this;
+        }
+
+        /**
+         * Creates a blocking engine using the configured transport.
+         */
+        public @NonNull HttpServiceEngine build() {
+            return new HttpServiceEngine(settings());
+        }
+
+        /**
+         * Creates a non-blocking engine using the configured pool settings.
+         * It runs on Apache HttpClient 5, which must be on the classpath, see {@link AsyncHttpServiceEngine}.
+         */
+        public @NonNull AsyncHttpServiceEngine buildAsync() {
+            return new AsyncHttpServiceEngine(settings());
+        }
+
+        @NonNull EngineSettings settings() {
+
+            // created once, so that every engine built from this builder sees the same windows
+            if (serverRateLimits == null)
+                serverRateLimits = new ServerRateLimits(maxThrottleWait);
+
+            // likewise, so that every engine sees the same load and ejections
+            if (upstreams == null) {
+                UpstreamPool created = new UpstreamPool(baseUrls, loadBalancing, ejectionFailureThreshold, baseEjectionTime.toNanos(), System::nanoTime);
+                if (created.isBalanced())
+                    metrics.registerGauge("papertrail.http.upstreams.available", created::availableCount);
+                upstreams = created;
+            }
+
+            // likewise, so that the engines' gauges are registered once and add up all of them
+            if (counters == null)
+                counters = new EngineCounters(metrics);
+
+            // each bulkhead's gauges are registered once, however many engines share its permits
+            BulkheadSettings bulkheads = new BulkheadSettings(endpointBulkheads);
+            for (Bulkhead bulkhead : bulkheads.bulkheads()) {
+                if (!gaugedBulkheads.add(bulkhead))
+                    continue;
+
+                String prefix = "papertrail.http.bulkhead." + bulkhead.getName();
+                metrics.registerGauge(prefix + ".active", bulkhead::getActiveCount);
+                metrics.registerGauge(prefix + ".queued", bulkhead::getQueuedCount);
+                metrics.registerGauge(prefix + ".rejected", bulkhead::getRejectedCount);
+            }
+
+            return new EngineSettings(
+                    upstreams,
+                    transport,
+                    new ConnectionPoolSettings(maxConnections, maxConnectionsPerRoute, keepAlive, idleTimeout, connectTimeout),
+                    metrics,
+                    new RetrySettings(retryPolicy, endpointRetryPolicies, retryBudget),
+                    new TimeoutSettings(timeouts, endpointTimeouts),
+                    new HedgeSettings(endpointHedgingPolicies, hedgeBudget),
+                    bulkheads,
+                    circuitBreaker,
+                    rateLimiter,
+                    serverRateLimits,
+                    coalesceGets,
+                    counters,
+                    compressionMinBytes
+            );
+        }
+
+        private static int requirePositive(int value, String name) {
+            if (value <= 0)
+                throw new IllegalArgumentException(name + " must be positive");
+            return value;
+        }
+
+        private static Duration requirePositive(Duration value, String name) {
+            Objects.requireNonNull(value, name + " cannot be null");
+            if (value.isNegative() || value.isZero())
+                throw new IllegalArgumentException(name + " must be positive");
+            return value;
         }
     }
 }
@@ -0,0 +1,27 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+/**
+ * The HTTP client library that carries the requests of a blocking {@link HttpServiceEngine}.
+ */
+public enum HttpTransport {
+
+    /**
+     * The JDK's built-in {@code java.net.http.HttpClient}.
+     * <p>
+     * It keeps connections alive on its own, but its pool can only be tuned JVM-wide through the
+     * {@code jdk.httpclient.connectionPoolSize} and {@code jdk.httpclient.keepalive.timeout} system properties.
+     * The pool settings of {@link HttpServiceEngine.Builder} do not apply to it.
+     * </p>
+     */
+    JDK,
+
+    /**
+     * Apache HttpClient 5 with a connection pool sized and expired according to the
+     * settings of {@link HttpServiceEngine.Builder}.
+     * <p>
+     * The SDK declares {@code org.apache.httpcomponents.client5:httpclient5} as an optional dependency,
+     * so applications using this transport must add it themselves.
+     * </p>
+     */
+    APACHE_POOLED
+}
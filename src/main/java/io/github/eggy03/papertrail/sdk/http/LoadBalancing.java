@@ -0,0 +1,27 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+/**
+ * How an engine given several base URLs spreads its requests across them.
+ * <p>
+ * Whatever the strategy, base URLs ejected for failing are skipped until their ejection ends, unless every one
+ * of them is ejected.
+ * </p>
+ */
+public enum LoadBalancing {
+
+    /**
+     * Each request goes to the next base URL in turn.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Each request goes to the base URL with the fewest requests in flight, so slow replicas receive less.
+     */
+    LEAST_OUTSTANDING,
+
+    /**
+     * Each request goes to the base URL with the lowest exponentially weighted moving average of its latency,
+     * scaled by its requests in flight. Base URLs that have not answered yet are tried first.
+     */
+    LATENCY_EWMA
+}
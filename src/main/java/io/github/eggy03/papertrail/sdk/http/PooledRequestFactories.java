@@ -0,0 +1,70 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import io.github.eggy03.papertrail.sdk.metrics.MetricsRecorder;
+import io.github.eggy03.papertrail.sdk.resilience.Bulkhead;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * The request factories of a blocking engine using {@link HttpTransport#APACHE_POOLED}, over one pool for the
+ * main requests and one per bulkhead.
+ * <p>
+ * This is the only class of the blocking engine that refers to Apache HttpClient, so that an engine using
+ * {@link HttpTransport#JDK} loads without it on the classpath.
+ * </p>
+ */
+final class PooledRequestFactories implements BiFunction<@Nullable Bulkhead, Duration, ClientHttpRequestFactory>, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PooledRequestFactories.class);
+
+    private final @NonNull CloseableHttpClient mainPool;
+    private final @NonNull Map<Bulkhead, CloseableHttpClient> bulkheadPools = new IdentityHashMap<>();
+
+    PooledRequestFactories(@NonNull ConnectionPoolSettings poolSettings, @NonNull Iterable<Bulkhead> bulkheads,
+                           @NonNull MetricsRecorder metrics) {
+        this.mainPool = ApacheClients.createBlockingClient(poolSettings, metrics);
+        for (Bulkhead bulkhead : bulkheads)
+            bulkheadPools.put(bulkhead, ApacheClients.createBlockingClient(poolSettings.forBulkhead(bulkhead), metrics));
+    }
+
+    /**
+     * Creates a request factory over the pool of the given bulkhead, or the main pool for {@code null}.
+     * The read timeout is a property of the factory, so each read timeout in use needs a factory of its own.
+     */
+    @Override
+    public @NonNull ClientHttpRequestFactory apply(@Nullable Bulkhead bulkhead, @NonNull Duration readTimeout) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(
+                bulkhead == null ? mainPool : bulkheadPools.get(bulkhead));
+        requestFactory.setReadTimeout(readTimeout);
+        return requestFactory;
+    }
+
+    /**
+     * Closes every pool, logging the ones that fail to close.
+     */
+    @Override
+    public void close() {
+        closePool(mainPool);
+        for (CloseableHttpClient pool : bulkheadPools.values())
+            closePool(pool);
+    }
+
+    private static void closePool(CloseableHttpClient pool) {
+        try {
+            pool.close();
+        } catch (IOException e) {
+            log.warn("Failed to close the HTTP connection pool: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzips request bodies of at least a given size and labels them with {@code Content-Encoding: gzip}.
+ * <p>
+ * Deflaters and their output buffers are pooled, so a compressed request allocates nothing but the array handed to
+ * the transport. The blocking engine applies this as an interceptor, while the non-blocking one calls
+ * {@link #compress(byte[])} on the bodies it encodes itself.
+ * </p>
+ */
+final class RequestCompression implements ClientHttpRequestInterceptor {
+
+    static final String GZIP = "gzip";
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int TRAILER_LENGTH = 8;
+
+    // grown buffers are kept up to this size, so one huge message does not pin its buffer forever
+    private static final int MAX_POOLED_BUFFER = 256 * 1024;
+
+    private final int minBytes;
+    private final @NonNull ArrayBlockingQueue<Slot> pool;
+
+    // set by close(), after which slots used by requests still in flight are released instead of pooled
+    private volatile boolean closed;
+
+    /**
+     * @param minBytes the smallest body that is compressed
+     */
+    RequestCompression(int minBytes) {
+        this.minBytes = minBytes;
+        this.pool = new ArrayBlockingQueue<>(Math.max(2, Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    /**
+     * Whether a body of the given length is compressed.
+     */
+    boolean appliesTo(int length) {
+        return length >= minBytes;
+    }
+
+    /**
+     * Compresses the given bytes into a gzip member.
+     *
+     * @param body the bytes to compress
+     * @return the gzip-encoded bytes
+     */
+    byte @NonNull [] compress(byte @NonNull [] body) {
+
+        Slot slot = pool.poll();
+        if (slot == null)
+            slot = new Slot();
+
+        try {
+            return slot.compress(body);
+        } finally {
+            if (closed || !pool.offer(slot))
+                slot.deflater.end();
+            else if (closed)
+                // closed while the slot was being offered, so it goes along with the rest
+                close();
+        }
+    }
+
+    /**
+     * Releases the native memory of the pooled deflaters.
+     */
+    void close() {
+        closed = true;
+        Slot slot;
+        while ((slot = pool.poll()) != null)
+            slot.deflater.end();
+    }
+
+    @Override
+    public @NonNull ClientHttpResponse intercept(@NonNull HttpRequest request, byte @NonNull [] body,
+                                                 @NonNull ClientHttpRequestExecution execution) throws IOException {
+
+        HttpHeaders headers = request.getHeaders();
+        if (!appliesTo(body.length) || headers.containsHeader(HttpHeaders.CONTENT_ENCODING))
+            return execution.execute(request, body);
+
+        byte[] compressed = compress(body);
+        headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+        headers.setContentLength(compressed.length);
+        return execution.execute(request, compressed);
+    }
+
+    private static final class Slot {
+
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private final CRC32 crc = new CRC32();
+        private byte[] buffer = new byte[8 * 1024];
+
+        private byte[] compress(byte[] body) {
+
+            deflater.reset();
+            crc.reset();
+            crc.update(body, 0, body.length);
+            deflater.setInput(body, 0, body.length);
+            deflater.finish();
+
+            System.arraycopy(GZIP_HEADER, 0, buffer, 0, GZIP_HEADER.length);
+            int length = GZIP_HEADER.length;
+            while (!deflater.finished()) {
+                if (length == buffer.length)
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+
+            byte[] out = Arrays.copyOf(buffer, length + TRAILER_LENGTH);
+            writeIntLE(out, length, (int) crc.getValue());
+            writeIntLE(out, length + 4, body.length);
+
+            if (buffer.length > MAX_POOLED_BUFFER)
+                buffer = new byte[8 * 1024];
+            return out;
+        }
+
+        private static void writeIntLE(byte[] out, int offset, int value) {
+            out[offset] = (byte) value;
+            out[offset + 1] = (byte) (value >>> 8);
+            out[offset + 2] = (byte) (value >>> 16);
+            out[offset + 3] = (byte) (value >>> 24);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import io.github.eggy03.papertrail.sdk.metrics.RequestOutcome;
+import io.github.eggy03.papertrail.sdk.resilience.RetryBudget;
+import io.github.eggy03.papertrail.sdk.resilience.RetryPolicy;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpMethod;
+
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The retry configuration of an engine: a default {@link RetryPolicy}, overrides for individual endpoints,
+ * and the {@link RetryBudget} all retries draw from.
+ */
+final class RetrySettings {
+
+    private final @NonNull RetryPolicy defaultPolicy;
+    private final @NonNull Map<Endpoint, RetryPolicy> endpointPolicies;
+    private final @NonNull RetryBudget budget;
+
+    RetrySettings(@NonNull RetryPolicy defaultPolicy, @NonNull Map<Endpoint, RetryPolicy> endpointPolicies, @NonNull RetryBudget budget) {
+        this.defaultPolicy = defaultPolicy;
+        this.endpointPolicies = endpointPolicies.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(endpointPolicies));
+        this.budget = budget;
+    }
+
+    /**
+     * The policy for a request to the given endpoint, or to a plain path when {@code endpoint} is {@code null}.
+     * Also records the request with the budget.
+     */
+    @NonNull RetryPolicy policyFor(@Nullable Endpoint endpoint) {
+        budget.recordRequest();
+
+        if (endpoint == null || endpointPolicies.isEmpty())
+            return defaultPolicy;
+
+        RetryPolicy policy = endpointPolicies.get(endpoint);
+        return policy == null ? defaultPolicy : policy;
+    }
+
+    /**
+     * Whether a failed attempt is retried, withdrawing from the budget if so.
+     */
+    boolean shouldRetry(@NonNull RetryPolicy policy, @NonNull HttpMethod method, @NonNull RequestOutcome outcome, boolean requestSent, int attemptsMade) {
+        return policy.shouldRetry(method, outcome, requestSent, attemptsMade) && budget.tryAcquire();
+    }
+
+    /**
+     * Whether the given failure happened before the request could reach the API, which makes any request
+     * safe to repeat.
+     */
+    static boolean neverSent(@NonNull Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof UnknownHostException)
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,113 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The rate-limit windows the API has announced through {@code 429 Too Many Requests} responses, per endpoint.
+ * <p>
+ * Each window is the time until which requests to an endpoint are held back. It is taken from the response's
+ * {@code Retry-After} header, either delay-seconds or an HTTP date, or lasts one second when the header is
+ * missing or unreadable. A window lasts at least {@value #MIN_DELAY_MILLIS} milliseconds, even when the header
+ * asks for no wait or names a time already past, so that a request refused again and again is held back a
+ * little longer each time, until the engine's {@code maxThrottleWait} runs out. Engines built from the same
+ * builder share one instance, so every client using them backs off together.
+ * </p>
+ */
+final class ServerRateLimits {
+
+    private static final Logger log = LoggerFactory.getLogger(ServerRateLimits.class);
+
+    static final String RETRY_AFTER = "Retry-After";
+
+    private static final long DEFAULT_DELAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MIN_DELAY_MILLIS = 100;
+    private static final long MIN_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(MIN_DELAY_MILLIS);
+    private static final long MAX_DELAY_NANOS = TimeUnit.DAYS.toNanos(1);
+
+    private final long maxWaitNanos;
+    private final @NonNull LongSupplier ticker;
+    private final @NonNull Clock clock;
+
+    // endpoint template, or path for requests made without one, to the ticker time the window reopens
+    private final @NonNull ConcurrentHashMap<String, Long> closedUntil = new ConcurrentHashMap<>();
+
+    ServerRateLimits(@NonNull Duration maxWait) {
+        this(maxWait, System::nanoTime, Clock.systemUTC());
+    }
+
+    ServerRateLimits(@NonNull Duration maxWait, @NonNull LongSupplier ticker, @NonNull Clock clock) {
+        this.maxWaitNanos = maxWait.toNanos();
+        this.ticker = ticker;
+        this.clock = clock;
+    }
+
+    /**
+     * The longest a single request may wait in total for windows to reopen.
+     */
+    long maxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    /**
+     * The time left until the window of the given endpoint reopens, or {@code 0} if it is open.
+     */
+    long delayNanos(@NonNull String endpoint) {
+        Long until = closedUntil.get(endpoint);
+        if (until == null)
+            return 0;
+
+        long delay = until - ticker.getAsLong();
+        if (delay > 0)
+            return delay;
+
+        closedUntil.remove(endpoint, until);
+        return 0;
+    }
+
+    /**
+     * Closes the window of the given endpoint as announced by a 429 response, keeping any later reopening
+     * time already known.
+     *
+     * @param endpoint   the endpoint template, or the path for requests made without one
+     * @param retryAfter the value of the {@code Retry-After} header, if any
+     * @return the time left until the window reopens, in nanoseconds
+     */
+    long close(@NonNull String endpoint, @Nullable String retryAfter) {
+        long now = ticker.getAsLong();
+        long until = now + Math.max(MIN_DELAY_NANOS, Math.min(parseDelayNanos(retryAfter), MAX_DELAY_NANOS));
+        Long merged = closedUntil.merge(endpoint, until, (current, proposed) -> current - proposed > 0 ? current : proposed);
+
+        long delay = merged - now;
+        log.debug("Rate limited by the API on {}, holding requests back for {} ms", endpoint, TimeUnit.NANOSECONDS.toMillis(delay));
+        return delay;
+    }
+
+    private long parseDelayNanos(@Nullable String retryAfter) {
+        if (retryAfter == null || retryAfter.trim().isEmpty())
+            return DEFAULT_DELAY_NANOS;
+
+        String value = retryAfter.trim();
+        try {
+            if (Character.isDigit(value.charAt(0)))
+                return TimeUnit.SECONDS.toNanos(Long.parseLong(value));
+
+            ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(clock.instant(), date.toInstant()).toNanos());
+        } catch (NumberFormatException | DateTimeParseException | ArithmeticException e) {
+            log.debug("Ignoring unreadable {} header: {}", RETRY_AFTER, value);
+            return DEFAULT_DELAY_NANOS;
+        }
+    }
+}
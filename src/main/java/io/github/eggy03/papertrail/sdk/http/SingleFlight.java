@@ -0,0 +1,145 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent identical requests share one call and its result.
+ * <p>
+ * The first caller for a path and response type makes the call, and everyone who asks for the same while it is
+ * in flight receives its result instead of making their own. The entry is dropped as soon as the call completes,
+ * so nothing is cached: a request made afterwards always goes out. This is only safe for idempotent requests
+ * whose results are immutable.
+ * </p>
+ */
+final class SingleFlight {
+
+    private final @NonNull ConcurrentHashMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final @NonNull LongAdder coalesced;
+
+    SingleFlight() {
+        this(new LongAdder());
+    }
+
+    /**
+     * @param coalesced counts the requests answered by a call already in flight, possibly shared with others
+     */
+    SingleFlight(@NonNull LongAdder coalesced) {
+        this.coalesced = coalesced;
+    }
+
+    /**
+     * Makes the call on the calling thread, or waits for the identical one already in flight.
+     *
+     * @param path the request path
+     * @param type the response type, since the same path may be decoded differently
+     * @param call makes the request
+     * @return the result of the call
+     */
+    @SuppressWarnings("unchecked")
+    <T> T join(@NonNull String path, @NonNull Class<?> type, @NonNull Supplier<T> call) {
+
+        Key key = new Key(path, type);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> shared = inFlight.putIfAbsent(key, mine);
+
+        if (shared != null) {
+            coalesced.increment();
+            try {
+                return (T) shared.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+
+        // removed before completing, so that nobody can join a call that has already finished
+        inFlight.remove(key, mine);
+        mine.complete(result);
+        return result;
+    }
+
+    /**
+     * Starts the call, or joins the identical one already in flight. Every caller receives its own future,
+     * so cancelling one leaves the others untouched.
+     *
+     * @param path the request path
+     * @param type the response type, since the same path may be decoded differently
+     * @param call starts the request
+     * @return the result of the call
+     */
+    @SuppressWarnings("unchecked")
+    <T> @NonNull CompletableFuture<T> joinAsync(@NonNull String path, @NonNull Class<?> type, @NonNull Supplier<CompletableFuture<T>> call) {
+
+        Key key = new Key(path, type);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> shared = inFlight.putIfAbsent(key, mine);
+
+        if (shared != null) {
+            coalesced.increment();
+            return shared.thenApply(result -> (T) result);
+        }
+
+        try {
+            call.get().whenComplete((result, failure) -> {
+                inFlight.remove(key, mine);
+                if (failure != null)
+                    mine.completeExceptionally(failure);
+                else
+                    mine.complete(result);
+            });
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+        }
+
+        return mine.thenApply(result -> (T) result);
+    }
+
+    /**
+     * The number of requests that were answered by a call already in flight instead of their own.
+     */
+    long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    private static final class Key {
+
+        private final String path;
+        private final Class<?> type;
+
+        private Key(String path, Class<?> type) {
+            this.path = path;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+
+            Key other = (Key) o;
+            return path.equals(other.path) && type.equals(other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * path.hashCode() + type.hashCode();
+        }
+    }
+}
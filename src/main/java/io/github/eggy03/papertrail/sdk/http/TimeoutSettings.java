@@ -0,0 +1,42 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The timeout configuration of an engine: default {@link Timeouts} and overrides for individual endpoints.
+ */
+final class TimeoutSettings {
+
+    private final @NonNull Timeouts defaultTimeouts;
+    private final @NonNull Map<Endpoint, Timeouts> endpointTimeouts;
+
+    TimeoutSettings(@NonNull Timeouts defaultTimeouts, @NonNull Map<Endpoint, Timeouts> endpointTimeouts) {
+        this.defaultTimeouts = defaultTimeouts;
+        this.endpointTimeouts = endpointTimeouts.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(endpointTimeouts));
+    }
+
+    /**
+     * The timeouts for a request to the given endpoint, or to a plain path when {@code endpoint} is {@code null}.
+     */
+    @NonNull Timeouts forEndpoint(@Nullable Endpoint endpoint) {
+
+        if (endpoint == null || endpointTimeouts.isEmpty())
+            return defaultTimeouts;
+
+        Timeouts timeouts = endpointTimeouts.get(endpoint);
+        return timeouts == null ? defaultTimeouts : timeouts;
+    }
+
+    @NonNull Timeouts defaults() {
+        return defaultTimeouts;
+    }
+
+    @NonNull Map<Endpoint, Timeouts> overrides() {
+        return endpointTimeouts;
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * How long a request may take, set for all requests of an engine or for individual endpoints through
+ * {@link HttpServiceEngine.Builder#timeouts(Endpoint, Timeouts)}.
+ * <p>
+ * The read timeout bounds how long each attempt waits for the API. Over {@link HttpTransport#JDK} it runs from the
+ * moment the request is sent until the response starts, while the Apache-based transports give up once the
+ * connection stays silent for that long. A timed-out attempt fails like an unreachable API and may be retried.
+ * The total timeout bounds the whole call, retries and waits for rate limits included, as a {@link Deadline}
+ * starting when the call is made.
+ * </p>
+ */
+public final class Timeouts {
+
+    private static final Timeouts DEFAULTS = new Builder().build();
+
+    // 0 when the call has no total timeout
+    final long readNanos;
+    final long totalNanos;
+
+    private Timeouts(@NonNull Builder builder) {
+        this.readNanos = builder.read.toNanos();
+        this.totalNanos = builder.total == null ? 0L : builder.total.toNanos();
+    }
+
+    /**
+     * A read timeout of 30 seconds and no total timeout.
+     */
+    public static @NonNull Timeouts defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Creates a builder, by default for a read timeout of 30 seconds and no total timeout.
+     */
+    public static @NonNull Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The longest an attempt waits for the API to answer.
+     */
+    public @NonNull Duration getReadTimeout() {
+        return Duration.ofNanos(readNanos);
+    }
+
+    /**
+     * The longest a call takes in total, or {@code null} if only the read timeout applies.
+     */
+    public @Nullable Duration getTotalTimeout() {
+        return totalNanos == 0 ? null : Duration.ofNanos(totalNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "Timeouts{read=" + getReadTimeout() + ", total=" + getTotalTimeout() + "}";
+    }
+
+    /**
+     * Builder for {@link Timeouts}.
+     */
+    public static final class Builder {
+
+        private Duration read = Duration.ofSeconds(30);
+        private @Nullable Duration total;
+
+        private Builder() {
+        }
+
+        /**
+         * The longest an attempt waits for the API to answer. Defaults to 30 seconds.
+         */
+        public @NonNull Builder readTimeout(@NonNull Duration read) {
+            this.read = requirePositive(read, "read");
+            return this;
+        }
+
+        /**
+         * The longest a call takes in total, retries and waits included. Unlimited by default.
+         */
+        public @NonNull Builder totalTimeout(@NonNull Duration total) {
+            this.total = requirePositive(total, "total");
+            return this;
+        }
+
+        /**
+         * Creates the timeouts.
+         */
+        public @NonNull Timeouts build() {
+            return new Timeouts(this);
+        }
+
+        private static Duration requirePositive(Duration value, String name) {
+            Objects.requireNonNull(value, name + " cannot be null");
+            if (value.isNegative() || value.isZero())
+                throw new IllegalArgumentException(name + " must be positive");
+            return value;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One base URL of an {@link UpstreamPool}, with the load and health figures used to pick it.
+ */
+final class Upstream {
+
+    private final @NonNull String baseUrl;
+    private final @NonNull DefaultUriBuilderFactory uriBuilderFactory;
+
+    // absolute URIs of endpoints without a path variable, resolved once
+    private final @NonNull ConcurrentHashMap<Endpoint, URI> fixedUris = new ConcurrentHashMap<>();
+
+    final @NonNull AtomicInteger outstanding = new AtomicInteger();
+    final @NonNull AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    // smoothed latency, 0 until the first answer; racing updates may drop a sample, which the average absorbs
+    volatile long ewmaNanos;
+
+    // how many times in a row this has been ejected, and until when the current ejection lasts
+    volatile int ejections;
+    volatile long ejectedUntil;
+
+    Upstream(@NonNull String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.uriBuilderFactory = new DefaultUriBuilderFactory(baseUrl);
+    }
+
+    @NonNull String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Resolves a request path the way {@link org.springframework.web.client.RestClient} resolves it against its
+     * base URL, encoding what needs to be.
+     */
+    @NonNull URI expand(@NonNull String path) {
+        return uriBuilderFactory.builder().path(path).build();
+    }
+
+    /**
+     * Resolves an already encoded request path, caching the URIs of endpoints without a path variable.
+     */
+    @NonNull URI resolve(@Nullable Endpoint endpoint, @NonNull String path) {
+
+        if (endpoint == null || endpoint.hasPathVariable())
+            return URI.create(baseUrl + path);
+
+        URI uri = fixedUris.get(endpoint);
+        if (uri == null) {
+            uri = URI.create(baseUrl + path);
+            fixedUris.putIfAbsent(endpoint, uri);
+        }
+        return uri;
+    }
+
+    @Override
+    public String toString() {
+        return baseUrl;
+    }
+}
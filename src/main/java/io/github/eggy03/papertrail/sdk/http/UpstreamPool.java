@@ -0,0 +1,207 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import io.github.eggy03.papertrail.sdk.metrics.RequestOutcome;
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * The base URLs an engine sends its requests to, and the {@link LoadBalancing} strategy choosing between them.
+ * <p>
+ * Health is tracked passively, from the outcomes of real requests. A base URL that fails a number of requests in a
+ * row, by being unreachable or answering with a 5xx status, is ejected for a while, and for longer each time it
+ * is ejected again before recovering. Ejected base URLs are skipped unless all of them are ejected, in which case
+ * requests keep being spread across all of them rather than not being sent at all.
+ * </p>
+ * <p>
+ * With a single base URL, none of this is tracked and {@link #select()} always returns it.
+ * </p>
+ */
+final class UpstreamPool {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamPool.class);
+
+    // weight of the newest sample in the latency average
+    private static final double EWMA_WEIGHT = 0.3;
+
+    // ejections grow linearly with their count, up to this many times the base duration
+    private static final int MAX_EJECTION_MULTIPLIER = 8;
+
+    private final @NonNull Upstream[] upstreams;
+    private final @NonNull LoadBalancing strategy;
+    private final int failureThreshold;
+    private final long baseEjectionNanos;
+    private final @NonNull LongSupplier ticker;
+    private final @NonNull AtomicInteger cursor = new AtomicInteger();
+
+    /**
+     * @param baseUrls          the sanitized base URLs, at least one
+     * @param strategy          how requests are spread across them
+     * @param failureThreshold  consecutive failures after which a base URL is ejected
+     * @param baseEjectionNanos how long a first ejection lasts
+     * @param ticker            the clock; only meant for tests
+     */
+    UpstreamPool(@NonNull List<String> baseUrls, @NonNull LoadBalancing strategy, int failureThreshold,
+                 long baseEjectionNanos, @NonNull LongSupplier ticker) {
+
+        this.upstreams = new Upstream[baseUrls.size()];
+        for (int i = 0; i < upstreams.length; i++)
+            upstreams[i] = new Upstream(baseUrls.get(i));
+
+        this.strategy = strategy;
+        this.failureThreshold = failureThreshold;
+        this.baseEjectionNanos = baseEjectionNanos;
+        this.ticker = ticker;
+    }
+
+    /**
+     * Whether there is more than one base URL to choose from, and so anything to track.
+     */
+    boolean isBalanced() {
+        return upstreams.length > 1;
+    }
+
+    /**
+     * Whether request latencies feed the choice of base URL.
+     */
+    boolean tracksLatency() {
+        return isBalanced() && strategy == LoadBalancing.LATENCY_EWMA;
+    }
+
+    /**
+     * The number of base URLs not currently ejected.
+     */
+    int availableCount() {
+        long now = ticker.getAsLong();
+        int available = 0;
+        for (Upstream upstream : upstreams) {
+            if (!isEjected(upstream, now))
+                available++;
+        }
+        return available;
+    }
+
+    /**
+     * Any one of the base URLs, without counting as a choice; for resolving a path ahead of choosing.
+     */
+    @NonNull Upstream any() {
+        return upstreams[0];
+    }
+
+    /**
+     * Chooses the base URL for the next request.
+     */
+    @NonNull Upstream select() {
+
+        if (upstreams.length == 1)
+            return upstreams[0];
+
+        long now = ticker.getAsLong();
+        int start = Math.floorMod(cursor.getAndIncrement(), upstreams.length);
+
+        Upstream chosen = select(start, now, true);
+        return chosen != null ? chosen : select(start, now, false);
+    }
+
+    /**
+     * Records that a request was sent to the given base URL.
+     */
+    void requestStarted(@NonNull Upstream upstream) {
+        if (isBalanced())
+            upstream.outstanding.incrementAndGet();
+    }
+
+    /**
+     * Records how a request sent to the given base URL ended.
+     *
+     * @param latencyNanos how long it took; only read when {@link #tracksLatency()}
+     */
+    void requestCompleted(@NonNull Upstream upstream, @NonNull RequestOutcome outcome, long latencyNanos) {
+
+        if (!isBalanced())
+            return;
+
+        upstream.outstanding.decrementAndGet();
+
+        // an abandoned request did not get to show how fast or healthy the base URL is
+        if (outcome == RequestOutcome.CANCELLED)
+            return;
+
+        if (outcome != RequestOutcome.UNREACHABLE) {
+            if (tracksLatency()) {
+                long previous = upstream.ewmaNanos;
+                upstream.ewmaNanos = previous == 0 ? latencyNanos : (long) (previous + EWMA_WEIGHT * (latencyNanos - previous));
+            }
+        }
+
+        if (outcome == RequestOutcome.SUCCESS || outcome == RequestOutcome.CLIENT_ERROR) {
+            upstream.consecutiveFailures.set(0);
+            if (upstream.ejections != 0 && !isEjected(upstream, ticker.getAsLong()))
+                upstream.ejections = 0;
+            return;
+        }
+
+        if (upstream.consecutiveFailures.incrementAndGet() >= failureThreshold)
+            eject(upstream);
+    }
+
+    private void eject(Upstream upstream) {
+
+        long now = ticker.getAsLong();
+        synchronized (upstream) {
+            // failures of requests sent before the ejection do not extend it
+            if (isEjected(upstream, now))
+                return;
+
+            int ejections = Math.min(upstream.ejections + 1, MAX_EJECTION_MULTIPLIER);
+            long ejectionNanos = baseEjectionNanos * ejections;
+            upstream.ejections = ejections;
+            upstream.ejectedUntil = now + ejectionNanos;
+            upstream.consecutiveFailures.set(0);
+
+            log.warn("Ejecting {} for {} ms after {} consecutive failures", upstream,
+                    TimeUnit.NANOSECONDS.toMillis(ejectionNanos), failureThreshold);
+        }
+    }
+
+    private static boolean isEjected(Upstream upstream, long now) {
+        return upstream.ejections != 0 && now - upstream.ejectedUntil < 0;
+    }
+
+    // starting from a rotating offset, so ties are not always broken in favour of the first base URL
+    private Upstream select(int start, long now, boolean skipEjected) {
+
+        Upstream best = null;
+        long bestScore = Long.MAX_VALUE;
+
+        for (int i = 0; i < upstreams.length; i++) {
+            Upstream upstream = upstreams[(start + i) % upstreams.length];
+            if (skipEjected && isEjected(upstream, now))
+                continue;
+
+            long score;
+            switch (strategy) {
+                case LEAST_OUTSTANDING:
+                    score = upstream.outstanding.get();
+                    break;
+                case LATENCY_EWMA:
+                    score = upstream.ewmaNanos * (upstream.outstanding.get() + 1L);
+                    break;
+                default:
+                    return upstream;
+            }
+
+            if (score < bestScore) {
+                best = upstream;
+                bestScore = score;
+            }
+        }
+
+        return best;
+    }
+}
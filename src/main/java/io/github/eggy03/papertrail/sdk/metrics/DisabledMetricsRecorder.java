@@ -0,0 +1,28 @@
+package io.github.eggy03.papertrail.sdk.metrics;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpMethod;
+
+/**
+ * The recorder behind {@link MetricsRecorder#disabled()}.
+ */
+final class DisabledMetricsRecorder implements MetricsRecorder {
+
+    static final DisabledMetricsRecorder INSTANCE = new DisabledMetricsRecorder();
+
+    private DisabledMetricsRecorder() {
+    }
+
+    @Override
+    public void requestStarted(@NonNull HttpMethod method, @NonNull String endpoint) {
+    }
+
+    @Override
+    public void requestCompleted(@NonNull HttpMethod method, @NonNull String endpoint, @NonNull RequestOutcome outcome, long latencyNanos) {
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsRecorder.disabled()";
+    }
+}
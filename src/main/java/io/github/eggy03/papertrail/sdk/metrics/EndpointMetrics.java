@@ -0,0 +1,142 @@
+package io.github.eggy03.papertrail.sdk.metrics;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link MetricsRecorder} that keeps per-endpoint metrics in memory.
+ * <p>
+ * For every HTTP method and endpoint it counts requests by {@link RequestOutcome}, tracks how many are in
+ * flight and records their latency in a lock-free histogram. Gauges registered by the engines are sampled
+ * on demand. Recording never blocks, and {@link #snapshot()} can be called at any time, for example by a
+ * scheduled reporter.
+ * </p>
+ * <p>
+ * One instance can be shared by several engines, in which case their metrics are added up.
+ * </p>
+ */
+public final class EndpointMetrics implements MetricsRecorder {
+
+    private final @NonNull ConcurrentHashMap<String, ConcurrentHashMap<HttpMethod, Series>> series = new ConcurrentHashMap<>();
+    private final @NonNull ConcurrentHashMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public void requestStarted(@NonNull HttpMethod method, @NonNull String endpoint) {
+        series(method, endpoint).inFlight.increment();
+    }
+
+    @Override
+    public void requestCompleted(@NonNull HttpMethod method, @NonNull String endpoint, @NonNull RequestOutcome outcome, long latencyNanos) {
+        Series s = series(method, endpoint);
+        s.inFlight.decrement();
+        s.outcomes[outcome.ordinal()].increment();
+        // an abandoned request was cut short and a refused one never sent, so their latencies would drag the
+        // percentiles down
+        if (outcome != RequestOutcome.CANCELLED && outcome != RequestOutcome.CIRCUIT_OPEN)
+            s.latency.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    @Override
+    public void registerGauge(@NonNull String name, @NonNull LongSupplier value) {
+        Objects.requireNonNull(name, "name cannot be null");
+        Objects.requireNonNull(value, "value cannot be null");
+        gauges.put(name, value);
+    }
+
+    /**
+     * Snapshots every endpoint that has seen at least one request.
+     */
+    public @NonNull List<EndpointSnapshot> snapshot() {
+        List<EndpointSnapshot> snapshots = new ArrayList<>();
+        series.forEach((endpoint, byMethod) ->
+                byMethod.forEach((method, s) -> snapshots.add(s.snapshot(method, endpoint))));
+        return Collections.unmodifiableList(snapshots);
+    }
+
+    /**
+     * Snapshots a single endpoint.
+     *
+     * @param method   the HTTP method
+     * @param endpoint the endpoint template, or the path for requests made without one
+     * @return the snapshot, or empty if the endpoint has not seen any request
+     */
+    public @NonNull Optional<EndpointSnapshot> snapshot(@NonNull HttpMethod method, @NonNull String endpoint) {
+        Map<HttpMethod, Series> byMethod = series.get(endpoint);
+        Series s = byMethod == null ? null : byMethod.get(method);
+        return s == null ? Optional.empty() : Optional.of(s.snapshot(method, endpoint));
+    }
+
+    /**
+     * The number of requests in flight across all endpoints.
+     */
+    public long getInFlightCount() {
+        long total = 0;
+        for (Map<HttpMethod, Series> byMethod : series.values())
+            for (Series s : byMethod.values())
+                total += s.inFlight.sum();
+        return total;
+    }
+
+    /**
+     * Samples every registered gauge, such as the number of requests waiting for a pooled connection.
+     *
+     * @return the current value of each gauge, by name
+     */
+    public @NonNull Map<String, Long> gauges() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        gauges.forEach((name, value) -> values.put(name, value.getAsLong()));
+        return Collections.unmodifiableMap(values);
+    }
+
+    private Series series(HttpMethod method, String endpoint) {
+        ConcurrentHashMap<HttpMethod, Series> byMethod = series.get(endpoint);
+        if (byMethod == null)
+            byMethod = series.computeIfAbsent(endpoint, e -> new ConcurrentHashMap<>());
+
+        Series s = byMethod.get(method);
+        if (s == null)
+            s = byMethod.computeIfAbsent(method, m -> new Series());
+        return s;
+    }
+
+    private static final class Series {
+
+        private final LongAdder inFlight = new LongAdder();
+        private final LongAdder[] outcomes = new LongAdder[RequestOutcome.values().length];
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Series() {
+            for (int i = 0; i < outcomes.length; i++)
+                outcomes[i] = new LongAdder();
+        }
+
+        private EndpointSnapshot snapshot(HttpMethod method, String endpoint) {
+            return new EndpointSnapshot(
+                    method,
+                    endpoint,
+                    outcomes[RequestOutcome.SUCCESS.ordinal()].sum(),
+                    outcomes[RequestOutcome.CLIENT_ERROR.ordinal()].sum(),
+                    outcomes[RequestOutcome.SERVER_ERROR.ordinal()].sum(),
+                    outcomes[RequestOutcome.UNREACHABLE.ordinal()].sum(),
+                    outcomes[RequestOutcome.CANCELLED.ordinal()].sum(),
+                    outcomes[RequestOutcome.CIRCUIT_OPEN.ordinal()].sum(),
+                    inFlight.sum(),
+                    latency.counts(),
+                    latency.sum(),
+                    latency.max()
+            );
+        }
+    }
+}
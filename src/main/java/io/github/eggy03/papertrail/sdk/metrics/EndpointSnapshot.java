@@ -0,0 +1,182 @@
+package io.github.eggy03.papertrail.sdk.metrics;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+
+/**
+ * An immutable snapshot of the metrics {@link EndpointMetrics} collected for one HTTP method and endpoint.
+ * <p>
+ * Latencies leave out cancelled requests, which were cut short rather than answered, and requests refused by
+ * an open circuit, which were never sent.
+ * </p>
+ */
+public final class EndpointSnapshot {
+
+    private final @NonNull HttpMethod method;
+    private final @NonNull String endpoint;
+    private final long successCount;
+    private final long clientErrorCount;
+    private final long serverErrorCount;
+    private final long unreachableCount;
+    private final long cancelledCount;
+    private final long circuitOpenCount;
+    private final long inFlightCount;
+
+    // latency histogram in microseconds, see LatencyHistogram
+    private final long[] latencyCounts;
+    private final long latencyTotal;
+    private final long latencySum;
+    private final long latencyMax;
+
+    EndpointSnapshot(
+            @NonNull HttpMethod method,
+            @NonNull String endpoint,
+            long successCount,
+            long clientErrorCount,
+            long serverErrorCount,
+            long unreachableCount,
+            long cancelledCount,
+            long circuitOpenCount,
+            long inFlightCount,
+            long[] latencyCounts,
+            long latencySum,
+            long latencyMax
+    ) {
+        this.method = method;
+        this.endpoint = endpoint;
+        this.successCount = successCount;
+        this.clientErrorCount = clientErrorCount;
+        this.serverErrorCount = serverErrorCount;
+        this.unreachableCount = unreachableCount;
+        this.cancelledCount = cancelledCount;
+        this.circuitOpenCount = circuitOpenCount;
+        this.inFlightCount = inFlightCount;
+        this.latencyCounts = latencyCounts;
+        this.latencySum = latencySum;
+        this.latencyMax = latencyMax;
+
+        long total = 0;
+        for (long count : latencyCounts)
+            total += count;
+        this.latencyTotal = total;
+    }
+
+    /**
+     * The HTTP method of the requests.
+     */
+    public @NonNull HttpMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * The endpoint template, or the path for requests made without one.
+     */
+    public @NonNull String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * The number of requests answered with a 1xx, 2xx or 3xx status.
+     */
+    public long getSuccessCount() {
+        return successCount;
+    }
+
+    /**
+     * The number of requests answered with a 4xx status.
+     */
+    public long getClientErrorCount() {
+        return clientErrorCount;
+    }
+
+    /**
+     * The number of requests answered with a 5xx status.
+     */
+    public long getServerErrorCount() {
+        return serverErrorCount;
+    }
+
+    /**
+     * The number of requests that received no response.
+     */
+    public long getUnreachableCount() {
+        return unreachableCount;
+    }
+
+    /**
+     * The number of requests abandoned because the other attempt of a hedged request answered first.
+     */
+    public long getCancelledCount() {
+        return cancelledCount;
+    }
+
+    /**
+     * The number of requests refused without being sent because the circuit breaker was open.
+     */
+    public long getCircuitOpenCount() {
+        return circuitOpenCount;
+    }
+
+    /**
+     * The number of completed requests, whatever their outcome.
+     */
+    public long getRequestCount() {
+        return successCount + clientErrorCount + serverErrorCount + unreachableCount + cancelledCount + circuitOpenCount;
+    }
+
+    /**
+     * The number of requests started but not yet completed when the snapshot was taken.
+     */
+    public long getInFlightCount() {
+        return inFlightCount;
+    }
+
+    /**
+     * The mean latency of completed requests, or {@link Duration#ZERO} if there were none.
+     */
+    public @NonNull Duration getMeanLatency() {
+        return latencyTotal == 0 ? Duration.ZERO : micros(latencySum / latencyTotal);
+    }
+
+    /**
+     * The highest latency of a completed request, or {@link Duration#ZERO} if there were none.
+     */
+    public @NonNull Duration getMaxLatency() {
+        return micros(latencyMax);
+    }
+
+    /**
+     * The latency below or at which the given percentage of completed requests fall, such as {@code 99.0}
+     * for the p99. The result is accurate to within 12.5%, and {@link Duration#ZERO} if there were no requests.
+     *
+     * @param percentile the percentage, between 0 and 100
+     * @return the latency at the percentile
+     * @throws IllegalArgumentException if {@code percentile} is outside of [0, 100]
+     */
+    public @NonNull Duration getLatencyPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100))
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+
+        return micros(LatencyHistogram.valueAtPercentile(latencyCounts, latencyTotal, latencyMax, percentile));
+    }
+
+    private static Duration micros(long micros) {
+        return Duration.ofNanos(micros * 1000);
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointSnapshot{" + method + " " + endpoint
+                + ", successCount=" + successCount
+                + ", clientErrorCount=" + clientErrorCount
+                + ", serverErrorCount=" + serverErrorCount
+                + ", unreachableCount=" + unreachableCount
+                + ", cancelledCount=" + cancelledCount
+                + ", circuitOpenCount=" + circuitOpenCount
+                + ", inFlightCount=" + inFlightCount
+                + ", p50=" + getLatencyPercentile(50)
+                + ", p99=" + getLatencyPercentile(99) + "}";
+    }
+}
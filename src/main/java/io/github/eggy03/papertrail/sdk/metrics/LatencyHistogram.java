@@ -0,0 +1,103 @@
+package io.github.eggy03.papertrail.sdk.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies in microseconds.
+ * <p>
+ * Values are counted in log-linear buckets: every power of two is split into eight buckets of equal width,
+ * so a bucket is at most 12.5% wider than its lower bound and the whole range of a {@code long} fits in
+ * 488 counters. Recording is a bucket lookup and an atomic increment.
+ * </p>
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // values below SUB_BUCKETS get a bucket each, then 8 buckets for each exponent from 3 to 62
+    static final int BUCKET_COUNT = (62 - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency, clamping negative values to zero.
+     */
+    void record(long micros) {
+        long value = Math.max(0, micros);
+
+        counts.incrementAndGet(indexOf(value));
+        sum.add(value);
+
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value))
+            current = max.get();
+    }
+
+    /**
+     * Copies the bucket counts. Concurrent recordings may or may not be included.
+     */
+    long[] counts() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            copy[i] = counts.get(i);
+        return copy;
+    }
+
+    long sum() {
+        return sum.sum();
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * The largest value counted in the given bucket.
+     */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lowerBound = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    /**
+     * The value below or at which the given percentage of the counted values fall, reported as the upper bound
+     * of its bucket but never above {@code max}. Returns {@code 0} if nothing was counted.
+     *
+     * @param counts     bucket counts as returned by {@link #counts()}
+     * @param total      the sum of {@code counts}
+     * @param max        the largest recorded value
+     * @param percentile the percentage, between 0 and 100
+     */
+    static long valueAtPercentile(long[] counts, long total, long max, double percentile) {
+        if (total == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(upperBound(i), max);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.eggy03.papertrail.sdk.metrics;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpMethod;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Receives request metrics from {@link io.github.eggy03.papertrail.sdk.http.HttpServiceEngine} and
+ * {@link io.github.eggy03.papertrail.sdk.http.AsyncHttpServiceEngine}.
+ * <p>
+ * This is the extension point for metrics libraries: an adapter for Micrometer or similar implements it and
+ * forwards each call to its own timers, counters and gauges. {@link EndpointMetrics} is a self-contained
+ * implementation that keeps everything in memory.
+ * </p>
+ * <p>
+ * Requests are identified by their HTTP method and endpoint. For requests made through an
+ * {@link io.github.eggy03.papertrail.sdk.http.Endpoint}, the endpoint is its unexpanded template, so the
+ * number of distinct names stays small. For requests made with a plain path, it is the path itself.
+ * </p>
+ * <p>
+ * Implementations are called on the request path, from many threads at once, and must be thread-safe and
+ * fast. Engines built without a recorder use {@link #disabled()}, for which they skip taking timestamps
+ * altogether.
+ * </p>
+ */
+public interface MetricsRecorder {
+
+    /**
+     * A recorder that discards everything.
+     */
+    static @NonNull MetricsRecorder disabled() {
+        return DisabledMetricsRecorder.INSTANCE;
+    }
+
+    /**
+     * Called right before a request is handed to the transport.
+     *
+     * @param method   the HTTP method of the request
+     * @param endpoint the endpoint template, or the path for requests made without one
+     */
+    void requestStarted(@NonNull HttpMethod method, @NonNull String endpoint);
+
+    /**
+     * Called once for every {@link #requestStarted(HttpMethod, String)}, when the request has ended.
+     *
+     * @param method       the HTTP method of the request
+     * @param endpoint     the endpoint template, or the path for requests made without one
+     * @param outcome      how the request ended
+     * @param latencyNanos the time between the two calls, in nanoseconds
+     */
+    void requestCompleted(@NonNull HttpMethod method, @NonNull String endpoint, @NonNull RequestOutcome outcome, long latencyNanos);
+
+    /**
+     * Called by an engine to expose a value that is sampled rather than recorded, such as the number of
+     * requests waiting for a pooled connection. The supplier is cheap and safe to call from any thread.
+     * The default implementation ignores the gauge.
+     *
+     * @param name  the name of the gauge, such as {@code papertrail.http.blocking.pool.pending}
+     * @param value supplies the current value
+     */
+    default void registerGauge(@NonNull String name, @NonNull LongSupplier value) {
+    }
+}
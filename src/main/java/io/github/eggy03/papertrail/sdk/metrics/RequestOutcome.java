@@ -0,0 +1,55 @@
+package io.github.eggy03.papertrail.sdk.metrics;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * How a single HTTP request made by an engine ended.
+ */
+public enum RequestOutcome {
+
+    /**
+     * The API answered with a 1xx, 2xx or 3xx status.
+     */
+    SUCCESS,
+
+    /**
+     * The API answered with a 4xx status.
+     */
+    CLIENT_ERROR,
+
+    /**
+     * The API answered with a 5xx status.
+     */
+    SERVER_ERROR,
+
+    /**
+     * No response was received, because the request could not be sent, timed out, or the engine was closed.
+     */
+    UNREACHABLE,
+
+    /**
+     * The request was abandoned before its response arrived, because the other attempt of a hedged request
+     * answered first. It says nothing about the health of the API.
+     */
+    CANCELLED,
+
+    /**
+     * The request was not sent, because the circuit breaker was open. It says nothing new about the health of
+     * the API.
+     */
+    CIRCUIT_OPEN;
+
+    /**
+     * The outcome of a request that received a response with the given status code.
+     *
+     * @param status the HTTP status code
+     * @return {@link #SUCCESS}, {@link #CLIENT_ERROR} or {@link #SERVER_ERROR}
+     */
+    public static @NonNull RequestOutcome of(int status) {
+        if (status >= 500)
+            return SERVER_ERROR;
+        if (status >= 400)
+            return CLIENT_ERROR;
+        return SUCCESS;
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.eggy03.papertrail.sdk.outbox;
+
+/**
+ * Decides when a {@link MessageOutbox} forces its journal to disk.
+ * <p>
+ * Every write lands in memory-mapped segment files right away, so it survives the JVM crashing under any policy.
+ * The policy only matters for losing power or the operating system, which can drop pages not yet forced to disk.
+ * </p>
+ */
+public enum FsyncPolicy {
+
+    /**
+     * Forces the journal after every write and every delivery. Nothing is lost, but each write waits for the disk.
+     */
+    ALWAYS,
+
+    /**
+     * Forces the journal in the background at a fixed interval, and whenever a segment is rolled over.
+     * At most one interval of writes can be lost.
+     */
+    INTERVAL,
+
+    /**
+     * Leaves writing back to the operating system, and only forces the journal when the outbox is closed.
+     */
+    NEVER
+}
@@ -0,0 +1,235 @@
+package io.github.eggy03.papertrail.sdk.outbox;
+
+import org.jspecify.annotations.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * One memory-mapped file of an {@link OutboxJournal}, holding records back to back from its start.
+ * <p>
+ * A record is a 12-byte header of payload length, CRC32 of the payload and delivery state, followed by the
+ * payload and padded to a multiple of four bytes. The length is written last and a zero length marks the
+ * end of the records, so a record torn by a crash shows up as a bad length or checksum. Delivery only flips
+ * the aligned state field, which the disk writes atomically.
+ * </p>
+ */
+final class JournalSegment {
+
+    static final int HEADER_BYTES = 12;
+
+    private static final int CHECKSUM_OFFSET = 4;
+    private static final int STATE_OFFSET = 8;
+    private static final int PENDING = 0;
+    private static final int DELIVERED = 1;
+
+    private static final String PREFIX = "outbox-";
+    private static final String SUFFIX = ".seg";
+
+    private final long sequence;
+    private final @NonNull Path file;
+    private final @NonNull MappedByteBuffer buffer;
+
+    // end of the records written so far; only the journal's writer moves it
+    private volatile int limit;
+
+    // set once a newer segment takes the writes, so readers move on when they reach the limit
+    private volatile boolean sealed;
+
+    private JournalSegment(long sequence, @NonNull Path file, @NonNull MappedByteBuffer buffer) {
+        this.sequence = sequence;
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates the segment file with the given sequence number and maps all of it. The file is sparse until written.
+     */
+    static @NonNull JournalSegment create(@NonNull Path directory, long sequence, int size) throws IOException {
+        Path file = directory.resolve(fileName(sequence));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new JournalSegment(sequence, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    /**
+     * Maps an existing segment file. Its records are not visible until {@link #recover()} has scanned them.
+     */
+    static @NonNull JournalSegment open(@NonNull Path file, long sequence) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new JournalSegment(sequence, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        }
+    }
+
+    static @NonNull String fileName(long sequence) {
+        return String.format("%s%020d%s", PREFIX, sequence, SUFFIX);
+    }
+
+    /**
+     * The sequence number in the given file name, or {@code -1} if it is not the name of a segment.
+     */
+    static long parseSequence(@NonNull String fileName) {
+        if (!fileName.startsWith(PREFIX) || !fileName.endsWith(SUFFIX))
+            return -1;
+
+        String digits = fileName.substring(PREFIX.length(), fileName.length() - SUFFIX.length());
+        if (digits.length() != 20)
+            return -1;
+
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The bytes a record with the given payload takes up, header and padding included.
+     */
+    static int recordSize(int payloadLength) {
+        return (HEADER_BYTES + payloadLength + 3) & ~3;
+    }
+
+    /**
+     * The size of the record at the given position, which must be below the limit.
+     */
+    int recordSizeAt(int position) {
+        return recordSize(buffer.getInt(position));
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    void seal() {
+        sealed = true;
+    }
+
+    boolean hasRoom(int recordSize) {
+        return capacity() - limit >= recordSize;
+    }
+
+    /**
+     * Writes a pending record at the limit and moves the limit past it. The caller checks for room first and
+     * must be the only writer.
+     *
+     * @return the position of the record
+     */
+    int append(byte @NonNull [] payload) {
+
+        int position = limit;
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + HEADER_BYTES);
+        view.put(payload);
+
+        buffer.putInt(position + CHECKSUM_OFFSET, checksum(payload));
+        buffer.putInt(position + STATE_OFFSET, PENDING);
+        buffer.putInt(position, payload.length);
+
+        limit = position + recordSize(payload.length);
+        return position;
+    }
+
+    /**
+     * The payload of the record at the given position, which must be below the limit.
+     */
+    byte @NonNull [] payload(int position) {
+        byte[] payload = new byte[buffer.getInt(position)];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + HEADER_BYTES);
+        view.get(payload);
+        return payload;
+    }
+
+    boolean isDelivered(int position) {
+        return buffer.getInt(position + STATE_OFFSET) == DELIVERED;
+    }
+
+    void markDelivered(int position) {
+        buffer.putInt(position + STATE_OFFSET, DELIVERED);
+    }
+
+    /**
+     * Scans the records written before a restart, moves the limit past the last intact one and zeroes whatever
+     * follows it, so that a torn write can never be mistaken for a record later on.
+     *
+     * @return {@code true} if the segment ended in a torn record
+     */
+    boolean recover() {
+
+        int position = 0;
+        boolean torn = false;
+        while (capacity() - position >= HEADER_BYTES) {
+            int length = buffer.getInt(position);
+            if (length == 0)
+                break;
+
+            if (length < 0 || recordSize(length) > capacity() - position) {
+                torn = true;
+                break;
+            }
+
+            byte[] payload = payload(position);
+            if (buffer.getInt(position + CHECKSUM_OFFSET) != checksum(payload)) {
+                torn = true;
+                break;
+            }
+
+            position += recordSize(length);
+        }
+
+        limit = position;
+        if (torn)
+            zeroFrom(position);
+        return torn;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Deletes the file. The mapping itself is released once the buffer is garbage collected.
+     */
+    void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Override
+    public String toString() {
+        return file.getFileName().toString();
+    }
+
+    private void zeroFrom(int position) {
+        byte[] zeros = new byte[4096];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        while (view.hasRemaining())
+            view.put(zeros, 0, Math.min(zeros.length, view.remaining()));
+        buffer.force();
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+}
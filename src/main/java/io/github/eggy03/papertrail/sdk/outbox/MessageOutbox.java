@@ -0,0 +1,346 @@
+package io.github.eggy03.papertrail.sdk.outbox;
+
+import io.github.eggy03.papertrail.sdk.client.MessageLogContentClient;
+import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import io.vavr.control.Either;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable fallback for {@link MessageLogContentClient#logMessage(String, String, String)} that keeps messages
+ * the API could not take in an on-disk journal and delivers them once it is back.
+ * <p>
+ * Writes the API cannot take right now, because it cannot be reached, fails with a 5xx status or asks to slow
+ * down with a 429, and writes deferred on purpose through {@link #defer(String, String, String)}, are appended
+ * to a journal of memory-mapped segment files in the
+ * configured directory. Appending costs an encode, a checksum and a copy into mapped memory, far less than an
+ * HTTP call. A background replayer sends the journaled messages one at a time, in the order they were written,
+ * and backs off while the API keeps failing. While anything is waiting in the journal, new writes are queued
+ * behind it instead of overtaking it. Writes the API rejects with any other 4xx status would be rejected again,
+ * so they are not journaled, and journaled ones it rejects that way are dropped.
+ * </p>
+ * <p>
+ * Messages left in the journal when the outbox is closed, or when the process dies, are delivered after the
+ * next outbox is opened on the same directory. Delivery is at least once: a message sent just before a crash
+ * may be sent again. How much a power loss can take with it depends on the {@link FsyncPolicy}.
+ * </p>
+ */
+public final class MessageOutbox implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageOutbox.class);
+
+    // how long the replayer sleeps between checks when it was not woken by a write
+    private static final long IDLE_WAIT_MILLIS = 1_000;
+
+    private final @NonNull MessageLogContentClient client;
+    private final @NonNull OutboxJournal journal;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final int maxAttempts;
+
+    private final @NonNull Thread replayer;
+    private final @Nullable ScheduledExecutorService flusher;
+    private final CountDownLatch closing = new CountDownLatch(1);
+
+    private volatile boolean closed;
+
+    private MessageOutbox(@NonNull Builder builder, @NonNull OutboxJournal journal) {
+        this.client = builder.client;
+        this.journal = journal;
+        this.initialBackoffNanos = builder.initialBackoff.toNanos();
+        this.maxBackoffNanos = builder.maxBackoff.toNanos();
+        this.maxAttempts = builder.maxAttempts;
+
+        if (builder.fsyncPolicy == FsyncPolicy.INTERVAL) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "papertrail-outbox-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalNanos = builder.fsyncInterval.toNanos();
+            flusher.scheduleWithFixedDelay(journal::forceIfDirty, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        } else {
+            this.flusher = null;
+        }
+
+        this.replayer = new Thread(this::replay, "papertrail-outbox-replayer");
+        this.replayer.setDaemon(true);
+        this.replayer.start();
+    }
+
+    /**
+     * Creates a builder for an outbox that delivers through the given client and journals to the given directory.
+     *
+     * @param client    the client used to deliver messages; must not be {@code null}
+     * @param directory the directory holding the journal, created if missing; must not be {@code null}
+     * @return a new builder
+     * @throws NullPointerException if {@code client} or {@code directory} is {@code null}
+     */
+    public static @NonNull Builder builder(@NonNull MessageLogContentClient client, @NonNull Path directory) {
+        return new Builder(
+                Objects.requireNonNull(client, "client cannot be null"),
+                Objects.requireNonNull(directory, "directory cannot be null")
+        );
+    }
+
+    /**
+     * Logs a message right away, or journals it for later delivery if the API cannot take it right now or
+     * older messages are still waiting.
+     *
+     * @param messageId      the Discord message ID (must not be {@code null})
+     * @param messageContent the content of the message (must not be {@code null} but may be empty)
+     * @param authorId       the Discord user ID of the message author (must not be {@code null})
+     * @return {@code true} if the message was logged or journaled, {@code false} if the API rejected it with a
+     *         4xx status other than 429, or it could not be journaled
+     */
+    public boolean logMessage(@NonNull String messageId, @NonNull String messageContent, @NonNull String authorId) {
+
+        Objects.requireNonNull(messageId, "messageId cannot be null");
+        Objects.requireNonNull(messageContent, "messageContent cannot be null");
+        Objects.requireNonNull(authorId, "authorId cannot be null");
+
+        if (journal.pendingCount() == 0 && !closed) {
+            Either<ErrorEntity, MessageLogContentEntity> response = client.logMessageWithResponse(messageId, messageContent, authorId);
+            if (response.isRight())
+                return true;
+            if (!isRetryable(response.getLeft())) {
+                log.warn("Not journaling message with ID {}, the API rejected it with status {}", messageId, response.getLeft().getStatus());
+                return false;
+            }
+        }
+
+        return defer(messageId, messageContent, authorId);
+    }
+
+    /**
+     * Journals a message for delivery by the background replayer, without trying the API first.
+     *
+     * @param messageId      the Discord message ID (must not be {@code null})
+     * @param messageContent the content of the message (must not be {@code null} but may be empty)
+     * @param authorId       the Discord user ID of the message author (must not be {@code null})
+     * @return {@code true} if the message was journaled, {@code false} if the outbox is closed, the message
+     *         does not fit in a segment or the journal could not be written
+     */
+    public boolean defer(@NonNull String messageId, @NonNull String messageContent, @NonNull String authorId) {
+        return journal.append(new MessageLogContentEntity(messageId, messageContent, authorId));
+    }
+
+    /**
+     * The number of journaled messages not yet delivered.
+     */
+    public long getPendingCount() {
+        return journal.pendingCount();
+    }
+
+    /**
+     * Stops the replayer and forces the journal to disk. Undelivered messages stay in the journal and are
+     * delivered by the next outbox opened on the same directory. A message in flight when this is called
+     * is sent again then.
+     */
+    @Override
+    public void close() {
+
+        if (closed)
+            return;
+        closed = true;
+        closing.countDown();
+        replayer.interrupt();
+
+        boolean interrupted = false;
+        while (replayer.isAlive()) {
+            try {
+                replayer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (flusher != null)
+            flusher.shutdownNow();
+        journal.close();
+
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * The number of segment files the journal currently spans. Only meant for tests.
+     */
+    int getSegmentCount() {
+        return journal.segmentCount();
+    }
+
+    private void replay() {
+
+        long backoffNanos = initialBackoffNanos;
+        int attempts = 0;
+        while (!closed) {
+            OutboxJournal.Record record;
+            try {
+                if (!journal.awaitPending(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS))
+                    continue;
+                record = journal.peek();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (record == null)
+                continue;
+
+            MessageLogContentEntity entity = record.entity();
+            boolean logged;
+            ErrorEntity rejection = null;
+            try {
+                Either<ErrorEntity, MessageLogContentEntity> response = client.logMessageWithResponse(
+                        entity.getMessageId(), entity.getMessageContent(), entity.getAuthorId());
+                logged = response.isRight();
+                if (!logged && !isRetryable(response.getLeft()))
+                    rejection = response.getLeft();
+            } catch (RuntimeException e) {
+                log.warn("Failed to deliver journaled message with ID {}", entity.getMessageId(), e);
+                logged = false;
+            }
+
+            // the interrupt from close() may have cut the request short, so leave the record for the next outbox
+            if (closed)
+                return;
+
+            attempts++;
+            if (logged || rejection != null || attempts >= maxAttempts) {
+                if (rejection != null)
+                    log.error("Dropping journaled message with ID {}, the API rejected it with status {}", entity.getMessageId(), rejection.getStatus());
+                else if (!logged)
+                    log.error("Dropping journaled message with ID {} after {} failed attempts", entity.getMessageId(), attempts);
+
+                journal.markDelivered(record);
+                backoffNanos = initialBackoffNanos;
+                attempts = 0;
+                continue;
+            }
+
+            log.debug("Could not deliver journaled message with ID {}, retrying in {} ms", entity.getMessageId(),
+                    TimeUnit.NANOSECONDS.toMillis(backoffNanos));
+            try {
+                if (closing.await(backoffNanos, TimeUnit.NANOSECONDS))
+                    return;
+            } catch (InterruptedException e) {
+                return;
+            }
+            backoffNanos = Math.min(maxBackoffNanos, backoffNanos * 2);
+        }
+    }
+
+    // the API may take these later; any other 4xx would be rejected again, however often it is sent
+    private static boolean isRetryable(@NonNull ErrorEntity error) {
+        return error.getStatus() >= 500 || error.getStatus() == 429;
+    }
+
+    /**
+     * Builder for {@link MessageOutbox}.
+     */
+    public static final class Builder {
+
+        private final MessageLogContentClient client;
+        private final Path directory;
+        private int segmentSize = 16 * 1024 * 1024;
+        private FsyncPolicy fsyncPolicy = FsyncPolicy.INTERVAL;
+        private Duration fsyncInterval = Duration.ofSeconds(1);
+        private Duration initialBackoff = Duration.ofMillis(500);
+        private Duration maxBackoff = Duration.ofSeconds(30);
+        private int maxAttempts = 120;
+
+        private Builder(MessageLogContentClient client, Path directory) {
+            this.client = client;
+            this.directory = directory;
+        }
+
+        /**
+         * The size of each segment file in bytes, which also caps the size of a single message. The journal
+         * rolls over to a new file once the current one is full. Defaults to 16 MiB.
+         */
+        public @NonNull Builder segmentSize(int segmentSize) {
+            if (segmentSize < 4096)
+                throw new IllegalArgumentException("segmentSize must be at least 4096 bytes");
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        /**
+         * When the journal is forced to disk. Defaults to {@link FsyncPolicy#INTERVAL}.
+         */
+        public @NonNull Builder fsyncPolicy(@NonNull FsyncPolicy fsyncPolicy) {
+            this.fsyncPolicy = Objects.requireNonNull(fsyncPolicy, "fsyncPolicy cannot be null");
+            return this;
+        }
+
+        /**
+         * How often the journal is forced to disk under {@link FsyncPolicy#INTERVAL}. Defaults to 1 second.
+         */
+        public @NonNull Builder fsyncInterval(@NonNull Duration fsyncInterval) {
+            this.fsyncInterval = requirePositive(fsyncInterval, "fsyncInterval");
+            return this;
+        }
+
+        /**
+         * The wait after the first failed delivery, doubled after every further failure up to {@code maxBackoff}.
+         * Defaults to 500 milliseconds and 30 seconds.
+         */
+        public @NonNull Builder replayBackoff(@NonNull Duration initialBackoff, @NonNull Duration maxBackoff) {
+            requirePositive(initialBackoff, "initialBackoff");
+            requirePositive(maxBackoff, "maxBackoff");
+            if (maxBackoff.compareTo(initialBackoff) < 0)
+                throw new IllegalArgumentException("maxBackoff cannot be shorter than initialBackoff");
+
+            this.initialBackoff = initialBackoff;
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * The number of failed delivery attempts after which a journaled message is dropped, so that the ones
+         * behind it are not held up forever. Messages the API rejects with a 4xx status other than 429 are
+         * dropped after the first attempt. Defaults to 120, a little under an hour with the default backoff.
+         */
+        public @NonNull Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts <= 0)
+                throw new IllegalArgumentException("maxAttempts must be positive");
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Opens the journal, recovering whatever a previous outbox left in the directory, and starts the replayer.
+         *
+         * @throws UncheckedIOException if the directory or its segment files cannot be opened
+         */
+        public @NonNull MessageOutbox build() {
+            OutboxJournal journal;
+            try {
+                journal = new OutboxJournal(directory, segmentSize, fsyncPolicy);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open the outbox in " + directory, e);
+            }
+            return new MessageOutbox(this, journal);
+        }
+
+        private static Duration requirePositive(Duration value, String name) {
+            Objects.requireNonNull(value, name + " cannot be null");
+            if (value.isNegative() || value.isZero())
+                throw new IllegalArgumentException(name + " must be positive");
+            return value;
+        }
+    }
+}
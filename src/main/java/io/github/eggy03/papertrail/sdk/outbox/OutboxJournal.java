@@ -0,0 +1,360 @@
+package io.github.eggy03.papertrail.sdk.outbox;
+
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An append-only journal of message writes, kept in a directory of fixed-size memory-mapped segments.
+ * <p>
+ * Writers append behind a lock into the newest segment and roll over to a new one when it is full. A single
+ * reader walks the records in order from the oldest undelivered one and marks each as delivered in place.
+ * Segments the reader has left behind hold nothing but delivered records and are deleted right away, which
+ * keeps the journal compact without ever rewriting it.
+ * </p>
+ * <p>
+ * Opening a journal recovers it: every segment is scanned, a record torn by a crash is cut off together
+ * with anything after it, and reading resumes at the first record not marked as delivered. A record that was
+ * sent but not yet marked when the process died is sent again, so delivery is at least once.
+ * </p>
+ */
+final class OutboxJournal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxJournal.class);
+
+    private final @NonNull Path directory;
+    private final int segmentSize;
+    private final @NonNull FsyncPolicy fsyncPolicy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+
+    // oldest first; guarded by the lock
+    private final ArrayDeque<JournalSegment> segments = new ArrayDeque<>();
+    private @NonNull JournalSegment writeSegment;
+    private boolean closed;
+
+    // only touched by the reader
+    private @NonNull JournalSegment readSegment;
+    private int readPosition;
+
+    private final AtomicLong pending = new AtomicLong();
+    private volatile boolean dirty;
+
+    OutboxJournal(@NonNull Path directory, int segmentSize, @NonNull FsyncPolicy fsyncPolicy) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+
+        Files.createDirectories(directory);
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                long sequence = JournalSegment.parseSequence(file.getFileName().toString());
+                if (sequence >= 0)
+                    files.put(sequence, file);
+            }
+        }
+
+        int readFrom = -1;
+        for (Map.Entry<Long, Path> entry : files.entrySet()) {
+            JournalSegment segment = JournalSegment.open(entry.getValue(), entry.getKey());
+            if (segment.recover())
+                log.warn("Cut off a torn record at the end of outbox segment {}", segment);
+
+            long undelivered = 0;
+            int firstUndelivered = -1;
+            for (int position = 0; position < segment.limit(); position += segment.recordSizeAt(position)) {
+                if (!segment.isDelivered(position)) {
+                    undelivered++;
+                    if (firstUndelivered < 0)
+                        firstUndelivered = position;
+                }
+            }
+
+            boolean last = entry.getKey().equals(files.lastKey());
+            if (undelivered == 0 && !last) {
+                delete(segment);
+                continue;
+            }
+
+            if (!last)
+                segment.seal();
+            if (segments.isEmpty())
+                readFrom = firstUndelivered < 0 ? segment.limit() : firstUndelivered;
+
+            segments.addLast(segment);
+            pending.addAndGet(undelivered);
+        }
+
+        if (segments.isEmpty()) {
+            segments.addLast(JournalSegment.create(directory, 0, segmentSize));
+            readFrom = 0;
+        }
+
+        this.writeSegment = segments.peekLast();
+        this.readSegment = segments.peekFirst();
+        this.readPosition = readFrom;
+
+        if (pending.get() > 0)
+            log.info("Recovered {} undelivered messages from the outbox in {}", pending.get(), directory);
+    }
+
+    /**
+     * Appends a write to the journal.
+     *
+     * @return {@code false} if the write is larger than a segment, the journal is closed or the disk failed
+     */
+    boolean append(@NonNull MessageLogContentEntity entity) {
+
+        byte[] payload = encode(entity);
+        int recordSize = JournalSegment.recordSize(payload.length);
+        if (recordSize > segmentSize) {
+            log.warn("Message with ID {} is too large for the outbox: {} bytes", entity.getMessageId(), recordSize);
+            return false;
+        }
+
+        JournalSegment segment;
+        lock.lock();
+        try {
+            if (closed)
+                return false;
+
+            if (!writeSegment.hasRoom(recordSize))
+                roll();
+
+            segment = writeSegment;
+            segment.append(payload);
+            pending.incrementAndGet();
+            appended.signal();
+        } catch (IOException e) {
+            log.error("Failed to roll over the outbox in {}: {}", directory, e.getMessage(), e);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+
+        written(segment);
+        return true;
+    }
+
+    /**
+     * The oldest undelivered record, or {@code null} if every record has been delivered. Only one thread may read.
+     */
+    @Nullable Record peek() {
+
+        while (true) {
+            JournalSegment segment = readSegment;
+            if (readPosition < segment.limit()) {
+                byte[] payload = segment.payload(readPosition);
+                return new Record(segment, readPosition, decode(payload));
+            }
+
+            if (!segment.isSealed())
+                return null;
+
+            // everything in it has been delivered
+            JournalSegment next;
+            lock.lock();
+            try {
+                segments.pollFirst();
+                next = segments.peekFirst();
+            } finally {
+                lock.unlock();
+            }
+            delete(segment);
+
+            readSegment = next;
+            readPosition = 0;
+        }
+    }
+
+    /**
+     * Marks the record last returned by {@link #peek()} as delivered and moves on to the next one.
+     */
+    void markDelivered(@NonNull Record record) {
+        record.segment.markDelivered(record.position);
+        readPosition = record.position + record.segment.recordSizeAt(record.position);
+        pending.decrementAndGet();
+        written(record.segment);
+    }
+
+    /**
+     * Waits until the journal holds an undelivered record, it is closed, or the timeout elapses.
+     *
+     * @return {@code true} if there is an undelivered record
+     */
+    boolean awaitPending(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+
+        if (pending.get() > 0)
+            return true;
+
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (pending.get() == 0 && !closed && remaining > 0)
+                remaining = appended.awaitNanos(remaining);
+            return pending.get() > 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The number of records not yet delivered.
+     */
+    long pendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * The number of segment files the journal currently spans.
+     */
+    int segmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces the segments to disk if anything was written since the last time.
+     */
+    void forceIfDirty() {
+        if (!dirty)
+            return;
+
+        dirty = false;
+        for (JournalSegment segment : snapshot())
+            segment.force();
+    }
+
+    /**
+     * Forces every segment to disk and rejects further appends. The files stay in place for the next open.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        for (JournalSegment segment : snapshot())
+            segment.force();
+    }
+
+    // guarded by the lock
+    private void roll() throws IOException {
+
+        if (fsyncPolicy != FsyncPolicy.NEVER)
+            writeSegment.force();
+
+        JournalSegment next = JournalSegment.create(directory, writeSegment.sequence() + 1, segmentSize);
+        segments.addLast(next);
+
+        // sealed only once the next segment is in place, so the reader always finds it
+        writeSegment.seal();
+        writeSegment = next;
+        log.debug("Rolled the outbox over to segment {}", next);
+    }
+
+    private void written(JournalSegment segment) {
+        if (fsyncPolicy == FsyncPolicy.ALWAYS)
+            segment.force();
+        else
+            dirty = true;
+    }
+
+    private List<JournalSegment> snapshot() {
+        lock.lock();
+        try {
+            return new ArrayList<>(segments);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void delete(JournalSegment segment) {
+        try {
+            segment.delete();
+            log.debug("Deleted delivered outbox segment {}", segment);
+        } catch (IOException e) {
+            log.warn("Failed to delete delivered outbox segment {}: {}", segment, e.getMessage(), e);
+        }
+    }
+
+    // message ID and author ID with their lengths, then the content up to the end of the payload
+    private static byte[] encode(MessageLogContentEntity entity) {
+
+        byte[] messageId = entity.getMessageId().getBytes(StandardCharsets.UTF_8);
+        byte[] authorId = entity.getAuthorId().getBytes(StandardCharsets.UTF_8);
+        byte[] content = entity.getMessageContent().getBytes(StandardCharsets.UTF_8);
+
+        return ByteBuffer.allocate(2 * Integer.BYTES + messageId.length + authorId.length + content.length)
+                .putInt(messageId.length).put(messageId)
+                .putInt(authorId.length).put(authorId)
+                .put(content)
+                .array();
+    }
+
+    private static MessageLogContentEntity decode(byte[] payload) {
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        String messageId = readString(buffer, buffer.getInt());
+        String authorId = readString(buffer, buffer.getInt());
+        String content = readString(buffer, buffer.remaining());
+
+        return new MessageLogContentEntity(messageId, content, authorId);
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * A record handed out by {@link #peek()}.
+     */
+    static final class Record {
+
+        private final JournalSegment segment;
+        private final int position;
+        private final MessageLogContentEntity entity;
+
+        private Record(JournalSegment segment, int position, MessageLogContentEntity entity) {
+            this.segment = segment;
+            this.position = position;
+            this.entity = entity;
+        }
+
+        @NonNull MessageLogContentEntity entity() {
+            return entity;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package io.github.eggy03.papertrail.sdk.resilience;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps how many requests of one class are in flight at once, so that a backlog in one class cannot take
+ * the threads and connections another class needs.
+ * <p>
+ * At most {@code maxConcurrentCalls} permits are out at a time. Callers finding none free join a queue of
+ * at most {@code maxQueuedCalls}, and are served in arrival order as permits are released. A caller finding
+ * the queue full, or still queued after {@code maxWait}, is refused. Every permit taken must be given back
+ * through {@link #release()}.
+ * </p>
+ * <p>
+ * Permits can be taken in three ways: {@link #tryAcquire()} never waits, {@link #acquire()} blocks the caller
+ * while it is queued, and {@link #acquireAsync()} returns a future that completes once it is served.
+ * </p>
+ * <p>
+ * A bulkhead is thread-safe. Engines give the endpoints assigned to a bulkhead a connection pool of its
+ * size, see {@link io.github.eggy03.papertrail.sdk.http.HttpServiceEngine.Builder#bulkhead(io.github.eggy03.papertrail.sdk.http.Endpoint, Bulkhead)}.
+ * </p>
+ */
+public final class Bulkhead {
+
+    private static final CompletableFuture<Boolean> ACQUIRED = CompletableFuture.completedFuture(true);
+    private static final CompletableFuture<Boolean> REFUSED = CompletableFuture.completedFuture(false);
+
+    private final @NonNull String name;
+    private final int maxConcurrentCalls;
+    private final int maxQueuedCalls;
+    private final long maxWaitNanos;
+
+    // the callers waiting for a permit, oldest first; also the lock guarding the permit count
+    private final @NonNull ArrayDeque<CompletableFuture<Boolean>> waiters = new ArrayDeque<>();
+    private int active;
+    private final @NonNull LongAdder rejected = new LongAdder();
+
+    private Bulkhead(@NonNull Builder builder) {
+        this.name = builder.name;
+        this.maxConcurrentCalls = builder.maxConcurrentCalls;
+        this.maxQueuedCalls = builder.maxQueuedCalls;
+        this.maxWaitNanos = builder.maxWait.toNanos();
+    }
+
+    /**
+     * Creates a builder, by default for a bulkhead of 16 concurrent calls, queueing up to 64 more for no longer
+     * than 1 second.
+     *
+     * @param name identifies the bulkhead in logs and metrics, such as {@code "registrations"}
+     * @throws IllegalArgumentException if {@code name} is {@code null} or blank
+     */
+    public static @NonNull Builder builder(String name) {
+        if (name == null || name.trim().isEmpty())
+            throw new IllegalArgumentException("name cannot be null or blank");
+        return new Builder(name);
+    }
+
+    /**
+     * The name identifying the bulkhead in logs and metrics.
+     */
+    public @NonNull String getName() {
+        return name;
+    }
+
+    /**
+     * The number of calls that may be in flight at once.
+     */
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    /**
+     * The number of permits currently taken.
+     */
+    public int getActiveCount() {
+        synchronized (waiters) {
+            return active;
+        }
+    }
+
+    /**
+     * The number of callers currently waiting for a permit.
+     */
+    public int getQueuedCount() {
+        synchronized (waiters) {
+            return waiters.size();
+        }
+    }
+
+    /**
+     * The number of callers refused so far.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Takes a permit if one is free right now and nobody is queued for it.
+     *
+     * @return {@code true} if the request may be sent
+     */
+    public boolean tryAcquire() {
+        synchronized (waiters) {
+            if (takeFree())
+                return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Takes a permit, blocking for up to {@code maxWait} while queued.
+     *
+     * @return {@code true} if the request may be sent, {@code false} if the queue was full, no permit was
+     *         released in time or the thread was interrupted while waiting
+     */
+    public boolean acquire() {
+        return acquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Takes a permit, blocking while queued for up to {@code timeout} or {@code maxWait}, whichever is shorter.
+     *
+     * @return {@code true} if the request may be sent, {@code false} if the queue was full, no permit was
+     *         released in time or the thread was interrupted while waiting
+     */
+    public boolean acquire(long timeout, @NonNull TimeUnit unit) {
+
+        long waitNanos = Math.min(maxWaitNanos, unit.toNanos(timeout));
+        CompletableFuture<Boolean> waiter;
+        synchronized (waiters) {
+            if (takeFree())
+                return true;
+            waiter = enqueue(waitNanos);
+        }
+
+        if (waiter == null) {
+            rejected.increment();
+            return false;
+        }
+
+        try {
+            return waiter.get(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return giveUp(waiter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // served while being interrupted, so the permit goes on to the next caller
+            if (giveUp(waiter))
+                release();
+            return false;
+        } catch (ExecutionException e) {
+            // waiters are only ever completed with a value
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Takes a permit without blocking, completing the returned future once it is served.
+     *
+     * @return a future of {@code true} if the request may be sent, or of {@code false} if the queue was full or
+     *         no permit was released within {@code maxWait}; already complete if no wait is needed
+     */
+    public @NonNull CompletableFuture<Boolean> acquireAsync() {
+        return acquireAsync(maxWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Takes a permit without blocking, waiting in the queue for up to {@code timeout} or {@code maxWait},
+     * whichever is shorter.
+     *
+     * @return a future of {@code true} if the request may be sent, or of {@code false} if the queue was full or
+     *         no permit was released in time; already complete if no wait is needed
+     */
+    public @NonNull CompletableFuture<Boolean> acquireAsync(long timeout, @NonNull TimeUnit unit) {
+
+        long waitNanos = Math.min(maxWaitNanos, unit.toNanos(timeout));
+        CompletableFuture<Boolean> waiter;
+        synchronized (waiters) {
+            if (takeFree())
+                return ACQUIRED;
+            waiter = enqueue(waitNanos);
+        }
+
+        if (waiter == null) {
+            rejected.increment();
+            return REFUSED;
+        }
+
+        ScheduledFuture<?> expiry = SharedScheduler.schedule(() -> giveUp(waiter), waitNanos);
+        waiter.thenRun(() -> expiry.cancel(false));
+        return waiter;
+    }
+
+    /**
+     * Gives a permit back, handing it straight to the longest waiting caller if there is one.
+     */
+    public void release() {
+        while (true) {
+            CompletableFuture<Boolean> next;
+            synchronized (waiters) {
+                next = waiters.poll();
+                if (next == null) {
+                    if (active > 0)
+                        active--;
+                    return;
+                }
+            }
+
+            // completed outside the lock, since an asynchronous caller goes on to send its request from here;
+            // a future its caller has already completed is passed over
+            if (next.complete(true))
+                return;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Bulkhead{name=" + name
+                + ", maxConcurrentCalls=" + maxConcurrentCalls
+                + ", maxQueuedCalls=" + maxQueuedCalls
+                + ", maxWait=" + Duration.ofNanos(maxWaitNanos)
+                + ", active=" + getActiveCount() + "}";
+    }
+
+    // queued callers go first, so that a stream of new ones cannot overtake them
+    private boolean takeFree() {
+        if (active >= maxConcurrentCalls || !waiters.isEmpty())
+            return false;
+
+        active++;
+        return true;
+    }
+
+    private @Nullable CompletableFuture<Boolean> enqueue(long waitNanos) {
+        if (waitNanos <= 0 || waiters.size() >= maxQueuedCalls)
+            return null;
+
+        CompletableFuture<Boolean> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        return waiter;
+    }
+
+    // returns true if the waiter was served before it could give up, and so holds a permit
+    private boolean giveUp(CompletableFuture<Boolean> waiter) {
+
+        boolean queued;
+        synchronized (waiters) {
+            queued = waiters.remove(waiter);
+        }
+
+        // a waiter no longer queued has been taken by release(), which is about to complete it
+        if (!queued)
+            return waiter.join();
+
+        // out of the queue before anyone waiting on it learns it was refused
+        waiter.complete(false);
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Builder for {@link Bulkhead}.
+     */
+    public static final class Builder {
+
+        private final String name;
+        private int maxConcurrentCalls = 16;
+        private int maxQueuedCalls = 64;
+        private Duration maxWait = Duration.ofSeconds(1);
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        /**
+         * The number of calls that may be in flight at once, and the size of the connection pool engines give
+         * the bulkhead. Defaults to {@code 16}.
+         */
+        public @NonNull Builder maxConcurrentCalls(int maxConcurrentCalls) {
+            if (maxConcurrentCalls <= 0)
+                throw new IllegalArgumentException("maxConcurrentCalls must be positive");
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            return this;
+        }
+
+        /**
+         * The number of calls that may wait for a permit, beyond which calls are refused right away.
+         * Defaults to {@code 64}, and {@code 0} refuses every call finding no free permit.
+         */
+        public @NonNull Builder maxQueuedCalls(int maxQueuedCalls) {
+            if (maxQueuedCalls < 0)
+                throw new IllegalArgumentException("maxQueuedCalls cannot be negative");
+            this.maxQueuedCalls = maxQueuedCalls;
+            return this;
+        }
+
+        /**
+         * The longest a call waits for a permit. Defaults to 1 second, and {@link Duration#ZERO} refuses every
+         * call finding no free permit.
+         */
+        public @NonNull Builder maxWait(@NonNull Duration maxWait) {
+            Objects.requireNonNull(maxWait, "maxWait cannot be null");
+            if (maxWait.isNegative())
+                throw new IllegalArgumentException("maxWait cannot be negative");
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        /**
+         * Creates the bulkhead, with every permit free.
+         */
+        public @NonNull Bulkhead build() {
+            return new Bulkhead(this);
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package io.github.eggy03.papertrail.sdk.resilience;
+
+import io.github.eggy03.papertrail.sdk.metrics.RequestOutcome;
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops sending requests to an API that keeps failing, so that callers fail fast instead of waiting out
+ * timeouts.
+ * <p>
+ * While {@link State#CLOSED}, the outcomes of the last {@code slidingWindowSize} requests are kept.
+ * Requests that received no response or a 5xx status count as failures. Once at least
+ * {@code minimumCalls} requests are in the window and the share of failures reaches
+ * {@code failureRateThreshold}, the breaker trips to {@link State#OPEN} and refuses every request.
+ * After {@code openDuration} it lets {@code trialCalls} requests through as {@link State#HALF_OPEN} probes:
+ * if they all succeed it closes again, and the first failure opens it for another {@code openDuration}.
+ * Only the outcomes of those probes decide a {@link State#HALF_OPEN} breaker, not those of requests sent
+ * before it opened.
+ * </p>
+ * <p>
+ * The breaker is lock-free. Transitions are reported to the registered {@link CircuitBreakerListener}s.
+ * </p>
+ */
+public final class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private static final CircuitBreaker DISABLED = new CircuitBreaker(new Builder(), false);
+
+    /**
+     * Returned by {@link #acquirePermission()} when the request must fail fast.
+     */
+    public static final long NOT_PERMITTED = -1L;
+
+    // the permission of a request sent while the breaker was closed; trial permits carry their half-open period
+    private static final long CLOSED_PERMISSION = 0L;
+
+    private static final long PERMITS_MASK = 0xFFFFFFFFL;
+
+    // the open time while it is unknown: before the breaker first opens, once it has turned half-open, and in the
+    // moment between turning open and recording when
+    private static final long NOT_OPENED = Long.MIN_VALUE;
+
+    /**
+     * The states of a {@link CircuitBreaker}.
+     */
+    public enum State {
+
+        /**
+         * Requests flow and their outcomes are counted.
+         */
+        CLOSED,
+
+        /**
+         * Requests are refused without being sent.
+         */
+        OPEN,
+
+        /**
+         * A limited number of trial requests are let through to probe whether the API has recovered.
+         */
+        HALF_OPEN
+    }
+
+    private final boolean enabled;
+    private final int slidingWindowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int trialCalls;
+    private final @NonNull List<CircuitBreakerListener> listeners;
+    private final @NonNull LongSupplier ticker;
+
+    private final @NonNull AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    // ring of the latest outcomes, 1 for a failure and 0 otherwise
+    private final @NonNull AtomicIntegerArray window;
+    private final @NonNull AtomicLong recordedCalls = new AtomicLong();
+    private final @NonNull AtomicInteger failedCalls = new AtomicInteger();
+
+    // the current half-open period in the upper half and the trial permits left in it in the lower half, so that
+    // a permit is taken together with the period it belongs to
+    private final @NonNull AtomicLong trials = new AtomicLong();
+    private final @NonNull AtomicInteger trialSuccesses = new AtomicInteger();
+    private volatile long openedAt = NOT_OPENED;
+
+    private CircuitBreaker(@NonNull Builder builder, boolean enabled) {
+        this.enabled = enabled;
+        this.slidingWindowSize = builder.slidingWindowSize;
+        this.minimumCalls = builder.minimumCalls;
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.openDurationNanos = builder.openDuration.toNanos();
+        this.trialCalls = builder.trialCalls;
+        this.listeners = Collections.unmodifiableList(new ArrayList<>(builder.listeners));
+        this.ticker = builder.ticker;
+        this.window = new AtomicIntegerArray(slidingWindowSize);
+    }
+
+    /**
+     * Creates a builder, by default for a breaker that opens for 30 seconds once half of the last
+     * 20 requests, and at least 10, have failed.
+     */
+    public static @NonNull Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * A breaker that never opens and keeps no state.
+     */
+    public static @NonNull CircuitBreaker disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Whether this breaker is not {@link #disabled()}.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The current state. Always {@link State#CLOSED} for a disabled breaker.
+     */
+    public @NonNull State getState() {
+        return state.get();
+    }
+
+    /**
+     * The share of failures among the requests in the window, or {@code 0.0} if it is empty.
+     */
+    public double getFailureRate() {
+        long calls = Math.min(recordedCalls.get(), slidingWindowSize);
+        return calls == 0 ? 0.0 : (double) failedCalls.get() / calls;
+    }
+
+    /**
+     * Asks to send a request. Every granted permission must be followed by exactly one
+     * {@link #onResult(RequestOutcome)}.
+     * <p>
+     * Equivalent to {@code acquirePermission() != NOT_PERMITTED}. Callers that can keep the permission should
+     * use {@link #acquirePermission()}, so that outcomes of requests sent before the breaker turned
+     * {@link State#HALF_OPEN} are not taken for those of its probes.
+     * </p>
+     *
+     * @return {@code true} if the request may be sent, {@code false} if it must fail fast
+     */
+    public boolean tryAcquirePermission() {
+        return acquirePermission() != NOT_PERMITTED;
+    }
+
+    /**
+     * Asks to send a request. Every granted permission must be followed by exactly one
+     * {@link #onResult(long, RequestOutcome)} carrying it.
+     *
+     * @return the permission to send the request, or {@link #NOT_PERMITTED} if it must fail fast
+     */
+    public long acquirePermission() {
+
+        switch (state.get()) {
+            case CLOSED:
+                return CLOSED_PERMISSION;
+            case OPEN:
+                long opened = openedAt;
+                if (opened == NOT_OPENED || ticker.getAsLong() - opened < openDurationNanos)
+                    return NOT_PERMITTED;
+
+                // only one caller wins the transition and hands out the trial permits; the others see none until then.
+                // The open time is forgotten before any permit is out, so before the breaker can open again
+                if (transition(State.OPEN, State.HALF_OPEN)) {
+                    openedAt = NOT_OPENED;
+                    trialSuccesses.set(0);
+                    trials.set(((trials.get() >>> 32) + 1) << 32 | trialCalls);
+                }
+                return state.get() == State.HALF_OPEN ? acquireTrialPermit() : NOT_PERMITTED;
+            default:
+                return acquireTrialPermit();
+        }
+    }
+
+    /**
+     * Reports the outcome of a request sent with permission, as if it had been granted in the current state.
+     * <p>
+     * Equivalent to {@link #onResult(long, RequestOutcome)} with the permission of a request sent now, for
+     * callers that used {@link #tryAcquirePermission()}.
+     * </p>
+     *
+     * @param outcome how the request ended
+     */
+    public void onResult(@NonNull RequestOutcome outcome) {
+        onResult(state.get() == State.HALF_OPEN ? trials.get() >>> 32 : CLOSED_PERMISSION, outcome);
+    }
+
+    /**
+     * Reports the outcome of a request sent with permission.
+     * <p>
+     * While the breaker is {@link State#HALF_OPEN}, only the outcomes of its own probes count, and a cancelled
+     * probe hands its trial permit back. Outcomes of requests sent before it opened are ignored.
+     * </p>
+     *
+     * @param permission the permission returned by {@link #acquirePermission()} for the request
+     * @param outcome    how the request ended
+     */
+    public void onResult(long permission, @NonNull RequestOutcome outcome) {
+
+        // a refused request was never sent with permission, so there is nothing to report
+        if (!enabled || permission == NOT_PERMITTED || outcome == RequestOutcome.CIRCUIT_OPEN)
+            return;
+
+        boolean failure = outcome == RequestOutcome.UNREACHABLE || outcome == RequestOutcome.SERVER_ERROR;
+
+        switch (state.get()) {
+            case CLOSED:
+                // an abandoned request cannot report on the API
+                if (outcome != RequestOutcome.CANCELLED)
+                    record(failure);
+                break;
+            case HALF_OPEN:
+                // a request sent before this period began says nothing about whether the API has recovered
+                if (permission != trials.get() >>> 32)
+                    break;
+
+                if (outcome == RequestOutcome.CANCELLED)
+                    releaseTrialPermit(permission);
+                else if (failure)
+                    open(State.HALF_OPEN, permission);
+                else if (trialSuccesses.incrementAndGet() >= trialCalls && transition(State.HALF_OPEN, State.CLOSED))
+                    resetWindow();
+                break;
+            default:
+                // a request sent before the breaker opened, it no longer matters
+        }
+    }
+
+    private void record(boolean failure) {
+
+        long call = recordedCalls.getAndIncrement();
+        int value = failure ? 1 : 0;
+        int previous = window.getAndSet((int) (call % slidingWindowSize), value);
+        int failures = failedCalls.addAndGet(value - previous);
+
+        long calls = Math.min(call + 1, slidingWindowSize);
+        if (failure && calls >= minimumCalls && failures >= failureRateThreshold * calls)
+            open(State.CLOSED, CLOSED_PERMISSION);
+    }
+
+    // the half-open period the permit belongs to, or NOT_PERMITTED if none is left
+    private long acquireTrialPermit() {
+        long current = trials.get();
+        while ((current & PERMITS_MASK) > 0) {
+            if (trials.compareAndSet(current, current - 1))
+                return current >>> 32;
+            current = trials.get();
+        }
+        return NOT_PERMITTED;
+    }
+
+    // only into the period the permit was taken from, which the breaker may have left in the meantime
+    private void releaseTrialPermit(long period) {
+        long current = trials.get();
+        while (current >>> 32 == period) {
+            if (trials.compareAndSet(current, current + 1))
+                return;
+            current = trials.get();
+        }
+    }
+
+    // a failed probe withdraws what is left of its own period before the state changes, so that no further probe
+    // is sent; everything else is left to the caller that opens the breaker, so that one that lost the race to a
+    // later period cannot take its permits or move its open time
+    private void open(State from, long permission) {
+        if (from == State.HALF_OPEN) {
+            withdrawTrialPermits(permission);
+            if (trials.get() >>> 32 != permission)
+                return;
+        }
+        if (!state.compareAndSet(from, State.OPEN))
+            return;
+
+        // no fresh permits are handed out before the open time is set and has passed
+        withdrawTrialPermits(trials.get() >>> 32);
+        openedAt = ticker.getAsLong();
+        notifyListeners(from, State.OPEN);
+    }
+
+    private void withdrawTrialPermits(long period) {
+        long current = trials.get();
+        while (current >>> 32 == period && (current & PERMITS_MASK) > 0) {
+            if (trials.compareAndSet(current, current & ~PERMITS_MASK))
+                return;
+            current = trials.get();
+        }
+    }
+
+    private void resetWindow() {
+        for (int i = 0; i < slidingWindowSize; i++)
+            window.set(i, 0);
+        failedCalls.set(0);
+        recordedCalls.set(0);
+    }
+
+    private boolean transition(State from, State to) {
+        if (!state.compareAndSet(from, to))
+            return false;
+
+        notifyListeners(from, to);
+        return true;
+    }
+
+    private void notifyListeners(State from, State to) {
+        log.info("Circuit breaker changed from {} to {}", from, to);
+        for (CircuitBreakerListener listener : listeners) {
+            try {
+                listener.onStateChange(this, from, to);
+            } catch (RuntimeException e) {
+                log.warn("Circuit breaker listener threw an exception", e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return enabled ? "CircuitBreaker{state=" + getState() + ", failureRate=" + getFailureRate() + "}" : "CircuitBreaker.disabled()";
+    }
+
+    /**
+     * Builder for {@link CircuitBreaker}.
+     */
+    public static final class Builder {
+
+        private int slidingWindowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private int trialCalls = 3;
+        private final List<CircuitBreakerListener> listeners = new ArrayList<>();
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+        }
+
+        /**
+         * The number of most recent requests whose outcomes are counted. Defaults to {@code 20}.
+         */
+        public @NonNull Builder slidingWindowSize(int slidingWindowSize) {
+            this.slidingWindowSize = requirePositive(slidingWindowSize, "slidingWindowSize");
+            return this;
+        }
+
+        /**
+         * The number of requests the window must hold before the breaker may open. Defaults to {@code 10}.
+         */
+        public @NonNull Builder minimumCalls(int minimumCalls) {
+            this.minimumCalls = requirePositive(minimumCalls, "minimumCalls");
+            return this;
+        }
+
+        /**
+         * The share of failures in the window that opens the breaker, above {@code 0.0} and up to {@code 1.0}.
+         * Defaults to {@code 0.5}.
+         */
+        public @NonNull Builder failureRateThreshold(double failureRateThreshold) {
+            if (!(failureRateThreshold > 0.0 && failureRateThreshold <= 1.0))
+                throw new IllegalArgumentException("failureRateThreshold must be above 0.0 and at most 1.0");
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * How long the breaker stays open before letting trial requests through. Defaults to 30 seconds.
+         */
+        public @NonNull Builder openDuration(@NonNull Duration openDuration) {
+            Objects.requireNonNull(openDuration, "openDuration cannot be null");
+            if (openDuration.isNegative() || openDuration.isZero())
+                throw new IllegalArgumentException("openDuration must be positive");
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * The number of trial requests that must succeed to close the breaker again. Defaults to {@code 3}.
+         */
+        public @NonNull Builder trialCalls(int trialCalls) {
+            this.trialCalls = requirePositive(trialCalls, "trialCalls");
+            return this;
+        }
+
+        /**
+         * Adds a listener for state transitions.
+         */
+        public @NonNull Builder listener(@NonNull CircuitBreakerListener listener) {
+            listeners.add(Objects.requireNonNull(listener, "listener cannot be null"));
+            return this;
+        }
+
+        /**
+         * The nanosecond time source. Only meant for tests.
+         */
+        @NonNull Builder ticker(@NonNull LongSupplier ticker) {
+            this.ticker = Objects.requireNonNull(ticker, "ticker cannot be null");
+            return this;
+        }
+
+        /**
+         * Creates the breaker, initially closed.
+         *
+         * @throws IllegalArgumentException if {@code minimumCalls} exceeds {@code slidingWindowSize}
+         */
+        public @NonNull CircuitBreaker build() {
+            if (minimumCalls > slidingWindowSize)
+                throw new IllegalArgumentException("minimumCalls cannot exceed slidingWindowSize");
+            return new CircuitBreaker(this, true);
+        }
+
+        private static int requirePositive(int value, String name) {
+            if (value <= 0)
+                throw new IllegalArgumentException(name + " must be positive");
+            return value;
+        }
+    }
+}
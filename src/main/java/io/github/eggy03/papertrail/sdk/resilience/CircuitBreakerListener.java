@@ -0,0 +1,22 @@
+package io.github.eggy03.papertrail.sdk.resilience;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Receives the state transitions of a {@link CircuitBreaker}.
+ * <p>
+ * Listeners run on the thread whose request caused the transition and should return quickly.
+ * </p>
+ */
+@FunctionalInterface
+public interface CircuitBreakerListener {
+
+    /**
+     * Invoked once per transition.
+     *
+     * @param circuitBreaker the circuit breaker that changed state
+     * @param from           the previous state
+     * @param to             the new state
+     */
+    void onStateChange(@NonNull CircuitBreaker circuitBreaker, CircuitBreaker.@NonNull State from, CircuitBreaker.@NonNull State to);
+}
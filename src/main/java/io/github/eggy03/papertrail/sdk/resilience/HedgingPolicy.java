@@ -0,0 +1,138 @@
+package io.github.eggy03.papertrail.sdk.resilience;
+
+import org.jspecify.annotations.NonNull;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Decides when an engine sends a second attempt of a slow GET, racing the first one.
+ * <p>
+ * An attempt that has not answered once the endpoint's recent latency at {@code percentile} has passed is
+ * probably stuck behind a slow replica, so a second attempt is sent, to another replica when the engine has
+ * several. Whichever answers first is used and the other one is cancelled. Hedging at the p95 adds about 5%
+ * to the load while cutting off most of the tail beyond it.
+ * </p>
+ * <p>
+ * The delay is kept between {@code minDelay} and {@code maxDelay}, and is {@code maxDelay} until enough
+ * latencies have been seen. Hedges are further capped by the engine's hedge budget, see
+ * {@link io.github.eggy03.papertrail.sdk.http.HttpServiceEngine.Builder#hedgeBudget(RetryBudget)}.
+ * </p>
+ */
+public final class HedgingPolicy {
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+
+    private HedgingPolicy(@NonNull Builder builder) {
+        this.percentile = builder.percentile;
+        this.minDelayNanos = builder.minDelay.toNanos();
+        this.maxDelayNanos = builder.maxDelay.toNanos();
+    }
+
+    /**
+     * Creates a builder, by default for hedging at the p95 latency, no sooner than 5 milliseconds and no later
+     * than 1 second.
+     */
+    public static @NonNull Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The percentile of recent latencies after which a second attempt is sent.
+     */
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * The shortest wait before a second attempt.
+     */
+    public @NonNull Duration getMinDelay() {
+        return Duration.ofNanos(minDelayNanos);
+    }
+
+    /**
+     * The longest wait before a second attempt, also used until enough latencies have been seen.
+     */
+    public @NonNull Duration getMaxDelay() {
+        return Duration.ofNanos(maxDelayNanos);
+    }
+
+    /**
+     * The wait before a second attempt, given the latency at {@link #getPercentile()}.
+     *
+     * @param latencyNanos the latency at the percentile, in nanoseconds
+     * @return the wait in nanoseconds
+     */
+    public long delayNanos(long latencyNanos) {
+        return Math.max(minDelayNanos, Math.min(maxDelayNanos, latencyNanos));
+    }
+
+    @Override
+    public String toString() {
+        return "HedgingPolicy{percentile=" + percentile
+                + ", minDelay=" + getMinDelay()
+                + ", maxDelay=" + getMaxDelay() + "}";
+    }
+
+    /**
+     * Builder for {@link HedgingPolicy}.
+     */
+    public static final class Builder {
+
+        private double percentile = 95.0;
+        private Duration minDelay = Duration.ofMillis(5);
+        private Duration maxDelay = Duration.ofSeconds(1);
+
+        private Builder() {
+        }
+
+        /**
+         * The percentile of recent latencies after which a second attempt is sent, such as {@code 95.0} for
+         * the p95. Lower percentiles hedge sooner and more often. Defaults to {@code 95.0}.
+         */
+        public @NonNull Builder percentile(double percentile) {
+            if (!(percentile > 0.0 && percentile < 100.0))
+                throw new IllegalArgumentException("percentile must be between 0.0 and 100.0, exclusive");
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * The shortest wait before a second attempt. Defaults to 5 milliseconds.
+         */
+        public @NonNull Builder minDelay(@NonNull Duration minDelay) {
+            this.minDelay = requirePositive(minDelay, "minDelay");
+            return this;
+        }
+
+        /**
+         * The longest wait before a second attempt, also used until enough latencies have been seen.
+         * Defaults to 1 second.
+         */
+        public @NonNull Builder maxDelay(@NonNull Duration maxDelay) {
+            this.maxDelay = requirePositive(maxDelay, "maxDelay");
+            return this;
+        }
+
+        /**
+         * Creates the policy.
+         *
+         * @throws IllegalArgumentException if {@code maxDelay} is shorter than {@code minDelay}
+         */
+        public @NonNull HedgingPolicy build() {
+            if (maxDelay.compareTo(minDelay) < 0)
+                throw new IllegalArgumentException("maxDelay cannot be shorter than minDelay");
+            return new HedgingPolicy(this);
+        }
+
+        private static Duration requirePositive(Duration value, String name) {
+            Objects.requireNonNull(value, name + " cannot be null");
+            if (value.isNegative() || value.isZero())
+                throw new IllegalArgumentException(name + " must be positive");
+            return value;
+        }
+    }
+}
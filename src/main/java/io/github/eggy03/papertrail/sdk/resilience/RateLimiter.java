@@ -0,0 +1,293 @@
+package io.github.eggy03.papertrail.sdk.resilience;
+
+import io.github.eggy03.papertrail.sdk.http.Endpoint;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Smooths outbound traffic with one token bucket per {@link Endpoint}.
+ * <p>
+ * A bucket holding {@code burst} tokens refills at {@code permitsPerSecond}, and every request takes one
+ * token. Endpoints get the limit set for them through {@link Builder#limit(Endpoint, double, int)}, or the
+ * {@link Builder#defaultLimit(double, int) default limit}. Requests made with a plain path instead of an
+ * endpoint share a single bucket with the default limit.
+ * </p>
+ * <p>
+ * Tokens can be taken in three ways: {@link #tryAcquire(Endpoint)} never waits, {@link #acquire(Endpoint)}
+ * blocks the caller until a token is due, and {@link #acquireAsync(Endpoint)} returns a future that
+ * completes when a token is due. Waiting callers are served in arrival order, and none waits longer than
+ * {@code maxWait}: when the next token is further away, the acquisition fails right away without taking one.
+ * A token taken for a request that was then not sent can be given back through {@link #release(Endpoint)}.
+ * </p>
+ * <p>
+ * Buckets are lock-free. One limiter can be shared by several engines to limit them together.
+ * </p>
+ */
+public final class RateLimiter {
+
+    private static final CompletableFuture<Boolean> ACQUIRED = CompletableFuture.completedFuture(true);
+    private static final CompletableFuture<Boolean> REFUSED = CompletableFuture.completedFuture(false);
+
+    // marks endpoints without a limit in the bucket cache
+    private static final Bucket NO_LIMIT = new Bucket(0, 0);
+
+    private static final RateLimiter UNLIMITED = new Builder().build();
+
+    private final @Nullable Limit defaultLimit;
+    private final @NonNull Map<Endpoint, Limit> limits;
+    private final long maxWaitNanos;
+    private final @NonNull LongSupplier ticker;
+
+    private final @NonNull ConcurrentHashMap<Endpoint, Bucket> buckets = new ConcurrentHashMap<>();
+    private final @NonNull Bucket pathBucket;
+
+    private RateLimiter(@NonNull Builder builder) {
+        this.defaultLimit = builder.defaultLimit;
+        this.limits = new HashMap<>(builder.limits);
+        this.maxWaitNanos = builder.maxWait.toNanos();
+        this.ticker = builder.ticker;
+        this.pathBucket = defaultLimit == null ? NO_LIMIT : defaultLimit.newBucket();
+    }
+
+    /**
+     * Creates a builder, by default for a limiter without any limit.
+     */
+    public static @NonNull Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * A limiter that lets every request through.
+     */
+    public static @NonNull RateLimiter unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Takes a token if one is available right now.
+     *
+     * @param endpoint the endpoint to call, or {@code null} for a request made with a plain path
+     * @return {@code true} if the request may be sent
+     */
+    public boolean tryAcquire(@Nullable Endpoint endpoint) {
+        Bucket bucket = bucket(endpoint);
+        return bucket == NO_LIMIT || bucket.reserve(ticker.getAsLong(), 0) == 0;
+    }
+
+    /**
+     * Takes a token, blocking until it is due.
+     *
+     * @param endpoint the endpoint to call, or {@code null} for a request made with a plain path
+     * @return {@code true} if the request may be sent, {@code false} if the token is further away than
+     *         {@code maxWait} or the thread was interrupted while waiting
+     */
+    public boolean acquire(@Nullable Endpoint endpoint) {
+        Bucket bucket = bucket(endpoint);
+        if (bucket == NO_LIMIT)
+            return true;
+
+        long waitNanos = bucket.reserve(ticker.getAsLong(), maxWaitNanos);
+        if (waitNanos < 0)
+            return false;
+
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes a token without blocking, completing the returned future once it is due.
+     *
+     * @param endpoint the endpoint to call, or {@code null} for a request made with a plain path
+     * @return a future of {@code true} if the request may be sent, or of {@code false} if the token is
+     *         further away than {@code maxWait}; already complete if no wait is needed
+     */
+    public @NonNull CompletableFuture<Boolean> acquireAsync(@Nullable Endpoint endpoint) {
+        Bucket bucket = bucket(endpoint);
+        if (bucket == NO_LIMIT)
+            return ACQUIRED;
+
+        long waitNanos = bucket.reserve(ticker.getAsLong(), maxWaitNanos);
+        if (waitNanos < 0)
+            return REFUSED;
+        if (waitNanos == 0)
+            return ACQUIRED;
+
+        CompletableFuture<Boolean> acquired = new CompletableFuture<>();
+        SharedScheduler.schedule(() -> acquired.complete(true), waitNanos);
+        return acquired;
+    }
+
+    /**
+     * Gives back a token taken for a request that was then not sent, such as one refused by a bulkhead.
+     * Does nothing once the bucket has refilled on its own.
+     *
+     * @param endpoint the endpoint the token was taken for, or {@code null} for a request made with a plain path
+     */
+    public void release(@Nullable Endpoint endpoint) {
+        Bucket bucket = bucket(endpoint);
+        if (bucket != NO_LIMIT)
+            bucket.refund(ticker.getAsLong());
+    }
+
+    private Bucket bucket(@Nullable Endpoint endpoint) {
+        if (endpoint == null)
+            return pathBucket;
+
+        Bucket bucket = buckets.get(endpoint);
+        if (bucket == null) {
+            Limit limit = limits.getOrDefault(endpoint, defaultLimit);
+            bucket = buckets.computeIfAbsent(endpoint, e -> limit == null ? NO_LIMIT : limit.newBucket());
+        }
+        return bucket;
+    }
+
+    private static final class Limit {
+
+        private final double permitsPerSecond;
+        private final int burst;
+
+        private Limit(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+
+        private Bucket newBucket() {
+            long intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+            return new Bucket(intervalNanos, intervalNanos * (burst - 1));
+        }
+    }
+
+    /*
+     * A token bucket kept as the time at which it will be full again: each token pushes that time one interval
+     * further, and a token is available as long as it is no more than (burst - 1) intervals in the future.
+     * This needs a single compare-and-set per token instead of a refill computation under a lock.
+     */
+    private static final class Bucket {
+
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+
+        private Bucket(long intervalNanos, long burstNanos) {
+            this.intervalNanos = intervalNanos;
+            this.burstNanos = burstNanos;
+        }
+
+        // returns the wait before the reserved token is due, or -1 if it would exceed maxWaitNanos
+        private long reserve(long now, long maxWaitNanos) {
+            while (true) {
+                long current = fullAt.get();
+                long start = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+                long waitNanos = Math.max(0, start - burstNanos - now);
+                if (waitNanos > maxWaitNanos)
+                    return -1;
+
+                if (fullAt.compareAndSet(current, start + intervalNanos))
+                    return waitNanos;
+            }
+        }
+
+        // moves the time the bucket is full again one interval back, but not into the past
+        private void refund(long now) {
+            while (true) {
+                long current = fullAt.get();
+                if (current == Long.MIN_VALUE || current - now <= 0)
+                    return;
+
+                long refunded = current - intervalNanos;
+                if (fullAt.compareAndSet(current, refunded - now < 0 ? now : refunded))
+                    return;
+            }
+        }
+    }
+
+    /**
+     * Builder for {@link RateLimiter}.
+     */
+    public static final class Builder {
+
+        private @Nullable Limit defaultLimit;
+        private final Map<Endpoint, Limit> limits = new HashMap<>();
+        private Duration maxWait = Duration.ofSeconds(5);
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+        }
+
+        /**
+         * The limit of every endpoint without its own. By default, such endpoints are not limited.
+         *
+         * @param permitsPerSecond the sustained number of requests per second
+         * @param burst            the number of requests that may be sent at once after a quiet period
+         */
+        public @NonNull Builder defaultLimit(double permitsPerSecond, int burst) {
+            this.defaultLimit = limit(permitsPerSecond, burst);
+            return this;
+        }
+
+        /**
+         * The limit of a single endpoint. Endpoints are matched by method and template.
+         *
+         * @param endpoint         the endpoint to limit
+         * @param permitsPerSecond the sustained number of requests per second
+         * @param burst            the number of requests that may be sent at once after a quiet period
+         */
+        public @NonNull Builder limit(@NonNull Endpoint endpoint, double permitsPerSecond, int burst) {
+            Objects.requireNonNull(endpoint, "endpoint cannot be null");
+            limits.put(endpoint, limit(permitsPerSecond, burst));
+            return this;
+        }
+
+        /**
+         * The longest a caller of {@link #acquire(Endpoint)} or {@link #acquireAsync(Endpoint)} waits for a token.
+         * Defaults to 5 seconds.
+         */
+        public @NonNull Builder maxWait(@NonNull Duration maxWait) {
+            Objects.requireNonNull(maxWait, "maxWait cannot be null");
+            if (maxWait.isNegative())
+                throw new IllegalArgumentException("maxWait cannot be negative");
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        /**
+         * The nanosecond time source. Only meant for tests.
+         */
+        @NonNull Builder ticker(@NonNull LongSupplier ticker) {
+            this.ticker = Objects.requireNonNull(ticker, "ticker cannot be null");
+            return this;
+        }
+
+        /**
+         * Creates the limiter, with all buckets full.
+         */
+        public @NonNull RateLimiter build() {
+            return new RateLimiter(this);
+        }
+
+        private static Limit limit(double permitsPerSecond, int burst) {
+            if (!(permitsPerSecond > 0) || Double.isInfinite(permitsPerSecond))
+                throw new IllegalArgumentException("permitsPerSecond must be positive");
+            if (burst <= 0)
+                throw new IllegalArgumentException("burst must be positive");
+            return new Limit(permitsPerSecond, burst);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.eggy03.papertrail.sdk.resilience;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps retries to a share of the traffic, so that retrying cannot multiply the load on an API that is
+ * already struggling.
+ * <p>
+ * The budget is a token balance. Every request deposits {@code ratio} tokens, every retry withdraws one,
+ * and retries are refused while less than one token is left. The balance starts at, and never exceeds,
+ * {@code reserve} tokens, which allows short bursts of retries during otherwise quiet periods. Over time,
+ * retries cannot exceed {@code ratio} times the number of requests.
+ * </p>
+ * <p>
+ * A budget is thread-safe and lock-free. Sharing one between several engines caps their retries together.
+ * Engines cap the second attempts of hedged requests with a budget of their own in the same way.
+ * </p>
+ */
+public final class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private static final RetryBudget UNLIMITED = new RetryBudget(0, 0);
+
+    private final long depositPerRequest;
+    private final long maxBalance;
+
+    // in thousandths of a token
+    private final AtomicLong balance;
+
+    private RetryBudget(long depositPerRequest, long maxBalance) {
+        this.depositPerRequest = depositPerRequest;
+        this.maxBalance = maxBalance;
+        this.balance = new AtomicLong(maxBalance);
+    }
+
+    /**
+     * Creates a budget.
+     *
+     * @param ratio   the number of retries each request earns, such as {@code 0.1} for 10%
+     * @param reserve the most retries that can be made in a burst
+     * @return a new, full budget
+     * @throws IllegalArgumentException if {@code ratio} is not between 0 and 1 or {@code reserve} is not positive
+     */
+    public static @NonNull RetryBudget of(double ratio, int reserve) {
+        if (!(ratio >= 0.0 && ratio <= 1.0))
+            throw new IllegalArgumentException("ratio must be between 0.0 and 1.0");
+        if (reserve <= 0)
+            throw new IllegalArgumentException("reserve must be positive");
+
+        return new RetryBudget(Math.round(ratio * SCALE), reserve * SCALE);
+    }
+
+    /**
+     * A budget that allows every retry.
+     */
+    public static @NonNull RetryBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Records a request, earning a share of a retry.
+     */
+    public void recordRequest() {
+        if (this == UNLIMITED || depositPerRequest == 0)
+            return;
+
+        long current = balance.get();
+        while (current < maxBalance) {
+            long next = Math.min(maxBalance, current + depositPerRequest);
+            if (balance.compareAndSet(current, next))
+                return;
+            current = balance.get();
+        }
+    }
+
+    /**
+     * Withdraws the token for one retry.
+     *
+     * @return {@code true} if the retry may be made
+     */
+    public boolean tryAcquire() {
+        if (this == UNLIMITED)
+            return true;
+
+        long current = balance.get();
+        while (current >= SCALE) {
+            if (balance.compareAndSet(current, current - SCALE))
+                return true;
+            current = balance.get();
+        }
+        return false;
+    }
+
+    /**
+     * The number of retries currently available, or {@link Double#POSITIVE_INFINITY} for {@link #unlimited()}.
+     */
+    public double getBalance() {
+        return this == UNLIMITED ? Double.POSITIVE_INFINITY : (double) balance.get() / SCALE;
+    }
+
+    @Override
+    public String toString() {
+        return this == UNLIMITED
+                ? "RetryBudget.unlimited()"
+                : "RetryBudget{ratio=" + (double) depositPerRequest / SCALE + ", reserve=" + maxBalance / SCALE + ", balance=" + getBalance() + "}";
+    }
+}
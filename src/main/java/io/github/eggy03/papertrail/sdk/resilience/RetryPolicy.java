@@ -0,0 +1,215 @@
+package io.github.eggy03.papertrail.sdk.resilience;
+
+import io.github.eggy03.papertrail.sdk.metrics.RequestOutcome;
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether and when an engine retries a failed request.
+ * <p>
+ * Only requests that received no response or a 5xx status are retried. Waits between attempts grow
+ * exponentially from {@code initialBackoff} up to {@code maxBackoff}, and a random share of each wait,
+ * set by {@code jitter}, is shaved off so that callers failing together do not retry in lockstep.
+ * </p>
+ * <p>
+ * Requests with an idempotent method (GET, HEAD, OPTIONS, PUT, DELETE, TRACE) are always eligible.
+ * A POST is only retried when the connection could not be established, so the API cannot have seen it,
+ * unless {@link Builder#retryNonIdempotent(boolean)} declares that repeating it is harmless.
+ * </p>
+ * <p>
+ * Retries are further capped by the engine's {@link RetryBudget}.
+ * </p>
+ */
+public final class RetryPolicy {
+
+    private static final RetryPolicy NONE = new RetryPolicy(new Builder().maxAttempts(1));
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double multiplier;
+    private final double jitter;
+    private final boolean retryNonIdempotent;
+
+    private RetryPolicy(@NonNull Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoffNanos = builder.initialBackoff.toNanos();
+        this.maxBackoffNanos = builder.maxBackoff.toNanos();
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.retryNonIdempotent = builder.retryNonIdempotent;
+    }
+
+    /**
+     * A policy that never retries.
+     */
+    public static @NonNull RetryPolicy none() {
+        return NONE;
+    }
+
+    /**
+     * Creates a builder, by default for 3 attempts spaced 100 milliseconds, then 200 milliseconds apart
+     * with full jitter.
+     */
+    public static @NonNull Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The maximum number of attempts, including the first one.
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Whether requests with a non-idempotent method are retried after they may have reached the API.
+     */
+    public boolean isRetryNonIdempotent() {
+        return retryNonIdempotent;
+    }
+
+    /**
+     * Decides whether a failed attempt may be retried, budget aside.
+     *
+     * @param method       the HTTP method of the request
+     * @param outcome      how the attempt ended
+     * @param requestSent  {@code false} if the attempt failed before the request could reach the API
+     * @param attemptsMade the number of attempts made so far, including the failed one
+     * @return {@code true} if another attempt may be made
+     */
+    public boolean shouldRetry(@NonNull HttpMethod method, @NonNull RequestOutcome outcome, boolean requestSent, int attemptsMade) {
+
+        if (attemptsMade >= maxAttempts)
+            return false;
+
+        if (outcome != RequestOutcome.UNREACHABLE && outcome != RequestOutcome.SERVER_ERROR)
+            return false;
+
+        return !requestSent || retryNonIdempotent || isIdempotent(method);
+    }
+
+    /**
+     * The time to wait before the next attempt.
+     *
+     * @param attemptsMade the number of attempts made so far, at least 1
+     * @return the wait in nanoseconds
+     */
+    public long backoffNanos(int attemptsMade) {
+
+        double backoff = initialBackoffNanos * Math.pow(multiplier, Math.max(0, attemptsMade - 1));
+        long capped = (long) Math.min(backoff, maxBackoffNanos);
+
+        long spread = (long) (capped * jitter);
+        return spread == 0 ? capped : capped - ThreadLocalRandom.current().nextLong(spread + 1);
+    }
+
+    private static boolean isIdempotent(HttpMethod method) {
+        return HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)
+                || HttpMethod.PUT.equals(method) || HttpMethod.DELETE.equals(method) || HttpMethod.TRACE.equals(method);
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{maxAttempts=" + maxAttempts
+                + ", initialBackoff=" + Duration.ofNanos(initialBackoffNanos)
+                + ", maxBackoff=" + Duration.ofNanos(maxBackoffNanos)
+                + ", multiplier=" + multiplier
+                + ", jitter=" + jitter
+                + ", retryNonIdempotent=" + retryNonIdempotent + "}";
+    }
+
+    /**
+     * Builder for {@link RetryPolicy}.
+     */
+    public static final class Builder {
+
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(5);
+        private double multiplier = 2.0;
+        private double jitter = 1.0;
+        private boolean retryNonIdempotent;
+
+        private Builder() {
+        }
+
+        /**
+         * The maximum number of attempts, including the first one. Defaults to {@code 3}.
+         */
+        public @NonNull Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts <= 0)
+                throw new IllegalArgumentException("maxAttempts must be positive");
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * The wait before the first retry, before jitter. Defaults to 100 milliseconds.
+         */
+        public @NonNull Builder initialBackoff(@NonNull Duration initialBackoff) {
+            this.initialBackoff = requirePositive(initialBackoff, "initialBackoff");
+            return this;
+        }
+
+        /**
+         * The longest wait between two attempts, before jitter. Defaults to 5 seconds.
+         */
+        public @NonNull Builder maxBackoff(@NonNull Duration maxBackoff) {
+            this.maxBackoff = requirePositive(maxBackoff, "maxBackoff");
+            return this;
+        }
+
+        /**
+         * The factor by which the wait grows after every retry. Defaults to {@code 2.0}.
+         */
+        public @NonNull Builder multiplier(double multiplier) {
+            if (!(multiplier >= 1.0))
+                throw new IllegalArgumentException("multiplier must be at least 1.0");
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * The share of each wait that is randomized, from {@code 0.0} for fixed waits to {@code 1.0} for waits
+         * anywhere between zero and the computed backoff. Defaults to {@code 1.0}.
+         */
+        public @NonNull Builder jitter(double jitter) {
+            if (!(jitter >= 0.0 && jitter <= 1.0))
+                throw new IllegalArgumentException("jitter must be between 0.0 and 1.0");
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Whether POST requests are retried even when they may already have reached the API. Only enable
+         * this for endpoints that tolerate duplicates. Defaults to {@code false}.
+         */
+        public @NonNull Builder retryNonIdempotent(boolean retryNonIdempotent) {
+            this.retryNonIdempotent = retryNonIdempotent;
+            return this;
+        }
+
+        /**
+         * Creates the policy.
+         *
+         * @throws IllegalArgumentException if {@code maxBackoff} is shorter than {@code initialBackoff}
+         */
+        public @NonNull RetryPolicy build() {
+            if (maxBackoff.compareTo(initialBackoff) < 0)
+                throw new IllegalArgumentException("maxBackoff cannot be shorter than initialBackoff");
+            return new RetryPolicy(this);
+        }
+
+        private static Duration requirePositive(Duration value, String name) {
+            Objects.requireNonNull(value, name + " cannot be null");
+            if (value.isNegative() || value.isZero())
+                throw new IllegalArgumentException(name + " must be positive");
+            return value;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.eggy03.papertrail.sdk.resilience;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single daemon thread that runs the delayed work of the whole SDK, such as sending retries once their backoff
+ * has elapsed or waking callers waiting on a {@link RateLimiter}. Tasks only hand work over and must not block.
+ * <p>
+ * Public only so that the engines in the {@code http} package can share it; it is not meant to be used directly.
+ * </p>
+ */
+public final class SharedScheduler {
+
+    // created on first use, when the class is initialized
+    private static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private SharedScheduler() {
+    }
+
+    /**
+     * Runs the task on the scheduler thread once the delay has elapsed.
+     *
+     * @param task       the task to run (must not be {@code null})
+     * @param delayNanos the delay in nanoseconds
+     * @return the future of the scheduled task, which can be used to cancel it
+     */
+    public static @NonNull ScheduledFuture<?> schedule(@NonNull Runnable task, long delayNanos) {
+        return EXECUTOR.schedule(Objects.requireNonNull(task, "task cannot be null"), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static ScheduledThreadPoolExecutor createExecutor() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "papertrail-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+}
@@ -0,0 +1,331 @@
+package io.github.eggy03.papertrail.sdk.codec.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates a streaming {@code EntityCodec} for every type annotated with {@code @JsonCodec}, and the
+ * {@code META-INF/services} entry that lets {@code EntityCodecs} find them.
+ * <p>
+ * The properties are taken from the {@code @JsonCreator} constructor, so the generated codec reads exactly what
+ * Jackson data binding would have bound, and writes the same properties through the matching getters.
+ * The processor runs while the SDK itself compiles and is not shipped with it.
+ * </p>
+ */
+public final class EntityCodecProcessor extends AbstractProcessor {
+
+    private static final String JSON_CODEC = "io.github.eggy03.papertrail.sdk.codec.JsonCodec";
+    private static final String ENTITY_CODEC = "io.github.eggy03.papertrail.sdk.codec.EntityCodec";
+    private static final String JSON_CREATOR = "com.fasterxml.jackson.annotation.JsonCreator";
+    private static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+
+    // how each supported property type is read from a parser and written to a generator
+    private static final Map<String, String[]> ACCESSORS = new HashMap<>();
+
+    static {
+        ACCESSORS.put("java.lang.String", new String[]{"parser.getValueAsString()", "writeString"});
+        ACCESSORS.put("int", new String[]{"parser.getValueAsInt()", "writeNumber"});
+        ACCESSORS.put("long", new String[]{"parser.getValueAsLong()", "writeNumber"});
+        ACCESSORS.put("double", new String[]{"parser.getValueAsDouble()", "writeNumber"});
+        ACCESSORS.put("boolean", new String[]{"parser.getValueAsBoolean()", "writeBoolean"});
+        ACCESSORS.put("java.lang.Integer", new String[]{"parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsInt()", "writeNumber"});
+        ACCESSORS.put("java.lang.Long", new String[]{"parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsLong()", "writeNumber"});
+        ACCESSORS.put("java.lang.Double", new String[]{"parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsDouble()", "writeNumber"});
+        ACCESSORS.put("java.lang.Boolean", new String[]{"parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsBoolean()", "writeBoolean"});
+    }
+
+    private final Set<String> generated = new TreeSet<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(JSON_CODEC);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@JsonCodec only applies to classes");
+                    continue;
+                }
+
+                TypeElement type = (TypeElement) element;
+                List<Property> properties = properties(type);
+                if (properties != null)
+                    generateCodec(type, properties);
+            }
+        }
+
+        if (roundEnv.processingOver() && !generated.isEmpty())
+            generateServiceFile();
+
+        return true;
+    }
+
+    // null if the type does not qualify, after reporting why
+    private List<Property> properties(TypeElement type) {
+
+        ExecutableElement creator = null;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (annotation(constructor, JSON_CREATOR) != null)
+                creator = constructor;
+        }
+
+        if (creator == null || !creator.getModifiers().contains(Modifier.PUBLIC)) {
+            error(type, "@JsonCodec needs a public constructor annotated with @JsonCreator");
+            return null;
+        }
+
+        List<Property> properties = new ArrayList<>();
+        for (VariableElement parameter : creator.getParameters()) {
+            AnnotationMirror jsonProperty = annotation(parameter, JSON_PROPERTY);
+            String name = jsonProperty == null ? null : stringValue(jsonProperty);
+            if (name == null || name.isEmpty()) {
+                error(parameter, "@JsonCodec needs every @JsonCreator parameter to be annotated with a named @JsonProperty");
+                return null;
+            }
+
+            String typeName = erasure(parameter.asType());
+            if (!ACCESSORS.containsKey(typeName)) {
+                error(parameter, "@JsonCodec does not support properties of type " + typeName);
+                return null;
+            }
+
+            String getter = getter(type, name, typeName);
+            if (getter == null) {
+                error(parameter, "@JsonCodec found no public getter for property '" + name + "'");
+                return null;
+            }
+
+            properties.add(new Property(name, typeName, getter));
+        }
+
+        return properties;
+    }
+
+    private String getter(TypeElement type, String property, String typeName) {
+
+        String capitalized = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            String name = method.getSimpleName().toString();
+            boolean named = name.equals("get" + capitalized) || (typeName.equals("boolean") && name.equals("is" + capitalized));
+            if (named && method.getParameters().isEmpty() && method.getModifiers().contains(Modifier.PUBLIC)
+                    && erasure(method.getReturnType()).equals(typeName))
+                return name;
+        }
+        return null;
+    }
+
+    private void generateCodec(TypeElement type, List<Property> properties) {
+
+        String packageName = ((PackageElement) type.getEnclosingElement()).getQualifiedName().toString();
+        String entity = type.getSimpleName().toString();
+        String codec = entity + "Codec";
+
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(packageName + "." + codec, type).openWriter())) {
+            out.println("package " + packageName + ";");
+            out.println();
+            out.println("import com.fasterxml.jackson.core.JsonGenerator;");
+            out.println("import com.fasterxml.jackson.core.JsonParseException;");
+            out.println("import com.fasterxml.jackson.core.JsonParser;");
+            out.println("import com.fasterxml.jackson.core.JsonToken;");
+            out.println("import com.fasterxml.jackson.core.io.SerializedString;");
+            out.println("import " + ENTITY_CODEC + ";");
+            out.println();
+            out.println("import java.io.IOException;");
+            out.println();
+            out.println("/**");
+            out.println(" * Streaming JSON codec for {@link " + entity + "}, generated from its {@code @JsonCreator} constructor.");
+            out.println(" */");
+            out.println(generatedAnnotation());
+            out.println("public final class " + codec + " implements EntityCodec<" + entity + "> {");
+            out.println();
+            for (Property property : properties)
+                out.println("    private static final SerializedString " + property.constant() + " = new SerializedString(\"" + property.name + "\");");
+            out.println();
+            out.println("    @Override");
+            out.println("    public Class<" + entity + "> type() {");
+            out.println("        return " + entity + ".class;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public void write(JsonGenerator generator, " + entity + " value) throws IOException {");
+            out.println("        generator.writeStartObject();");
+            for (Property property : properties) {
+                String write = "generator." + ACCESSORS.get(property.type)[1] + "(value." + property.getter + "());";
+                out.println("        generator.writeFieldName(" + property.constant() + ");");
+                if (property.boxed()) {
+                    // the generator's number and boolean writers take primitives, so a null wrapper would not unbox
+                    out.println("        if (value." + property.getter + "() == null)");
+                    out.println("            generator.writeNull();");
+                    out.println("        else");
+                    out.println("            " + write);
+                } else {
+                    out.println("        " + write);
+                }
+            }
+            out.println("        generator.writeEndObject();");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public " + entity + " read(JsonParser parser) throws IOException {");
+            out.println("        JsonToken token = parser.currentToken() == null ? parser.nextToken() : parser.currentToken();");
+            out.println("        if (token != JsonToken.START_OBJECT)");
+            out.println("            throw new JsonParseException(parser, \"Expected a JSON object for " + entity + " but found \" + token);");
+            out.println();
+            for (Property property : properties)
+                out.println("        " + property.type.replace("java.lang.", "") + " " + property.variable() + " = " + defaultValue(property.type) + ";");
+            out.println();
+            out.println("        while (parser.nextToken() == JsonToken.FIELD_NAME) {");
+            out.println("            String name = parser.currentName();");
+            out.println("            parser.nextToken();");
+            out.println("            switch (name) {");
+            for (Property property : properties) {
+                out.println("                case \"" + property.name + "\":");
+                out.println("                    " + property.variable() + " = " + ACCESSORS.get(property.type)[0] + ";");
+                out.println("                    break;");
+            }
+            out.println("            }");
+            out.println("            // steps over unknown properties, and over values of the wrong shape that read as null");
+            out.println("            parser.skipChildren();");
+            out.println("        }");
+            out.println();
+            StringBuilder arguments = new StringBuilder();
+            for (Property property : properties)
+                arguments.append(arguments.length() == 0 ? "" : ", ").append(property.variable());
+            out.println("        return new " + entity + "(" + arguments + ");");
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            error(type, "Failed to write " + codec + ": " + e.getMessage());
+            return;
+        }
+
+        generated.add(packageName + "." + codec);
+    }
+
+    private void generateServiceFile() {
+        Filer filer = processingEnv.getFiler();
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + ENTITY_CODEC);
+            try (Writer out = file.openWriter()) {
+                for (String codec : generated)
+                    out.write(codec + "\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write the EntityCodec service file: " + e.getMessage());
+        }
+    }
+
+    // javax.annotation.Generated is gone from the JDK since 11, its replacement only exists since 9
+    private String generatedAnnotation() {
+        String annotation = processingEnv.getElementUtils().getTypeElement("javax.annotation.processing.Generated") != null
+                ? "javax.annotation.processing.Generated"
+                : "javax.annotation.Generated";
+        return "@" + annotation + "(\"" + getClass().getName() + "\")";
+    }
+
+    private static String defaultValue(String type) {
+        switch (type) {
+            case "int":
+            case "long":
+            case "double":
+                return "0";
+            case "boolean":
+                return "false";
+            default:
+                return "null";
+        }
+    }
+
+    private static AnnotationMirror annotation(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType))
+                return mirror;
+        }
+        return null;
+    }
+
+    private static String stringValue(AnnotationMirror mirror) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value"))
+                return String.valueOf(entry.getValue().getValue());
+        }
+        return null;
+    }
+
+    // the qualified name without type arguments or type-use annotations such as @NonNull
+    private String erasure(TypeMirror type) {
+        if (type.getKind().isPrimitive())
+            return type.getKind().name().toLowerCase(Locale.ROOT);
+        if (type.getKind() == TypeKind.DECLARED)
+            return ((TypeElement) processingEnv.getTypeUtils().asElement(type)).getQualifiedName().toString();
+        return type.toString();
+    }
+
+    private void error(Element element, String message) {
+        Messager messager = processingEnv.getMessager();
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class Property {
+
+        private final String name;
+        private final String type;
+        private final String getter;
+
+        private Property(String name, String type, String getter) {
+            this.name = name;
+            this.type = type;
+            this.getter = getter;
+        }
+
+        private String constant() {
+            return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT);
+        }
+
+        private boolean boxed() {
+            return type.startsWith("java.lang.") && !type.equals("java.lang.String");
+        }
+
+        private String variable() {
+            return name + "Value";
+        }
+    }
+}
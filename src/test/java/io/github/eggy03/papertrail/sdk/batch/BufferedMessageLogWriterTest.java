@@ -0,0 +1,166 @@
+package io.github.eggy03.papertrail.sdk.batch;
+
+import io.github.eggy03.papertrail.sdk.client.MessageLogContentClient;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BufferedMessageLogWriterTest {
+
+    private final String messageContent = "test";
+    private final String authorId = "987654321";
+
+    private MessageLogContentClient mockClient;
+    private Map<String, WriteOutcome> outcomes;
+
+    @BeforeEach
+    void setUp() {
+        mockClient = mock(MessageLogContentClient.class);
+        outcomes = new ConcurrentHashMap<>();
+    }
+
+    @Test
+    void testFlush_sendsEveryQueuedWrite() {
+
+        when(mockClient.logMessageAsync(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+
+        try (BufferedMessageLogWriter writer = BufferedMessageLogWriter.builder(mockClient)
+                .batchSize(10)
+                .flushInterval(Duration.ofSeconds(10))
+                .build()) {
+
+            for (int i = 0; i < 25; i++)
+                assertThat(writer.logMessage(String.valueOf(i), messageContent, authorId, this::record)).isTrue();
+
+            writer.flush();
+
+            assertThat(outcomes).hasSize(25).containsValue(WriteOutcome.LOGGED).doesNotContainValue(WriteOutcome.FAILED);
+            verify(mockClient, times(25)).logMessageAsync(anyString(), eq(messageContent), eq(authorId));
+        }
+    }
+
+    @Test
+    void testFailedSend_reportsFailure() {
+
+        when(mockClient.logMessageAsync(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(false));
+
+        try (BufferedMessageLogWriter writer = BufferedMessageLogWriter.builder(mockClient).build()) {
+            writer.logMessage("1", messageContent, authorId, this::record);
+            writer.flush();
+        }
+
+        assertThat(outcomes).containsEntry("1", WriteOutcome.FAILED);
+    }
+
+    @Test
+    void testRejectPolicy_rejectsWhenFull() throws InterruptedException {
+
+        CompletableFuture<Boolean> inFlight = new CompletableFuture<>();
+        when(mockClient.logMessageAsync(anyString(), anyString(), anyString())).thenReturn(inFlight);
+
+        BufferedMessageLogWriter writer = fullWriter(OverflowPolicy.REJECT);
+
+        assertThat(writer.logMessage("3", messageContent, authorId, this::record)).isFalse();
+        assertThat(outcomes).containsEntry("3", WriteOutcome.REJECTED);
+
+        inFlight.complete(true);
+        writer.close();
+
+        assertThat(outcomes).containsEntry("1", WriteOutcome.LOGGED).containsEntry("2", WriteOutcome.LOGGED);
+    }
+
+    @Test
+    void testRejectPolicy_flushLeavesRoomForWrites() throws InterruptedException {
+
+        CompletableFuture<Boolean> inFlight = new CompletableFuture<>();
+        when(mockClient.logMessageAsync(anyString(), anyString(), anyString())).thenReturn(inFlight);
+
+        BufferedMessageLogWriter writer = BufferedMessageLogWriter.builder(mockClient)
+                .capacity(1)
+                .batchSize(1)
+                .overflowPolicy(OverflowPolicy.REJECT)
+                .build();
+
+        writer.logMessage("1", messageContent, authorId, this::record);
+        while (writer.getQueuedCount() > 0)
+            Thread.sleep(1);
+
+        // the flush waits on the write in flight, with a marker queued for the busy worker
+        Thread flushing = new Thread(writer::flush);
+        flushing.start();
+        while (flushing.getState() != Thread.State.WAITING)
+            Thread.sleep(1);
+
+        assertThat(writer.logMessage("2", messageContent, authorId, this::record)).isTrue();
+        assertThat(writer.getQueuedCount()).isEqualTo(1);
+
+        inFlight.complete(true);
+        flushing.join();
+        writer.close();
+
+        assertThat(outcomes).containsEntry("1", WriteOutcome.LOGGED).containsEntry("2", WriteOutcome.LOGGED);
+    }
+
+    @Test
+    void testDropOldestPolicy_evictsOldestWrite() throws InterruptedException {
+
+        CompletableFuture<Boolean> inFlight = new CompletableFuture<>();
+        when(mockClient.logMessageAsync(anyString(), anyString(), anyString())).thenReturn(inFlight);
+
+        BufferedMessageLogWriter writer = fullWriter(OverflowPolicy.DROP_OLDEST);
+
+        assertThat(writer.logMessage("3", messageContent, authorId, this::record)).isTrue();
+        assertThat(outcomes).containsEntry("2", WriteOutcome.DROPPED);
+
+        inFlight.complete(true);
+        writer.close();
+
+        assertThat(outcomes).containsEntry("1", WriteOutcome.LOGGED).containsEntry("3", WriteOutcome.LOGGED);
+    }
+
+    @Test
+    void testClose_rejectsLaterWrites() {
+
+        BufferedMessageLogWriter writer = BufferedMessageLogWriter.builder(mockClient).build();
+        writer.close();
+
+        assertThat(writer.logMessage("1", messageContent, authorId, this::record)).isFalse();
+        assertThat(outcomes).containsEntry("1", WriteOutcome.REJECTED);
+    }
+
+    // one write stuck in flight on the only worker and one write filling the queue
+    private BufferedMessageLogWriter fullWriter(OverflowPolicy policy) throws InterruptedException {
+
+        BufferedMessageLogWriter writer = BufferedMessageLogWriter.builder(mockClient)
+                .capacity(1)
+                .batchSize(1)
+                .overflowPolicy(policy)
+                .build();
+
+        writer.logMessage("1", messageContent, authorId, this::record);
+        while (writer.getQueuedCount() > 0)
+            Thread.sleep(1);
+
+        writer.logMessage("2", messageContent, authorId, this::record);
+        return writer;
+    }
+
+    private void record(MessageLogContentEntity entity, WriteOutcome outcome) {
+        outcomes.put(entity.getMessageId(), outcome);
+    }
+}
@@ -0,0 +1,137 @@
+package io.github.eggy03.papertrail.sdk.cache;
+
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContentStoreTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void testGet_heapTier() {
+
+        ContentStore store = store(10, 0);
+        store.put(new MessageLogContentEntity("1", "hello", "42"));
+
+        assertThat(store.get("1")).extracting(MessageLogContentEntity::getMessageContent).isEqualTo("hello");
+        assertThat(store.get("2")).isNull();
+        assertThat(store.heapStats().getHitCount()).isEqualTo(1);
+        assertThat(store.offHeapStats().getMissCount()).isZero();
+    }
+
+    @Test
+    void testGet_offHeapTierRoundTrip() {
+
+        ContentStore store = store(0, 4096);
+        store.put(new MessageLogContentEntity("1", "grüße, 世界 😀", "42"));
+
+        MessageLogContentEntity stored = store.get("1");
+
+        assertThat(stored).isNotNull();
+        assertThat(stored.getMessageId()).isEqualTo("1");
+        assertThat(stored.getMessageContent()).isEqualTo("grüße, 世界 😀");
+        assertThat(stored.getAuthorId()).isEqualTo("42");
+        assertThat(store.offHeapStats().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testGet_offHeapTierBehindFullHeapTier() {
+
+        ContentStore store = store(1, 4096);
+        store.put(new MessageLogContentEntity("1", "first", "42"));
+        store.put(new MessageLogContentEntity("2", "second", "42"));
+
+        // "1" was evicted from the heap tier but is still held off-heap
+        assertThat(store.get("1")).extracting(MessageLogContentEntity::getMessageContent).isEqualTo("first");
+        assertThat(store.offHeapStats().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testPut_replacesPreviousContent() {
+
+        ContentStore store = store(0, 4096);
+        store.put(new MessageLogContentEntity("1", "before", "42"));
+        store.put(new MessageLogContentEntity("1", "after", "42"));
+
+        assertThat(store.get("1")).extracting(MessageLogContentEntity::getMessageContent).isEqualTo("after");
+    }
+
+    @Test
+    void testPut_wrapAroundOverwritesOldest() {
+
+        // each record takes 4 + 2 + 10 = 16 bytes, so 64 bytes hold four of them
+        ContentStore store = store(0, 64);
+        for (int i = 0; i < 6; i++)
+            store.put(new MessageLogContentEntity(String.valueOf(i), "content-0" + i, "42"));
+
+        assertThat(store.get("0")).isNull();
+        assertThat(store.get("1")).isNull();
+        for (int i = 2; i < 6; i++)
+            assertThat(store.get(String.valueOf(i))).extracting(MessageLogContentEntity::getMessageContent).isEqualTo("content-0" + i);
+        assertThat(store.offHeapStats().getEvictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testPut_oversizedRecordIsSkipped() {
+
+        ContentStore store = store(0, 64);
+        store.put(new MessageLogContentEntity("1", "old", "42"));
+        store.put(new MessageLogContentEntity("1", "this content is far too long to fit in half the buffer", "42"));
+
+        assertThat(store.get("1")).isNull();
+    }
+
+    @Test
+    void testGet_expired() {
+
+        ContentStore store = store(10, 4096);
+        store.put(new MessageLogContentEntity("1", "hello", "42"));
+
+        now.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        assertThat(store.get("1")).isNull();
+        assertThat(store.offHeapStats().getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testInvalidate_allTiers() {
+
+        ContentStore store = store(10, 4096);
+        store.put(new MessageLogContentEntity("1", "hello", "42"));
+        store.invalidate("1");
+
+        assertThat(store.get("1")).isNull();
+    }
+
+    @Test
+    void testDisabled() {
+
+        ContentStore store = ContentStore.disabled();
+        store.put(new MessageLogContentEntity("1", "hello", "42"));
+
+        assertThat(store.isEnabled()).isFalse();
+        assertThat(store.get("1")).isNull();
+    }
+
+    @Test
+    void testBuilder_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> ContentStore.builder().heapMaximumSize(-1));
+        assertThrows(IllegalArgumentException.class, () -> ContentStore.builder().offHeapCapacityBytes(-1));
+        assertThrows(IllegalArgumentException.class, () -> ContentStore.builder().ttl(Duration.ZERO));
+    }
+
+    private ContentStore store(int heapMaximumSize, int offHeapCapacityBytes) {
+        return ContentStore.builder()
+                .ttl(Duration.ofMinutes(1))
+                .heapMaximumSize(heapMaximumSize)
+                .offHeapCapacityBytes(offHeapCapacityBytes)
+                .ticker(now::get)
+                .build();
+    }
+}
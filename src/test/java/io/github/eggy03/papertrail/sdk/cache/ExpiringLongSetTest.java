@@ -0,0 +1,96 @@
+package io.github.eggy03.papertrail.sdk.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiringLongSetTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void testAddAndContains() {
+
+        ExpiringLongSet set = set(Duration.ofSeconds(10), 100);
+        set.add(1234567890123456789L);
+        set.add(0L);
+
+        assertThat(set.contains(1234567890123456789L)).isTrue();
+        assertThat(set.contains(0L)).isTrue();
+        assertThat(set.contains(42L)).isFalse();
+        assertThat(set.size()).isEqualTo(2);
+        assertThat(set.stats().getHitCount()).isEqualTo(2);
+        assertThat(set.stats().getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testContains_expiredMember() {
+
+        ExpiringLongSet set = set(Duration.ofSeconds(10), 100);
+        set.add(1L);
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertThat(set.contains(1L)).isFalse();
+    }
+
+    @Test
+    void testRemove_keepsProbeChainsIntact() {
+
+        ExpiringLongSet set = set(Duration.ofSeconds(10), 1_000);
+        for (long i = 1; i <= 500; i++)
+            set.add(i);
+
+        for (long i = 1; i <= 500; i += 2)
+            set.remove(i);
+
+        for (long i = 1; i <= 500; i++)
+            assertThat(set.contains(i)).isEqualTo(i % 2 == 0);
+        assertThat(set.size()).isEqualTo(250);
+    }
+
+    @Test
+    void testAdd_boundedBySize() {
+
+        ExpiringLongSet set = set(Duration.ofSeconds(10), 2);
+        set.add(1L);
+        set.add(2L);
+        set.add(3L);
+
+        assertThat(set.size()).isEqualTo(2);
+        assertThat(set.contains(3L)).isFalse();
+    }
+
+    @Test
+    void testAdd_purgesExpiredMembersWhenFull() {
+
+        ExpiringLongSet set = set(Duration.ofSeconds(10), 2);
+        set.add(1L);
+        set.add(2L);
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+        set.add(3L);
+
+        assertThat(set.contains(3L)).isTrue();
+        assertThat(set.size()).isEqualTo(1);
+        assertThat(set.stats().getEvictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testDisabled_neverStores() {
+
+        ExpiringLongSet set = ExpiringLongSet.disabled();
+        set.add(1L);
+
+        assertThat(set.contains(1L)).isFalse();
+    }
+
+    private ExpiringLongSet set(Duration ttl, int maximumSize) {
+        return ExpiringLongSet.builder()
+                .ttl(ttl)
+                .maximumSize(maximumSize)
+                .ticker(now::get)
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package io.github.eggy03.papertrail.sdk.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TtlCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void testGet_hitAndMiss() {
+
+        TtlCache<String, String> cache = cache(Duration.ofSeconds(10), 10);
+        cache.put("a", "1");
+
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("b")).isNull();
+
+        CacheStats stats = cache.stats();
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    void testGet_expiredEntry() {
+
+        TtlCache<String, String> cache = cache(Duration.ofSeconds(10), 10);
+        cache.put("a", "1");
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.stats().getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testPut_restartsTimeToLive() {
+
+        TtlCache<String, String> cache = cache(Duration.ofSeconds(10), 10);
+        cache.put("a", "1");
+        now.addAndGet(Duration.ofSeconds(8).toNanos());
+        cache.put("a", "2");
+        now.addAndGet(Duration.ofSeconds(8).toNanos());
+
+        assertThat(cache.get("a")).isEqualTo("2");
+    }
+
+    @Test
+    void testPut_evictsOldestWhenFull() {
+
+        TtlCache<String, String> cache = cache(Duration.ofSeconds(10), 2);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("c")).isEqualTo("3");
+        assertThat(cache.stats().getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testPut_repeatedUpdatesKeepSizeBound() {
+
+        TtlCache<String, String> cache = cache(Duration.ofSeconds(10), 2);
+        for (int i = 0; i < 100; i++)
+            cache.put("a", String.valueOf(i));
+        cache.put("b", "b");
+
+        assertThat(cache.get("a")).isEqualTo("99");
+        assertThat(cache.get("b")).isEqualTo("b");
+        assertThat(cache.stats().getEvictionCount()).isZero();
+    }
+
+    @Test
+    void testInvalidate() {
+
+        TtlCache<String, String> cache = cache(Duration.ofSeconds(10), 10);
+        cache.put("a", "1");
+        cache.invalidate("a");
+
+        assertThat(cache.get("a")).isNull();
+    }
+
+    @Test
+    void testDisabled_neverStores() {
+
+        TtlCache<String, String> cache = TtlCache.disabled();
+        cache.put("a", "1");
+
+        assertThat(cache.isEnabled()).isFalse();
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.stats().getMissCount()).isZero();
+    }
+
+    @Test
+    void testBuilder_rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> TtlCache.builder().ttl(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> TtlCache.builder().maximumSize(0));
+    }
+
+    private TtlCache<String, String> cache(Duration ttl, int maximumSize) {
+        return TtlCache.<String, String>builder()
+                .ttl(ttl)
+                .maximumSize(maximumSize)
+                .ticker(now::get)
+                .build();
+    }
+}
@@ -1,8 +1,13 @@
 package io.github.eggy03.papertrail.sdk.client;
 
+import io.github.eggy03.papertrail.sdk.cache.ExpiringLongSet;
+import io.github.eggy03.papertrail.sdk.cache.TtlCache;
 import io.github.eggy03.papertrail.sdk.entity.AuditLogRegistrationEntity;
 import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
 import io.github.eggy03.papertrail.sdk.exception.ApiBaseUrlException;
+import io.github.eggy03.papertrail.sdk.http.AsyncHttpServiceEngine;
+import io.github.eggy03.papertrail.sdk.http.Deadline;
+import io.github.eggy03.papertrail.sdk.http.Endpoint;
 import io.github.eggy03.papertrail.sdk.http.HttpServiceEngine;
 import io.vavr.control.Either;
 import org.junit.jupiter.api.BeforeAll;
@@ -10,14 +15,27 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EmptySource;
 import org.junit.jupiter.params.provider.NullSource;
-import org.springframework.http.HttpHeaders;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.http.HttpMethod;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class AuditLogRegistrationClientTest {
@@ -28,10 +46,11 @@ class AuditLogRegistrationClientTest {
     private final String channelId = "987654321";
 
     static HttpServiceEngine mockEngine = mock(HttpServiceEngine.class);
+    static AsyncHttpServiceEngine mockAsyncEngine = mock(AsyncHttpServiceEngine.class);
 
     @BeforeAll
     static void registerClient() {
-        client = new AuditLogRegistrationClient(mockEngine);
+        client = new AuditLogRegistrationClient(mockEngine, mockAsyncEngine);
     }
 
     @ParameterizedTest
@@ -52,11 +71,11 @@ class AuditLogRegistrationClientTest {
         AuditLogRegistrationEntity responseBody = new AuditLogRegistrationEntity(guildId, channelId);
 
         when(mockEngine.makeRequestWithBody(
-                eq(HttpMethod.POST),
-                eq("/api/v1/log/audit"),
-                any(HttpHeaders.class),
+                eq(Endpoint.of(HttpMethod.POST, "/api/v1/log/audit")),
+                isNull(),
                 any(AuditLogRegistrationEntity.class),
-                eq(AuditLogRegistrationEntity.class)
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
         )).thenReturn(Either.right(responseBody));
 
         assertThat(client.registerGuild(guildId, channelId)).isTrue();
@@ -69,11 +88,11 @@ class AuditLogRegistrationClientTest {
         ErrorEntity errorBody = new ErrorEntity(0, "", "", "", "");
 
         when(mockEngine.makeRequestWithBody(
-                eq(HttpMethod.POST),
-                eq("/api/v1/log/audit"),
-                any(HttpHeaders.class),
+                eq(Endpoint.of(HttpMethod.POST, "/api/v1/log/audit")),
+                isNull(),
                 any(AuditLogRegistrationEntity.class),
-                eq(AuditLogRegistrationEntity.class)
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
         )).thenReturn(Either.left(errorBody));
 
         assertThat(client.registerGuild(guildId, channelId)).isFalse();
@@ -85,10 +104,10 @@ class AuditLogRegistrationClientTest {
         AuditLogRegistrationEntity responseBody = new AuditLogRegistrationEntity(guildId, channelId);
 
         when(mockEngine.makeRequest(
-                eq(HttpMethod.GET),
-                eq("/api/v1/log/audit/" + guildId),
-                any(HttpHeaders.class),
-                eq(AuditLogRegistrationEntity.class)
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
         )).thenReturn(Either.right(responseBody));
 
         assertThat(client.getRegisteredGuild(guildId)).isNotEmpty();
@@ -102,10 +121,10 @@ class AuditLogRegistrationClientTest {
         ErrorEntity responseBody = new ErrorEntity(0, "", "", "", "");
 
         when(mockEngine.makeRequest(
-                eq(HttpMethod.GET),
-                eq("/api/v1/log/audit/" + guildId),
-                any(HttpHeaders.class),
-                eq(AuditLogRegistrationEntity.class)
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
         )).thenReturn(Either.left(responseBody));
 
         assertThat(client.getRegisteredGuild(guildId)).isEmpty();
@@ -117,10 +136,10 @@ class AuditLogRegistrationClientTest {
     void deleteRegisteredGuild_success() {
 
         when(mockEngine.makeRequest(
-                eq(HttpMethod.DELETE),
-                eq("/api/v1/log/audit/" + guildId),
-                any(HttpHeaders.class),
-                eq(Void.class)
+                eq(Endpoint.of(HttpMethod.DELETE, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(Void.class),
+                any(Deadline.class)
         )).thenReturn(Either.right(null));
 
         assertThat(client.deleteRegisteredGuild(guildId)).isTrue();
@@ -130,13 +149,344 @@ class AuditLogRegistrationClientTest {
     void deleteRegisteredGuild_error() {
 
         when(mockEngine.makeRequest(
-                eq(HttpMethod.DELETE),
-                eq("/api/v1/log/audit/" + guildId),
-                any(HttpHeaders.class),
-                eq(Void.class)
+                eq(Endpoint.of(HttpMethod.DELETE, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(Void.class),
+                any(Deadline.class)
         )).thenReturn(Either.left(new ErrorEntity(0, "", "", "", "")));
 
         assertThat(client.deleteRegisteredGuild(guildId)).isFalse();
 
     }
+
+    @Test
+    void testRegisterGuildAsync_success() {
+
+        AuditLogRegistrationEntity responseBody = new AuditLogRegistrationEntity(guildId, channelId);
+        when(mockAsyncEngine.makeRequestWithBody(
+                eq(Endpoint.of(HttpMethod.POST, "/api/v1/log/audit")),
+                isNull(),
+                any(AuditLogRegistrationEntity.class),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.right(responseBody)));
+
+        assertThat(client.registerGuildAsync(guildId, channelId).join()).isTrue();
+    }
+
+    @Test
+    void testRegisterGuildAsync_failure() {
+
+        when(mockAsyncEngine.makeRequestWithBody(
+                eq(Endpoint.of(HttpMethod.POST, "/api/v1/log/audit")),
+                isNull(),
+                any(AuditLogRegistrationEntity.class),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.left(new ErrorEntity(0, "", "", "", ""))));
+
+        assertThat(client.registerGuildAsync(guildId, channelId).join()).isFalse();
+    }
+
+    @Test
+    void testGetRegisteredGuildAsync_success() {
+
+        AuditLogRegistrationEntity responseBody = new AuditLogRegistrationEntity(guildId, channelId);
+        when(mockAsyncEngine.makeRequest(
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.right(responseBody)));
+
+        assertThat(client.getRegisteredGuildAsync(guildId).join()).get().isEqualTo(responseBody);
+    }
+
+    @Test
+    void testGetRegisteredGuildAsync_empty() {
+
+        when(mockAsyncEngine.makeRequest(
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.left(new ErrorEntity(0, "", "", "", ""))));
+
+        assertThat(client.getRegisteredGuildAsync(guildId).join()).isEmpty();
+    }
+
+    @Test
+    void testDeleteRegisteredGuildAsync_success() {
+
+        when(mockAsyncEngine.makeRequest(
+                eq(Endpoint.of(HttpMethod.DELETE, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(Void.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.right(null)));
+
+        assertThat(client.deleteRegisteredGuildAsync(guildId).join()).isTrue();
+    }
+
+    @Test
+    void testDeleteRegisteredGuildAsync_failure() {
+
+        when(mockAsyncEngine.makeRequest(
+                eq(Endpoint.of(HttpMethod.DELETE, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(Void.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.left(new ErrorEntity(0, "", "", "", ""))));
+
+        assertThat(client.deleteRegisteredGuildAsync(guildId).join()).isFalse();
+    }
+
+    @Test
+    void testGetRegisteredGuild_cached() {
+
+        HttpServiceEngine engine = mock(HttpServiceEngine.class);
+        TtlCache<String, AuditLogRegistrationEntity> cache = TtlCache.<String, AuditLogRegistrationEntity>builder().build();
+        AuditLogRegistrationClient cachingClient = new AuditLogRegistrationClient(engine, mockAsyncEngine, cache, ExpiringLongSet.disabled());
+
+        when(engine.makeRequest(
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
+        )).thenReturn(Either.right(new AuditLogRegistrationEntity(guildId, channelId)));
+
+        assertThat(cachingClient.getRegisteredGuild(guildId)).isNotEmpty();
+        assertThat(cachingClient.getRegisteredGuild(guildId)).isNotEmpty();
+
+        verify(engine, times(1)).makeRequest(any(Endpoint.class), anyString(), eq(AuditLogRegistrationEntity.class), any(Deadline.class));
+        assertThat(cachingClient.getCacheStats().getHitCount()).isEqualTo(1);
+        assertThat(cachingClient.getCacheStats().getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testRegisterGuild_populatesCache() {
+
+        HttpServiceEngine engine = mock(HttpServiceEngine.class);
+        TtlCache<String, AuditLogRegistrationEntity> cache = TtlCache.<String, AuditLogRegistrationEntity>builder().build();
+        AuditLogRegistrationClient cachingClient = new AuditLogRegistrationClient(engine, mockAsyncEngine, cache, ExpiringLongSet.disabled());
+
+        when(engine.makeRequestWithBody(
+                eq(Endpoint.of(HttpMethod.POST, "/api/v1/log/audit")),
+                isNull(),
+                any(AuditLogRegistrationEntity.class),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
+        )).thenReturn(Either.right(new AuditLogRegistrationEntity(guildId, channelId)));
+
+        assertThat(cachingClient.registerGuild(guildId, channelId)).isTrue();
+        assertThat(cachingClient.getRegisteredGuild(guildId)).get().extracting(AuditLogRegistrationEntity::getChannelId).isEqualTo(channelId);
+    }
+
+    @Test
+    void testDeleteRegisteredGuild_invalidatesCache() {
+
+        HttpServiceEngine engine = mock(HttpServiceEngine.class);
+        TtlCache<String, AuditLogRegistrationEntity> cache = TtlCache.<String, AuditLogRegistrationEntity>builder().build();
+        cache.put(guildId, new AuditLogRegistrationEntity(guildId, channelId));
+        AuditLogRegistrationClient cachingClient = new AuditLogRegistrationClient(engine, mockAsyncEngine, cache, ExpiringLongSet.disabled());
+
+        when(engine.makeRequest(
+                eq(Endpoint.of(HttpMethod.DELETE, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(Void.class),
+                any(Deadline.class)
+        )).thenReturn(Either.right(null));
+
+        assertThat(cachingClient.deleteRegisteredGuild(guildId)).isTrue();
+        assertThat(cache.get(guildId)).isNull();
+    }
+
+    @Test
+    void testGetRegisteredGuild_unregisteredIsRemembered() {
+
+        HttpServiceEngine engine = mock(HttpServiceEngine.class);
+        AuditLogRegistrationClient cachingClient = new AuditLogRegistrationClient(engine, mockAsyncEngine,
+                TtlCache.disabled(), ExpiringLongSet.builder().build());
+
+        when(engine.makeRequest(
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
+        )).thenReturn(Either.left(new ErrorEntity(404, "", "", "", "")));
+
+        assertThat(cachingClient.getRegisteredGuild(guildId)).isEmpty();
+        assertThat(cachingClient.getRegisteredGuild(guildId)).isEmpty();
+
+        verify(engine, times(1)).makeRequest(any(Endpoint.class), anyString(), eq(AuditLogRegistrationEntity.class), any(Deadline.class));
+        assertThat(cachingClient.getUnregisteredCacheStats().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testGetRegisteredGuild_serverErrorIsNotRemembered() {
+
+        HttpServiceEngine engine = mock(HttpServiceEngine.class);
+        AuditLogRegistrationClient cachingClient = new AuditLogRegistrationClient(engine, mockAsyncEngine,
+                TtlCache.disabled(), ExpiringLongSet.builder().build());
+
+        when(engine.makeRequest(
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
+        )).thenReturn(Either.left(new ErrorEntity(503, "", "", "", "")));
+
+        cachingClient.getRegisteredGuild(guildId);
+        cachingClient.getRegisteredGuild(guildId);
+
+        verify(engine, times(2)).makeRequest(any(Endpoint.class), anyString(), eq(AuditLogRegistrationEntity.class), any(Deadline.class));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {400, 401})
+    void testGetRegisteredGuild_otherClientErrorIsNotRemembered(int status) {
+
+        HttpServiceEngine engine = mock(HttpServiceEngine.class);
+        AuditLogRegistrationClient cachingClient = new AuditLogRegistrationClient(engine, mockAsyncEngine,
+                TtlCache.disabled(), ExpiringLongSet.builder().build());
+
+        when(engine.makeRequest(
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
+        )).thenReturn(Either.left(new ErrorEntity(status, "", "", "", "")));
+
+        cachingClient.getRegisteredGuild(guildId);
+        cachingClient.getRegisteredGuild(guildId);
+
+        verify(engine, times(2)).makeRequest(any(Endpoint.class), anyString(), eq(AuditLogRegistrationEntity.class), any(Deadline.class));
+    }
+
+    @Test
+    void testGetRegisteredGuildAsync_requestNotSentIsNotRemembered() {
+
+        AsyncHttpServiceEngine asyncEngine = mock(AsyncHttpServiceEngine.class);
+        AuditLogRegistrationClient cachingClient = new AuditLogRegistrationClient(mockEngine, asyncEngine,
+                TtlCache.disabled(), ExpiringLongSet.builder().build());
+
+        when(asyncEngine.makeRequest(
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.left(new ErrorEntity(400, "Request Not Sent", "", "", ""))));
+
+        cachingClient.getRegisteredGuildAsync(guildId).join();
+        cachingClient.getRegisteredGuildAsync(guildId).join();
+
+        verify(asyncEngine, times(2)).makeRequest(any(Endpoint.class), anyString(), eq(AuditLogRegistrationEntity.class), any(Deadline.class));
+    }
+
+    @Test
+    void testGetRegisteredGuild_answerRacingRegistrationIsNotRemembered() throws Exception {
+
+        HttpServiceEngine engine = mock(HttpServiceEngine.class);
+        ExpiringLongSet unregistered = ExpiringLongSet.builder().build();
+        AuditLogRegistrationClient cachingClient = new AuditLogRegistrationClient(engine, mockAsyncEngine, TtlCache.disabled(), unregistered);
+
+        CountDownLatch lookupSent = new CountDownLatch(1);
+        CountDownLatch registered = new CountDownLatch(1);
+        when(engine.makeRequest(
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
+        )).thenAnswer(invocation -> {
+            // answered by the API before the registration went through
+            lookupSent.countDown();
+            registered.await(5, TimeUnit.SECONDS);
+            return Either.left(new ErrorEntity(404, "", "", "", ""));
+        });
+        when(engine.makeRequestWithBody(
+                eq(Endpoint.of(HttpMethod.POST, "/api/v1/log/audit")),
+                isNull(),
+                any(AuditLogRegistrationEntity.class),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
+        )).thenReturn(Either.right(new AuditLogRegistrationEntity(guildId, channelId)));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> lookup = executor.submit(() -> cachingClient.getRegisteredGuild(guildId));
+            assertThat(lookupSent.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(cachingClient.registerGuild(guildId, channelId)).isTrue();
+            registered.countDown();
+            lookup.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(unregistered.contains(Long.parseLong(guildId))).isFalse();
+    }
+
+    @Test
+    void testGetRegisteredGuildAsync_answerRacingDeletionIsNotCached() {
+
+        AsyncHttpServiceEngine asyncEngine = mock(AsyncHttpServiceEngine.class);
+        TtlCache<String, AuditLogRegistrationEntity> cache = TtlCache.<String, AuditLogRegistrationEntity>builder().build();
+        AuditLogRegistrationClient cachingClient = new AuditLogRegistrationClient(mockEngine, asyncEngine, cache, ExpiringLongSet.disabled());
+
+        CompletableFuture<Either<ErrorEntity, AuditLogRegistrationEntity>> lookupResponse = new CompletableFuture<>();
+        when(asyncEngine.makeRequest(
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
+        )).thenReturn(lookupResponse);
+        when(asyncEngine.makeRequest(
+                eq(Endpoint.of(HttpMethod.DELETE, "/api/v1/log/audit/{guildId}")),
+                eq(guildId),
+                eq(Void.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.right(null)));
+
+        CompletableFuture<Optional<AuditLogRegistrationEntity>> lookup = cachingClient.getRegisteredGuildAsync(guildId);
+        assertThat(cachingClient.deleteRegisteredGuildAsync(guildId).join()).isTrue();
+
+        // answered by the API before the deletion went through
+        lookupResponse.complete(Either.right(new AuditLogRegistrationEntity(guildId, channelId)));
+
+        assertThat(lookup.join()).isPresent();
+        assertThat(cache.get(guildId)).isNull();
+    }
+
+    @Test
+    void testRegisterGuild_clearsUnregisteredEntry() {
+
+        HttpServiceEngine engine = mock(HttpServiceEngine.class);
+        ExpiringLongSet unregistered = ExpiringLongSet.builder().build();
+        unregistered.add(Long.parseLong(guildId));
+        AuditLogRegistrationClient cachingClient = new AuditLogRegistrationClient(engine, mockAsyncEngine, TtlCache.disabled(), unregistered);
+
+        when(engine.makeRequestWithBody(
+                eq(Endpoint.of(HttpMethod.POST, "/api/v1/log/audit")),
+                isNull(),
+                any(AuditLogRegistrationEntity.class),
+                eq(AuditLogRegistrationEntity.class),
+                any(Deadline.class)
+        )).thenReturn(Either.right(new AuditLogRegistrationEntity(guildId, channelId)));
+
+        cachingClient.registerGuild(guildId, channelId);
+
+        assertThat(unregistered.contains(Long.parseLong(guildId))).isFalse();
+    }
+
+    @Test
+    void testClose_leavesGivenEnginesOpen() {
+
+        HttpServiceEngine engine = mock(HttpServiceEngine.class);
+        AsyncHttpServiceEngine asyncEngine = mock(AsyncHttpServiceEngine.class);
+
+        new AuditLogRegistrationClient(engine, asyncEngine).close();
+
+        verify(engine, never()).close();
+        verify(asyncEngine, never()).close();
+    }
 }
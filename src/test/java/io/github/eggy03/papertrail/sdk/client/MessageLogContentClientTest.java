@@ -1,8 +1,12 @@
 package io.github.eggy03.papertrail.sdk.client;
 
+import io.github.eggy03.papertrail.sdk.cache.ContentStore;
 import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
 import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
 import io.github.eggy03.papertrail.sdk.exception.ApiBaseUrlException;
+import io.github.eggy03.papertrail.sdk.http.AsyncHttpServiceEngine;
+import io.github.eggy03.papertrail.sdk.http.Deadline;
+import io.github.eggy03.papertrail.sdk.http.Endpoint;
 import io.github.eggy03.papertrail.sdk.http.HttpServiceEngine;
 import io.vavr.control.Either;
 import org.junit.jupiter.api.BeforeAll;
@@ -10,14 +14,29 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EmptySource;
 import org.junit.jupiter.params.provider.NullSource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class MessageLogContentClientTest {
@@ -29,10 +48,11 @@ class MessageLogContentClientTest {
     private final String authorId = "987654321";
 
     static HttpServiceEngine mockEngine = mock(HttpServiceEngine.class);
+    static AsyncHttpServiceEngine mockAsyncEngine = mock(AsyncHttpServiceEngine.class);
 
     @BeforeAll
     static void registerClient() {
-        client = new MessageLogContentClient(mockEngine);
+        client = new MessageLogContentClient(mockEngine, mockAsyncEngine);
     }
 
     @ParameterizedTest
@@ -52,11 +72,11 @@ class MessageLogContentClientTest {
 
         MessageLogContentEntity responseBody = new MessageLogContentEntity(messageId, messageContent, authorId);
         when(mockEngine.makeRequestWithBody(
-                eq(HttpMethod.POST),
-                eq("/api/v1/content/message"),
-                any(HttpHeaders.class),
+                eq(Endpoint.of(HttpMethod.POST, "/api/v1/content/message")),
+                isNull(),
                 any(MessageLogContentEntity.class),
-                eq(MessageLogContentEntity.class)
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
         )).thenReturn(Either.right(responseBody));
 
         assertThat(client.logMessage(messageId, messageContent, authorId)).isTrue();
@@ -66,25 +86,41 @@ class MessageLogContentClientTest {
     void testLogMessage_failure() {
 
         when(mockEngine.makeRequestWithBody(
-                eq(HttpMethod.POST),
-                eq("/api/v1/content/message"),
-                any(HttpHeaders.class),
+                eq(Endpoint.of(HttpMethod.POST, "/api/v1/content/message")),
+                isNull(),
                 any(MessageLogContentEntity.class),
-                eq(MessageLogContentEntity.class)
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
         )).thenReturn(Either.left(new ErrorEntity(0, "", "", "", "")));
 
         assertThat(client.logMessage(messageId, messageContent, authorId)).isFalse();
     }
 
+    @Test
+    void testLogMessageWithResponse_returnsTheError() {
+
+        ErrorEntity rejection = new ErrorEntity(400, "Bad Request", "invalid message", "", "/api/v1/content/message");
+        when(mockEngine.makeRequestWithBody(
+                eq(Endpoint.of(HttpMethod.POST, "/api/v1/content/message")),
+                isNull(),
+                any(MessageLogContentEntity.class),
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
+        )).thenReturn(Either.left(rejection));
+
+        assertThat(client.logMessageWithResponse(messageId, messageContent, authorId).getLeft()).isSameAs(rejection);
+        assertThrows(NullPointerException.class, () -> client.logMessageWithResponse(messageId, messageContent, authorId, null));
+    }
+
     @Test
     void testRetrieveMessage_success() {
 
         MessageLogContentEntity responseBody = new MessageLogContentEntity(messageId, messageContent, authorId);
         when(mockEngine.makeRequest(
-                eq(HttpMethod.GET),
-                eq("/api/v1/content/message/" + messageId),
-                any(HttpHeaders.class),
-                eq(MessageLogContentEntity.class)
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/content/message/{messageId}")),
+                eq(messageId),
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
         )).thenReturn(Either.right(responseBody));
 
         assertThat(client.retrieveMessage(messageId)).isNotEmpty();
@@ -95,10 +131,10 @@ class MessageLogContentClientTest {
     void testRetrieveMessage_empty() {
 
         when(mockEngine.makeRequest(
-                eq(HttpMethod.GET),
-                eq("/api/v1/content/message/" + messageId),
-                any(HttpHeaders.class),
-                eq(MessageLogContentEntity.class)
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/content/message/{messageId}")),
+                eq(messageId),
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
         )).thenReturn(Either.left(new ErrorEntity(0, "", "", "", "")));
 
         assertThat(client.retrieveMessage(messageId)).isEmpty();
@@ -109,11 +145,11 @@ class MessageLogContentClientTest {
 
         MessageLogContentEntity responseBody = new MessageLogContentEntity(messageId, messageContent, authorId);
         when(mockEngine.makeRequestWithBody(
-                eq(HttpMethod.PUT),
-                eq("/api/v1/content/message"),
-                any(HttpHeaders.class),
+                eq(Endpoint.of(HttpMethod.PUT, "/api/v1/content/message")),
+                isNull(),
                 any(MessageLogContentEntity.class),
-                eq(MessageLogContentEntity.class)
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
         )).thenReturn(Either.right(responseBody));
 
         assertThat(client.updateMessage(messageId, messageContent, authorId)).isTrue();
@@ -123,11 +159,11 @@ class MessageLogContentClientTest {
     void testUpdateMessage_failure() {
 
         when(mockEngine.makeRequestWithBody(
-                eq(HttpMethod.PUT),
-                eq("/api/v1/content/message"),
-                any(HttpHeaders.class),
+                eq(Endpoint.of(HttpMethod.PUT, "/api/v1/content/message")),
+                isNull(),
                 any(MessageLogContentEntity.class),
-                eq(MessageLogContentEntity.class)
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
         )).thenReturn(Either.left(new ErrorEntity(0, "", "", "", "")));
 
         assertThat(client.updateMessage(messageId, messageContent, authorId)).isFalse();
@@ -137,10 +173,10 @@ class MessageLogContentClientTest {
     void testDeleteMessage_success() {
 
         when(mockEngine.makeRequest(
-                eq(HttpMethod.DELETE),
-                eq("/api/v1/content/message/" + messageId),
-                any(HttpHeaders.class),
-                eq(Void.class)
+                eq(Endpoint.of(HttpMethod.DELETE, "/api/v1/content/message/{messageId}")),
+                eq(messageId),
+                eq(Void.class),
+                any(Deadline.class)
         )).thenReturn(Either.right(null));
 
         assertThat(client.deleteMessage(messageId)).isTrue();
@@ -150,12 +186,285 @@ class MessageLogContentClientTest {
     void testDeleteMessage_failure() {
 
         when(mockEngine.makeRequest(
-                eq(HttpMethod.DELETE),
-                eq("/api/v1/content/message/" + messageId),
-                any(HttpHeaders.class),
-                eq(Void.class)
+                eq(Endpoint.of(HttpMethod.DELETE, "/api/v1/content/message/{messageId}")),
+                eq(messageId),
+                eq(Void.class),
+                any(Deadline.class)
         )).thenReturn(Either.left(new ErrorEntity(0, "", "", "", "")));
 
         assertThat(client.deleteMessage(messageId)).isFalse();
     }
+
+    @Test
+    void testLogMessageAsync_success() {
+
+        MessageLogContentEntity responseBody = new MessageLogContentEntity(messageId, messageContent, authorId);
+        when(mockAsyncEngine.makeRequestWithBody(
+                eq(Endpoint.of(HttpMethod.POST, "/api/v1/content/message")),
+                isNull(),
+                any(MessageLogContentEntity.class),
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.right(responseBody)));
+
+        assertThat(client.logMessageAsync(messageId, messageContent, authorId).join()).isTrue();
+    }
+
+    @Test
+    void testLogMessageAsync_failure() {
+
+        when(mockAsyncEngine.makeRequestWithBody(
+                eq(Endpoint.of(HttpMethod.POST, "/api/v1/content/message")),
+                isNull(),
+                any(MessageLogContentEntity.class),
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.left(new ErrorEntity(0, "", "", "", ""))));
+
+        assertThat(client.logMessageAsync(messageId, messageContent, authorId).join()).isFalse();
+    }
+
+    @Test
+    void testRetrieveMessageAsync_success() {
+
+        MessageLogContentEntity responseBody = new MessageLogContentEntity(messageId, messageContent, authorId);
+        when(mockAsyncEngine.makeRequest(
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/content/message/{messageId}")),
+                eq(messageId),
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.right(responseBody)));
+
+        assertThat(client.retrieveMessageAsync(messageId).join()).get().isEqualTo(responseBody);
+    }
+
+    @Test
+    void testRetrieveMessageAsync_empty() {
+
+        when(mockAsyncEngine.makeRequest(
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/content/message/{messageId}")),
+                eq(messageId),
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.left(new ErrorEntity(0, "", "", "", ""))));
+
+        assertThat(client.retrieveMessageAsync(messageId).join()).isEmpty();
+    }
+
+    @Test
+    void testUpdateMessageAsync_success() {
+
+        MessageLogContentEntity responseBody = new MessageLogContentEntity(messageId, messageContent, authorId);
+        when(mockAsyncEngine.makeRequestWithBody(
+                eq(Endpoint.of(HttpMethod.PUT, "/api/v1/content/message")),
+                isNull(),
+                any(MessageLogContentEntity.class),
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.right(responseBody)));
+
+        assertThat(client.updateMessageAsync(messageId, messageContent, authorId).join()).isTrue();
+    }
+
+    @Test
+    void testUpdateMessageAsync_failure() {
+
+        when(mockAsyncEngine.makeRequestWithBody(
+                eq(Endpoint.of(HttpMethod.PUT, "/api/v1/content/message")),
+                isNull(),
+                any(MessageLogContentEntity.class),
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.left(new ErrorEntity(0, "", "", "", ""))));
+
+        assertThat(client.updateMessageAsync(messageId, messageContent, authorId).join()).isFalse();
+    }
+
+    @Test
+    void testDeleteMessageAsync_success() {
+
+        when(mockAsyncEngine.makeRequest(
+                eq(Endpoint.of(HttpMethod.DELETE, "/api/v1/content/message/{messageId}")),
+                eq(messageId),
+                eq(Void.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.right(null)));
+
+        assertThat(client.deleteMessageAsync(messageId).join()).isTrue();
+    }
+
+    @Test
+    void testDeleteMessageAsync_failure() {
+
+        when(mockAsyncEngine.makeRequest(
+                eq(Endpoint.of(HttpMethod.DELETE, "/api/v1/content/message/{messageId}")),
+                eq(messageId),
+                eq(Void.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.left(new ErrorEntity(0, "", "", "", ""))));
+
+        assertThat(client.deleteMessageAsync(messageId).join()).isFalse();
+    }
+
+    @Test
+    void testDeleteMessages_resultPerId() {
+
+        AsyncHttpServiceEngine asyncEngine = mock(AsyncHttpServiceEngine.class);
+        MessageLogContentClient bulkClient = new MessageLogContentClient(mockEngine, asyncEngine);
+        Endpoint delete = Endpoint.of(HttpMethod.DELETE, "/api/v1/content/message/{messageId}");
+
+        when(asyncEngine.makeRequest(eq(delete), anyString(), eq(Void.class), any(Deadline.class)))
+                .thenReturn(CompletableFuture.completedFuture(Either.right(null)));
+        when(asyncEngine.makeRequest(eq(delete), eq("2"), eq(Void.class), any(Deadline.class)))
+                .thenReturn(CompletableFuture.completedFuture(Either.left(new ErrorEntity(0, "", "", "", ""))));
+
+        Map<String, Boolean> results = bulkClient.deleteMessages(Arrays.asList("3", "2", "1", "3"));
+
+        assertThat(results).containsExactly(entry("3", true), entry("2", false), entry("1", true));
+        verify(asyncEngine, times(1)).makeRequest(eq(delete), eq("3"), eq(Void.class), any(Deadline.class));
+        assertThat(bulkClient.deleteMessages(Collections.emptyList())).isEmpty();
+        assertThrows(NullPointerException.class, () -> bulkClient.deleteMessages(Arrays.asList("1", null)));
+    }
+
+    @Test
+    void testDeleteMessages_deadlinePassedToEngine() {
+
+        AsyncHttpServiceEngine asyncEngine = mock(AsyncHttpServiceEngine.class);
+        MessageLogContentClient bulkClient = new MessageLogContentClient(mockEngine, asyncEngine);
+        Endpoint delete = Endpoint.of(HttpMethod.DELETE, "/api/v1/content/message/{messageId}");
+        Deadline deadline = Deadline.after(Duration.ofMinutes(1));
+
+        when(asyncEngine.makeRequest(eq(delete), anyString(), eq(Void.class), eq(deadline)))
+                .thenReturn(CompletableFuture.completedFuture(Either.right(null)));
+
+        Map<String, Boolean> results = bulkClient.deleteMessages(Arrays.asList("1", "2"), deadline);
+
+        assertThat(results).containsExactly(entry("1", true), entry("2", true));
+        verify(asyncEngine, never()).makeRequest(any(Endpoint.class), anyString(), eq(Void.class));
+        assertThrows(NullPointerException.class, () -> bulkClient.deleteMessages(Arrays.asList("1"), null));
+    }
+
+    @Test
+    void testDeleteMessagesAsync_boundedConcurrency() {
+
+        AsyncHttpServiceEngine asyncEngine = mock(AsyncHttpServiceEngine.class);
+        MessageLogContentClient bulkClient = new MessageLogContentClient(mockEngine, asyncEngine);
+        Queue<CompletableFuture<Either<ErrorEntity, Void>>> inFlight = new ArrayDeque<>();
+
+        when(asyncEngine.makeRequest(any(Endpoint.class), anyString(), eq(Void.class), any(Deadline.class))).thenAnswer(invocation -> {
+            CompletableFuture<Either<ErrorEntity, Void>> response = new CompletableFuture<>();
+            inFlight.add(response);
+            return response;
+        });
+
+        List<String> messageIds = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            messageIds.add(String.valueOf(i));
+
+        CompletableFuture<Map<String, Boolean>> results = bulkClient.deleteMessagesAsync(messageIds);
+
+        int sent = 0;
+        while (!inFlight.isEmpty()) {
+            assertThat(inFlight).hasSizeLessThanOrEqualTo(16);
+            inFlight.poll().complete(Either.right(null));
+            sent++;
+        }
+
+        assertThat(sent).isEqualTo(100);
+        assertThat(results.join()).hasSize(100).doesNotContainValue(false);
+        assertThat(results.join().keySet()).containsExactlyElementsOf(messageIds);
+    }
+
+    @Test
+    void testRetrieveMessage_stored() {
+
+        HttpServiceEngine engine = mock(HttpServiceEngine.class);
+        MessageLogContentClient cachingClient = new MessageLogContentClient(engine, mockAsyncEngine, ContentStore.builder().build());
+
+        when(engine.makeRequest(
+                eq(Endpoint.of(HttpMethod.GET, "/api/v1/content/message/{messageId}")),
+                eq(messageId),
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
+        )).thenReturn(Either.right(new MessageLogContentEntity(messageId, messageContent, authorId)));
+
+        assertThat(cachingClient.retrieveMessage(messageId)).isNotEmpty();
+        assertThat(cachingClient.retrieveMessage(messageId)).isNotEmpty();
+
+        verify(engine, times(1)).makeRequest(any(Endpoint.class), anyString(), eq(MessageLogContentEntity.class), any(Deadline.class));
+        assertThat(cachingClient.getCacheStats().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testLogMessage_writesThrough() {
+
+        HttpServiceEngine engine = mock(HttpServiceEngine.class);
+        MessageLogContentClient cachingClient = new MessageLogContentClient(engine, mockAsyncEngine,
+                ContentStore.builder().heapMaximumSize(0).offHeapCapacityBytes(4096).build());
+
+        when(engine.makeRequestWithBody(
+                eq(Endpoint.of(HttpMethod.POST, "/api/v1/content/message")),
+                isNull(),
+                any(MessageLogContentEntity.class),
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
+        )).thenReturn(Either.right(new MessageLogContentEntity(messageId, messageContent, authorId)));
+
+        assertThat(cachingClient.logMessage(messageId, messageContent, authorId)).isTrue();
+        assertThat(cachingClient.retrieveMessage(messageId)).get().extracting(MessageLogContentEntity::getMessageContent).isEqualTo(messageContent);
+
+        verify(engine, never()).makeRequest(any(Endpoint.class), anyString(), eq(MessageLogContentEntity.class), any(Deadline.class));
+        assertThat(cachingClient.getOffHeapCacheStats().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testUpdateMessage_failureDropsStoredContent() {
+
+        HttpServiceEngine engine = mock(HttpServiceEngine.class);
+        ContentStore store = ContentStore.builder().build();
+        store.put(new MessageLogContentEntity(messageId, messageContent, authorId));
+        MessageLogContentClient cachingClient = new MessageLogContentClient(engine, mockAsyncEngine, store);
+
+        when(engine.makeRequestWithBody(
+                eq(Endpoint.of(HttpMethod.PUT, "/api/v1/content/message")),
+                isNull(),
+                any(MessageLogContentEntity.class),
+                eq(MessageLogContentEntity.class),
+                any(Deadline.class)
+        )).thenReturn(Either.left(new ErrorEntity(500, "", "", "", "")));
+
+        assertThat(cachingClient.updateMessage(messageId, "edited", authorId)).isFalse();
+        assertThat(store.get(messageId)).isNull();
+    }
+
+    @Test
+    void testDeleteMessageAsync_invalidatesStore() {
+
+        AsyncHttpServiceEngine asyncEngine = mock(AsyncHttpServiceEngine.class);
+        ContentStore store = ContentStore.builder().build();
+        store.put(new MessageLogContentEntity(messageId, messageContent, authorId));
+        MessageLogContentClient cachingClient = new MessageLogContentClient(mockEngine, asyncEngine, store);
+
+        when(asyncEngine.makeRequest(
+                eq(Endpoint.of(HttpMethod.DELETE, "/api/v1/content/message/{messageId}")),
+                eq(messageId),
+                eq(Void.class),
+                any(Deadline.class)
+        )).thenReturn(CompletableFuture.completedFuture(Either.right(null)));
+
+        assertThat(cachingClient.deleteMessageAsync(messageId).join()).isTrue();
+        assertThat(store.get(messageId)).isNull();
+    }
+
+    @Test
+    void testClose_leavesGivenEnginesOpen() {
+
+        HttpServiceEngine engine = mock(HttpServiceEngine.class);
+        AsyncHttpServiceEngine asyncEngine = mock(AsyncHttpServiceEngine.class);
+
+        new MessageLogContentClient(engine, asyncEngine).close();
+
+        verify(engine, never()).close();
+        verify(asyncEngine, never()).close();
+    }
 }
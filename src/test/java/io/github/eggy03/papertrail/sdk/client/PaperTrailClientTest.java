@@ -0,0 +1,149 @@
+package io.github.eggy03.papertrail.sdk.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.eggy03.papertrail.sdk.cache.ExpiringLongSet;
+import io.github.eggy03.papertrail.sdk.cache.TtlCache;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogRegistrationEntity;
+import io.github.eggy03.papertrail.sdk.exception.ApiBaseUrlException;
+import io.github.eggy03.papertrail.sdk.http.HttpServiceEngine;
+import io.github.eggy03.papertrail.sdk.http.HttpTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class PaperTrailClientTest {
+
+    static {
+        // without it, Nagle's algorithm and delayed ACKs add tens of milliseconds to every exchange
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private HttpServer server;
+    private String baseUrl;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v1/content/message/", exchange ->
+                reply(exchange, "{\"messageId\":\"1\",\"messageContent\":\"hello\",\"authorId\":\"2\"}"));
+        server.createContext("/api/v1/log/message/", exchange ->
+                reply(exchange, "{\"guildId\":\"3\",\"channelId\":\"4\"}"));
+        server.createContext("/api/v1/log/audit/", exchange ->
+                reply(exchange, "{\"guildId\":\"5\",\"channelId\":\"6\"}"));
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private void reply(HttpExchange exchange, String json) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Test
+    void testClients_shareOneConnectionPool() {
+
+        try (PaperTrailClient client = PaperTrailClient.builder(HttpServiceEngine.builder(baseUrl).transport(HttpTransport.APACHE_POOLED)).build()) {
+
+            Optional<MessageLogContentEntity> message = client.getMessageLogContentClient().retrieveMessage("1");
+            assertThat(message).map(MessageLogContentEntity::getMessageContent).contains("hello");
+            assertThat(client.getMessageLogRegistrationClient().getRegisteredGuild("3")).isPresent();
+            assertThat(client.getAuditLogRegistrationClient().getRegisteredGuild("5")).isPresent();
+        }
+
+        // one pool, so the calls of all three clients went over a single kept-alive connection
+        assertThat(clientPorts).hasSize(1);
+    }
+
+    @Test
+    void testClients_async() {
+
+        try (PaperTrailClient client = PaperTrailClient.builder(baseUrl).build()) {
+
+            assertThat(client.getMessageLogContentClient().retrieveMessageAsync("1").join()).isPresent();
+            assertThat(client.getMessageLogRegistrationClient().getRegisteredGuildAsync("3").join()).isPresent();
+            assertThat(client.getAuditLogRegistrationClient().getRegisteredGuildAsync("5").join()).isPresent();
+        }
+    }
+
+    @Test
+    void testBuilder_caches() {
+
+        TtlCache<String, MessageLogRegistrationEntity> cache = TtlCache.<String, MessageLogRegistrationEntity>builder()
+                .ttl(Duration.ofMinutes(1))
+                .maximumSize(16)
+                .build();
+
+        try (PaperTrailClient client = PaperTrailClient.builder(baseUrl)
+                .messageLogRegistrationCache(cache, ExpiringLongSet.disabled())
+                .build()) {
+
+            client.getMessageLogRegistrationClient().getRegisteredGuild("3");
+            client.getMessageLogRegistrationClient().getRegisteredGuild("3");
+        }
+
+        assertThat(cache.stats().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testClose_failsLaterRequests() {
+
+        PaperTrailClient client = PaperTrailClient.builder(HttpServiceEngine.builder(baseUrl).transport(HttpTransport.APACHE_POOLED)).build();
+        client.close();
+
+        assertThat(client.getMessageLogContentClient().retrieveMessage("1")).isEmpty();
+        assertThat(client.getAuditLogRegistrationClient().getRegisteredGuildAsync("5").join()).isEmpty();
+    }
+
+    @Test
+    void testBuild_closesBlockingEngineWhenAsyncEngineFails() {
+
+        HttpServiceEngine engine = mock(HttpServiceEngine.class);
+        HttpServiceEngine.Builder engineBuilder = spy(HttpServiceEngine.builder(baseUrl));
+        doReturn(engine).when(engineBuilder).build();
+        doThrow(new IllegalStateException("no reactor")).when(engineBuilder).buildAsync();
+
+        PaperTrailClient.Builder builder = PaperTrailClient.builder(engineBuilder);
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, builder::build);
+
+        assertThat(thrown).hasMessage("no reactor");
+        verify(engine).close();
+    }
+
+    @Test
+    void testBuilder_invalidArguments() {
+        assertThrows(ApiBaseUrlException.class, () -> PaperTrailClient.builder(" "));
+        assertThrows(NullPointerException.class, () -> PaperTrailClient.builder((HttpServiceEngine.Builder) null));
+        assertThrows(NullPointerException.class, () -> PaperTrailClient.builder(baseUrl).contentStore(null));
+        assertThrows(NullPointerException.class, () -> PaperTrailClient.builder(baseUrl).auditLogRegistrationCache(TtlCache.disabled(), null));
+    }
+}
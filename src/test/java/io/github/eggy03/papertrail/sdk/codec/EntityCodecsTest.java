@@ -0,0 +1,78 @@
+package io.github.eggy03.papertrail.sdk.codec;
+
+import io.github.eggy03.papertrail.sdk.entity.AuditLogRegistrationEntity;
+import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogRegistrationEntity;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EntityCodecsTest {
+
+    @Test
+    void testRoundTrip_allEntities() throws IOException {
+
+        AuditLogRegistrationEntity audit = roundTrip(AuditLogRegistrationEntity.class, new AuditLogRegistrationEntity("1", "2"));
+        MessageLogRegistrationEntity registration = roundTrip(MessageLogRegistrationEntity.class, new MessageLogRegistrationEntity("3", "4"));
+        MessageLogContentEntity content = roundTrip(MessageLogContentEntity.class, new MessageLogContentEntity("5", "héllo \"quoted\"\n", "6"));
+        ErrorEntity error = roundTrip(ErrorEntity.class, new ErrorEntity(404, "Not Found", "gone", "2026-01-01T00:00:00Z", "/x"));
+
+        assertThat(audit.getGuildId()).isEqualTo("1");
+        assertThat(audit.getChannelId()).isEqualTo("2");
+        assertThat(registration.getGuildId()).isEqualTo("3");
+        assertThat(registration.getChannelId()).isEqualTo("4");
+        assertThat(content.getMessageId()).isEqualTo("5");
+        assertThat(content.getMessageContent()).isEqualTo("héllo \"quoted\"\n");
+        assertThat(content.getAuthorId()).isEqualTo("6");
+        assertThat(error.getStatus()).isEqualTo(404);
+        assertThat(error.getError()).isEqualTo("Not Found");
+        assertThat(error.getMessage()).isEqualTo("gone");
+        assertThat(error.getTimeStamp()).isEqualTo("2026-01-01T00:00:00Z");
+        assertThat(error.getPath()).isEqualTo("/x");
+    }
+
+    @Test
+    void testDecode_skipsUnknownAndNestedProperties() throws IOException {
+
+        String json = "{\"extra\":{\"a\":[1,2,{\"b\":3}]},\"guildId\":\"1\",\"channelId\":{\"nested\":true},\"more\":[]}";
+
+        // a value of the wrong shape must not desync the parser, and leaves its property unset
+        assertThrows(NullPointerException.class, () -> decode(AuditLogRegistrationEntity.class, json));
+
+        AuditLogRegistrationEntity entity = decode(AuditLogRegistrationEntity.class,
+                "{\"extra\":{\"a\":[1,2,{\"b\":3}]},\"guildId\":\"1\",\"more\":[],\"channelId\":\"2\"}");
+        assertThat(entity.getGuildId()).isEqualTo("1");
+        assertThat(entity.getChannelId()).isEqualTo("2");
+    }
+
+    @Test
+    void testDecode_notAnObject() {
+
+        assertThrows(IOException.class, () -> decode(ErrorEntity.class, "[1,2]"));
+        assertThrows(IOException.class, () -> decode(ErrorEntity.class, "{\"status\":"));
+    }
+
+    @Test
+    void testForType_unknownType() {
+
+        assertThat(EntityCodecs.forType(String.class)).isNull();
+        assertThat(EntityCodecs.forType(ErrorEntity.class)).isNotNull();
+    }
+
+    private static <T> T roundTrip(Class<T> type, T value) throws IOException {
+        EntityCodec<T> codec = EntityCodecs.forType(type);
+        assertThat(codec).isNotNull();
+        return EntityCodecs.decode(codec, EntityCodecs.encode(codec, value));
+    }
+
+    private static <T> T decode(Class<T> type, String json) throws IOException {
+        EntityCodec<T> codec = EntityCodecs.forType(type);
+        assertThat(codec).isNotNull();
+        return EntityCodecs.decode(codec, json.getBytes(StandardCharsets.UTF_8));
+    }
+}
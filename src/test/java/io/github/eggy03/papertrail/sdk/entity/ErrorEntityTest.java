@@ -0,0 +1,40 @@
+package io.github.eggy03.papertrail.sdk.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorEntityTest {
+
+    @Test
+    void testDeferred_statusAndPathDoNotDecode() {
+
+        AtomicInteger decodes = new AtomicInteger();
+        ErrorEntity error = ErrorEntity.deferred(404, "/api/v1/log/message/1", () -> {
+            decodes.incrementAndGet();
+            return new ErrorEntity(404, "Not Found", "gone", "2026-01-01T00:00:00Z", "/api/v1/log/message/1");
+        });
+
+        assertThat(error.getStatus()).isEqualTo(404);
+        assertThat(error.getPath()).isEqualTo("/api/v1/log/message/1");
+        assertThat(decodes).hasValue(0);
+    }
+
+    @Test
+    void testDeferred_decodesOnceOnFirstRead() {
+
+        AtomicInteger decodes = new AtomicInteger();
+        ErrorEntity error = ErrorEntity.deferred(503, "/x", () -> {
+            decodes.incrementAndGet();
+            return new ErrorEntity(500, "Service Unavailable", "try later", "2026-01-01T00:00:00Z", "/ignored");
+        });
+
+        assertThat(error.getMessage()).isEqualTo("try later");
+        assertThat(error.getError()).isEqualTo("Service Unavailable");
+        assertThat(error.getTimeStamp()).isEqualTo("2026-01-01T00:00:00Z");
+        assertThat(error.toString()).contains("status=503", "path='/x'");
+        assertThat(decodes).hasValue(1);
+    }
+}
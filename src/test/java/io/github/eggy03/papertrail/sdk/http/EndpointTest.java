@@ -0,0 +1,51 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EndpointTest {
+
+    @Test
+    void testExpand_fixedTemplate() {
+
+        Endpoint endpoint = Endpoint.of(HttpMethod.POST, "/api/v1/content/message");
+
+        assertThat(endpoint.hasPathVariable()).isFalse();
+        assertThat(endpoint.expand(null)).isSameAs(endpoint.getTemplate());
+        assertThrows(IllegalArgumentException.class, () -> endpoint.expand("123"));
+    }
+
+    @Test
+    void testExpand_pathVariable() {
+
+        Endpoint endpoint = Endpoint.of(HttpMethod.GET, "/api/v1/content/message/{messageId}");
+
+        assertThat(endpoint.hasPathVariable()).isTrue();
+        assertThat(endpoint.expand("123456789")).isEqualTo("/api/v1/content/message/123456789");
+        assertThrows(NullPointerException.class, () -> endpoint.expand(null));
+    }
+
+    @Test
+    void testExpand_encodesPathVariable() {
+
+        Endpoint endpoint = Endpoint.of(HttpMethod.GET, "/api/v1/log/message/{guildId}/channel");
+
+        assertThat(endpoint.expand("a b/c")).isEqualTo("/api/v1/log/message/a%20b%2Fc/channel");
+    }
+
+    @Test
+    void testOf_invalidTemplate() {
+        assertThrows(IllegalArgumentException.class, () -> Endpoint.of(HttpMethod.GET, "api/v1/log/message"));
+        assertThrows(IllegalArgumentException.class, () -> Endpoint.of(HttpMethod.GET, "/api/{a}/{b}"));
+        assertThrows(IllegalArgumentException.class, () -> Endpoint.of(HttpMethod.GET, "/api/{a"));
+    }
+
+    @Test
+    void testEquals() {
+        assertThat(Endpoint.of(HttpMethod.GET, "/api/{id}")).isEqualTo(Endpoint.of(HttpMethod.GET, "/api/{id}"));
+        assertThat(Endpoint.of(HttpMethod.GET, "/api/{id}")).isNotEqualTo(Endpoint.of(HttpMethod.DELETE, "/api/{id}"));
+    }
+}
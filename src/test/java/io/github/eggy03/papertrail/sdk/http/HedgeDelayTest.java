@@ -0,0 +1,69 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import io.github.eggy03.papertrail.sdk.resilience.HedgingPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgeDelayTest {
+
+    private static final HedgingPolicy POLICY = HedgingPolicy.builder()
+            .percentile(90.0)
+            .minDelay(Duration.ofMillis(5))
+            .maxDelay(Duration.ofMillis(500))
+            .build();
+
+    @Test
+    void testNanos_maxDelayUntilLatenciesSeen() {
+
+        HedgeDelay delay = new HedgeDelay(POLICY);
+        for (int i = 0; i < 15; i++)
+            delay.record(ms(1));
+
+        assertThat(delay.nanos()).isEqualTo(ms(500));
+    }
+
+    @Test
+    void testNanos_followsPercentile() {
+
+        HedgeDelay delay = new HedgeDelay(POLICY);
+        for (int i = 1; i <= 80; i++)
+            delay.record(ms(i));
+
+        // the 72nd of 80 sorted latencies
+        assertThat(delay.nanos()).isEqualTo(ms(72));
+    }
+
+    @Test
+    void testNanos_clampedToPolicy() {
+
+        HedgeDelay fast = new HedgeDelay(POLICY);
+        HedgeDelay slow = new HedgeDelay(POLICY);
+        for (int i = 0; i < 16; i++) {
+            fast.record(ms(1));
+            slow.record(ms(2000));
+        }
+
+        assertThat(fast.nanos()).isEqualTo(ms(5));
+        assertThat(slow.nanos()).isEqualTo(ms(500));
+    }
+
+    @Test
+    void testNanos_windowForgetsOldLatencies() {
+
+        HedgeDelay delay = new HedgeDelay(POLICY);
+        for (int i = 0; i < 128; i++)
+            delay.record(ms(400));
+        for (int i = 0; i < 128; i++)
+            delay.record(ms(20));
+
+        assertThat(delay.nanos()).isEqualTo(ms(20));
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
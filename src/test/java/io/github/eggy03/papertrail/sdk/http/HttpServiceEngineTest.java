@@ -0,0 +1,1278 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.eggy03.papertrail.sdk.codec.EntityCodecs;
+import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogRegistrationEntity;
+import io.github.eggy03.papertrail.sdk.exception.ApiBaseUrlException;
+import io.github.eggy03.papertrail.sdk.metrics.EndpointMetrics;
+import io.github.eggy03.papertrail.sdk.metrics.EndpointSnapshot;
+import io.github.eggy03.papertrail.sdk.metrics.MetricsRecorder;
+import io.github.eggy03.papertrail.sdk.metrics.RequestOutcome;
+import io.github.eggy03.papertrail.sdk.resilience.Bulkhead;
+import io.github.eggy03.papertrail.sdk.resilience.CircuitBreaker;
+import io.github.eggy03.papertrail.sdk.resilience.HedgingPolicy;
+import io.github.eggy03.papertrail.sdk.resilience.RateLimiter;
+import io.github.eggy03.papertrail.sdk.resilience.RetryBudget;
+import io.github.eggy03.papertrail.sdk.resilience.RetryPolicy;
+import io.vavr.control.Either;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+class HttpServiceEngineTest {
+
+    static {
+        // without it, Nagle's algorithm and delayed ACKs add tens of milliseconds to every exchange
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private HttpServer server;
+    private String baseUrl;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger flakyFailures = new AtomicInteger();
+    private final AtomicInteger flakyHits = new AtomicInteger();
+    private final AtomicInteger throttledResponses = new AtomicInteger();
+    private final AtomicInteger throttledHits = new AtomicInteger();
+    private volatile String throttledRetryAfter = "1";
+    private final AtomicInteger slowHits = new AtomicInteger();
+    private final CountDownLatch slowRelease = new CountDownLatch(1);
+
+    private static final RetryPolicy FAST_RETRIES = RetryPolicy.builder()
+            .maxAttempts(3)
+            .initialBackoff(Duration.ofMillis(1))
+            .maxBackoff(Duration.ofMillis(5))
+            .build();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/echo", exchange -> {
+            byte[] received = readAll(exchange.getRequestBody());
+            String reply = exchange.getRequestMethod() + " " + exchange.getRequestURI().getRawPath() + " "
+                    + exchange.getRequestHeaders().getFirst("Content-Type") + " " + new String(received, StandardCharsets.UTF_8);
+            byte[] body = reply.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/ping", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            byte[] body = "pong".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/flaky", exchange -> {
+            flakyHits.incrementAndGet();
+            readAll(exchange.getRequestBody());
+            if (flakyFailures.getAndDecrement() > 0) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/throttled", exchange -> {
+            throttledHits.incrementAndGet();
+            readAll(exchange.getRequestBody());
+            if (throttledResponses.getAndDecrement() > 0) {
+                exchange.getResponseHeaders().add("Retry-After", throttledRetryAfter);
+                exchange.sendResponseHeaders(429, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/entity", exchange -> {
+            byte[] body = readAll(exchange.getRequestBody());
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/rejected", exchange -> {
+            byte[] body = ("{\"status\":404,\"error\":\"Not Found\",\"message\":\"No registration\","
+                    + "\"timeStamp\":\"2026-01-01T00:00:00Z\",\"path\":\"/rejected\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(404, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/broken", exchange -> {
+            byte[] body = "database down".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(500, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/gzip", exchange -> {
+            String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            String accepted = String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            InputStream in = "gzip".equals(encoding) ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody();
+            String reply = encoding + " " + new String(readAll(in), StandardCharsets.UTF_8);
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            boolean gzipped = accepted.contains("gzip");
+            try (OutputStream out = gzipped ? new GZIPOutputStream(body) : body) {
+                out.write(reply.getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            if (gzipped)
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, body.size());
+            try (OutputStream out = exchange.getResponseBody()) {
+                body.writeTo(out);
+            }
+        });
+        server.createContext("/slow", exchange -> {
+            slowHits.incrementAndGet();
+            try {
+                slowRelease.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "slow".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testJdkTransport() {
+
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).transport(HttpTransport.JDK).build();
+
+        Either<ErrorEntity, String> response = engine.makeRequest(HttpMethod.GET, "/ping", new HttpHeaders(), String.class);
+
+        assertThat(response.get()).isEqualTo("pong");
+    }
+
+    @Test
+    void testPooledTransport_reusesConnection() {
+
+        try (HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl)
+                .transport(HttpTransport.APACHE_POOLED)
+                .maxConnections(4)
+                .maxConnectionsPerRoute(4)
+                .keepAlive(Duration.ofSeconds(10))
+                .idleTimeout(Duration.ofSeconds(10))
+                .build()) {
+
+            for (int i = 0; i < 5; i++)
+                assertThat(engine.makeRequest(HttpMethod.GET, "/ping", new HttpHeaders(), String.class).get()).isEqualTo("pong");
+        }
+
+        assertThat(clientPorts).hasSize(1);
+    }
+
+    @Test
+    void testPooledTransport_closed() {
+
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).transport(HttpTransport.APACHE_POOLED).build();
+        engine.close();
+
+        Either<ErrorEntity, String> response = engine.makeRequest(HttpMethod.GET, "/ping", new HttpHeaders(), String.class);
+
+        assertThat(response.getLeft().getStatus()).isEqualTo(503);
+    }
+
+    @Test
+    void testJdkTransport_closed() {
+
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).transport(HttpTransport.JDK).compressRequests(1).build();
+        engine.close();
+
+        Either<ErrorEntity, String> response = engine.makeRequest(HttpMethod.GET, "/ping", new HttpHeaders(), String.class);
+        Either<ErrorEntity, String> withBody = engine.makeRequestWithBody(Endpoint.of(HttpMethod.POST, "/gzip"), null, "hello", String.class);
+
+        assertThat(response.getLeft().getStatus()).isEqualTo(503);
+        assertThat(response.getLeft().getError()).isEqualTo("API Unreachable");
+        assertThat(withBody.getLeft().getStatus()).isEqualTo(503);
+        assertThat(clientPorts).isEmpty();
+    }
+
+    @Test
+    void testBuildAsync_sharesPoolSettings() {
+
+        try (AsyncHttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).maxConnections(1).maxConnectionsPerRoute(1).buildAsync()) {
+            for (int i = 0; i < 3; i++)
+                assertThat(engine.makeRequest(HttpMethod.GET, "/ping", new HttpHeaders(), String.class).join().get()).isEqualTo("pong");
+        }
+
+        assertThat(clientPorts).hasSize(1);
+    }
+
+    @Test
+    void testEndpointRequest() {
+
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).build();
+
+        Either<ErrorEntity, String> withBody = engine.makeRequestWithBody(Endpoint.of(HttpMethod.POST, "/echo"), null, "hello", String.class);
+        Either<ErrorEntity, String> withVariable = engine.makeRequest(Endpoint.of(HttpMethod.GET, "/echo/{id}"), "42", String.class);
+
+        assertThat(withBody.get()).isEqualTo("POST /echo application/json hello");
+        assertThat(withVariable.get()).isEqualTo("GET /echo/42 application/json ");
+    }
+
+    @Test
+    void testEndpointRequestAsync() {
+
+        try (AsyncHttpServiceEngine engine = new AsyncHttpServiceEngine(baseUrl)) {
+
+            Either<ErrorEntity, String> withBody = engine.makeRequestWithBody(Endpoint.of(HttpMethod.PUT, "/echo"), null, "hello", String.class).join();
+            Either<ErrorEntity, String> withVariable = engine.makeRequest(Endpoint.of(HttpMethod.DELETE, "/echo/{id}"), "42", String.class).join();
+
+            assertThat(withBody.get()).isEqualTo("PUT /echo application/json hello");
+            assertThat(withVariable.get()).isEqualTo("DELETE /echo/42 null ");
+        }
+    }
+
+    @Test
+    void testRawPath_encodedAlikeByBothEngines() {
+
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).build();
+        try (AsyncHttpServiceEngine asyncEngine = HttpServiceEngine.builder(Arrays.asList(baseUrl, baseUrl)).buildAsync()) {
+
+            Either<ErrorEntity, String> blocking = engine.makeRequest(HttpMethod.GET, "/echo/a b", new HttpHeaders(), String.class);
+            Either<ErrorEntity, String> async = asyncEngine.makeRequest(HttpMethod.GET, "/echo/a b", new HttpHeaders(), String.class).join();
+
+            assertThat(blocking.get()).startsWith("GET /echo/a%20b ");
+            assertThat(async.get()).startsWith("GET /echo/a%20b ");
+        }
+    }
+
+    @Test
+    void testEntityCodecs_roundTripWithoutDataBinding() {
+
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).build();
+        MessageLogRegistrationEntity sent = new MessageLogRegistrationEntity("1", "2");
+
+        Either<ErrorEntity, MessageLogRegistrationEntity> result = engine.makeRequestWithBody(
+                Endpoint.of(HttpMethod.POST, "/entity"), null, sent, MessageLogRegistrationEntity.class);
+        Either<ErrorEntity, String> rejected = engine.makeRequest(Endpoint.of(HttpMethod.GET, "/rejected"), null, String.class);
+
+        assertThat(result.get().getGuildId()).isEqualTo("1");
+        assertThat(result.get().getChannelId()).isEqualTo("2");
+        assertThat(rejected.getLeft().getStatus()).isEqualTo(404);
+        assertThat(rejected.getLeft().getMessage()).isEqualTo("No registration");
+    }
+
+    @Test
+    void testEntityCodecs_async() {
+
+        try (AsyncHttpServiceEngine engine = new AsyncHttpServiceEngine(baseUrl)) {
+
+            MessageLogRegistrationEntity sent = new MessageLogRegistrationEntity("1", "2");
+
+            Either<ErrorEntity, MessageLogRegistrationEntity> result = engine.makeRequestWithBody(
+                    Endpoint.of(HttpMethod.POST, "/entity"), null, sent, MessageLogRegistrationEntity.class).join();
+            Either<ErrorEntity, String> rejected = engine.makeRequest(Endpoint.of(HttpMethod.GET, "/rejected"), null, String.class).join();
+
+            assertThat(result.get().getChannelId()).isEqualTo("2");
+            assertThat(rejected.getLeft().getPath()).isEqualTo("/rejected");
+        }
+    }
+
+    @Test
+    void testEntityCodecs_errorBodyDecodedOnFirstRead() {
+
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).build();
+
+        try (MockedStatic<EntityCodecs> codecs = Mockito.mockStatic(EntityCodecs.class, Mockito.CALLS_REAL_METHODS)) {
+            Either<ErrorEntity, String> rejected = engine.makeRequest(Endpoint.of(HttpMethod.GET, "/rejected"), null, String.class);
+
+            assertThat(rejected.getLeft().getStatus()).isEqualTo(404);
+            assertThat(rejected.getLeft().getPath()).isEqualTo("/rejected");
+            codecs.verify(() -> EntityCodecs.decode(any(), any()), never());
+
+            assertThat(rejected.getLeft().getMessage()).isEqualTo("No registration");
+            assertThat(rejected.getLeft().getError()).isEqualTo("Not Found");
+            codecs.verify(() -> EntityCodecs.decode(any(), any()), times(1));
+        }
+    }
+
+    @Test
+    void testErrorMapping_errorsBecomeLeft() {
+
+        EndpointMetrics metrics = new EndpointMetrics();
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).metrics(metrics).build();
+
+        Either<ErrorEntity, String> rejected = assertDoesNotThrow(() -> engine.makeRequest(Endpoint.of(HttpMethod.GET, "/rejected"), null, String.class));
+        Either<ErrorEntity, String> broken = assertDoesNotThrow(() -> engine.makeRequest(Endpoint.of(HttpMethod.GET, "/broken"), null, String.class));
+        Either<ErrorEntity, String> missing = assertDoesNotThrow(() -> engine.makeRequest(Endpoint.of(HttpMethod.GET, "/missing"), null, String.class));
+
+        assertErrorsMapped(rejected, broken, missing, metrics);
+    }
+
+    @Test
+    void testErrorMapping_async() {
+
+        EndpointMetrics metrics = new EndpointMetrics();
+
+        try (AsyncHttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).metrics(metrics).buildAsync()) {
+            Either<ErrorEntity, String> rejected = assertDoesNotThrow(() -> engine.makeRequest(Endpoint.of(HttpMethod.GET, "/rejected"), null, String.class).join());
+            Either<ErrorEntity, String> broken = assertDoesNotThrow(() -> engine.makeRequest(Endpoint.of(HttpMethod.GET, "/broken"), null, String.class).join());
+            Either<ErrorEntity, String> missing = assertDoesNotThrow(() -> engine.makeRequest(Endpoint.of(HttpMethod.GET, "/missing"), null, String.class).join());
+
+            assertErrorsMapped(rejected, broken, missing, metrics);
+        }
+    }
+
+    // a JSON error body is read as is, any other body becomes the message, and an empty one leaves it blank
+    private static void assertErrorsMapped(Either<ErrorEntity, String> rejected, Either<ErrorEntity, String> broken,
+                                           Either<ErrorEntity, String> missing, EndpointMetrics metrics) {
+
+        assertThat(rejected.isLeft()).isTrue();
+        assertThat(rejected.getLeft().getStatus()).isEqualTo(404);
+        assertThat(rejected.getLeft().getError()).isEqualTo("Not Found");
+        assertThat(rejected.getLeft().getMessage()).isEqualTo("No registration");
+        assertThat(rejected.getLeft().getTimeStamp()).isEqualTo("2026-01-01T00:00:00Z");
+
+        assertThat(broken.isLeft()).isTrue();
+        assertThat(broken.getLeft().getStatus()).isEqualTo(500);
+        assertThat(broken.getLeft().getMessage()).isEqualTo("database down");
+        assertThat(broken.getLeft().getPath()).isEqualTo("/broken");
+        assertThat(broken.getLeft().getTimeStamp()).isNotEmpty();
+
+        assertThat(missing.isLeft()).isTrue();
+        assertThat(missing.getLeft().getStatus()).isEqualTo(404);
+        assertThat(missing.getLeft().getMessage()).isEmpty();
+        assertThat(missing.getLeft().getPath()).isEqualTo("/missing");
+
+        assertThat(metrics.snapshot(HttpMethod.GET, "/rejected").get().getClientErrorCount()).isEqualTo(1);
+        assertThat(metrics.snapshot(HttpMethod.GET, "/broken").get().getServerErrorCount()).isEqualTo(1);
+        assertThat(metrics.snapshot(HttpMethod.GET, "/missing").get().getClientErrorCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testMetrics_recordsOutcomesPerEndpoint() {
+
+        EndpointMetrics metrics = new EndpointMetrics();
+        Endpoint ping = Endpoint.of(HttpMethod.GET, "/ping");
+        Endpoint missing = Endpoint.of(HttpMethod.GET, "/missing");
+
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).transport(HttpTransport.APACHE_POOLED).metrics(metrics).build();
+        engine.makeRequest(ping, null, String.class);
+        engine.makeRequest(ping, null, String.class);
+        assertThat(engine.makeRequest(missing, null, String.class).isLeft()).isTrue();
+
+        assertThat(metrics.gauges()).containsKeys("papertrail.http.blocking.pool.pending", "papertrail.http.blocking.pool.leased");
+
+        engine.close();
+        engine.makeRequest(ping, null, String.class);
+
+        EndpointSnapshot pingSnapshot = metrics.snapshot(HttpMethod.GET, "/ping").get();
+        assertThat(pingSnapshot.getSuccessCount()).isEqualTo(2);
+        assertThat(pingSnapshot.getUnreachableCount()).isEqualTo(1);
+        assertThat(pingSnapshot.getInFlightCount()).isZero();
+        assertThat(pingSnapshot.getMaxLatency()).isPositive();
+        assertThat(metrics.snapshot(HttpMethod.GET, "/missing").get().getClientErrorCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testMetrics_async() {
+
+        EndpointMetrics metrics = new EndpointMetrics();
+
+        try (AsyncHttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).metrics(metrics).buildAsync()) {
+            engine.makeRequest(Endpoint.of(HttpMethod.GET, "/echo/{id}"), "1", String.class).join();
+            engine.makeRequest(Endpoint.of(HttpMethod.GET, "/echo/{id}"), "2", String.class).join();
+            engine.makeRequest(HttpMethod.GET, "/missing", new HttpHeaders(), String.class).join();
+        }
+
+        assertThat(metrics.snapshot(HttpMethod.GET, "/echo/{id}").get().getSuccessCount()).isEqualTo(2);
+        assertThat(metrics.snapshot(HttpMethod.GET, "/missing").get().getClientErrorCount()).isEqualTo(1);
+        assertThat(metrics.gauges()).containsKey("papertrail.http.async.pool.pending");
+        assertThat(metrics.getInFlightCount()).isZero();
+    }
+
+    @Test
+    void testMetrics_asyncRecorderFailureFailsTheFuture() {
+
+        Endpoint echo = Endpoint.of(HttpMethod.GET, "/echo/{id}");
+        Bulkhead bulkhead = Bulkhead.builder("echo").maxConcurrentCalls(1).build();
+        MetricsRecorder broken = new MetricsRecorder() {
+            @Override
+            public void requestStarted(HttpMethod method, String endpoint) {
+                throw new IllegalStateException("recorder is broken");
+            }
+
+            @Override
+            public void requestCompleted(HttpMethod method, String endpoint, RequestOutcome outcome, long latencyNanos) {
+            }
+        };
+
+        try (AsyncHttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).metrics(broken).bulkhead(echo, bulkhead).buildAsync()) {
+            CompletableFuture<Either<ErrorEntity, String>> response = engine.makeRequest(echo, "1", String.class);
+
+            ExecutionException thrown = assertThrows(ExecutionException.class, () -> response.get(5, TimeUnit.SECONDS));
+            assertThat(thrown.getCause()).hasMessage("recorder is broken");
+        }
+
+        // the permit taken before the recorder failed was given back
+        assertThat(bulkhead.getActiveCount()).isZero();
+    }
+
+    @Test
+    void testBulkhead_permitReturnedWhenRecorderFails() {
+
+        Endpoint echo = Endpoint.of(HttpMethod.GET, "/echo/{id}");
+        Bulkhead bulkhead = Bulkhead.builder("echo").maxConcurrentCalls(1).build();
+        MetricsRecorder broken = new MetricsRecorder() {
+            @Override
+            public void requestStarted(HttpMethod method, String endpoint) {
+                throw new IllegalStateException("recorder is broken");
+            }
+
+            @Override
+            public void requestCompleted(HttpMethod method, String endpoint, RequestOutcome outcome, long latencyNanos) {
+            }
+        };
+
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).metrics(broken).bulkhead(echo, bulkhead).build();
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> engine.makeRequest(echo, "1", String.class));
+
+        assertThat(thrown).hasMessage("recorder is broken");
+        assertThat(bulkhead.getActiveCount()).isZero();
+    }
+
+    @Test
+    void testRetry_idempotentRequestSucceedsAfterServerErrors() {
+
+        flakyFailures.set(2);
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).retryPolicy(FAST_RETRIES).build();
+
+        Either<ErrorEntity, String> response = engine.makeRequest(Endpoint.of(HttpMethod.GET, "/flaky"), null, String.class);
+
+        assertThat(response.get()).isEqualTo("ok");
+        assertThat(flakyHits).hasValue(3);
+    }
+
+    @Test
+    void testRetry_nonIdempotentRequestNotRepeated() {
+
+        flakyFailures.set(1);
+        Endpoint post = Endpoint.of(HttpMethod.POST, "/flaky");
+
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).retryPolicy(FAST_RETRIES).build();
+        assertThat(engine.makeRequestWithBody(post, null, "hello", String.class).isLeft()).isTrue();
+        assertThat(flakyHits).hasValue(1);
+
+        flakyFailures.set(1);
+        HttpServiceEngine lenient = HttpServiceEngine.builder(baseUrl)
+                .retryPolicy(post, RetryPolicy.builder().initialBackoff(Duration.ofMillis(1)).retryNonIdempotent(true).build())
+                .build();
+        assertThat(lenient.makeRequestWithBody(post, null, "hello", String.class).get()).isEqualTo("ok");
+        assertThat(flakyHits).hasValue(3);
+    }
+
+    @Test
+    void testRetry_connectFailureRepeatsAnyRequest() throws IOException {
+
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+
+        EndpointMetrics metrics = new EndpointMetrics();
+        HttpServiceEngine engine = HttpServiceEngine.builder("http://127.0.0.1:" + closedPort)
+                .retryPolicy(FAST_RETRIES)
+                .metrics(metrics)
+                .build();
+
+        Either<ErrorEntity, String> response = engine.makeRequestWithBody(Endpoint.of(HttpMethod.POST, "/flaky"), null, "hello", String.class);
+
+        assertThat(response.getLeft().getStatus()).isEqualTo(503);
+        assertThat(metrics.snapshot(HttpMethod.POST, "/flaky").get().getUnreachableCount()).isEqualTo(3);
+    }
+
+    @Test
+    void testRetry_budgetCapsRetries() {
+
+        flakyFailures.set(100);
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl)
+                .retryPolicy(FAST_RETRIES)
+                .retryBudget(RetryBudget.of(0.0, 1))
+                .build();
+
+        engine.makeRequest(Endpoint.of(HttpMethod.GET, "/flaky"), null, String.class);
+        engine.makeRequest(Endpoint.of(HttpMethod.GET, "/flaky"), null, String.class);
+
+        // one retry from the reserve, then none
+        assertThat(flakyHits).hasValue(3);
+    }
+
+    @Test
+    void testRetry_async() {
+
+        flakyFailures.set(2);
+
+        try (AsyncHttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).retryPolicy(FAST_RETRIES).buildAsync()) {
+            Either<ErrorEntity, String> response = engine.makeRequest(Endpoint.of(HttpMethod.GET, "/flaky"), null, String.class).join();
+
+            assertThat(response.get()).isEqualTo("ok");
+            assertThat(flakyHits).hasValue(3);
+        }
+    }
+
+    @Test
+    void testCircuitBreaker_failsFastWhileOpen() {
+
+        flakyFailures.set(100);
+        CircuitBreaker breaker = CircuitBreaker.builder().slidingWindowSize(2).minimumCalls(2).build();
+        Endpoint flaky = Endpoint.of(HttpMethod.GET, "/flaky");
+
+        EndpointMetrics metrics = new EndpointMetrics();
+
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).circuitBreaker(breaker).metrics(metrics).build();
+        engine.makeRequest(flaky, null, String.class);
+        engine.makeRequest(flaky, null, String.class);
+
+        Either<ErrorEntity, String> response = engine.makeRequest(flaky, null, String.class);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(response.getLeft().getStatus()).isEqualTo(503);
+        assertThat(response.getLeft().getError()).isEqualTo("Circuit Open");
+        assertThat(flakyHits).hasValue(2);
+
+        EndpointSnapshot snapshot = metrics.snapshot(HttpMethod.GET, "/flaky").get();
+        assertThat(snapshot.getCircuitOpenCount()).isEqualTo(1);
+        assertThat(snapshot.getUnreachableCount()).isZero();
+    }
+
+    @Test
+    void testCircuitBreaker_sharedWithAsync() {
+
+        flakyFailures.set(100);
+        CircuitBreaker breaker = CircuitBreaker.builder().slidingWindowSize(2).minimumCalls(2).build();
+        Endpoint flaky = Endpoint.of(HttpMethod.GET, "/flaky");
+
+        EndpointMetrics metrics = new EndpointMetrics();
+
+        try (AsyncHttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).circuitBreaker(breaker).metrics(metrics).buildAsync()) {
+            engine.makeRequest(flaky, null, String.class).join();
+            engine.makeRequest(flaky, null, String.class).join();
+
+            Either<ErrorEntity, String> response = engine.makeRequest(flaky, null, String.class).join();
+
+            assertThat(response.getLeft().getError()).isEqualTo("Circuit Open");
+            assertThat(flakyHits).hasValue(2);
+        }
+
+        EndpointSnapshot snapshot = metrics.snapshot(HttpMethod.GET, "/flaky").get();
+        assertThat(snapshot.getCircuitOpenCount()).isEqualTo(1);
+        assertThat(snapshot.getUnreachableCount()).isZero();
+    }
+
+    @Test
+    void testCircuitBreaker_asyncTrialPermitReturnedWhenAttemptFailsToStart() throws InterruptedException {
+
+        flakyFailures.set(1);
+        CircuitBreaker breaker = CircuitBreaker.builder().slidingWindowSize(1).minimumCalls(1)
+                .openDuration(Duration.ofMillis(50)).trialCalls(1).build();
+        Endpoint flaky = Endpoint.of(HttpMethod.GET, "/flaky");
+
+        // fails while the async engine creates its connection pool, after the attempt took its trial permit
+        MetricsRecorder broken = new MetricsRecorder() {
+            @Override
+            public void requestStarted(HttpMethod method, String endpoint) {
+            }
+
+            @Override
+            public void requestCompleted(HttpMethod method, String endpoint, RequestOutcome outcome, long latencyNanos) {
+            }
+
+            @Override
+            public void registerGauge(String name, LongSupplier value) {
+                throw new UnsupportedOperationException("recorder is broken");
+            }
+        };
+
+        HttpServiceEngine.Builder builder = HttpServiceEngine.builder(baseUrl).circuitBreaker(breaker).metrics(broken);
+        HttpServiceEngine engine = builder.build();
+        try (AsyncHttpServiceEngine asyncEngine = builder.buildAsync()) {
+
+            assertThat(engine.makeRequest(flaky, null, String.class).getLeft().getStatus()).isEqualTo(503);
+            assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+            Thread.sleep(60);
+            CompletableFuture<Either<ErrorEntity, String>> failed = asyncEngine.makeRequest(flaky, null, String.class);
+            ExecutionException thrown = assertThrows(ExecutionException.class, failed::get);
+            assertThat(thrown.getCause()).hasMessage("recorder is broken");
+
+            // the failed trial reopened the breaker instead of keeping its permit, so the next period probes again
+            Thread.sleep(60);
+            assertThat(engine.makeRequest(flaky, null, String.class).get()).isEqualTo("ok");
+            assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        }
+    }
+
+    @Test
+    void testRateLimiter_refusesRequestsBeyondLimit() {
+
+        Endpoint flaky = Endpoint.of(HttpMethod.GET, "/flaky");
+        RateLimiter limiter = RateLimiter.builder().limit(flaky, 1, 1).maxWait(Duration.ZERO).build();
+        HttpServiceEngine.Builder builder = HttpServiceEngine.builder(baseUrl).rateLimiter(limiter);
+
+        assertThat(builder.build().makeRequest(flaky, null, String.class).get()).isEqualTo("ok");
+
+        Either<ErrorEntity, String> limited = builder.build().makeRequest(flaky, null, String.class);
+        try (AsyncHttpServiceEngine engine = builder.buildAsync()) {
+            Either<ErrorEntity, String> limitedAsync = engine.makeRequest(flaky, null, String.class).join();
+            assertThat(limitedAsync.getLeft().getStatus()).isEqualTo(429);
+        }
+
+        assertThat(limited.getLeft().getStatus()).isEqualTo(429);
+        assertThat(limited.getLeft().getError()).isEqualTo("Rate Limited");
+        assertThat(flakyHits).hasValue(1);
+    }
+
+    @Test
+    void testThrottling_waitsForRetryAfter() {
+
+        throttledResponses.set(1);
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).build();
+
+        long start = System.nanoTime();
+        Either<ErrorEntity, String> response = engine.makeRequest(Endpoint.of(HttpMethod.POST, "/throttled"), null, String.class);
+
+        // sent again even though POST is not idempotent, since the API refused it without processing it
+        assertThat(response.get()).isEqualTo("ok");
+        assertThat(throttledHits).hasValue(2);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(900));
+    }
+
+    @Test
+    void testThrottling_async() {
+
+        throttledResponses.set(1);
+
+        try (AsyncHttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).buildAsync()) {
+            long start = System.nanoTime();
+            Either<ErrorEntity, String> response = engine.makeRequest(Endpoint.of(HttpMethod.GET, "/throttled"), null, String.class).join();
+
+            assertThat(response.get()).isEqualTo("ok");
+            assertThat(throttledHits).hasValue(2);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(900));
+        }
+    }
+
+    @Test
+    void testThrottling_immediateRetryAfterEndsInError() {
+
+        throttledResponses.set(1000);
+        throttledRetryAfter = "0";
+        Endpoint throttled = Endpoint.of(HttpMethod.POST, "/throttled");
+
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).maxThrottleWait(Duration.ofMillis(500)).build();
+        Either<ErrorEntity, String> response = engine.makeRequest(throttled, null, String.class);
+
+        assertThat(response.getLeft().getStatus()).isEqualTo(429);
+        // held back at least 100 ms between resends, until the 500 ms were used up
+        assertThat(throttledHits.get()).isBetween(2, 7);
+    }
+
+    @Test
+    void testThrottling_pastRetryAfterDateEndsInError_async() {
+
+        throttledResponses.set(1000);
+        throttledRetryAfter = "Thu, 01 Jan 1970 00:00:00 GMT";
+        Endpoint throttled = Endpoint.of(HttpMethod.GET, "/throttled");
+
+        try (AsyncHttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).maxThrottleWait(Duration.ofMillis(500)).buildAsync()) {
+            Either<ErrorEntity, String> response = engine.makeRequest(throttled, null, String.class).join();
+
+            assertThat(response.getLeft().getStatus()).isEqualTo(429);
+        }
+
+        assertThat(throttledHits.get()).isBetween(2, 7);
+    }
+
+    @Test
+    void testThrottling_sharedAndFailsFastBeyondMaxWait() {
+
+        throttledResponses.set(100);
+        Endpoint throttled = Endpoint.of(HttpMethod.GET, "/throttled");
+        HttpServiceEngine.Builder builder = HttpServiceEngine.builder(baseUrl).maxThrottleWait(Duration.ZERO);
+
+        Either<ErrorEntity, String> response = builder.build().makeRequest(throttled, null, String.class);
+        try (AsyncHttpServiceEngine engine = builder.buildAsync()) {
+            Either<ErrorEntity, String> held = engine.makeRequest(throttled, null, String.class).join();
+            assertThat(held.getLeft().getError()).isEqualTo("Too Many Requests");
+        }
+
+        // the second engine learned about the window from the first and did not send at all
+        assertThat(response.isLeft()).isTrue();
+        assertThat(throttledHits).hasValue(1);
+    }
+
+    @Test
+    void testCoalescing_concurrentGetsShareOneRequest() {
+
+        Endpoint slow = Endpoint.of(HttpMethod.GET, "/slow");
+
+        try (AsyncHttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).coalesceGets(true).buildAsync()) {
+            List<CompletableFuture<Either<ErrorEntity, String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 5; i++)
+                responses.add(engine.makeRequest(slow, null, String.class));
+
+            slowRelease.countDown();
+
+            for (CompletableFuture<Either<ErrorEntity, String>> response : responses)
+                assertThat(response.join().get()).isEqualTo("slow");
+        }
+
+        assertThat(slowHits).hasValue(1);
+    }
+
+    @Test
+    void testCoalescing_offByDefault() {
+
+        Endpoint slow = Endpoint.of(HttpMethod.GET, "/slow");
+        slowRelease.countDown();
+
+        try (AsyncHttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).buildAsync()) {
+            List<CompletableFuture<Either<ErrorEntity, String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 3; i++)
+                responses.add(engine.makeRequest(slow, null, String.class));
+
+            responses.forEach(CompletableFuture::join);
+        }
+
+        assertThat(slowHits).hasValue(3);
+    }
+
+    @Test
+    void testCoalescing_gaugesRegisteredOncePerBuilder() {
+
+        List<String> registered = new ArrayList<>();
+        EndpointMetrics metrics = new EndpointMetrics();
+        MetricsRecorder recorder = new MetricsRecorder() {
+            @Override
+            public void requestStarted(HttpMethod method, String endpoint) {
+                metrics.requestStarted(method, endpoint);
+            }
+
+            @Override
+            public void requestCompleted(HttpMethod method, String endpoint, RequestOutcome outcome, long latencyNanos) {
+                metrics.requestCompleted(method, endpoint, outcome, latencyNanos);
+            }
+
+            @Override
+            public void registerGauge(String name, LongSupplier value) {
+                registered.add(name);
+                metrics.registerGauge(name, value);
+            }
+        };
+
+        HttpServiceEngine.Builder builder = HttpServiceEngine.builder(baseUrl)
+                .coalesceGets(true)
+                .hedging(Endpoint.of(HttpMethod.GET, "/slow"), HedgingPolicy.builder().build())
+                .metrics(recorder);
+        HttpServiceEngine first = builder.build();
+        HttpServiceEngine second = builder.build();
+        AsyncHttpServiceEngine async = builder.buildAsync();
+        first.close();
+        second.close();
+        async.close();
+
+        assertThat(registered).containsExactlyInAnyOrder(
+                "papertrail.http.blocking.coalesced",
+                "papertrail.http.blocking.hedged",
+                "papertrail.http.async.coalesced",
+                "papertrail.http.async.hedged");
+    }
+
+    @Test
+    void testDeadline_expiredRequestNotSent() {
+
+        Endpoint flaky = Endpoint.of(HttpMethod.GET, "/flaky");
+        Deadline expired = Deadline.after(Duration.ZERO);
+
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).build();
+        Either<ErrorEntity, String> response = engine.makeRequest(flaky, null, String.class, expired);
+
+        try (AsyncHttpServiceEngine asyncEngine = HttpServiceEngine.builder(baseUrl).buildAsync()) {
+            Either<ErrorEntity, String> asyncResponse = asyncEngine.makeRequestWithBody(flaky, null, "hello", String.class, expired).join();
+
+            assertThat(asyncResponse.getLeft().getStatus()).isEqualTo(504);
+        }
+
+        assertThat(response.getLeft().getStatus()).isEqualTo(504);
+        assertThat(response.getLeft().getError()).isEqualTo("Deadline Exceeded");
+        assertThat(flakyHits).hasValue(0);
+    }
+
+    @Test
+    void testTimeouts_totalTimeoutSkipsBackoffPastIt() {
+
+        flakyFailures.set(100);
+        Endpoint flaky = Endpoint.of(HttpMethod.GET, "/flaky");
+        RetryPolicy slowRetries = RetryPolicy.builder()
+                .maxAttempts(3)
+                .initialBackoff(Duration.ofSeconds(2))
+                .maxBackoff(Duration.ofSeconds(2))
+                .jitter(0.0)
+                .build();
+
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl)
+                .retryPolicy(slowRetries)
+                .timeouts(flaky, Timeouts.builder().totalTimeout(Duration.ofMillis(500)).build())
+                .build();
+
+        long start = System.nanoTime();
+        Either<ErrorEntity, String> response = engine.makeRequest(flaky, null, String.class);
+
+        assertThat(response.getLeft().getStatus()).isEqualTo(503);
+        assertThat(flakyHits).hasValue(1);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    @Test
+    void testTimeouts_readTimeoutPerEndpoint() {
+
+        Endpoint slow = Endpoint.of(HttpMethod.GET, "/slow");
+        Endpoint ping = Endpoint.of(HttpMethod.GET, "/ping");
+
+        try (HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl)
+                .transport(HttpTransport.APACHE_POOLED)
+                .timeouts(slow, Timeouts.builder().readTimeout(Duration.ofMillis(200)).build())
+                .build()) {
+
+            Either<ErrorEntity, String> timedOut;
+            try {
+                timedOut = engine.makeRequest(slow, null, String.class);
+            } finally {
+                slowRelease.countDown();
+            }
+
+            assertThat(timedOut.isLeft()).isTrue();
+            assertThat(engine.makeRequest(ping, null, String.class).get()).isEqualTo("pong");
+        }
+    }
+
+    @Test
+    void testCompression_gzipsLargeBodies() {
+
+        String large = repeat("message content ", 64);
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).compressRequests(256).build();
+
+        Either<ErrorEntity, String> compressed = engine.makeRequestWithBody(Endpoint.of(HttpMethod.POST, "/gzip"), null, large, String.class);
+        Either<ErrorEntity, String> small = engine.makeRequestWithBody(Endpoint.of(HttpMethod.POST, "/gzip"), null, "hello", String.class);
+        Either<ErrorEntity, String> retrieved = engine.makeRequest(Endpoint.of(HttpMethod.GET, "/gzip"), null, String.class);
+
+        assertThat(compressed.get()).isEqualTo("gzip " + large);
+        assertThat(small.get()).isEqualTo("null hello");
+        // only readable because the client inflated the gzipped response
+        assertThat(retrieved.get()).isEqualTo("null ");
+        engine.close();
+    }
+
+    @Test
+    void testCompression_async() {
+
+        String large = repeat("message content ", 64);
+        try (AsyncHttpServiceEngine engine = HttpServiceEngine.builder(baseUrl).compressRequests(256).buildAsync()) {
+
+            Either<ErrorEntity, String> compressed = engine.makeRequestWithBody(Endpoint.of(HttpMethod.PUT, "/gzip"), null, large, String.class).join();
+            Either<ErrorEntity, String> small = engine.makeRequestWithBody(Endpoint.of(HttpMethod.PUT, "/gzip"), null, "hello", String.class).join();
+            Either<ErrorEntity, String> retrieved = engine.makeRequest(Endpoint.of(HttpMethod.GET, "/gzip"), null, String.class).join();
+
+            assertThat(compressed.get()).isEqualTo("gzip " + large);
+            assertThat(small.get()).isEqualTo("null hello");
+            assertThat(retrieved.get()).isEqualTo("null ");
+        }
+    }
+
+    @Test
+    void testCompression_offByDefault() {
+
+        String large = repeat("message content ", 64);
+        HttpServiceEngine engine = new HttpServiceEngine(baseUrl);
+
+        Either<ErrorEntity, String> sent = engine.makeRequestWithBody(Endpoint.of(HttpMethod.POST, "/gzip"), null, large, String.class);
+
+        assertThat(sent.get()).isEqualTo("null " + large);
+    }
+
+    @Test
+    void testLoadBalancing_failsOverAndEjectsDeadUpstream() throws IOException {
+
+        String deadUrl;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            deadUrl = "http://127.0.0.1:" + socket.getLocalPort();
+        }
+
+        EndpointMetrics metrics = new EndpointMetrics();
+        HttpServiceEngine engine = HttpServiceEngine.builder(Arrays.asList(deadUrl, baseUrl))
+                .retryPolicy(FAST_RETRIES)
+                .outlierEjection(1, Duration.ofMinutes(1))
+                .metrics(metrics)
+                .build();
+
+        for (int i = 0; i < 4; i++)
+            assertThat(engine.makeRequest(Endpoint.of(HttpMethod.GET, "/ping"), null, String.class).get()).isEqualTo("pong");
+
+        // the dead upstream was tried once, then ejected
+        assertThat(metrics.snapshot(HttpMethod.GET, "/ping").get().getUnreachableCount()).isEqualTo(1);
+        assertThat(metrics.snapshot(HttpMethod.GET, "/ping").get().getSuccessCount()).isEqualTo(4);
+    }
+
+    @Test
+    void testLoadBalancing_async() throws IOException {
+
+        String deadUrl;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            deadUrl = "http://127.0.0.1:" + socket.getLocalPort();
+        }
+
+        try (AsyncHttpServiceEngine engine = HttpServiceEngine.builder(Arrays.asList(deadUrl, baseUrl))
+                .loadBalancing(LoadBalancing.LEAST_OUTSTANDING)
+                .retryPolicy(FAST_RETRIES)
+                .buildAsync()) {
+
+            for (int i = 0; i < 4; i++) {
+                Either<ErrorEntity, String> response = engine.makeRequestWithBody(HttpMethod.POST, "/echo", new HttpHeaders(), "hello", String.class).join();
+                assertThat(response.get()).isEqualTo("POST /echo application/json hello");
+            }
+        }
+    }
+
+    @Test
+    void testHedging_secondAttemptAnswersFirst() throws IOException {
+
+        Endpoint slow = Endpoint.of(HttpMethod.GET, "/slow");
+        HttpServer replica = fastReplica();
+        EndpointMetrics metrics = new EndpointMetrics();
+
+        // round robin sends the first attempt to the stalled server and the hedge to the replica
+        HttpServiceEngine engine = HttpServiceEngine.builder(Arrays.asList(baseUrl, replicaUrl(replica)))
+                .hedging(slow, HedgingPolicy.builder().maxDelay(Duration.ofMillis(50)).build())
+                .hedgeBudget(RetryBudget.unlimited())
+                .metrics(metrics)
+                .build();
+
+        try {
+            long start = System.nanoTime();
+            Either<ErrorEntity, String> response = engine.makeRequest(slow, null, String.class);
+
+            assertThat(response.get()).isEqualTo("fast");
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+            assertThat(metrics.gauges()).containsEntry("papertrail.http.blocking.hedged", 1L);
+        } finally {
+            slowRelease.countDown();
+            engine.close();
+            replica.stop(0);
+        }
+
+        assertThat(slowHits).hasValue(1);
+    }
+
+    @Test
+    void testHedging_async() throws Exception {
+
+        Endpoint slow = Endpoint.of(HttpMethod.GET, "/slow");
+        HttpServer replica = fastReplica();
+        EndpointMetrics metrics = new EndpointMetrics();
+
+        try (AsyncHttpServiceEngine engine = HttpServiceEngine.builder(Arrays.asList(baseUrl, replicaUrl(replica)))
+                .hedging(slow, HedgingPolicy.builder().maxDelay(Duration.ofMillis(50)).build())
+                .hedgeBudget(RetryBudget.unlimited())
+                .metrics(metrics)
+                .buildAsync()) {
+
+            Either<ErrorEntity, String> response;
+            try {
+                response = engine.makeRequest(slow, null, String.class).get(2, TimeUnit.SECONDS);
+            } finally {
+                slowRelease.countDown();
+            }
+
+            assertThat(response.get()).isEqualTo("fast");
+            assertThat(metrics.gauges()).containsEntry("papertrail.http.async.hedged", 1L);
+        } finally {
+            replica.stop(0);
+        }
+    }
+
+    @Test
+    void testHedging_budgetCapsHedges() {
+
+        Endpoint slow = Endpoint.of(HttpMethod.GET, "/slow");
+        EndpointMetrics metrics = new EndpointMetrics();
+        slowRelease.countDown();
+
+        // every request is slow enough to hedge, but the budget starts with a single hedge and earns nothing back
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl)
+                .hedging(slow, HedgingPolicy.builder().minDelay(Duration.ofNanos(1)).maxDelay(Duration.ofNanos(1)).build())
+                .hedgeBudget(RetryBudget.of(0.0, 1))
+                .metrics(metrics)
+                .build();
+
+        try {
+            for (int i = 0; i < 3; i++)
+                assertThat(engine.makeRequest(slow, null, String.class).get()).isEqualTo("slow");
+        } finally {
+            engine.close();
+        }
+
+        assertThat(metrics.gauges()).containsEntry("papertrail.http.blocking.hedged", 1L);
+    }
+
+    @Test
+    void testBulkhead_fullBulkheadRefusesWithoutSending() {
+
+        Endpoint slow = Endpoint.of(HttpMethod.GET, "/slow");
+        Bulkhead content = Bulkhead.builder("content").maxConcurrentCalls(1).maxQueuedCalls(0).build();
+        EndpointMetrics metrics = new EndpointMetrics();
+
+        try (AsyncHttpServiceEngine engine = HttpServiceEngine.builder(baseUrl)
+                .bulkhead(slow, content)
+                .metrics(metrics)
+                .buildAsync()) {
+
+            CompletableFuture<Either<ErrorEntity, String>> first;
+            Either<ErrorEntity, String> refused;
+            try {
+                first = engine.makeRequest(slow, null, String.class);
+                refused = engine.makeRequest(slow, null, String.class).join();
+            } finally {
+                slowRelease.countDown();
+            }
+
+            assertThat(refused.getLeft().getStatus()).isEqualTo(503);
+            assertThat(refused.getLeft().getError()).isEqualTo("Bulkhead Full");
+            assertThat(first.join().get()).isEqualTo("slow");
+            assertThat(content.getActiveCount()).isZero();
+            assertThat(metrics.gauges()).containsEntry("papertrail.http.bulkhead.content.rejected", 1L)
+                    .containsKey("papertrail.http.async.pool.content.leased");
+        }
+
+        assertThat(slowHits).hasValue(1);
+    }
+
+    @Test
+    void testBulkhead_refusalGivesRateLimitTokenBack() throws InterruptedException {
+
+        Endpoint slow = Endpoint.of(HttpMethod.GET, "/slow");
+        Bulkhead content = Bulkhead.builder("content").maxConcurrentCalls(1).maxQueuedCalls(0).build();
+
+        // two tokens, and the next one a hundred seconds away
+        HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl)
+                .bulkhead(slow, content)
+                .rateLimiter(RateLimiter.builder().limit(slow, 0.01, 2).maxWait(Duration.ZERO).build())
+                .build();
+
+        try {
+            CompletableFuture<Either<ErrorEntity, String>> first = CompletableFuture.supplyAsync(() -> engine.makeRequest(slow, null, String.class));
+            Either<ErrorEntity, String> refused;
+            try {
+                while (slowHits.get() == 0)
+                    Thread.sleep(1);
+                refused = engine.makeRequest(slow, null, String.class);
+            } finally {
+                slowRelease.countDown();
+            }
+
+            assertThat(refused.getLeft().getError()).isEqualTo("Bulkhead Full");
+            assertThat(first.join().get()).isEqualTo("slow");
+            assertThat(engine.makeRequest(slow, null, String.class).get()).isEqualTo("slow");
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    void testBulkhead_ownPoolPerBulkhead() {
+
+        Endpoint ping = Endpoint.of(HttpMethod.GET, "/ping");
+        Bulkhead lookups = Bulkhead.builder("lookups").maxConcurrentCalls(2).build();
+        EndpointMetrics metrics = new EndpointMetrics();
+
+        try (HttpServiceEngine engine = HttpServiceEngine.builder(baseUrl)
+                .transport(HttpTransport.APACHE_POOLED)
+                .bulkhead(ping, lookups)
+                .metrics(metrics)
+                .build()) {
+
+            for (int i = 0; i < 3; i++)
+                assertThat(engine.makeRequest(ping, null, String.class).get()).isEqualTo("pong");
+            assertThat(engine.makeRequestWithBody(HttpMethod.POST, "/echo", new HttpHeaders(), "hello", String.class).isRight()).isTrue();
+
+            assertThat(lookups.getActiveCount()).isZero();
+            assertThat(metrics.gauges())
+                    .containsKey("papertrail.http.blocking.pool.leased")
+                    .containsKey("papertrail.http.blocking.pool.lookups.leased")
+                    .containsEntry("papertrail.http.bulkhead.lookups.rejected", 0L);
+        }
+    }
+
+    @Test
+    void testBulkhead_gaugesRegisteredOnce() {
+
+        List<String> registered = new ArrayList<>();
+        MetricsRecorder recorder = new MetricsRecorder() {
+            @Override
+            public void requestStarted(HttpMethod method, String endpoint) {
+            }
+
+            @Override
+            public void requestCompleted(HttpMethod method, String endpoint, RequestOutcome outcome, long latencyNanos) {
+            }
+
+            @Override
+            public void registerGauge(String name, LongSupplier value) {
+                if (name.startsWith("papertrail.http.bulkhead."))
+                    registered.add(name);
+            }
+        };
+
+        Bulkhead lookups = Bulkhead.builder("lookups").build();
+        HttpServiceEngine.Builder builder = HttpServiceEngine.builder(baseUrl)
+                .bulkhead(Endpoint.of(HttpMethod.GET, "/ping"), lookups)
+                .bulkhead(Endpoint.of(HttpMethod.GET, "/echo/{id}"), lookups)
+                .metrics(recorder);
+        builder.build().close();
+        builder.buildAsync().close();
+        builder.build().close();
+
+        assertThat(registered).containsExactlyInAnyOrder(
+                "papertrail.http.bulkhead.lookups.active",
+                "papertrail.http.bulkhead.lookups.queued",
+                "papertrail.http.bulkhead.lookups.rejected");
+    }
+
+    @Test
+    void testBuilder_invalidArguments() {
+        assertThrows(ApiBaseUrlException.class, () -> HttpServiceEngine.builder(" "));
+        assertThrows(IllegalArgumentException.class, () -> HttpServiceEngine.builder(baseUrl).maxConnections(0));
+        assertThrows(IllegalArgumentException.class, () -> HttpServiceEngine.builder(baseUrl).maxConnectionsPerRoute(-1));
+        assertThrows(IllegalArgumentException.class, () -> HttpServiceEngine.builder(baseUrl).keepAlive(Duration.ZERO));
+        assertThrows(NullPointerException.class, () -> HttpServiceEngine.builder(baseUrl).transport(null));
+        assertThrows(NullPointerException.class, () -> HttpServiceEngine.builder(baseUrl).metrics(null));
+        assertThrows(NullPointerException.class, () -> HttpServiceEngine.builder(baseUrl).retryPolicy(null));
+        assertThrows(NullPointerException.class, () -> HttpServiceEngine.builder(baseUrl).retryBudget(null));
+        assertThrows(NullPointerException.class, () -> HttpServiceEngine.builder(baseUrl).circuitBreaker(null));
+        assertThrows(NullPointerException.class, () -> HttpServiceEngine.builder(baseUrl).rateLimiter(null));
+        assertThrows(NullPointerException.class, () -> HttpServiceEngine.builder(baseUrl).maxThrottleWait(null));
+        assertThrows(IllegalArgumentException.class, () -> HttpServiceEngine.builder(baseUrl).maxThrottleWait(Duration.ofSeconds(-1)));
+        assertThrows(IllegalArgumentException.class, () -> HttpServiceEngine.builder(baseUrl).compressRequests(0));
+        assertThrows(ApiBaseUrlException.class, () -> HttpServiceEngine.builder(new ArrayList<>()));
+        assertThrows(ApiBaseUrlException.class, () -> HttpServiceEngine.builder(Arrays.asList(baseUrl, null)));
+        assertThrows(NullPointerException.class, () -> HttpServiceEngine.builder(baseUrl).loadBalancing(null));
+        assertThrows(IllegalArgumentException.class, () -> HttpServiceEngine.builder(baseUrl).outlierEjection(0, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> HttpServiceEngine.builder(baseUrl).connectTimeout(Duration.ZERO));
+        assertThrows(NullPointerException.class, () -> HttpServiceEngine.builder(baseUrl).timeouts(null));
+        assertThrows(IllegalArgumentException.class, () -> Timeouts.builder().readTimeout(Duration.ofMillis(-1)));
+        assertThrows(IllegalArgumentException.class, () -> Timeouts.builder().totalTimeout(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> HttpServiceEngine.builder(baseUrl).hedging(Endpoint.of(HttpMethod.POST, "/echo"), HedgingPolicy.builder().build()));
+        assertThrows(NullPointerException.class, () -> HttpServiceEngine.builder(baseUrl).hedging(Endpoint.of(HttpMethod.GET, "/ping"), null));
+        assertThrows(NullPointerException.class, () -> HttpServiceEngine.builder(baseUrl).hedgeBudget(null));
+        assertThrows(IllegalArgumentException.class, () -> HedgingPolicy.builder().percentile(100.0));
+        assertThrows(IllegalArgumentException.class, () -> HedgingPolicy.builder().minDelay(Duration.ofSeconds(2)).maxDelay(Duration.ofSeconds(1)).build());
+        assertThrows(NullPointerException.class, () -> HttpServiceEngine.builder(baseUrl).bulkhead(null, Bulkhead.builder("lookups").build()));
+        assertThrows(NullPointerException.class, () -> HttpServiceEngine.builder(baseUrl).bulkhead(Endpoint.of(HttpMethod.GET, "/ping"), null));
+        assertThrows(IllegalArgumentException.class, () -> HttpServiceEngine.builder(baseUrl)
+                .bulkhead(Endpoint.of(HttpMethod.GET, "/ping"), Bulkhead.builder("lookups").build())
+                .bulkhead(Endpoint.of(HttpMethod.GET, "/echo"), Bulkhead.builder("lookups").build()));
+    }
+
+    // a second server answering /slow right away, standing in for a healthy replica
+    private static HttpServer fastReplica() throws IOException {
+        HttpServer replica = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        replica.createContext("/slow", exchange -> {
+            byte[] body = "fast".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        replica.start();
+        return replica;
+    }
+
+    private static String replicaUrl(HttpServer replica) {
+        return "http://127.0.0.1:" + replica.getAddress().getPort() + "/";
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder repeated = new StringBuilder();
+        for (int i = 0; i < times; i++)
+            repeated.append(text);
+        return repeated.toString();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        for (int read; (read = in.read(buffer)) != -1; )
+            out.write(buffer, 0, read);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCompressionTest {
+
+    @Test
+    void testCompress_producesValidGzip() throws IOException {
+
+        RequestCompression compression = new RequestCompression(1);
+        byte[] text = new byte[4096];
+        for (int i = 0; i < text.length; i++)
+            text[i] = (byte) ('a' + i % 7);
+
+        byte[] compressed = compression.compress(text);
+
+        assertThat(compressed.length).isLessThan(text.length / 10);
+        assertThat(gunzip(compressed)).isEqualTo(text);
+        assertThat(gunzip(compression.compress(new byte[0]))).isEmpty();
+        compression.close();
+    }
+
+    @Test
+    void testCompress_reusesPooledDeflaterAcrossSizes() throws IOException {
+
+        RequestCompression compression = new RequestCompression(1);
+        Random random = new Random(42);
+
+        // random bytes do not shrink, so the large one grows the pooled buffer past its initial size
+        byte[] large = new byte[512 * 1024];
+        random.nextBytes(large);
+        byte[] small = "hello".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(gunzip(compression.compress(large))).isEqualTo(large);
+        assertThat(gunzip(compression.compress(small))).isEqualTo(small);
+        assertThat(gunzip(compression.compress(large))).isEqualTo(large);
+        compression.close();
+    }
+
+    @Test
+    void testAppliesTo_threshold() {
+
+        RequestCompression compression = new RequestCompression(1024);
+
+        assertThat(compression.appliesTo(1023)).isFalse();
+        assertThat(compression.appliesTo(1024)).isTrue();
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int read; (read = in.read(buffer)) != -1; )
+                out.write(buffer, 0, read);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServerRateLimitsTest {
+
+    private static final String ENDPOINT = "/api/v1/content/message";
+
+    private final AtomicLong now = new AtomicLong();
+    private final ServerRateLimits limits = new ServerRateLimits(Duration.ofSeconds(10), now::get,
+            Clock.fixed(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC));
+
+    @Test
+    void testClose_delaySeconds() {
+
+        assertThat(limits.close(ENDPOINT, "3")).isEqualTo(TimeUnit.SECONDS.toNanos(3));
+        assertThat(limits.delayNanos(ENDPOINT)).isEqualTo(TimeUnit.SECONDS.toNanos(3));
+        assertThat(limits.delayNanos("/api/v1/log/message")).isZero();
+    }
+
+    @Test
+    void testClose_httpDate() {
+        assertThat(limits.close(ENDPOINT, "Thu, 01 Jan 2026 00:00:05 GMT")).isEqualTo(TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void testClose_missingOrUnreadableHeader() {
+        assertThat(limits.close(ENDPOINT, null)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+        assertThat(limits.close("/other", "soon")).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void testClose_zeroOrPastDelayHeldBackBriefly() {
+
+        assertThat(limits.close(ENDPOINT, "0")).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(limits.close("/other", "Wed, 31 Dec 2025 23:59:00 GMT")).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(limits.delayNanos(ENDPOINT)).isPositive();
+    }
+
+    @Test
+    void testClose_keepsLaterWindow() {
+
+        limits.close(ENDPOINT, "5");
+
+        assertThat(limits.close(ENDPOINT, "2")).isEqualTo(TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void testDelay_reopensAfterWindow() {
+
+        limits.close(ENDPOINT, "2");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(limits.delayNanos(ENDPOINT)).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(limits.delayNanos(ENDPOINT)).isZero();
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void testJoin_concurrentCallersShareOneCall() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> singleFlight.join("/guild/1", String.class, () -> {
+                    calls.incrementAndGet();
+                    await(release);
+                    return "guild";
+                })));
+            }
+
+            while (singleFlight.coalescedCount() < 3)
+                Thread.sleep(1);
+            release.countDown();
+
+            for (Future<String> result : results)
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("guild");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void testJoin_nothingKeptAfterCompletion() {
+
+        singleFlight.join("/guild/1", String.class, calls::incrementAndGet);
+        singleFlight.join("/guild/1", String.class, calls::incrementAndGet);
+
+        assertThat(calls).hasValue(2);
+        assertThat(singleFlight.coalescedCount()).isZero();
+    }
+
+    @Test
+    void testJoin_failureReleasesEntry() {
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.join("/guild/1", String.class, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertThat(singleFlight.join("/guild/1", String.class, () -> "guild")).isEqualTo("guild");
+    }
+
+    @Test
+    void testJoinAsync_keyedByPathAndType() {
+
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.joinAsync("/guild/1", String.class, () -> pending);
+        CompletableFuture<String> second = singleFlight.joinAsync("/guild/1", String.class, () -> CompletableFuture.completedFuture("other"));
+        CompletableFuture<String> otherPath = singleFlight.joinAsync("/guild/2", String.class, () -> CompletableFuture.completedFuture("other"));
+        CompletableFuture<Object> otherType = singleFlight.joinAsync("/guild/1", Object.class, () -> CompletableFuture.completedFuture("other"));
+
+        // cancelling one caller's future leaves the shared call alone
+        second.cancel(false);
+        pending.complete("guild");
+
+        assertThat(first.join()).isEqualTo("guild");
+        assertThat(otherPath.join()).isEqualTo("other");
+        assertThat(otherType.join()).isEqualTo("other");
+        assertThat(singleFlight.coalescedCount()).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
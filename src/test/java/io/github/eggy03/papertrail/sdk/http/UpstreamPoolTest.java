@@ -0,0 +1,145 @@
+package io.github.eggy03.papertrail.sdk.http;
+
+import io.github.eggy03.papertrail.sdk.metrics.RequestOutcome;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpstreamPoolTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private UpstreamPool pool(LoadBalancing strategy, String... baseUrls) {
+        return new UpstreamPool(Arrays.asList(baseUrls), strategy, 2, TimeUnit.SECONDS.toNanos(10), now::get);
+    }
+
+    @Test
+    void testSelect_singleUpstreamTracksNothing() {
+
+        UpstreamPool pool = new UpstreamPool(Collections.singletonList("http://a"), LoadBalancing.LATENCY_EWMA, 1, 1, now::get);
+        Upstream only = pool.select();
+
+        pool.requestStarted(only);
+        pool.requestCompleted(only, RequestOutcome.UNREACHABLE, 0);
+
+        assertThat(pool.isBalanced()).isFalse();
+        assertThat(pool.tracksLatency()).isFalse();
+        assertThat(pool.select()).isSameAs(only);
+        assertThat(only.outstanding.get()).isZero();
+        assertThat(pool.availableCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testSelect_roundRobin() {
+
+        UpstreamPool pool = pool(LoadBalancing.ROUND_ROBIN, "http://a", "http://b", "http://c");
+
+        assertThat(pool.select().getBaseUrl()).isEqualTo("http://a");
+        assertThat(pool.select().getBaseUrl()).isEqualTo("http://b");
+        assertThat(pool.select().getBaseUrl()).isEqualTo("http://c");
+        assertThat(pool.select().getBaseUrl()).isEqualTo("http://a");
+    }
+
+    @Test
+    void testSelect_leastOutstanding() {
+
+        UpstreamPool pool = pool(LoadBalancing.LEAST_OUTSTANDING, "http://a", "http://b");
+        Upstream busy = pool.select();
+        pool.requestStarted(busy);
+        pool.requestStarted(busy);
+
+        for (int i = 0; i < 4; i++)
+            assertThat(pool.select()).isNotSameAs(busy);
+
+        pool.requestCompleted(busy, RequestOutcome.SUCCESS, 0);
+        pool.requestCompleted(busy, RequestOutcome.SUCCESS, 0);
+        assertThat(busy.outstanding.get()).isZero();
+    }
+
+    @Test
+    void testSelect_latencyEwmaPrefersFasterAndProbesUnmeasured() {
+
+        UpstreamPool pool = pool(LoadBalancing.LATENCY_EWMA, "http://a", "http://b");
+        Upstream slow = pool.select();
+        pool.requestStarted(slow);
+        pool.requestCompleted(slow, RequestOutcome.SUCCESS, TimeUnit.MILLISECONDS.toNanos(200));
+
+        // the other has not answered yet, so it is tried
+        Upstream fast = pool.select();
+        assertThat(fast).isNotSameAs(slow);
+        pool.requestStarted(fast);
+        pool.requestCompleted(fast, RequestOutcome.SUCCESS, TimeUnit.MILLISECONDS.toNanos(10));
+
+        for (int i = 0; i < 4; i++)
+            assertThat(pool.select()).isSameAs(fast);
+        assertThat(pool.tracksLatency()).isTrue();
+    }
+
+    @Test
+    void testEjection_skipsFailingUpstreamUntilItEnds() {
+
+        UpstreamPool pool = pool(LoadBalancing.ROUND_ROBIN, "http://a", "http://b");
+        Upstream failing = pool.select();
+        Upstream healthy = pool.select();
+
+        fail(pool, failing, RequestOutcome.SERVER_ERROR);
+        assertThat(pool.availableCount()).isEqualTo(2);
+        fail(pool, failing, RequestOutcome.UNREACHABLE);
+
+        assertThat(pool.availableCount()).isEqualTo(1);
+        for (int i = 0; i < 4; i++)
+            assertThat(pool.select()).isSameAs(healthy);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(pool.availableCount()).isEqualTo(2);
+        assertThat(Arrays.asList(pool.select(), pool.select())).contains(failing, healthy);
+    }
+
+    @Test
+    void testEjection_growsWhenEjectedAgainAndResetsOnSuccess() {
+
+        UpstreamPool pool = pool(LoadBalancing.ROUND_ROBIN, "http://a", "http://b");
+        Upstream failing = pool.select();
+
+        fail(pool, failing, RequestOutcome.UNREACHABLE);
+        fail(pool, failing, RequestOutcome.UNREACHABLE);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        // failing again right after returning doubles the ejection
+        fail(pool, failing, RequestOutcome.UNREACHABLE);
+        fail(pool, failing, RequestOutcome.UNREACHABLE);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(pool.availableCount()).isEqualTo(1);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(pool.availableCount()).isEqualTo(2);
+
+        pool.requestStarted(failing);
+        pool.requestCompleted(failing, RequestOutcome.SUCCESS, 0);
+        assertThat(failing.ejections).isZero();
+    }
+
+    @Test
+    void testEjection_allEjectedStillSelects() {
+
+        UpstreamPool pool = pool(LoadBalancing.LEAST_OUTSTANDING, "http://a", "http://b");
+        Upstream a = pool.select();
+        Upstream b = pool.select();
+        for (Upstream upstream : Arrays.asList(a, b)) {
+            fail(pool, upstream, RequestOutcome.UNREACHABLE);
+            fail(pool, upstream, RequestOutcome.UNREACHABLE);
+        }
+
+        assertThat(pool.availableCount()).isZero();
+        assertThat(pool.select()).isIn(a, b);
+    }
+
+    private static void fail(UpstreamPool pool, Upstream upstream, RequestOutcome outcome) {
+        pool.requestStarted(upstream);
+        pool.requestCompleted(upstream, outcome, 0);
+    }
+}
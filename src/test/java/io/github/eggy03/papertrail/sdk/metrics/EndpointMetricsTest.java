@@ -0,0 +1,130 @@
+package io.github.eggy03.papertrail.sdk.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EndpointMetricsTest {
+
+    private static final String TEMPLATE = "/api/v1/content/message/{messageId}";
+
+    @Test
+    void testRequestCompleted_countsOutcomes() {
+
+        EndpointMetrics metrics = new EndpointMetrics();
+        complete(metrics, HttpMethod.GET, RequestOutcome.SUCCESS, 1);
+        complete(metrics, HttpMethod.GET, RequestOutcome.SUCCESS, 1);
+        complete(metrics, HttpMethod.GET, RequestOutcome.CLIENT_ERROR, 1);
+        complete(metrics, HttpMethod.GET, RequestOutcome.SERVER_ERROR, 1);
+        complete(metrics, HttpMethod.GET, RequestOutcome.UNREACHABLE, 1);
+        complete(metrics, HttpMethod.GET, RequestOutcome.CANCELLED, 1);
+        complete(metrics, HttpMethod.GET, RequestOutcome.CIRCUIT_OPEN, 1);
+        complete(metrics, HttpMethod.DELETE, RequestOutcome.SUCCESS, 1);
+
+        EndpointSnapshot get = metrics.snapshot(HttpMethod.GET, TEMPLATE).get();
+        assertThat(get.getSuccessCount()).isEqualTo(2);
+        assertThat(get.getClientErrorCount()).isEqualTo(1);
+        assertThat(get.getServerErrorCount()).isEqualTo(1);
+        assertThat(get.getUnreachableCount()).isEqualTo(1);
+        assertThat(get.getCancelledCount()).isEqualTo(1);
+        assertThat(get.getCircuitOpenCount()).isEqualTo(1);
+        assertThat(get.getRequestCount()).isEqualTo(7);
+        assertThat(get.getInFlightCount()).isZero();
+
+        assertThat(metrics.snapshot(HttpMethod.DELETE, TEMPLATE).get().getRequestCount()).isEqualTo(1);
+        assertThat(metrics.snapshot(HttpMethod.PUT, TEMPLATE)).isEmpty();
+        assertThat(metrics.snapshot()).hasSize(2);
+    }
+
+    @Test
+    void testRequestStarted_tracksInFlight() {
+
+        EndpointMetrics metrics = new EndpointMetrics();
+        metrics.requestStarted(HttpMethod.GET, TEMPLATE);
+        metrics.requestStarted(HttpMethod.GET, TEMPLATE);
+        metrics.requestStarted(HttpMethod.POST, "/api/v1/content/message");
+
+        assertThat(metrics.getInFlightCount()).isEqualTo(3);
+        assertThat(metrics.snapshot(HttpMethod.GET, TEMPLATE).get().getInFlightCount()).isEqualTo(2);
+
+        metrics.requestCompleted(HttpMethod.GET, TEMPLATE, RequestOutcome.SUCCESS, 0);
+
+        assertThat(metrics.getInFlightCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testLatencyPercentiles() {
+
+        EndpointMetrics metrics = new EndpointMetrics();
+        for (int millis = 1; millis <= 100; millis++)
+            complete(metrics, HttpMethod.GET, RequestOutcome.SUCCESS, millis);
+
+        EndpointSnapshot snapshot = metrics.snapshot(HttpMethod.GET, TEMPLATE).get();
+
+        assertThat(snapshot.getLatencyPercentile(50).toNanos()).isBetween(ms(50), ms(50) * 1125 / 1000);
+        assertThat(snapshot.getLatencyPercentile(99).toNanos()).isBetween(ms(99), ms(100));
+        assertThat(snapshot.getLatencyPercentile(100)).isEqualTo(Duration.ofMillis(100));
+        assertThat(snapshot.getMaxLatency()).isEqualTo(Duration.ofMillis(100));
+        assertThat(snapshot.getMeanLatency()).isEqualTo(Duration.ofNanos(50_500_000));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.getLatencyPercentile(101));
+    }
+
+    @Test
+    void testLatencyHistogram_bucketsCoverEveryValue() {
+
+        List<Long> values = new ArrayList<>();
+        for (long v = 0; v < 100_000; v = v * 3 / 2 + 1)
+            values.add(v);
+        values.add(Long.MAX_VALUE);
+
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            assertThat(index).isBetween(0, LatencyHistogram.BUCKET_COUNT - 1);
+            assertThat(LatencyHistogram.upperBound(index)).isGreaterThanOrEqualTo(value);
+            assertThat(LatencyHistogram.upperBound(index)).isLessThanOrEqualTo(Math.max(value, value + value / 8));
+            if (index > 0)
+                assertThat(LatencyHistogram.upperBound(index - 1)).isLessThan(value);
+        }
+    }
+
+    @Test
+    void testGauges_sampledOnDemand() {
+
+        EndpointMetrics metrics = new EndpointMetrics();
+        long[] pending = {3};
+        metrics.registerGauge("papertrail.http.blocking.pool.pending", () -> pending[0]);
+
+        assertThat(metrics.gauges()).containsEntry("papertrail.http.blocking.pool.pending", 3L);
+
+        pending[0] = 5;
+        assertThat(metrics.gauges()).containsEntry("papertrail.http.blocking.pool.pending", 5L);
+    }
+
+    @Test
+    void testDisabled_isSingleton() {
+        assertThat(MetricsRecorder.disabled()).isSameAs(MetricsRecorder.disabled());
+    }
+
+    @Test
+    void testRequestOutcome_ofStatus() {
+        assertThat(RequestOutcome.of(204)).isEqualTo(RequestOutcome.SUCCESS);
+        assertThat(RequestOutcome.of(404)).isEqualTo(RequestOutcome.CLIENT_ERROR);
+        assertThat(RequestOutcome.of(503)).isEqualTo(RequestOutcome.SERVER_ERROR);
+    }
+
+    private static void complete(EndpointMetrics metrics, HttpMethod method, RequestOutcome outcome, long millis) {
+        metrics.requestStarted(method, TEMPLATE);
+        metrics.requestCompleted(method, TEMPLATE, outcome, TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,176 @@
+package io.github.eggy03.papertrail.sdk.outbox;
+
+import io.github.eggy03.papertrail.sdk.client.MessageLogContentClient;
+import io.github.eggy03.papertrail.sdk.entity.ErrorEntity;
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import io.vavr.control.Either;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessageOutboxTest {
+
+    private final String messageContent = "test";
+    private final String authorId = "987654321";
+
+    @TempDir
+    Path directory;
+
+    private MessageLogContentClient mockClient;
+    private final AtomicBoolean apiUp = new AtomicBoolean();
+    private final Set<String> rejectedIds = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        mockClient = mock(MessageLogContentClient.class);
+        when(mockClient.logMessageWithResponse(anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            String messageId = invocation.getArgument(0);
+            if (rejectedIds.contains(messageId))
+                return Either.left(new ErrorEntity(400, "Bad Request", "invalid message", "", "/api/v1/content/message"));
+            if (!apiUp.get())
+                return Either.left(new ErrorEntity(503, "API Unreachable", "connection refused", "", "/api/v1/content/message"));
+            return Either.right(new MessageLogContentEntity(messageId, invocation.getArgument(1), invocation.getArgument(2)));
+        });
+    }
+
+    @Test
+    void testLogMessage_sentDirectlyWhileApiIsUp() {
+
+        apiUp.set(true);
+
+        try (MessageOutbox outbox = fastOutbox().build()) {
+            assertThat(outbox.logMessage("1", messageContent, authorId)).isTrue();
+            assertThat(outbox.getPendingCount()).isZero();
+        }
+
+        verify(mockClient).logMessageWithResponse("1", messageContent, authorId);
+    }
+
+    @Test
+    void testLogMessage_journaledDuringOutageAndReplayedInOrder() throws InterruptedException {
+
+        try (MessageOutbox outbox = fastOutbox().build()) {
+            assertThat(outbox.logMessage("1", messageContent, authorId)).isTrue();
+            assertThat(outbox.logMessage("2", messageContent, authorId)).isTrue();
+            assertThat(outbox.defer("3", messageContent, authorId)).isTrue();
+            assertThat(outbox.getPendingCount()).isEqualTo(3);
+
+            apiUp.set(true);
+            awaitDrained(outbox);
+        }
+
+        InOrder order = inOrder(mockClient);
+        order.verify(mockClient, timeout(1000).atLeastOnce()).logMessageWithResponse(eq("1"), anyString(), anyString());
+        order.verify(mockClient).logMessageWithResponse(eq("2"), anyString(), anyString());
+        order.verify(mockClient).logMessageWithResponse(eq("3"), anyString(), anyString());
+    }
+
+    @Test
+    void testReopen_deliversWhatWasLeftBehind() throws InterruptedException {
+
+        try (MessageOutbox outbox = fastOutbox().build()) {
+            outbox.defer("1", messageContent, authorId);
+        }
+
+        apiUp.set(true);
+        try (MessageOutbox outbox = fastOutbox().build()) {
+            awaitDrained(outbox);
+        }
+
+        verify(mockClient).logMessageWithResponse("1", messageContent, authorId);
+    }
+
+    @Test
+    void testMaxAttempts_dropsUndeliverableMessage() throws InterruptedException {
+
+        try (MessageOutbox outbox = fastOutbox().maxAttempts(2).build()) {
+            outbox.defer("1", messageContent, authorId);
+            awaitDrained(outbox);
+        }
+
+        verify(mockClient, timeout(1000).times(2)).logMessageWithResponse("1", messageContent, authorId);
+    }
+
+    @Test
+    void testLogMessage_rejectedMessageNotJournaled() {
+
+        apiUp.set(true);
+        rejectedIds.add("1");
+
+        try (MessageOutbox outbox = fastOutbox().build()) {
+            assertThat(outbox.logMessage("1", messageContent, authorId)).isFalse();
+            assertThat(outbox.getPendingCount()).isZero();
+        }
+    }
+
+    @Test
+    void testReplay_rejectedMessageDoesNotStallTheOthers() throws InterruptedException {
+
+        rejectedIds.add("1");
+
+        try (MessageOutbox outbox = fastOutbox().build()) {
+            outbox.defer("1", messageContent, authorId);
+            outbox.defer("2", messageContent, authorId);
+
+            apiUp.set(true);
+            awaitDrained(outbox);
+        }
+
+        verify(mockClient).logMessageWithResponse("1", messageContent, authorId);
+        verify(mockClient).logMessageWithResponse("2", messageContent, authorId);
+    }
+
+    @Test
+    void testDefer_closedOutboxRejects() {
+
+        MessageOutbox outbox = fastOutbox().build();
+        outbox.close();
+
+        assertThat(outbox.defer("1", messageContent, authorId)).isFalse();
+        assertThat(outbox.logMessage("1", messageContent, authorId)).isFalse();
+        verify(mockClient, never()).logMessageWithResponse(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testBuilder_invalidArguments() {
+        assertThrows(NullPointerException.class, () -> MessageOutbox.builder(null, directory));
+        assertThrows(NullPointerException.class, () -> MessageOutbox.builder(mockClient, null));
+        assertThrows(IllegalArgumentException.class, () -> MessageOutbox.builder(mockClient, directory).segmentSize(1024));
+        assertThrows(NullPointerException.class, () -> MessageOutbox.builder(mockClient, directory).fsyncPolicy(null));
+        assertThrows(IllegalArgumentException.class, () -> MessageOutbox.builder(mockClient, directory).fsyncInterval(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> MessageOutbox.builder(mockClient, directory)
+                .replayBackoff(Duration.ofSeconds(2), Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> MessageOutbox.builder(mockClient, directory).maxAttempts(0));
+    }
+
+    private MessageOutbox.Builder fastOutbox() {
+        return MessageOutbox.builder(mockClient, directory)
+                .segmentSize(4096)
+                .replayBackoff(Duration.ofMillis(1), Duration.ofMillis(5));
+    }
+
+    private static void awaitDrained(MessageOutbox outbox) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (outbox.getPendingCount() > 0 && System.nanoTime() < deadline)
+            Thread.sleep(1);
+        assertThat(outbox.getPendingCount()).isZero();
+    }
+}
@@ -0,0 +1,158 @@
+package io.github.eggy03.papertrail.sdk.outbox;
+
+import io.github.eggy03.papertrail.sdk.entity.MessageLogContentEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutboxJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAppend_readInOrder() throws IOException {
+
+        try (OutboxJournal journal = open(FsyncPolicy.ALWAYS)) {
+            assertThat(journal.append(message("1", "first"))).isTrue();
+            assertThat(journal.append(message("2", "zweite ✓"))).isTrue();
+            assertThat(journal.pendingCount()).isEqualTo(2);
+
+            OutboxJournal.Record first = journal.peek();
+            assertThat(first.entity().getMessageId()).isEqualTo("1");
+            assertThat(journal.peek().entity().getMessageId()).isEqualTo("1");
+            journal.markDelivered(first);
+
+            OutboxJournal.Record second = journal.peek();
+            assertThat(second.entity().getMessageContent()).isEqualTo("zweite ✓");
+            assertThat(second.entity().getAuthorId()).isEqualTo("author");
+            journal.markDelivered(second);
+
+            assertThat(journal.peek()).isNull();
+            assertThat(journal.pendingCount()).isZero();
+        }
+    }
+
+    @Test
+    void testRollOver_deletesDeliveredSegments() throws IOException {
+
+        try (OutboxJournal journal = open(FsyncPolicy.INTERVAL)) {
+            for (int i = 0; i < 200; i++)
+                assertThat(journal.append(message(String.valueOf(i), "content of a message that fills segments"))).isTrue();
+            assertThat(journal.segmentCount()).isGreaterThan(2);
+
+            for (int i = 0; i < 200; i++) {
+                OutboxJournal.Record record = journal.peek();
+                assertThat(record.entity().getMessageId()).isEqualTo(String.valueOf(i));
+                journal.markDelivered(record);
+            }
+
+            assertThat(journal.peek()).isNull();
+            assertThat(journal.segmentCount()).isEqualTo(1);
+            assertThat(segmentFiles()).hasSize(1);
+        }
+    }
+
+    @Test
+    void testReopen_resumesAtFirstUndelivered() throws IOException {
+
+        try (OutboxJournal journal = open(FsyncPolicy.NEVER)) {
+            for (int i = 0; i < 100; i++)
+                journal.append(message(String.valueOf(i), "content of a message that fills segments"));
+            for (int i = 0; i < 60; i++)
+                journal.markDelivered(journal.peek());
+        }
+
+        try (OutboxJournal journal = open(FsyncPolicy.NEVER)) {
+            assertThat(journal.pendingCount()).isEqualTo(40);
+            assertThat(journal.peek().entity().getMessageId()).isEqualTo("60");
+
+            journal.append(message("100", "appended after reopening"));
+            for (int i = 60; i <= 100; i++) {
+                OutboxJournal.Record record = journal.peek();
+                assertThat(record.entity().getMessageId()).isEqualTo(String.valueOf(i));
+                journal.markDelivered(record);
+            }
+            assertThat(journal.pendingCount()).isZero();
+        }
+    }
+
+    @Test
+    void testReopen_cutsOffTornRecord() throws IOException {
+
+        try (OutboxJournal journal = open(FsyncPolicy.ALWAYS)) {
+            journal.append(message("1", "intact"));
+            journal.append(message("2", "torn"));
+        }
+
+        // flip a byte at the end of the second record's payload, as if the crash hit halfway through writing it
+        Path segment = segmentFiles()[0];
+        int secondRecord = JournalSegment.recordSize(payloadLength("1", "intact"));
+        int lastPayloadByte = secondRecord + JournalSegment.HEADER_BYTES + payloadLength("2", "torn") - 1;
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(lastPayloadByte);
+            file.write('x');
+        }
+
+        try (OutboxJournal journal = open(FsyncPolicy.ALWAYS)) {
+            assertThat(journal.pendingCount()).isEqualTo(1);
+            journal.markDelivered(journal.peek());
+
+            journal.append(message("3", "after recovery"));
+            assertThat(journal.peek().entity().getMessageId()).isEqualTo("3");
+        }
+    }
+
+    @Test
+    void testAppend_rejectsRecordLargerThanSegment() throws IOException {
+
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5000; i++)
+            content.append('x');
+
+        try (OutboxJournal journal = open(FsyncPolicy.NEVER)) {
+            assertThat(journal.append(message("1", content.toString()))).isFalse();
+            assertThat(journal.pendingCount()).isZero();
+        }
+    }
+
+    @Test
+    void testAwaitPending_wakesOnAppend() throws Exception {
+
+        try (OutboxJournal journal = open(FsyncPolicy.NEVER)) {
+            assertThat(journal.awaitPending(1, TimeUnit.MILLISECONDS)).isFalse();
+
+            Thread writer = new Thread(() -> journal.append(message("1", "wake up")));
+            writer.start();
+
+            assertThat(journal.awaitPending(5, TimeUnit.SECONDS)).isTrue();
+            writer.join();
+        }
+    }
+
+    private OutboxJournal open(FsyncPolicy fsyncPolicy) throws IOException {
+        return new OutboxJournal(directory, 4096, fsyncPolicy);
+    }
+
+    private Path[] segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> JournalSegment.parseSequence(file.getFileName().toString()) >= 0).sorted().toArray(Path[]::new);
+        }
+    }
+
+    private static int payloadLength(String messageId, String content) {
+        return 2 * Integer.BYTES + messageId.length() + "author".length() + content.length();
+    }
+
+    private static MessageLogContentEntity message(String messageId, String content) {
+        return new MessageLogContentEntity(messageId, content, "author");
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.eggy03.papertrail.sdk.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BulkheadTest {
+
+    @Test
+    void testTryAcquire_refusesBeyondMaxConcurrentCalls() {
+
+        Bulkhead bulkhead = Bulkhead.builder("lookups").maxConcurrentCalls(2).build();
+
+        assertThat(bulkhead.tryAcquire()).isTrue();
+        assertThat(bulkhead.tryAcquire()).isTrue();
+        assertThat(bulkhead.tryAcquire()).isFalse();
+        assertThat(bulkhead.getActiveCount()).isEqualTo(2);
+
+        bulkhead.release();
+        assertThat(bulkhead.tryAcquire()).isTrue();
+        assertThat(bulkhead.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testAcquire_servedWhenPermitReleased() throws Exception {
+
+        Bulkhead bulkhead = Bulkhead.builder("lookups").maxConcurrentCalls(1).maxWait(Duration.ofSeconds(5)).build();
+        assertThat(bulkhead.acquire()).isTrue();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> waiting = executor.submit(() -> bulkhead.acquire());
+            while (bulkhead.getQueuedCount() < 1)
+                Thread.sleep(1);
+
+            bulkhead.release();
+
+            assertThat(waiting.get(5, TimeUnit.SECONDS)).isTrue();
+            // the permit was handed over rather than freed
+            assertThat(bulkhead.getActiveCount()).isEqualTo(1);
+            assertThat(bulkhead.getQueuedCount()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testAcquire_refusesBeyondMaxWait() {
+
+        Bulkhead bulkhead = Bulkhead.builder("lookups").maxConcurrentCalls(1).maxWait(Duration.ofMillis(20)).build();
+        assertThat(bulkhead.tryAcquire()).isTrue();
+
+        assertThat(bulkhead.acquire()).isFalse();
+        assertThat(bulkhead.acquire(1, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(bulkhead.getQueuedCount()).isZero();
+        assertThat(bulkhead.getRejectedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testAcquireAsync_queuedInArrivalOrder() {
+
+        Bulkhead bulkhead = Bulkhead.builder("content").maxConcurrentCalls(1).maxQueuedCalls(2).maxWait(Duration.ofSeconds(5)).build();
+        assertThat(bulkhead.acquireAsync().join()).isTrue();
+
+        CompletableFuture<Boolean> first = bulkhead.acquireAsync();
+        CompletableFuture<Boolean> second = bulkhead.acquireAsync();
+        CompletableFuture<Boolean> refused = bulkhead.acquireAsync();
+
+        assertThat(refused.join()).isFalse();
+        assertThat(first).isNotDone();
+
+        bulkhead.release();
+        assertThat(first.join()).isTrue();
+        assertThat(second).isNotDone();
+
+        bulkhead.release();
+        assertThat(second.join()).isTrue();
+
+        bulkhead.release();
+        assertThat(bulkhead.getActiveCount()).isZero();
+    }
+
+    @Test
+    void testAcquireAsync_refusedAfterMaxWait() {
+
+        Bulkhead bulkhead = Bulkhead.builder("content").maxConcurrentCalls(1).maxWait(Duration.ofMillis(20)).build();
+        assertThat(bulkhead.tryAcquire()).isTrue();
+
+        assertThat(bulkhead.acquireAsync().join()).isFalse();
+        assertThat(bulkhead.getQueuedCount()).isZero();
+
+        // the permit is freed, since nobody is waiting for it any longer
+        bulkhead.release();
+        assertThat(bulkhead.getActiveCount()).isZero();
+    }
+
+    @Test
+    void testBuilder_invalidArguments() {
+
+        assertThrows(IllegalArgumentException.class, () -> Bulkhead.builder(null));
+        assertThrows(IllegalArgumentException.class, () -> Bulkhead.builder(" "));
+        assertThrows(IllegalArgumentException.class, () -> Bulkhead.builder("lookups").maxConcurrentCalls(0));
+        assertThrows(IllegalArgumentException.class, () -> Bulkhead.builder("lookups").maxQueuedCalls(-1));
+        assertThrows(IllegalArgumentException.class, () -> Bulkhead.builder("lookups").maxWait(Duration.ofMillis(-1)));
+        assertThrows(NullPointerException.class, () -> Bulkhead.builder("lookups").maxWait(null));
+    }
+}
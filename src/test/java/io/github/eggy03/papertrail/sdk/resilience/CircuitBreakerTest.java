@@ -0,0 +1,207 @@
+package io.github.eggy03.papertrail.sdk.resilience;
+
+import io.github.eggy03.papertrail.sdk.metrics.RequestOutcome;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<String> transitions = new ArrayList<>();
+
+    private CircuitBreaker.Builder builder() {
+        return CircuitBreaker.builder()
+                .slidingWindowSize(10)
+                .minimumCalls(4)
+                .failureRateThreshold(0.5)
+                .openDuration(Duration.ofSeconds(10))
+                .trialCalls(2)
+                .listener((breaker, from, to) -> transitions.add(from + "->" + to))
+                .ticker(now::get);
+    }
+
+    @Test
+    void testOpensAtFailureRate() {
+
+        CircuitBreaker breaker = builder().build();
+        call(breaker, RequestOutcome.SUCCESS);
+        call(breaker, RequestOutcome.SERVER_ERROR);
+        call(breaker, RequestOutcome.CLIENT_ERROR);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        call(breaker, RequestOutcome.UNREACHABLE);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+        assertThat(transitions).containsExactly("CLOSED->OPEN");
+    }
+
+    @Test
+    void testStaysClosedBelowMinimumCalls() {
+
+        CircuitBreaker breaker = builder().build();
+        for (int i = 0; i < 3; i++)
+            call(breaker, RequestOutcome.UNREACHABLE);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getFailureRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testSlidingWindowForgetsOldOutcomes() {
+
+        CircuitBreaker breaker = builder().build();
+        for (int i = 0; i < 4; i++)
+            call(breaker, RequestOutcome.SUCCESS);
+        call(breaker, RequestOutcome.SERVER_ERROR);
+        call(breaker, RequestOutcome.SERVER_ERROR);
+        for (int i = 0; i < 10; i++)
+            call(breaker, RequestOutcome.SUCCESS);
+
+        assertThat(breaker.getFailureRate()).isZero();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void testHalfOpenProbesCloseAgain() {
+
+        CircuitBreaker breaker = trip(builder().build());
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        breaker.onResult(RequestOutcome.SUCCESS);
+        breaker.onResult(RequestOutcome.SUCCESS);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getFailureRate()).isZero();
+        assertThat(transitions).containsExactly("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED");
+    }
+
+    @Test
+    void testHalfOpenFailureReopens() {
+
+        CircuitBreaker breaker = trip(builder().build());
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.onResult(RequestOutcome.UNREACHABLE);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(transitions).containsExactly("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN", "OPEN->HALF_OPEN");
+    }
+
+    @Test
+    void testHalfOpenCancelledTrialReturnsPermit() {
+
+        CircuitBreaker breaker = trip(builder().build());
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.onResult(RequestOutcome.CANCELLED);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void testHalfOpen_ignoresRequestsSentWhileClosed() {
+
+        CircuitBreaker breaker = builder().build();
+        long sentWhileClosed = breaker.acquirePermission();
+        long cancelledWhileClosed = breaker.acquirePermission();
+        trip(breaker);
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        long trial = breaker.acquirePermission();
+        breaker.onResult(cancelledWhileClosed, RequestOutcome.CANCELLED);
+        breaker.onResult(sentWhileClosed, RequestOutcome.SUCCESS);
+
+        // the cancellation handed back no permit it had not taken, and the success was no probe
+        assertThat(breaker.acquirePermission()).isNotEqualTo(CircuitBreaker.NOT_PERMITTED);
+        assertThat(breaker.acquirePermission()).isEqualTo(CircuitBreaker.NOT_PERMITTED);
+        breaker.onResult(trial, RequestOutcome.SUCCESS);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    }
+
+    @Test
+    void testHalfOpen_noProbeSentOnceOneFailed() {
+
+        // the breaker reads the clock once it has opened, to record when; a concurrent caller gets in right there,
+        // long after the previous open time
+        AtomicReference<CircuitBreaker> holder = new AtomicReference<>();
+        AtomicBoolean failing = new AtomicBoolean();
+        AtomicLong concurrentPermission = new AtomicLong(Long.MIN_VALUE);
+        CircuitBreaker breaker = trip(builder()
+                .trialCalls(2)
+                .ticker(() -> {
+                    CircuitBreaker current = holder.get();
+                    if (failing.get() && current.getState() == CircuitBreaker.State.OPEN && failing.compareAndSet(true, false))
+                        concurrentPermission.set(current.acquirePermission());
+                    return now.get();
+                })
+                .build());
+        holder.set(breaker);
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        long probe = breaker.acquirePermission();
+        failing.set(true);
+        breaker.onResult(probe, RequestOutcome.UNREACHABLE);
+
+        assertThat(concurrentPermission).hasValue(CircuitBreaker.NOT_PERMITTED);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.acquirePermission()).isEqualTo(CircuitBreaker.NOT_PERMITTED);
+    }
+
+    @Test
+    void testDisabled_neverOpens() {
+
+        CircuitBreaker breaker = CircuitBreaker.disabled();
+        for (int i = 0; i < 100; i++)
+            call(breaker, RequestOutcome.UNREACHABLE);
+
+        assertThat(breaker.isEnabled()).isFalse();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+    }
+
+    @Test
+    void testBuilder_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> CircuitBreaker.builder().slidingWindowSize(0));
+        assertThrows(IllegalArgumentException.class, () -> CircuitBreaker.builder().failureRateThreshold(0.0));
+        assertThrows(IllegalArgumentException.class, () -> CircuitBreaker.builder().openDuration(Duration.ZERO));
+        assertThrows(NullPointerException.class, () -> CircuitBreaker.builder().listener(null));
+        assertThrows(IllegalArgumentException.class, () -> CircuitBreaker.builder().slidingWindowSize(5).minimumCalls(6).build());
+    }
+
+    private CircuitBreaker trip(CircuitBreaker breaker) {
+        for (int i = 0; i < 4; i++)
+            call(breaker, RequestOutcome.SERVER_ERROR);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        return breaker;
+    }
+
+    private static void call(CircuitBreaker breaker, RequestOutcome outcome) {
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.onResult(outcome);
+    }
+}
@@ -0,0 +1,146 @@
+package io.github.eggy03.papertrail.sdk.resilience;
+
+import io.github.eggy03.papertrail.sdk.http.Endpoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RateLimiterTest {
+
+    private static final Endpoint LOG_MESSAGE = Endpoint.of(HttpMethod.POST, "/api/v1/content/message");
+    private static final Endpoint RETRIEVE_MESSAGE = Endpoint.of(HttpMethod.GET, "/api/v1/content/message/{messageId}");
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void testTryAcquire_burstThenRefill() {
+
+        RateLimiter limiter = RateLimiter.builder().limit(LOG_MESSAGE, 10, 3).ticker(now::get).build();
+
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isTrue();
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isTrue();
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isTrue();
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isFalse();
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isTrue();
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isFalse();
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 3; i++)
+            assertThat(limiter.tryAcquire(LOG_MESSAGE)).isTrue();
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isFalse();
+    }
+
+    @Test
+    void testRelease_givesTokenBack() {
+
+        RateLimiter limiter = RateLimiter.builder().limit(LOG_MESSAGE, 10, 2).ticker(now::get).build();
+
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isTrue();
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isTrue();
+        limiter.release(LOG_MESSAGE);
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isTrue();
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isFalse();
+
+        // a full bucket has nothing to take back, so releasing never raises it above the burst
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        limiter.release(LOG_MESSAGE);
+        limiter.release(null);
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isTrue();
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isTrue();
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isFalse();
+    }
+
+    @Test
+    void testLimits_perEndpointWithDefault() {
+
+        RateLimiter limiter = RateLimiter.builder()
+                .defaultLimit(1, 2)
+                .limit(LOG_MESSAGE, 1, 1)
+                .ticker(now::get)
+                .build();
+
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isTrue();
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isFalse();
+
+        assertThat(limiter.tryAcquire(RETRIEVE_MESSAGE)).isTrue();
+        assertThat(limiter.tryAcquire(RETRIEVE_MESSAGE)).isTrue();
+        assertThat(limiter.tryAcquire(RETRIEVE_MESSAGE)).isFalse();
+
+        // plain paths share one bucket with the default limit
+        assertThat(limiter.tryAcquire(null)).isTrue();
+        assertThat(limiter.tryAcquire(null)).isTrue();
+        assertThat(limiter.tryAcquire(null)).isFalse();
+    }
+
+    @Test
+    void testWithoutDefaultLimit_onlyConfiguredEndpointsAreLimited() {
+
+        RateLimiter limiter = RateLimiter.builder().limit(LOG_MESSAGE, 1, 1).ticker(now::get).build();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.tryAcquire(RETRIEVE_MESSAGE)).isTrue();
+            assertThat(limiter.tryAcquire(null)).isTrue();
+        }
+    }
+
+    @Test
+    void testAcquire_waitsForToken() {
+
+        RateLimiter limiter = RateLimiter.builder().limit(LOG_MESSAGE, 20, 1).build();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++)
+            assertThat(limiter.acquire(LOG_MESSAGE)).isTrue();
+
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(90));
+    }
+
+    @Test
+    void testAcquire_refusesBeyondMaxWait() {
+
+        RateLimiter limiter = RateLimiter.builder().limit(LOG_MESSAGE, 1, 1).maxWait(Duration.ofMillis(100)).ticker(now::get).build();
+
+        assertThat(limiter.acquire(LOG_MESSAGE)).isTrue();
+        assertThat(limiter.acquire(LOG_MESSAGE)).isFalse();
+        assertThat(limiter.acquireAsync(LOG_MESSAGE).join()).isFalse();
+
+        // refused acquisitions take no token
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(limiter.tryAcquire(LOG_MESSAGE)).isTrue();
+    }
+
+    @Test
+    void testAcquireAsync_completesWhenDue() {
+
+        RateLimiter limiter = RateLimiter.builder().limit(LOG_MESSAGE, 20, 1).build();
+
+        assertThat(limiter.acquireAsync(LOG_MESSAGE).isDone()).isTrue();
+
+        CompletableFuture<Boolean> delayed = limiter.acquireAsync(LOG_MESSAGE);
+        assertThat(delayed.isDone()).isFalse();
+        assertThat(delayed.join()).isTrue();
+    }
+
+    @Test
+    void testUnlimited() {
+        for (int i = 0; i < 100; i++)
+            assertThat(RateLimiter.unlimited().tryAcquire(LOG_MESSAGE)).isTrue();
+    }
+
+    @Test
+    void testBuilder_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> RateLimiter.builder().defaultLimit(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> RateLimiter.builder().defaultLimit(1, 0));
+        assertThrows(NullPointerException.class, () -> RateLimiter.builder().limit(null, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> RateLimiter.builder().maxWait(Duration.ofMillis(-1)));
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.eggy03.papertrail.sdk.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RetryBudgetTest {
+
+    @Test
+    void testTryAcquire_reserveAllowsBurst() {
+
+        RetryBudget budget = RetryBudget.of(0.1, 3);
+
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void testRecordRequest_earnsRetriesByRatio() {
+
+        RetryBudget budget = RetryBudget.of(0.25, 1);
+        assertThat(budget.tryAcquire()).isTrue();
+
+        for (int i = 0; i < 3; i++)
+            budget.recordRequest();
+        assertThat(budget.tryAcquire()).isFalse();
+
+        budget.recordRequest();
+        assertThat(budget.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void testRecordRequest_capsAtReserve() {
+
+        RetryBudget budget = RetryBudget.of(1.0, 2);
+        for (int i = 0; i < 100; i++)
+            budget.recordRequest();
+
+        assertThat(budget.getBalance()).isEqualTo(2.0);
+    }
+
+    @Test
+    void testUnlimited() {
+
+        RetryBudget budget = RetryBudget.unlimited();
+        for (int i = 0; i < 100; i++)
+            assertThat(budget.tryAcquire()).isTrue();
+
+        assertThat(budget.getBalance()).isInfinite();
+    }
+
+    @Test
+    void testOf_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> RetryBudget.of(-0.1, 10));
+        assertThrows(IllegalArgumentException.class, () -> RetryBudget.of(1.1, 10));
+        assertThrows(IllegalArgumentException.class, () -> RetryBudget.of(0.1, 0));
+    }
+}
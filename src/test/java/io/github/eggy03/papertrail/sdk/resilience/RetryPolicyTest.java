@@ -0,0 +1,82 @@
+package io.github.eggy03.papertrail.sdk.resilience;
+
+import io.github.eggy03.papertrail.sdk.metrics.RequestOutcome;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RetryPolicyTest {
+
+    @Test
+    void testShouldRetry_onlyFailuresWithoutResponseOrServerErrors() {
+
+        RetryPolicy policy = RetryPolicy.builder().build();
+
+        assertThat(policy.shouldRetry(HttpMethod.GET, RequestOutcome.UNREACHABLE, true, 1)).isTrue();
+        assertThat(policy.shouldRetry(HttpMethod.GET, RequestOutcome.SERVER_ERROR, true, 1)).isTrue();
+        assertThat(policy.shouldRetry(HttpMethod.GET, RequestOutcome.CLIENT_ERROR, true, 1)).isFalse();
+        assertThat(policy.shouldRetry(HttpMethod.GET, RequestOutcome.SUCCESS, true, 1)).isFalse();
+    }
+
+    @Test
+    void testShouldRetry_stopsAtMaxAttempts() {
+
+        RetryPolicy policy = RetryPolicy.builder().maxAttempts(3).build();
+
+        assertThat(policy.shouldRetry(HttpMethod.DELETE, RequestOutcome.UNREACHABLE, true, 2)).isTrue();
+        assertThat(policy.shouldRetry(HttpMethod.DELETE, RequestOutcome.UNREACHABLE, true, 3)).isFalse();
+        assertThat(RetryPolicy.none().shouldRetry(HttpMethod.GET, RequestOutcome.UNREACHABLE, false, 1)).isFalse();
+    }
+
+    @Test
+    void testShouldRetry_nonIdempotent() {
+
+        RetryPolicy policy = RetryPolicy.builder().build();
+        RetryPolicy lenient = RetryPolicy.builder().retryNonIdempotent(true).build();
+
+        assertThat(policy.shouldRetry(HttpMethod.PUT, RequestOutcome.SERVER_ERROR, true, 1)).isTrue();
+        assertThat(policy.shouldRetry(HttpMethod.POST, RequestOutcome.SERVER_ERROR, true, 1)).isFalse();
+        assertThat(policy.shouldRetry(HttpMethod.POST, RequestOutcome.UNREACHABLE, false, 1)).isTrue();
+        assertThat(lenient.shouldRetry(HttpMethod.POST, RequestOutcome.SERVER_ERROR, true, 1)).isTrue();
+    }
+
+    @Test
+    void testBackoff_growsExponentiallyUpToMax() {
+
+        RetryPolicy policy = RetryPolicy.builder()
+                .initialBackoff(Duration.ofMillis(100))
+                .maxBackoff(Duration.ofMillis(300))
+                .multiplier(2.0)
+                .jitter(0.0)
+                .build();
+
+        assertThat(policy.backoffNanos(1)).isEqualTo(Duration.ofMillis(100).toNanos());
+        assertThat(policy.backoffNanos(2)).isEqualTo(Duration.ofMillis(200).toNanos());
+        assertThat(policy.backoffNanos(3)).isEqualTo(Duration.ofMillis(300).toNanos());
+        assertThat(policy.backoffNanos(30)).isEqualTo(Duration.ofMillis(300).toNanos());
+    }
+
+    @Test
+    void testBackoff_jitterStaysWithinSpread() {
+
+        RetryPolicy policy = RetryPolicy.builder().initialBackoff(Duration.ofMillis(100)).jitter(0.5).build();
+
+        for (int i = 0; i < 1000; i++)
+            assertThat(policy.backoffNanos(1)).isBetween(Duration.ofMillis(50).toNanos(), Duration.ofMillis(100).toNanos());
+    }
+
+    @Test
+    void testBuilder_invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().maxAttempts(0));
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().multiplier(0.5));
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().jitter(1.5));
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder().initialBackoff(Duration.ZERO));
+        assertThrows(NullPointerException.class, () -> RetryPolicy.builder().maxBackoff(null));
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.builder()
+                .initialBackoff(Duration.ofSeconds(2)).maxBackoff(Duration.ofSeconds(1)).build());
+    }
+}